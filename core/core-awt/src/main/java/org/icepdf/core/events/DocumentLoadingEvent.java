@@ -0,0 +1,90 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.events;
+
+import org.icepdf.core.pobjects.Document;
+
+/**
+ * DocumentLoadingEvent's are fired as a document is opened, once when loading
+ * starts, as each loading phase completes and once when loading ends.
+ *
+ * @since 7.1
+ */
+@SuppressWarnings("serial")
+public class DocumentLoadingEvent extends java.util.EventObject {
+
+    /**
+     * Document loading phases in the order they complete.
+     */
+    public enum Phase {
+        /**
+         * The cross reference and trailer dictionary have been located.
+         */
+        CROSS_REFERENCE,
+        /**
+         * The trailer's root catalog has been resolved and any security
+         * handler set up.
+         */
+        TRAILER,
+        /**
+         * The catalog has been initialized.
+         */
+        CATALOG,
+        /**
+         * The first level of the page tree has been checked.
+         */
+        PAGE_TREE
+    }
+
+    private Phase phase;
+    private boolean interrupted;
+
+    public DocumentLoadingEvent(Document documentSource) {
+        super(documentSource);
+    }
+
+    public DocumentLoadingEvent(Document documentSource, Phase phase) {
+        super(documentSource);
+        this.phase = phase;
+    }
+
+    public DocumentLoadingEvent(Document documentSource, boolean interrupted) {
+        super(documentSource);
+        this.interrupted = interrupted;
+    }
+
+    public Document getDocument() {
+        return (Document) getSource();
+    }
+
+    /**
+     * Gets the completed phase.
+     *
+     * @return phase that completed, null for the loading started and ended events.
+     */
+    public Phase getPhase() {
+        return phase;
+    }
+
+    /**
+     * Indication if document loading was successful.
+     *
+     * @return true if loading failed or was cancelled, otherwise false.
+     */
+    public boolean isInterrupted() {
+        return interrupted;
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.events;
+
+/**
+ * The DocumentLoadingListener can be used to follow the progress of a
+ * document as it is opened.  The events are fired on the loading thread in
+ * the following order.
+ * <ul>
+ * <li>documentLoadingStarted(DocumentLoadingEvent event);</li>
+ * <li>documentLoadingPhaseCompleted(DocumentLoadingEvent event), once per phase</li>
+ * <li>documentLoadingEnded(DocumentLoadingEvent event);</li>
+ * </ul>
+ * If the cross reference can't be used and loading falls back to one of the
+ * recovery strategies, the CROSS_REFERENCE and later phases can be reported
+ * more than once.
+ *
+ * @since 7.1
+ */
+public interface DocumentLoadingListener {
+
+    /**
+     * Document loading has started.
+     *
+     * @param event DocumentLoadingEvent
+     */
+    void documentLoadingStarted(DocumentLoadingEvent event);
+
+    /**
+     * A document loading phase has completed.
+     *
+     * @param event DocumentLoadingEvent, getPhase() returns the completed phase.
+     */
+    void documentLoadingPhaseCompleted(DocumentLoadingEvent event);
+
+    /**
+     * Document loading has ended, either successfully or via an error or
+     * cancellation.
+     *
+     * @param event DocumentLoadingEvent can be used to see if the document
+     *              was successfully loaded.
+     */
+    void documentLoadingEnded(DocumentLoadingEvent event);
+}
@@ -0,0 +1,483 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.io;
+
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.WeightedLRUCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * SeekableInput implementation that reads a remote document with HTTP range
+ * requests, so parsing can start before, and often without, the whole file
+ * being downloaded.
+ * <br>
+ * The file is divided into fixed size blocks which are fetched on demand and
+ * kept in a byte bounded least recently used cache.  A miss also reads ahead
+ * the next few missing blocks in the same request, as the Parser mostly reads
+ * forward.  Larger regions, such as the first page section of a linearized
+ * document, can be fetched up front with prefetch().  Threads missing the same
+ * block wait on a single request for it, while different blocks are fetched
+ * in parallel.
+ * <br>
+ * The probe's ETag, or failing that its Last-Modified date, is sent as an
+ * If-Range validator with every later request, and each response's
+ * Content-Range is checked against the bytes asked for, so a document that
+ * changes on the server fails with an IOException rather than mixing blocks
+ * of two versions.
+ * <br>
+ * The block size, read ahead and cache size can be set with the system
+ * properties org.icepdf.core.http.blockSize, org.icepdf.core.http.readAheadBlocks
+ * and org.icepdf.core.http.cacheSize.
+ *
+ * @since 7.1
+ */
+public class HttpRangeSeekableInput extends InputStream implements SeekableInput {
+
+    private static final Logger logger =
+            Logger.getLogger(HttpRangeSeekableInput.class.toString());
+
+    private static int blockSize;
+    private static int readAheadBlocks;
+    private static long cacheSize;
+    // largest single range request made by prefetch.
+    private static final int MAX_REQUEST_SIZE = 8 * 1024 * 1024;
+
+    static {
+        blockSize = Math.max(1024, Defs.intProperty("org.icepdf.core.http.blockSize", 64 * 1024));
+        readAheadBlocks = Math.max(0, Defs.intProperty("org.icepdf.core.http.readAheadBlocks", 4));
+        cacheSize = Math.max((readAheadBlocks + 1) * (long) blockSize * 4,
+                Defs.intProperty("org.icepdf.core.http.cacheSize", 64 * 1024 * 1024));
+    }
+
+    private final URL url;
+    private final long length;
+    // strong ETag or Last-Modified date of the probe, null if the server sent neither.
+    private final String validator;
+    private final WeightedLRUCache<Long, byte[]> blocks;
+    // blocks being fetched, a thread missing one of these waits for its
+    // request rather than downloading it again.
+    private final ConcurrentHashMap<Long, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    private long position;
+    private long markPosition;
+    // block under the stream position, saves a cache lookup per byte read.
+    private byte[] currentBlock;
+    private long currentBlockIndex;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * Probes the server for range request support.
+     *
+     * @param url location of the document.
+     * @return seekable input over the document, null if the server doesn't
+     * support range requests.
+     * @throws IOException if the server could not be reached.
+     */
+    public static HttpRangeSeekableInput build(URL url) throws IOException {
+        HttpURLConnection connection = openConnection(url, 0, blockSize - 1, null);
+        try {
+            if (connection.getResponseCode() != HttpURLConnection.HTTP_PARTIAL) {
+                return null;
+            }
+            long[] contentRange = parseContentRange(connection.getHeaderField("Content-Range"));
+            if (contentRange == null || contentRange[0] != 0 ||
+                    contentRange[1] != Math.min(blockSize, contentRange[2]) - 1) {
+                return null;
+            }
+            String validator = connection.getHeaderField("ETag");
+            // If-Range only accepts a strong entity tag.
+            if (validator == null || validator.startsWith("W/")) {
+                validator = connection.getHeaderField("Last-Modified");
+            }
+            HttpRangeSeekableInput input = new HttpRangeSeekableInput(url, contentRange[2], validator);
+            // keep the probe's data, it holds the header and linearization dictionary.
+            try (InputStream in = connection.getInputStream()) {
+                input.storeBlocks(in, 0, (int) Math.min(blockSize, contentRange[2]), null);
+            }
+            return input;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    protected HttpRangeSeekableInput(URL url, long length, String validator) {
+        this.url = url;
+        this.length = length;
+        this.validator = validator;
+        blocks = new WeightedLRUCache<>(cacheSize, 4, block -> block.length);
+    }
+
+    /**
+     * Fetches any missing blocks in the given range, coalescing them into as
+     * few requests as possible.  Blocks already being fetched by another
+     * thread are skipped.
+     *
+     * @param start  start of the range.
+     * @param count  number of bytes in the range.
+     * @throws IOException if the range could not be fetched.
+     */
+    public void prefetch(long start, long count) throws IOException {
+        long end = Math.min(length, start + count);
+        if (start < 0 || start >= end) {
+            return;
+        }
+        long firstBlock = start / blockSize;
+        long lastBlock = (end - 1) / blockSize;
+        int maxBlocksPerRequest = Math.max(1, MAX_REQUEST_SIZE / blockSize);
+        long block = firstBlock;
+        while (block <= lastBlock) {
+            CompletableFuture<byte[]> pending = claim(block);
+            if (pending == null) {
+                block++;
+                continue;
+            }
+            List<CompletableFuture<byte[]>> run = claimRun(block, pending, lastBlock, maxBlocksPerRequest);
+            fetch(block, run);
+            block += run.size();
+        }
+    }
+
+    public URL getUrl() {
+        return url;
+    }
+
+    //
+    // InputStream overrides
+    //
+
+    public int read() throws IOException {
+        if (position >= length) {
+            return -1;
+        }
+        long blockIndex = position / blockSize;
+        byte[] block = currentBlock;
+        if (block == null || blockIndex != currentBlockIndex) {
+            block = getBlock(blockIndex);
+            currentBlock = block;
+            currentBlockIndex = blockIndex;
+        }
+        int value = block[(int) (position - blockIndex * blockSize)] & 0xFF;
+        position++;
+        return value;
+    }
+
+    public int read(byte[] buffer) throws IOException {
+        return read(buffer, 0, buffer.length);
+    }
+
+    public int read(byte[] buffer, int offset, int len) throws IOException {
+        int read = read(position, buffer, offset, len);
+        if (read > 0) {
+            position += read;
+        }
+        return read;
+    }
+
+    public void close() throws IOException {
+        currentBlock = null;
+        blocks.clear();
+    }
+
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - position));
+    }
+
+    public void mark(int readLimit) {
+        markPosition = position;
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public void reset() throws IOException {
+        position = markPosition;
+    }
+
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = Math.min(n, Math.max(0, length - position));
+        position += skipped;
+        return skipped;
+    }
+
+    //
+    // SeekableInput implementation
+    //  (which are not already covered by InputStream overrides)
+    //
+
+    public void seekAbsolute(long absolutePosition) throws IOException {
+        if (absolutePosition < 0L) {
+            throw new IOException("Attempt to absolutely seek to negative location: " + absolutePosition);
+        }
+        position = absolutePosition;
+    }
+
+    public void seekRelative(long relativeOffset) throws IOException {
+        long pos = position + relativeOffset;
+        if (pos < 0L)
+            pos = 0L;
+        position = pos;
+    }
+
+    public void seekEnd() throws IOException {
+        position = length;
+    }
+
+    public long getAbsolutePosition() {
+        return position;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public InputStream getInputStream() {
+        return this;
+    }
+
+    public int read(long absolutePosition, byte[] buffer, int offset, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (absolutePosition < 0 || absolutePosition >= length) {
+            return -1;
+        }
+        int totalRead = 0;
+        long pos = absolutePosition;
+        while (totalRead < len && pos < length) {
+            long blockIndex = pos / blockSize;
+            byte[] block = getBlock(blockIndex);
+            int blockOffset = (int) (pos - blockIndex * blockSize);
+            int count = Math.min(len - totalRead, block.length - blockOffset);
+            System.arraycopy(block, blockOffset, buffer, offset + totalRead, count);
+            totalRead += count;
+            pos += count;
+        }
+        return totalRead;
+    }
+
+    public void beginThreadAccess() {
+        lock.lock();
+    }
+
+    public void endThreadAccess() {
+        lock.unlock();
+    }
+
+    private byte[] getBlock(long blockIndex) throws IOException {
+        byte[] block = blocks.get(blockIndex);
+        if (block != null) {
+            return block;
+        }
+        CompletableFuture<byte[]> pending = claim(blockIndex);
+        if (pending == null) {
+            // fetched since the first look, or being fetched by another thread.
+            CompletableFuture<byte[]> other = inFlight.get(blockIndex);
+            if (other != null) {
+                return await(other);
+            }
+            block = blocks.get(blockIndex);
+            return block != null ? block : getBlock(blockIndex);
+        }
+        long lastBlock = (length - 1) / blockSize;
+        fetch(blockIndex, claimRun(blockIndex, pending, lastBlock, readAheadBlocks + 1));
+        return await(pending);
+    }
+
+    /**
+     * Claims a block for fetching.
+     *
+     * @return future to complete with the block, null if the block is cached
+     * or another thread is already fetching it.
+     */
+    private CompletableFuture<byte[]> claim(long blockIndex) {
+        if (blocks.get(blockIndex) != null) {
+            return null;
+        }
+        CompletableFuture<byte[]> pending = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(blockIndex, pending) != null) {
+            return null;
+        }
+        // a fetch that finished between the two lookups has already cached it.
+        if (blocks.get(blockIndex) != null) {
+            inFlight.remove(blockIndex, pending);
+            return null;
+        }
+        return pending;
+    }
+
+    /**
+     * Claims the blocks following a claimed first block, up to maxBlocks in
+     * all and stopping at the first one that is cached or being fetched.
+     */
+    private List<CompletableFuture<byte[]>> claimRun(long firstBlock, CompletableFuture<byte[]> first,
+                                                     long lastBlock, int maxBlocks) {
+        List<CompletableFuture<byte[]>> run = new ArrayList<>(maxBlocks);
+        run.add(first);
+        for (long block = firstBlock + 1; block <= lastBlock && run.size() < maxBlocks; block++) {
+            CompletableFuture<byte[]> pending = claim(block);
+            if (pending == null) {
+                break;
+            }
+            run.add(pending);
+        }
+        return run;
+    }
+
+    private byte[] await(CompletableFuture<byte[]> pending) throws IOException {
+        try {
+            return pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for range request: " + url);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+        }
+    }
+
+    /**
+     * Fetches the claimed blocks starting at firstBlock in a single range
+     * request.  Each claimed block is completed, exceptionally if the request
+     * fails, and released.
+     */
+    private void fetch(long firstBlock, List<CompletableFuture<byte[]>> run) throws IOException {
+        long start = firstBlock * blockSize;
+        long end = Math.min(length, (firstBlock + run.size()) * blockSize) - 1;
+        if (logger.isLoggable(Level.FINER)) {
+            logger.finer("Range request " + start + "-" + end + " " + url);
+        }
+        try {
+            HttpURLConnection connection = openConnection(url, start, end, validator);
+            try {
+                int responseCode = connection.getResponseCode();
+                if (responseCode == HttpURLConnection.HTTP_OK && validator != null) {
+                    throw new IOException("Document changed on the server: " + url);
+                } else if (responseCode != HttpURLConnection.HTTP_PARTIAL) {
+                    throw new IOException("Range request failed with response " + responseCode + ": " + url);
+                }
+                long[] contentRange = parseContentRange(connection.getHeaderField("Content-Range"));
+                if (contentRange == null || contentRange[0] != start || contentRange[1] != end ||
+                        contentRange[2] != length) {
+                    throw new IOException("Range response " + connection.getHeaderField("Content-Range") +
+                            " doesn't match request " + start + "-" + end + "/" + length + ": " + url);
+                }
+                try (InputStream in = connection.getInputStream()) {
+                    storeBlocks(in, firstBlock, (int) (end - start + 1), run);
+                }
+            } finally {
+                connection.disconnect();
+            }
+        } catch (IOException | RuntimeException e) {
+            for (int i = 0; i < run.size(); i++) {
+                if (run.get(i).completeExceptionally(e)) {
+                    inFlight.remove(firstBlock + i, run.get(i));
+                }
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Splits count bytes read from the response into blocks and caches them,
+     * completing and releasing the matching claimed block if there is one.
+     */
+    private void storeBlocks(InputStream in, long firstBlock, int count,
+                             List<CompletableFuture<byte[]>> run) throws IOException {
+        long blockIndex = firstBlock;
+        int remaining = count;
+        while (remaining > 0) {
+            byte[] block = new byte[Math.min(blockSize, remaining)];
+            int read = 0;
+            while (read < block.length) {
+                int current = in.read(block, read, block.length - read);
+                if (current < 0) {
+                    throw new IOException("Range response ended early: " + url);
+                }
+                read += current;
+            }
+            blocks.put(blockIndex, block);
+            if (run != null) {
+                CompletableFuture<byte[]> pending = run.get((int) (blockIndex - firstBlock));
+                // cached before release, so a thread that finds no claim finds the block.
+                inFlight.remove(blockIndex, pending);
+                pending.complete(block);
+            }
+            remaining -= block.length;
+            blockIndex++;
+        }
+    }
+
+    private static HttpURLConnection openConnection(URL url, long start, long end, String validator)
+            throws IOException {
+        URLConnection urlConnection = url.openConnection();
+        if (!(urlConnection instanceof HttpURLConnection)) {
+            throw new IOException("Range requests need a http connection: " + url);
+        }
+        HttpURLConnection connection = (HttpURLConnection) urlConnection;
+        connection.setRequestProperty("Range", "bytes=" + start + "-" + end);
+        if (validator != null) {
+            // the whole, changed, document comes back as a 200 instead of the range.
+            connection.setRequestProperty("If-Range", validator);
+        }
+        // a transparently decompressed response would break the byte offsets.
+        connection.setRequestProperty("Accept-Encoding", "identity");
+        return connection;
+    }
+
+    /**
+     * Parses a "bytes start-end/length" header.
+     *
+     * @return start, end and complete length, null if the header is missing,
+     * malformed or the length is unknown.
+     */
+    private static long[] parseContentRange(String contentRange) {
+        if (contentRange == null || !contentRange.startsWith("bytes ")) {
+            return null;
+        }
+        int dash = contentRange.indexOf('-');
+        int slash = contentRange.lastIndexOf('/');
+        if (dash < 0 || slash < dash) {
+            return null;
+        }
+        try {
+            return new long[]{
+                    Long.parseLong(contentRange.substring(6, dash).trim()),
+                    Long.parseLong(contentRange.substring(dash + 1, slash).trim()),
+                    // unknown length, "*", fails here too.
+                    Long.parseLong(contentRange.substring(slash + 1).trim())};
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * SeekableInput implementation backed by a memory mapped file.  Unlike the
+ * RandomAccessFileInputStream every single byte read is served from the
+ * mapped pages rather than going through a system call, which makes the
+ * byte at a time reads done by the Parser considerably cheaper on large files.
+ * <br>
+ * A single MappedByteBuffer can address at most 2GB, so the file is mapped
+ * as a series of fixed size segments and a long position is split into a
+ * segment index and segment offset.
+ *
+ * @since 7.1
+ */
+public class MemoryMappedFileInputStream extends InputStream implements SeekableInput {
+
+    // 1GB segments, keeps the segment math to shifts and masks.
+    private static final int SEGMENT_SHIFT = 30;
+    private static final long SEGMENT_SIZE = 1L << SEGMENT_SHIFT;
+    private static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private FileChannel fileChannel;
+    private ByteBuffer[] segments;
+    private final long length;
+    private long position;
+    private long markPosition;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    public static MemoryMappedFileInputStream build(File file) throws IOException {
+        return build(file.toPath());
+    }
+
+    public static MemoryMappedFileInputStream build(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            return new MemoryMappedFileInputStream(channel);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    protected MemoryMappedFileInputStream(FileChannel channel) throws IOException {
+        super();
+        fileChannel = channel;
+        length = channel.size();
+        int segmentCount = (int) ((length + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+        segments = new ByteBuffer[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            long segmentStart = (long) i << SEGMENT_SHIFT;
+            long segmentLength = Math.min(SEGMENT_SIZE, length - segmentStart);
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentLength);
+        }
+    }
+
+
+    //
+    // InputStream overrides
+    //
+
+    public int read() throws IOException {
+        if (position >= length) {
+            return -1;
+        }
+        ByteBuffer segment = getSegment(position);
+        int value = segment.get((int) (position & SEGMENT_MASK)) & 0xFF;
+        position++;
+        return value;
+    }
+
+    public int read(byte[] buffer) throws IOException {
+        return read(buffer, 0, buffer.length);
+    }
+
+    public int read(byte[] buffer, int offset, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (position >= length) {
+            return -1;
+        }
+        int totalRead = 0;
+        while (totalRead < len && position < length) {
+            ByteBuffer segment = getSegment(position);
+            int segmentOffset = (int) (position & SEGMENT_MASK);
+            int count = Math.min(len - totalRead, segment.limit() - segmentOffset);
+            segment.position(segmentOffset);
+            segment.get(buffer, offset + totalRead, count);
+            totalRead += count;
+            position += count;
+        }
+        return totalRead;
+    }
+
+    public void close() throws IOException {
+        // mapped buffers can't be explicitly unmapped, dropping the references
+        // lets the gc release the mapping.
+        segments = null;
+        if (fileChannel != null) {
+            fileChannel.close();
+            fileChannel = null;
+        }
+    }
+
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - position));
+    }
+
+    public void mark(int readLimit) {
+        markPosition = position;
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public void reset() throws IOException {
+        position = markPosition;
+    }
+
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = Math.min(n, Math.max(0, length - position));
+        position += skipped;
+        return skipped;
+    }
+
+
+    //
+    // SeekableInput implementation
+    //  (which are not already covered by InputStream overrides)
+    //
+
+    public void seekAbsolute(long absolutePosition) throws IOException {
+        if (absolutePosition < 0L) {
+            throw new IOException("Attempt to absolutely seek to negative location: " + absolutePosition);
+        }
+        position = absolutePosition;
+    }
+
+    public void seekRelative(long relativeOffset) throws IOException {
+        long pos = position + relativeOffset;
+        if (pos < 0L)
+            pos = 0L;
+        position = pos;
+    }
+
+    public void seekEnd() throws IOException {
+        seekAbsolute(length);
+    }
+
+    public long getAbsolutePosition() throws IOException {
+        return position;
+    }
+
+    public long getLength() throws IOException {
+        return length;
+    }
+
+    public InputStream getInputStream() {
+        return this;
+    }
+
+    public int read(long absolutePosition, byte[] buffer, int offset, int len) throws IOException {
+        if (absolutePosition < 0 || absolutePosition >= length) {
+            return -1;
+        }
+        int totalRead = 0;
+        long pos = absolutePosition;
+        while (totalRead < len && pos < length) {
+            // duplicate so the segment's own position is never shared between threads.
+            ByteBuffer segment = getSegment(pos).duplicate();
+            int segmentOffset = (int) (pos & SEGMENT_MASK);
+            int count = Math.min(len - totalRead, segment.limit() - segmentOffset);
+            segment.position(segmentOffset);
+            segment.get(buffer, offset + totalRead, count);
+            totalRead += count;
+            pos += count;
+        }
+        return totalRead;
+    }
+
+    public void beginThreadAccess() {
+        lock.lock();
+    }
+
+    public void endThreadAccess() {
+        lock.unlock();
+    }
+
+    private ByteBuffer getSegment(long absolutePosition) throws IOException {
+        ByteBuffer[] mappedSegments = segments;
+        if (mappedSegments == null) {
+            throw new IOException("Memory mapped input has been closed.");
+        }
+        return mappedSegments[(int) (absolutePosition >>> SEGMENT_SHIFT)];
+    }
+}
@@ -16,6 +16,8 @@
 package org.icepdf.core.io;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -133,6 +135,21 @@ public class RandomAccessFileInputStream extends InputStream implements Seekable
         return this;
     }
 
+    public int read(long position, byte[] buffer, int offset, int length) throws IOException {
+        // channel reads at a given position leave the file pointer alone.
+        FileChannel channel = m_RandomAccessFile.getChannel();
+        ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, offset, length);
+        int totalRead = 0;
+        while (byteBuffer.hasRemaining()) {
+            int read = channel.read(byteBuffer, position + totalRead);
+            if (read < 0) {
+                break;
+            }
+            totalRead += read;
+        }
+        return totalRead == 0 && length > 0 ? -1 : totalRead;
+    }
+
     public void beginThreadAccess() {
         lock.lock();
 
@@ -79,6 +79,16 @@ public class SeekableByteArrayInputStream extends ByteArrayInputStream implement
         return this;
     }
 
+    public int read(long position, byte[] buffer, int offset, int length) {
+        long start = m_iBeginningOffset + position;
+        if (position < 0 || start >= count) {
+            return -1;
+        }
+        int read = (int) Math.min(length, count - start);
+        System.arraycopy(buf, (int) start, buffer, offset, read);
+        return read;
+    }
+
 
     public void beginThreadAccess() {
         lock.lock();
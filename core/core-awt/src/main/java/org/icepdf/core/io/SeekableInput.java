@@ -66,6 +66,40 @@ public interface SeekableInput {
     InputStream getInputStream();
 
 
+    //
+    // Positional reads, which neither use nor move the shared cursor and can
+    //  be called concurrently by several threads.
+    //
+
+    /**
+     * Reads up to length bytes starting at the given absolute position without
+     * changing the current position.  Implementations backed by a file channel
+     * or memory should override this; the default falls back to a locked
+     * seek and read which restores the previous position.
+     *
+     * @param position absolute position of the first byte to read.
+     * @param buffer   buffer to read the bytes into.
+     * @param offset   offset in buffer to start writing at.
+     * @param length   maximum number of bytes to read.
+     * @return number of bytes read, -1 if position is at or past the end of the input.
+     * @throws IOException error reading the input.
+     */
+    default int read(long position, byte[] buffer, int offset, int length) throws IOException {
+        beginThreadAccess();
+        try {
+            long savedPosition = getAbsolutePosition();
+            try {
+                seekAbsolute(position);
+                return read(buffer, offset, length);
+            } finally {
+                seekAbsolute(savedPosition);
+            }
+        } finally {
+            endThreadAccess();
+        }
+    }
+
+
     //
     // For regulating competing Threads' access to our state and I/O
     //
@@ -19,40 +19,45 @@ import java.io.IOException;
 import java.io.InputStream;
 
 /**
+ * Constrains reads to a section of a SeekableInput, generally the data of a
+ * stream object.  The wrapper keeps its own position and reads via the
+ * positional SeekableInput.read(long, byte[], int, int) call, so reading the
+ * stream data doesn't disturb the position of the parser that found it.
+ *
  * @author Mark Collette
  * @since 2.0
  */
 public class SeekableInputConstrainedWrapper extends InputStream {
+
+    private static final int READ_AHEAD_SIZE = 512;
+
     private SeekableInput streamDataInput;
     private long filePositionOfStreamData;
     private long lengthOfStreamData;
-    private long filePositionBeforeUse;
-    private boolean usedYet;
+    // position relative to filePositionOfStreamData
+    private long position;
+    private long markPosition;
+
+    // read ahead for single byte reads, allocated on first use.
+    private byte[] readAhead;
+    private long readAheadStart;
+    private int readAheadCount;
 
     public SeekableInputConstrainedWrapper(
             SeekableInput in, long offset, long length) {
+        // a cursor only passes positional reads through, so hold on to the
+        // shared input and let the cursor and its buffer be collected.
+        if (in instanceof SeekableInputCursor) {
+            in = ((SeekableInputCursor) in).getSource();
+        }
         streamDataInput = in;
         filePositionOfStreamData = offset;
         lengthOfStreamData = length;
-        filePositionBeforeUse = 0L;
-        usedYet = false;
-    }
-
-
-    private void ensureReadyOnFirstUse() throws IOException {
-        if (usedYet)
-            return;
-        usedYet = true;
-        filePositionBeforeUse = streamDataInput.getAbsolutePosition();
-        streamDataInput.seekAbsolute(filePositionOfStreamData);
+        position = 0L;
     }
 
-    private long getBytesRemaining() throws IOException {
-        long absPos = streamDataInput.getAbsolutePosition();
-        if (absPos < filePositionOfStreamData)
-            return -1;
-        long end = filePositionOfStreamData + lengthOfStreamData;
-        return end - absPos;
+    private long getBytesRemaining() {
+        return lengthOfStreamData - position;
     }
 
 
@@ -62,11 +67,20 @@ public class SeekableInputConstrainedWrapper extends InputStream {
     //  explicitly expose InputStream's methods as part of our interface
     //
     public int read() throws IOException {
-        ensureReadyOnFirstUse();
-        long remain = getBytesRemaining();
-        if (remain <= 0)
-            return -1;
-        return streamDataInput.read();
+        if (position < readAheadStart || position >= readAheadStart + readAheadCount) {
+            long remain = getBytesRemaining();
+            if (remain <= 0)
+                return -1;
+            if (readAhead == null)
+                readAhead = new byte[READ_AHEAD_SIZE];
+            int read = streamDataInput.read(filePositionOfStreamData + position, readAhead, 0,
+                    (int) Math.min(remain, readAhead.length));
+            if (read <= 0)
+                return -1;
+            readAheadStart = position;
+            readAheadCount = read;
+        }
+        return readAhead[(int) (position++ - readAheadStart)] & 0xFF;
     }
 
     public int read(byte[] buffer) throws IOException {
@@ -74,13 +88,46 @@ public class SeekableInputConstrainedWrapper extends InputStream {
     }
 
     public int read(byte[] buffer, int offset, int length) throws IOException {
-        ensureReadyOnFirstUse();
         long remain = getBytesRemaining();
 
         if (remain <= 0)
             return -1;
         length = (int) Math.min(Math.min(remain, (long) length), (long) Integer.MAX_VALUE);
-        return streamDataInput.read(buffer, offset, length);
+        int totalRead = 0;
+        // serve what we can from the read ahead buffer first
+        if (position >= readAheadStart && position < readAheadStart + readAheadCount) {
+            totalRead = (int) Math.min(length, readAheadStart + readAheadCount - position);
+            System.arraycopy(readAhead, (int) (position - readAheadStart), buffer, offset, totalRead);
+            position += totalRead;
+        }
+        while (totalRead < length) {
+            int read = streamDataInput.read(
+                    filePositionOfStreamData + position, buffer, offset + totalRead, length - totalRead);
+            if (read <= 0)
+                break;
+            totalRead += read;
+            position += read;
+        }
+        return totalRead == 0 ? -1 : totalRead;
+    }
+
+    /**
+     * Positional read relative to the start of the constrained section, the
+     * wrapper's own position is left alone.
+     *
+     * @param relativePosition position relative to the start of the section.
+     * @param buffer           buffer to read the bytes into.
+     * @param offset           offset in buffer to start writing at.
+     * @param length           maximum number of bytes to read.
+     * @return number of bytes read, -1 if relativePosition is at or past the end of the section.
+     * @throws IOException error reading the underlying input.
+     */
+    public int read(long relativePosition, byte[] buffer, int offset, int length) throws IOException {
+        long remain = lengthOfStreamData - relativePosition;
+        if (relativePosition < 0 || remain <= 0)
+            return -1;
+        length = (int) Math.min(remain, (long) length);
+        return streamDataInput.read(filePositionOfStreamData + relativePosition, buffer, offset, length);
     }
 
     public int available() {
@@ -88,22 +135,24 @@ public class SeekableInputConstrainedWrapper extends InputStream {
     }
 
     public void mark(int readLimit) {
+        markPosition = position;
     }
 
     public boolean markSupported() {
-        return false;
+        return true;
     }
 
     public void reset() throws IOException {
+        position = markPosition;
     }
 
     public long skip(long n) throws IOException {
-        ensureReadyOnFirstUse();
         long remain = getBytesRemaining();
         if (remain <= 0)
             return -1;
-        n = (int) Math.min(Math.min(remain, n), (long) Integer.MAX_VALUE);
-        return streamDataInput.skip(n);
+        n = Math.min(remain, n);
+        position += n;
+        return n;
     }
 
 
@@ -112,36 +161,28 @@ public class SeekableInputConstrainedWrapper extends InputStream {
     //
 
     public void seekAbsolute(long absolutePosition) throws IOException {
-        ensureReadyOnFirstUse();
         // The wrapper exists in a different coordinate system,
         //   where its beginning is location 0
         if (absolutePosition < 0L)
             throw new IOException("Attempt to absolutely seek to negative location: " + absolutePosition);
         // It's alright to seek beyond the end, it's just that read operations will fail
-        absolutePosition += filePositionOfStreamData;
-        streamDataInput.seekAbsolute(absolutePosition);
+        position = absolutePosition;
     }
 
     public void seekRelative(long relativeOffset) throws IOException {
-        ensureReadyOnFirstUse();
-        long pos = streamDataInput.getAbsolutePosition();
-        pos += relativeOffset;
-        if (pos < filePositionOfStreamData)
-            pos = filePositionOfStreamData;
+        long pos = position + relativeOffset;
+        if (pos < 0L)
+            pos = 0L;
         // It's alright to seek beyond the end, it's just that read operations will fail
-        streamDataInput.seekAbsolute(pos);
+        position = pos;
     }
 
     public void seekEnd() throws IOException {
-        ensureReadyOnFirstUse();
-        streamDataInput.seekAbsolute(filePositionOfStreamData + lengthOfStreamData);
+        position = lengthOfStreamData;
     }
 
     public long getAbsolutePosition() throws IOException {
-        ensureReadyOnFirstUse();
-        long absolutePosition = getAbsolutePosition();
-        absolutePosition -= filePositionOfStreamData;
-        return absolutePosition;
+        return position;
     }
 
     public long getLength() {
@@ -160,7 +201,7 @@ public class SeekableInputConstrainedWrapper extends InputStream {
         sb.append(" ( ");
         sb.append("pos=").append(filePositionOfStreamData).append(", ");
         sb.append("len=").append(lengthOfStreamData).append(", ");
-        sb.append("posToRestore=").append(filePositionBeforeUse).append(", ");
+        sb.append("relativePos=").append(position).append(", ");
         sb.append(" ) ");
         sb.append(": ");
         if (streamDataInput == null)
@@ -0,0 +1,199 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A private read cursor over a shared SeekableInput.  All reads are done with
+ * the positional SeekableInput.read(long, byte[], int, int) call so the shared
+ * input's own position is never touched, which allows several threads to parse
+ * objects out of the same document at the same time.
+ * <br>
+ * A cursor is meant to be confined to a single thread, usually for the life of
+ * one Parser.getObject() call, and reads ahead into a small buffer so the byte
+ * at a time reads done by the Parser don't each turn into a positional read.
+ * Closing a cursor does not close the underlying input.
+ *
+ * @since 7.1
+ */
+public class SeekableInputCursor extends InputStream implements SeekableInput {
+
+    private static final int DEFAULT_BUFFER_SIZE = 4096;
+
+    private final SeekableInput source;
+    private final long length;
+    private long position;
+    private long markPosition;
+
+    private final byte[] buffer;
+    private long bufferStart;
+    private int bufferCount;
+
+    public SeekableInputCursor(SeekableInput source, long position) throws IOException {
+        this(source, position, DEFAULT_BUFFER_SIZE);
+    }
+
+    public SeekableInputCursor(SeekableInput source, long position, int bufferSize) throws IOException {
+        this.source = source;
+        this.position = position;
+        length = source.getLength();
+        buffer = new byte[bufferSize];
+    }
+
+    //
+    // InputStream overrides
+    //
+
+    public int read() throws IOException {
+        if (position < bufferStart || position >= bufferStart + bufferCount) {
+            if (!fill(position)) {
+                return -1;
+            }
+        }
+        int value = buffer[(int) (position - bufferStart)] & 0xFF;
+        position++;
+        return value;
+    }
+
+    public int read(byte[] b) throws IOException {
+        return read(b, 0, b.length);
+    }
+
+    public int read(byte[] b, int offset, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        // serve what we can from the read ahead buffer
+        if (position >= bufferStart && position < bufferStart + bufferCount) {
+            int count = (int) Math.min(len, bufferStart + bufferCount - position);
+            System.arraycopy(buffer, (int) (position - bufferStart), b, offset, count);
+            position += count;
+            return count;
+        }
+        // large reads go straight to the source
+        if (len >= buffer.length) {
+            int read = source.read(position, b, offset, len);
+            if (read > 0) {
+                position += read;
+            }
+            return read;
+        }
+        if (!fill(position)) {
+            return -1;
+        }
+        return read(b, offset, len);
+    }
+
+    public int read(long absolutePosition, byte[] b, int offset, int len) throws IOException {
+        return source.read(absolutePosition, b, offset, len);
+    }
+
+    public void close() throws IOException {
+        // the source is shared, so it's left open.
+        bufferCount = 0;
+    }
+
+    public int available() {
+        return (int) Math.min(Integer.MAX_VALUE, Math.max(0, length - position));
+    }
+
+    public void mark(int readLimit) {
+        markPosition = position;
+    }
+
+    public boolean markSupported() {
+        return true;
+    }
+
+    public void reset() throws IOException {
+        position = markPosition;
+    }
+
+    public long skip(long n) throws IOException {
+        if (n <= 0) {
+            return 0;
+        }
+        long skipped = Math.min(n, Math.max(0, length - position));
+        position += skipped;
+        return skipped;
+    }
+
+    //
+    // SeekableInput implementation
+    //  (which are not already covered by InputStream overrides)
+    //
+
+    public void seekAbsolute(long absolutePosition) throws IOException {
+        if (absolutePosition < 0L) {
+            throw new IOException("Attempt to absolutely seek to negative location: " + absolutePosition);
+        }
+        position = absolutePosition;
+    }
+
+    public void seekRelative(long relativeOffset) throws IOException {
+        long pos = position + relativeOffset;
+        if (pos < 0L)
+            pos = 0L;
+        position = pos;
+    }
+
+    public void seekEnd() throws IOException {
+        position = length;
+    }
+
+    public long getAbsolutePosition() {
+        return position;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public InputStream getInputStream() {
+        return this;
+    }
+
+    /**
+     * Gets the shared input this cursor reads from.
+     *
+     * @return shared seekable input.
+     */
+    public SeekableInput getSource() {
+        return source;
+    }
+
+    /**
+     * Cursors are thread confined so there is nothing to regulate.
+     */
+    public void beginThreadAccess() {
+    }
+
+    public void endThreadAccess() {
+    }
+
+    private boolean fill(long absolutePosition) throws IOException {
+        bufferStart = absolutePosition;
+        bufferCount = 0;
+        int read = source.read(absolutePosition, buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        bufferCount = read;
+        return true;
+    }
+}
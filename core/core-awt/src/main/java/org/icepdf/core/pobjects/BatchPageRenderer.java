@@ -0,0 +1,593 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.GraphicsRenderingHints;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Rasterizes a range of pages through a pipeline of stages, each with its
+ * own threads: pages are initialized, their images decoded, painted and then
+ * handed to a sink which typically encodes them to disk.  The stages are
+ * connected by bounded queues and only a fixed number of pages are in the
+ * pipeline at any time, so a slow sink holds back the rest of the pipeline
+ * rather than letting page images pile up in memory.  Peak memory is roughly
+ * the number of pages in flight times the size of a page image.
+ * <br>
+ * Pages are handed to the sink in page order unless ordering is turned off,
+ * in which case pages are handed out as soon as they are painted by as many
+ * threads as the output stage has.  A page that can't be rendered is
+ * reported to the sink and the rest of the batch carries on.  The time each
+ * stage spends on the pages is reported in the statistics returned by
+ * render(), the stage with the lowest throughput is the one to give more
+ * threads.
+ * <br>
+ * The default number of pages in flight can be set with the system property
+ * org.icepdf.core.batchRenderer.pagesInFlight, and the default number of
+ * rasterizing threads with org.icepdf.core.batchRenderer.rasterizeThreads.
+ * The other stages default to one thread each.
+ *
+ * @since 7.1
+ */
+public class BatchPageRenderer {
+
+    private static final Logger logger =
+            Logger.getLogger(BatchPageRenderer.class.toString());
+
+    private static int defaultPagesInFlight;
+    private static int defaultRasterizeThreads;
+
+    static {
+        defaultRasterizeThreads = Math.max(1, Defs.intProperty("org.icepdf.core.batchRenderer.rasterizeThreads",
+                Runtime.getRuntime().availableProcessors()));
+        defaultPagesInFlight = Math.max(1, Defs.intProperty("org.icepdf.core.batchRenderer.pagesInFlight",
+                defaultRasterizeThreads * 2));
+    }
+
+    /**
+     * Stages of the pipeline, in the order a page passes through them.
+     */
+    public enum Stage {
+        /**
+         * Page lookup and content parsing.
+         */
+        INIT,
+        /**
+         * Decoding of the page's images.
+         */
+        DECODE,
+        /**
+         * Painting of the page image.
+         */
+        RASTERIZE,
+        /**
+         * Hand off to the sink.
+         */
+        OUTPUT
+    }
+
+    /**
+     * Receives the rendered pages.  Calls are made from the output stage's
+     * threads, by a single thread in page order when the renderer is ordered.
+     */
+    public interface PageSink {
+
+        /**
+         * Called with each page image.  The image isn't used by the renderer
+         * once the call returns, its raster can be read directly.
+         *
+         * @param pageNumber page number, zero-based.
+         * @param image      page image.
+         * @throws IOException page could not be written, the page is
+         *                     reported to pageFailed().
+         */
+        void pageRendered(int pageNumber, BufferedImage image) throws IOException;
+
+        /**
+         * Called when a page could not be rendered or written.
+         *
+         * @param pageNumber page number, zero-based.
+         * @param cause      reason the page failed.
+         */
+        void pageFailed(int pageNumber, Throwable cause);
+    }
+
+    /**
+     * Writes each page to its own file with ImageIO, in any format ImageIO
+     * has a writer for, such as png or tiff.  Failed pages are logged.
+     */
+    public static class ImageFileSink implements PageSink {
+
+        private final File directory;
+        private final String prefix;
+        private final String format;
+
+        /**
+         * @param directory folder the images are written to.
+         * @param prefix    file name prefix, the page number and format are
+         *                  appended, for example page_12.png.
+         * @param format    ImageIO format name and file extension.
+         */
+        public ImageFileSink(File directory, String prefix, String format) {
+            this.directory = directory;
+            this.prefix = prefix;
+            this.format = format;
+        }
+
+        public void pageRendered(int pageNumber, BufferedImage image) throws IOException {
+            File file = new File(directory, prefix + pageNumber + "." + format);
+            if (!ImageIO.write(image, format, file)) {
+                throw new IOException("No ImageIO writer for format " + format);
+            }
+        }
+
+        public void pageFailed(int pageNumber, Throwable cause) {
+            logger.log(Level.WARNING, "Could not render page " + pageNumber, cause);
+        }
+    }
+
+    /**
+     * Per stage statistics of a batch.  Busy time is summed over a stage's
+     * threads, so throughput is the rate the stage could sustain on its own.
+     */
+    public static class Statistics {
+
+        private final Map<Stage, Integer> threads;
+        private final Map<Stage, AtomicLong> pages = new EnumMap<>(Stage.class);
+        private final Map<Stage, AtomicLong> busyTime = new EnumMap<>(Stage.class);
+        private final AtomicLong failedPages = new AtomicLong();
+        private final long startTime = System.nanoTime();
+        private volatile long elapsedTime;
+
+        Statistics(Map<Stage, Integer> threads) {
+            this.threads = new EnumMap<>(threads);
+            for (Stage stage : Stage.values()) {
+                pages.put(stage, new AtomicLong());
+                busyTime.put(stage, new AtomicLong());
+            }
+        }
+
+        void record(Stage stage, long startTime) {
+            pages.get(stage).incrementAndGet();
+            busyTime.get(stage).addAndGet(System.nanoTime() - startTime);
+        }
+
+        void finish() {
+            elapsedTime = System.nanoTime() - startTime;
+        }
+
+        /**
+         * @param stage pipeline stage.
+         * @return number of pages the stage has finished with.
+         */
+        public long getPageCount(Stage stage) {
+            return pages.get(stage).get();
+        }
+
+        /**
+         * @param stage pipeline stage.
+         * @return time spent in the stage summed over its threads, in nanoseconds.
+         */
+        public long getBusyTime(Stage stage) {
+            return busyTime.get(stage).get();
+        }
+
+        /**
+         * @param stage pipeline stage.
+         * @return pages a second the stage can process with its threads.
+         */
+        public double getThroughput(Stage stage) {
+            long busy = getBusyTime(stage);
+            return busy > 0 ? getPageCount(stage) * threads.get(stage) * 1e9 / busy : 0;
+        }
+
+        /**
+         * @return number of pages reported to the sink as failed.
+         */
+        public long getFailedPageCount() {
+            return failedPages.get();
+        }
+
+        /**
+         * @return wall clock time of the batch in nanoseconds.
+         */
+        public long getElapsedTime() {
+            return elapsedTime;
+        }
+
+        public String toString() {
+            StringBuilder value = new StringBuilder("Statistics[elapsed=")
+                    .append(TimeUnit.NANOSECONDS.toMillis(elapsedTime)).append("ms, failed=")
+                    .append(failedPages.get());
+            for (Stage stage : Stage.values()) {
+                value.append(", ").append(stage).append("=").append(getPageCount(stage))
+                        .append(" pages/").append(threads.get(stage)).append(" threads/")
+                        .append(String.format("%.2f", getThroughput(stage))).append(" pps");
+            }
+            return value.append("]").toString();
+        }
+    }
+
+    private final Document document;
+
+    private final Map<Stage, Integer> threads = new EnumMap<>(Stage.class);
+    private int pagesInFlight = defaultPagesInFlight;
+    private boolean ordered = true;
+    private boolean releasePages = true;
+    private float dpi = 72;
+    private float rotation;
+    private int boundary = Page.BOUNDARY_CROPBOX;
+    private int renderHintType = GraphicsRenderingHints.PRINT;
+    private boolean paintAnnotations = true;
+
+    public BatchPageRenderer(Document document) {
+        this.document = document;
+        threads.put(Stage.INIT, 1);
+        threads.put(Stage.DECODE, 1);
+        threads.put(Stage.RASTERIZE, defaultRasterizeThreads);
+        threads.put(Stage.OUTPUT, 1);
+    }
+
+    /**
+     * Renders a range of pages, returning once every page has been handed to
+     * the sink.
+     *
+     * @param startPage first page to render, zero-based.
+     * @param endPage   page after the last page to render.
+     * @param sink      receives the page images.
+     * @return statistics of the batch.
+     * @throws InterruptedException thread interrupted, pages still in the
+     *                              pipeline are abandoned.
+     */
+    public Statistics render(int startPage, int endPage, PageSink sink) throws InterruptedException {
+        int pageCount = document.getNumberOfPages();
+        if (startPage < 0 || endPage > pageCount || startPage > endPage) {
+            throw new IndexOutOfBoundsException("Page range " + startPage + " to " + endPage +
+                    " is outside of the document's " + pageCount + " pages.");
+        }
+        Batch batch = new Batch(startPage, sink);
+        try {
+            for (int pageNumber = startPage; pageNumber < endPage; pageNumber++) {
+                batch.inFlight.acquire();
+                batch.init.execute(new Job(batch, pageNumber));
+            }
+            // every page is done once all the permits are back.
+            batch.inFlight.acquire(pagesInFlight);
+        } finally {
+            batch.shutdown();
+        }
+        batch.statistics.finish();
+        logger.fine(batch.statistics.toString());
+        return batch.statistics;
+    }
+
+    // state of a single call to render(), the stage executors' queues are
+    // bounded by the pages in flight so a hand off never has to wait.
+    private class Batch {
+        final PageSink sink;
+        final Semaphore inFlight = new Semaphore(pagesInFlight);
+        final Statistics statistics = new Statistics(getStageThreads());
+        final ThreadPoolExecutor init = createStage(Stage.INIT);
+        final ThreadPoolExecutor decode = createStage(Stage.DECODE);
+        final ThreadPoolExecutor rasterize = createStage(Stage.RASTERIZE);
+        final ThreadPoolExecutor output = createStage(Stage.OUTPUT);
+        // pages waiting on an earlier page when ordered, guarded by itself.
+        final TreeMap<Integer, Job> pending = new TreeMap<>();
+        int nextPage;
+
+        Batch(int startPage, PageSink sink) {
+            this.sink = sink;
+            nextPage = startPage;
+        }
+
+        void shutdown() {
+            init.shutdownNow();
+            decode.shutdownNow();
+            rasterize.shutdownNow();
+            output.shutdownNow();
+        }
+    }
+
+    // threads each stage runs with, ordered output is written by one thread.
+    private Map<Stage, Integer> getStageThreads() {
+        Map<Stage, Integer> stageThreads = new EnumMap<>(threads);
+        if (ordered) {
+            stageThreads.put(Stage.OUTPUT, 1);
+        }
+        return stageThreads;
+    }
+
+    private ThreadPoolExecutor createStage(Stage stage) {
+        int count = getStageThreads().get(stage);
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(count, count, 0, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(pagesInFlight));
+        executor.setThreadFactory(command -> {
+            Thread newThread = new Thread(command);
+            newThread.setName("ICEpdf-batch-" + stage.name().toLowerCase());
+            newThread.setPriority(Thread.NORM_PRIORITY);
+            newThread.setDaemon(true);
+            return newThread;
+        });
+        return executor;
+    }
+
+    // a page making its way through the stages, a failed page skips ahead
+    // to the output stage.
+    private class Job implements Runnable {
+        final Batch batch;
+        final int pageNumber;
+        Stage stage = Stage.INIT;
+        Page page;
+        BufferedImage image;
+        Throwable failure;
+
+        Job(Batch batch, int pageNumber) {
+            this.batch = batch;
+            this.pageNumber = pageNumber;
+        }
+
+        public void run() {
+            if (stage == Stage.OUTPUT) {
+                output();
+                return;
+            }
+            long startTime = System.nanoTime();
+            try {
+                switch (stage) {
+                    case INIT:
+                        page = document.getPageTree().getPage(pageNumber);
+                        if (page == null) {
+                            throw new IllegalStateException("Page " + pageNumber + " not found.");
+                        }
+                        page.init();
+                        break;
+                    case DECODE:
+                        page.getImages();
+                        break;
+                    case RASTERIZE:
+                        image = paint(page);
+                        if (releasePages) {
+                            page.evictInitializedState();
+                        }
+                        page = null;
+                        break;
+                }
+                batch.statistics.record(stage, startTime);
+                stage = Stage.values()[stage.ordinal() + 1];
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                failure = e;
+                stage = Stage.OUTPUT;
+            } catch (Throwable e) {
+                failure = e;
+                stage = Stage.OUTPUT;
+            }
+            try {
+                next().execute(this);
+            } catch (RejectedExecutionException e) {
+                if (batch.output.isShutdown()) {
+                    // the batch has been abandoned.
+                    return;
+                }
+                // the queues hold every page in flight so this shouldn't
+                // happen, but a dropped page would keep its permit and
+                // render() would never return.
+                failure = e;
+                stage = Stage.OUTPUT;
+                output();
+            }
+        }
+
+        private ThreadPoolExecutor next() {
+            switch (stage) {
+                case DECODE:
+                    return batch.decode;
+                case RASTERIZE:
+                    return batch.rasterize;
+                default:
+                    return batch.output;
+            }
+        }
+
+        private void output() {
+            if (!ordered) {
+                write();
+                return;
+            }
+            // uncontended, the output stage has a single thread when ordered.
+            synchronized (batch.pending) {
+                batch.pending.put(pageNumber, this);
+                Job job;
+                while ((job = batch.pending.remove(batch.nextPage)) != null) {
+                    batch.nextPage++;
+                    job.write();
+                }
+            }
+        }
+
+        private void write() {
+            long startTime = System.nanoTime();
+            try {
+                if (failure == null) {
+                    try {
+                        batch.sink.pageRendered(pageNumber, image);
+                        batch.statistics.record(Stage.OUTPUT, startTime);
+                    } catch (Throwable e) {
+                        failure = e;
+                    }
+                }
+                if (failure != null) {
+                    batch.statistics.failedPages.incrementAndGet();
+                    batch.sink.pageFailed(pageNumber, failure);
+                }
+            } catch (Throwable e) {
+                logger.log(Level.WARNING, "Page sink failed on page " + pageNumber, e);
+            } finally {
+                if (image != null) {
+                    image.flush();
+                    image = null;
+                }
+                batch.inFlight.release();
+            }
+        }
+    }
+
+    BufferedImage paint(Page page) throws InterruptedException {
+        float zoom = dpi / 72f;
+        PDimension size = page.getSize(boundary, rotation, zoom);
+        BufferedImage image = new BufferedImage(Math.max(1, (int) size.getWidth()),
+                Math.max(1, (int) size.getHeight()), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            page.paint(g, renderHintType, boundary, rotation, zoom, paintAnnotations, false);
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    public int getThreads(Stage stage) {
+        return threads.get(stage);
+    }
+
+    /**
+     * Sets the number of threads working on a stage.  The output stage only
+     * uses more than one thread when the renderer isn't ordered.
+     *
+     * @param stage   pipeline stage.
+     * @param threads number of threads.
+     */
+    public void setThreads(Stage stage, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("A stage needs at least one thread.");
+        }
+        this.threads.put(stage, threads);
+    }
+
+    public int getPagesInFlight() {
+        return pagesInFlight;
+    }
+
+    /**
+     * Sets the number of pages allowed in the pipeline at the same time,
+     * which bounds the memory used by the batch.  It should be at least the
+     * total number of threads to keep them all busy.
+     *
+     * @param pagesInFlight maximum number of pages in the pipeline.
+     */
+    public void setPagesInFlight(int pagesInFlight) {
+        if (pagesInFlight < 1) {
+            throw new IllegalArgumentException("At least one page must be in flight.");
+        }
+        this.pagesInFlight = pagesInFlight;
+    }
+
+    public boolean isOrdered() {
+        return ordered;
+    }
+
+    /**
+     * @param ordered true to hand pages to the sink in page order.
+     */
+    public void setOrdered(boolean ordered) {
+        this.ordered = ordered;
+    }
+
+    public boolean isReleasePages() {
+        return releasePages;
+    }
+
+    /**
+     * @param releasePages true to drop each page's parsed content once it has
+     *                     been painted, which keeps long batches from
+     *                     holding on to every page they have rendered.
+     */
+    public void setReleasePages(boolean releasePages) {
+        this.releasePages = releasePages;
+    }
+
+    public float getDpi() {
+        return dpi;
+    }
+
+    /**
+     * @param dpi resolution in dots per inch, 72 renders pages at their actual size.
+     */
+    public void setDpi(float dpi) {
+        if (dpi <= 0) {
+            throw new IllegalArgumentException("Resolution must be greater than zero.");
+        }
+        this.dpi = dpi;
+    }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    /**
+     * @param rotation page rotation in degrees, 0, 90, 180 or 270.
+     */
+    public void setRotation(float rotation) {
+        this.rotation = rotation;
+    }
+
+    public int getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * @param boundary page boundary to render, typically Page.BOUNDARY_CROPBOX.
+     */
+    public void setBoundary(int boundary) {
+        this.boundary = boundary;
+    }
+
+    public int getRenderHintType() {
+        return renderHintType;
+    }
+
+    /**
+     * @param renderHintType GraphicsRenderingHints.SCREEN or GraphicsRenderingHints.PRINT.
+     */
+    public void setRenderHintType(int renderHintType) {
+        this.renderHintType = renderHintType;
+    }
+
+    public boolean isPaintAnnotations() {
+        return paintAnnotations;
+    }
+
+    public void setPaintAnnotations(boolean paintAnnotations) {
+        this.paintAnnotations = paintAnnotations;
+    }
+}
@@ -24,7 +24,10 @@ import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -240,6 +243,44 @@ public class CrossReference {
         return entry;
     }
 
+    /**
+     * Copies every entry visible through this cross reference into the given
+     * map, loading any peer and previous sections along the way.  Entries
+     * already in the map are kept, so the result has the same precedence as
+     * getEntryForObject().
+     *
+     * @param entries map to add the resolved entries to.
+     */
+    void collectEntries(Map<Integer, Entry> entries) {
+        Set<CrossReference> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        collectEntries(this, entries, visited);
+    }
+
+    private static void collectEntries(CrossReference xref, Map<Integer, Entry> entries,
+                                       Set<CrossReference> visited) {
+        // a broken /Prev chain can point back on itself.
+        if (xref == null || !visited.add(xref)) {
+            return;
+        }
+        for (Map.Entry<Integer, Entry> entry : xref.hObjectNumber2Entry.entrySet()) {
+            entries.putIfAbsent(entry.getKey(), entry.getValue());
+        }
+        xref.loadPeer();
+        collectEntries(xref.xrefPeer, entries, visited);
+        xref.loadPrevious();
+        collectEntries(xref.xrefPrevious, entries, visited);
+    }
+
+    /**
+     * Copies the entries of the given section into this one, replacing any
+     * existing entries.  Peer and previous sections are not loaded.
+     *
+     * @param section cross reference section to copy entries from.
+     */
+    void addEntries(CrossReference section) {
+        hObjectNumber2Entry.putAll(section.hObjectNumber2Entry);
+    }
+
     public void addToEndOfChainOfPreviousXRefs(CrossReference prev) {
         if (xrefPrevious == null)
             xrefPrevious = prev;
@@ -0,0 +1,357 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.io.SeekableInput;
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.Library;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * On disk index of a document's resolved cross reference, so reopening the
+ * same file doesn't have to walk the /Prev chain and xref streams again, or
+ * for a damaged file, repeat the linear traversal.
+ * <br>
+ * Index files are content addressed; the name is a digest of the file length,
+ * the bytes at the head and tail of the file, the startxref offset and the
+ * cross reference section it points to along with its trailer and /ID, so
+ * any incremental update or rewrite of the cross reference results in a new
+ * index.  The file's last modified time is also recorded and checked when it
+ * is known.  The index holds the flattened object number to offset or
+ * object stream/index mapping along with the handful of trailer values needed
+ * to bootstrap the document.  Encrypted documents are never indexed.
+ * <br>
+ * The cache is disabled by default and can be enabled with the system property
+ * org.icepdf.core.xrefcache.enabled=true, index files are written to
+ * org.icepdf.core.xrefcache.dir which defaults to a folder in java.io.tmpdir.
+ *
+ * @since 7.1
+ */
+public class CrossReferenceCache {
+
+    private static final Logger logger =
+            Logger.getLogger(CrossReferenceCache.class.toString());
+
+    private static final int MAGIC = 0x49585246; // IXRF
+    private static final int VERSION = 1;
+    // number of bytes digested at the head and tail of the file.
+    private static final int SAMPLE_SIZE = 64 * 1024;
+    // most bytes digested from the startxref offset on, enough to cover the
+    // cross reference section and trailer of all but the largest documents.
+    private static final int XREF_SAMPLE_SIZE = 1024 * 1024;
+    private static final byte[] STARTXREF = "startxref".getBytes();
+
+    private static final byte TYPE_USED = 1;
+    private static final byte TYPE_COMPRESSED = 2;
+
+    private static boolean enabled;
+    private static Path cacheDirectory;
+
+    static {
+        enabled = Defs.sysPropertyBoolean("org.icepdf.core.xrefcache.enabled", false);
+        cacheDirectory = Paths.get(Defs.sysProperty("org.icepdf.core.xrefcache.dir",
+                Defs.sysProperty("java.io.tmpdir", ".") + File.separator + "icepdf-xref"));
+    }
+
+    private final long length;
+    private final long lastModified;
+    private final Path indexFile;
+
+    private CrossReferenceCache(long length, long lastModified, Path indexFile) {
+        this.length = length;
+        this.lastModified = lastModified;
+        this.indexFile = indexFile;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Identifies the document backed by the given input.
+     *
+     * @param input        document input, only positional reads are used.
+     * @param lastModified last modified time of the file, zero if unknown.
+     * @return cache for the document, null if caching is disabled or the
+     * document could not be identified.
+     */
+    public static CrossReferenceCache open(SeekableInput input, long lastModified) {
+        return enabled ? open(input, lastModified, cacheDirectory) : null;
+    }
+
+    static CrossReferenceCache open(SeekableInput input, long lastModified, Path directory) {
+        try {
+            long length = input.getLength();
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] buffer = new byte[(int) Math.min(SAMPLE_SIZE, length)];
+            digest.update(Long.toString(length).getBytes());
+            digestRange(input, digest, buffer, 0);
+            int tailLength = digestRange(input, digest, buffer, Math.max(0, length - buffer.length));
+            // the last section holds the trailer /ID and points to any older sections.
+            long startXref = findStartXref(buffer, tailLength);
+            digest.update(Long.toString(startXref).getBytes());
+            if (startXref > 0 && startXref < length) {
+                long end = Math.min(length, startXref + XREF_SAMPLE_SIZE);
+                for (long position = startXref; position < end; ) {
+                    int read = digestRange(input, digest, buffer, position,
+                            (int) Math.min(buffer.length, end - position));
+                    if (read <= 0) {
+                        break;
+                    }
+                    position += read;
+                }
+            }
+            StringBuilder name = new StringBuilder(48);
+            for (byte b : digest.digest()) {
+                name.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            name.append(".xref");
+            return new CrossReferenceCache(length, lastModified, directory.resolve(name.toString()));
+        } catch (IOException | NoSuchAlgorithmException e) {
+            logger.log(Level.FINE, "Could not identify document for xref cache.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Loads the document trailer from the index file, the trailer's primary
+     * cross reference holds every entry of the original xref chain.
+     *
+     * @param library document library.
+     * @return document trailer, null if there is no valid index for the document.
+     */
+    public PTrailer load(Library library) {
+        if (!Files.isRegularFile(indexFile)) {
+            return null;
+        }
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != length) {
+                return null;
+            }
+            long indexLastModified = in.readLong();
+            if (lastModified != 0 && indexLastModified != 0 && indexLastModified != lastModified) {
+                return null;
+            }
+            // trailer values
+            HashMap<Object, Object> dictionary = new HashMap<>();
+            long position = in.readLong();
+            dictionary.put(PTrailer.SIZE_KEY, in.readInt());
+            dictionary.put(PTrailer.ROOT_KEY, new Reference(in.readInt(), in.readInt()));
+            if (in.readBoolean()) {
+                dictionary.put(PTrailer.INFO_KEY, new Reference(in.readInt(), in.readInt()));
+            }
+            if (in.readBoolean()) {
+                dictionary.put(PTrailer.TYPE_KEY, new Name("XRef"));
+            }
+            int idCount = in.readInt();
+            if (idCount > 0) {
+                List<Object> id = new ArrayList<>(idCount);
+                for (int i = 0; i < idCount; i++) {
+                    id.add(new HexStringObject(in.readUTF()));
+                }
+                dictionary.put(PTrailer.ID_KEY, id);
+            }
+            // flattened cross reference
+            CrossReference crossReference = new CrossReference();
+            int entryCount = in.readInt();
+            for (int i = 0; i < entryCount; i++) {
+                int objectNumber = in.readInt();
+                byte type = in.readByte();
+                if (type == TYPE_USED) {
+                    crossReference.addUsedEntry(objectNumber, in.readLong(), in.readInt());
+                } else if (type == TYPE_COMPRESSED) {
+                    crossReference.addCompressedEntry(objectNumber, in.readInt(), in.readInt());
+                } else {
+                    return null;
+                }
+            }
+            PTrailer trailer = new PTrailer(library, dictionary, crossReference, null);
+            trailer.setPosition(position);
+            return trailer;
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.FINE, "Could not read xref cache " + indexFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Writes the index for the document described by the trailer.  The whole
+     * cross reference chain is resolved, so this should be called once the
+     * document has been successfully loaded.
+     *
+     * @param trailer document trailer.
+     */
+    public void save(PTrailer trailer) {
+        if (trailer == null || trailer.getEncrypt() != null ||
+                !(trailer.getDictionary().get(PTrailer.ROOT_KEY) instanceof Reference)) {
+            return;
+        }
+        CrossReference primary = trailer.getPrimaryCrossReference();
+        if (primary == null) {
+            return;
+        }
+        Map<Integer, CrossReference.Entry> entries = new HashMap<>();
+        primary.collectEntries(entries);
+        Path tempFile = null;
+        try {
+            Path directory = indexFile.getParent();
+            Files.createDirectories(directory);
+            tempFile = Files.createTempFile(directory, "index", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(length);
+                out.writeLong(lastModified);
+                // trailer values
+                out.writeLong(trailer.getPosition());
+                out.writeInt(trailer.getNumberOfObjects());
+                Reference root = (Reference) trailer.getDictionary().get(PTrailer.ROOT_KEY);
+                out.writeInt(root.getObjectNumber());
+                out.writeInt(root.getGenerationNumber());
+                Object info = trailer.getDictionary().get(PTrailer.INFO_KEY);
+                out.writeBoolean(info instanceof Reference);
+                if (info instanceof Reference) {
+                    out.writeInt(((Reference) info).getObjectNumber());
+                    out.writeInt(((Reference) info).getGenerationNumber());
+                }
+                out.writeBoolean(trailer.isCompressedXref());
+                List<?> id = trailer.getID();
+                int idCount = 0;
+                if (id != null) {
+                    for (Object value : id) {
+                        if (value instanceof StringObject) idCount++;
+                    }
+                }
+                out.writeInt(idCount);
+                if (idCount > 0) {
+                    for (Object value : id) {
+                        if (value instanceof StringObject) {
+                            out.writeUTF(((StringObject) value).getHexString());
+                        }
+                    }
+                }
+                // flattened cross reference, sorted so the object stream lookups stay close together.
+                Map<Integer, CrossReference.Entry> sorted = new TreeMap<>(entries);
+                out.writeInt(sorted.size());
+                for (Map.Entry<Integer, CrossReference.Entry> mapEntry : sorted.entrySet()) {
+                    CrossReference.Entry entry = mapEntry.getValue();
+                    out.writeInt(mapEntry.getKey());
+                    if (entry instanceof CrossReference.UsedEntry) {
+                        CrossReference.UsedEntry usedEntry = (CrossReference.UsedEntry) entry;
+                        out.writeByte(TYPE_USED);
+                        // offset already includes any prefix junk correction.
+                        out.writeLong(usedEntry.getFilePositionOfObject());
+                        out.writeInt(usedEntry.getGenerationNumber());
+                    } else {
+                        CrossReference.CompressedEntry compressedEntry = (CrossReference.CompressedEntry) entry;
+                        out.writeByte(TYPE_COMPRESSED);
+                        out.writeInt(compressedEntry.getObjectNumberOfContainingObjectStream());
+                        out.writeInt(compressedEntry.getIndexWithinObjectStream());
+                    }
+                }
+            }
+            Files.move(tempFile, indexFile, StandardCopyOption.REPLACE_EXISTING);
+            tempFile = null;
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.FINE, "Could not write xref cache " + indexFile, e);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException e) {
+                    // forget about it.
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the index file, used when the index didn't match the document.
+     */
+    public void invalidate() {
+        try {
+            Files.deleteIfExists(indexFile);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Could not remove xref cache " + indexFile, e);
+        }
+    }
+
+    private static int digestRange(SeekableInput input, MessageDigest digest,
+                                   byte[] buffer, long position) throws IOException {
+        return digestRange(input, digest, buffer, position, buffer.length);
+    }
+
+    private static int digestRange(SeekableInput input, MessageDigest digest,
+                                   byte[] buffer, long position, int length) throws IOException {
+        int total = 0;
+        while (total < length) {
+            int read = input.read(position + total, buffer, total, length - total);
+            if (read <= 0) {
+                break;
+            }
+            total += read;
+        }
+        digest.update(buffer, 0, total);
+        return total;
+    }
+
+    // offset following the last startxref keyword in the tail, -1 if not found.
+    private static long findStartXref(byte[] tail, int tailLength) {
+        for (int i = tailLength - STARTXREF.length; i >= 0; i--) {
+            int match = 0;
+            while (match < STARTXREF.length && tail[i + match] == STARTXREF[match]) {
+                match++;
+            }
+            if (match < STARTXREF.length) {
+                continue;
+            }
+            int position = i + STARTXREF.length;
+            while (position < tailLength && Character.isWhitespace(tail[position])) {
+                position++;
+            }
+            long offset = 0;
+            int digits = 0;
+            while (position < tailLength && tail[position] >= '0' && tail[position] <= '9' && digits < 18) {
+                offset = offset * 10 + (tail[position++] - '0');
+                digits++;
+            }
+            return digits > 0 ? offset : -1;
+        }
+        return -1;
+    }
+}
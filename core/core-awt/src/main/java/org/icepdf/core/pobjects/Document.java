@@ -17,6 +17,8 @@ package org.icepdf.core.pobjects;
 
 import org.icepdf.core.SecurityCallback;
 import org.icepdf.core.application.ProductInfo;
+import org.icepdf.core.events.DocumentLoadingEvent;
+import org.icepdf.core.events.DocumentLoadingListener;
 import org.icepdf.core.exceptions.PDFException;
 import org.icepdf.core.exceptions.PDFSecurityException;
 import org.icepdf.core.io.*;
@@ -26,10 +28,13 @@ import org.icepdf.core.pobjects.annotations.AbstractWidgetAnnotation;
 import org.icepdf.core.pobjects.graphics.WatermarkCallback;
 import org.icepdf.core.pobjects.graphics.images.ImageUtility;
 import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.pobjects.graphics.text.TextVisitor;
 import org.icepdf.core.pobjects.security.SecurityManager;
 import org.icepdf.core.util.Defs;
 import org.icepdf.core.util.LazyObjectLoader;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.MemoryAccountant;
+import org.icepdf.core.util.ObjectOffsetScanner;
 import org.icepdf.core.util.Parser;
 import org.icepdf.core.util.updater.IncrementalUpdater;
 
@@ -38,9 +43,18 @@ import java.awt.image.BufferedImage;
 import java.io.*;
 import java.net.URL;
 import java.net.URLConnection;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -113,10 +127,23 @@ public class Document {
     private static boolean isCachingEnabled;
     private static boolean isFileCachingEnabled;
     private static int fileCacheMaxSize;
+    private static boolean isMemoryMappingEnabled;
+    private static boolean isObjectScanRecoveryEnabled;
+    private static boolean isRangeRequestEnabled;
+    private static int initPagesParallelism;
 
     // repository of all PDF object associated with this document.
     private Library library = null;
     private SeekableInput documentSeekableInput;
+    // last modified time of the file the document was loaded from, zero if unknown.
+    private long documentLastModified;
+    // linearization dictionary, only read for range request inputs or on demand.
+    private Linearization linearization;
+    private boolean linearizationRead;
+
+    // document loading progress listeners and cooperative cancellation flag.
+    private final List<DocumentLoadingListener> documentLoadingListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean loadingCancelled;
 
     static {
         // sets if file caching is enabled or disabled.
@@ -127,6 +154,20 @@ public class Document {
         isFileCachingEnabled = Defs.sysPropertyBoolean("org.icepdf.core.filecache.enabled",
                 true);
         fileCacheMaxSize = Defs.intProperty("org.icepdf.core.filecache.size", 200000000);
+        // memory map files loaded via setFile, takes precedence over file caching.
+        isMemoryMappingEnabled = Defs.sysPropertyBoolean("org.icepdf.core.memorymapped.enabled",
+                false);
+        // recover damaged files by scanning for object offsets before falling
+        // back to a full linear traversal.
+        isObjectScanRecoveryEnabled = Defs.sysPropertyBoolean("org.icepdf.core.recovery.objectscan.enabled",
+                true);
+        // read http documents with range requests rather than downloading them first.
+        isRangeRequestEnabled = Defs.sysPropertyBoolean("org.icepdf.core.http.rangerequests.enabled",
+                false);
+        // number of pages initPages() parses at the same time, by default no
+        // more than the common thread pool can run at once.
+        initPagesParallelism = Math.max(1, Defs.intProperty("org.icepdf.core.initPages.parallelism",
+                Math.min(Runtime.getRuntime().availableProcessors(), Library.commonPoolThreads)));
     }
 
     /**
@@ -182,8 +223,119 @@ public class Document {
         return cachedFilePath;
     }
 
+    /**
+     * Opens a PDF file on the common ICEpdf thread pool, see setFile(String).
+     * <br>
+     * Cancelling the returned future, or completing it any other way such as
+     * with a timeout, stops the load at its next checkpoint, the thread doing
+     * the load is never interrupted.  Progress can be followed with a
+     * DocumentLoadingListener.
+     *
+     * @param filepath path of PDF document.
+     * @return future that completes with this document once loaded.
+     * @since 7.1
+     */
+    public CompletableFuture<Document> openAsync(String filepath) {
+        return openAsync(() -> setFile(filepath), Library.getCommonExecutor());
+    }
+
+    /**
+     * Opens a PDF file with the given executor, see openAsync(String).
+     *
+     * @param filepath path of PDF document.
+     * @param executor executor to load the document on.
+     * @return future that completes with this document once loaded.
+     * @since 7.1
+     */
+    public CompletableFuture<Document> openAsync(String filepath, Executor executor) {
+        return openAsync(() -> setFile(filepath), executor);
+    }
+
+    /**
+     * Opens a PDF file from the given URL on the common ICEpdf thread pool,
+     * see setUrl(URL) and openAsync(String).
+     *
+     * @param url location of file.
+     * @return future that completes with this document once loaded.
+     * @since 7.1
+     */
+    public CompletableFuture<Document> openAsync(URL url) {
+        return openAsync(() -> setUrl(url), Library.getCommonExecutor());
+    }
+
+    /**
+     * Opens a PDF file from the given URL with the given executor, see
+     * openAsync(String).
+     *
+     * @param url      location of file.
+     * @param executor executor to load the document on.
+     * @return future that completes with this document once loaded.
+     * @since 7.1
+     */
+    public CompletableFuture<Document> openAsync(URL url, Executor executor) {
+        return openAsync(() -> setUrl(url), executor);
+    }
+
+    private CompletableFuture<Document> openAsync(DocumentOpener opener, Executor executor) {
+        CompletableFuture<Document> future = new CompletableFuture<>();
+        AtomicBoolean finished = new AtomicBoolean();
+        // the future completing before the load has finished can only be a
+        // cancel or a timeout, either way stop loading.
+        future.whenComplete((document, throwable) -> {
+            if (throwable != null && !finished.get()) {
+                cancelLoading();
+            }
+        });
+        try {
+            executor.execute(() -> {
+                if (future.isDone()) {
+                    return;
+                }
+                try {
+                    opener.open();
+                    finished.set(true);
+                    // a cancel that raced the end of the load still wins.
+                    if (!future.complete(this)) {
+                        dispose();
+                    }
+                } catch (Throwable e) {
+                    finished.set(true);
+                    future.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            finished.set(true);
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    /**
+     * Asks a document load in progress to stop.  Loading stops at its next
+     * checkpoint, which is at least once per loading phase and once per object
+     * during a linear traversal, and the load then fails with a
+     * CancellationException.  A cancel arriving when no load is in progress
+     * has no effect on the next load.
+     *
+     * @since 7.1
+     */
+    public void cancelLoading() {
+        loadingCancelled = true;
+    }
+
+    public void addDocumentLoadingListener(DocumentLoadingListener listener) {
+        ((CopyOnWriteArrayList<DocumentLoadingListener>) documentLoadingListeners).addIfAbsent(listener);
+    }
+
+    public void removeDocumentLoadingListener(DocumentLoadingListener listener) {
+        documentLoadingListeners.remove(listener);
+    }
+
     /**
      * Load a PDF file from the given path and initiates the document's Catalog.
+     * If the system property org.icepdf.core.memorymapped.enabled=true the file
+     * will be memory mapped rather than copied into memory or read via a
+     * RandomAccessFile.
      *
      * @param filepath path of PDF document.
      * @throws PDFException         if an invalid file encoding.
@@ -193,8 +345,37 @@ public class Document {
      */
     public void setFile(String filepath)
             throws PDFException, PDFSecurityException, IOException {
+        setFile(new File(filepath), filepath, isMemoryMappingEnabled);
+    }
+
+    /**
+     * Load a PDF file from the given path and initiates the document's Catalog.
+     * Memory mapping is generally the fastest way to load large files as object
+     * loading no longer needs a system call for every byte read.
+     *
+     * @param filePath     path of PDF document.
+     * @param memoryMapped true to memory map the file, false to use the default
+     *                     file caching or RandomAccessFile loading.
+     * @throws PDFException         if an invalid file encoding.
+     * @throws PDFSecurityException if a security provider cannot be found
+     *                              or there is an error decrypting the file.
+     * @throws IOException          if a problem setting up, or parsing the file.
+     */
+    public void setFile(Path filePath, boolean memoryMapped)
+            throws PDFException, PDFSecurityException, IOException {
+        setFile(filePath.toFile(), filePath.toString(), memoryMapped);
+    }
+
+    private void setFile(File file, String filepath, boolean memoryMapped)
+            throws PDFException, PDFSecurityException, IOException {
         setDocumentOrigin(filepath);
-        File file = new File(filepath);
+        documentLastModified = file.lastModified();
+        if (memoryMapped) {
+            MemoryMappedFileInputStream mappedInputStream =
+                    MemoryMappedFileInputStream.build(file);
+            setInputStream(mappedInputStream);
+            return;
+        }
         FileInputStream inputStream = new FileInputStream(file);
         int fileLength = inputStream.available();
         if (isFileCachingEnabled && file.length() > 0 && fileLength <= fileCacheMaxSize) {
@@ -204,7 +385,7 @@ public class Document {
             setByteArray(data, 0, fileLength, filepath);
         } else {
             RandomAccessFileInputStream rafis =
-                    RandomAccessFileInputStream.build(new File(filepath));
+                    RandomAccessFileInputStream.build(file);
             setInputStream(rafis);
         }
         if (inputStream != null) {
@@ -217,6 +398,11 @@ public class Document {
      * If the system property org.icepdf.core.streamcache.enabled=true, the file
      * will be cached to a temp file; otherwise, the complete document stream will
      * be stored in memory.
+     * <br>
+     * If the system property org.icepdf.core.http.rangerequests.enabled=true and
+     * the server supports range requests, the document is instead read on demand
+     * and the first page of a linearized document can be shown before the rest
+     * of the file has been downloaded.
      *
      * @param url location of file.
      * @throws PDFException         an invalid file encoding.
@@ -226,6 +412,15 @@ public class Document {
      */
     public void setUrl(URL url)
             throws PDFException, PDFSecurityException, IOException {
+        if (isRangeRequestEnabled &&
+                ("http".equals(url.getProtocol()) || "https".equals(url.getProtocol()))) {
+            HttpRangeSeekableInput rangeInput = HttpRangeSeekableInput.build(url);
+            if (rangeInput != null) {
+                setDocumentOrigin(url.toString());
+                setInputStream(rangeInput);
+                return;
+            }
+        }
         InputStream in = null;
         try {
             // make a connection
@@ -408,57 +603,97 @@ public class Document {
      */
     private void setInputStream(final SeekableInput in)
             throws PDFException, PDFSecurityException, IOException {
+        boolean success = false;
+        // a cancel left over from an earlier load doesn't apply to this one.
+        loadingCancelled = false;
+        notifyDocumentLoadingStarted();
         try {
             documentSeekableInput = in;
 
             // create library to hold all document objects
             library = new Library();
+            // the linearization of a previously loaded document no longer applies.
+            linearization = null;
+            linearizationRead = false;
 
             // reference the stream and origin with library so we can handle verification and writing of signatures.
             library.setDocumentInput(documentSeekableInput);
 
+            // the first page section of a linearized document holds the first
+            // page xref, catalog and first page, so fetch it in one request.
+            if (in instanceof HttpRangeSeekableInput) {
+                Linearization linearization = getLinearization();
+                if (linearization != null) {
+                    ((HttpRangeSeekableInput) in).prefetch(0, linearization.getEndOfFirstPage());
+                }
+            }
+
             // if interactive show visual progress bar
             //ProgressMonitorInputStream monitor = null;
 
             boolean loaded = false;
-            try {
-                loadDocumentViaXRefs(in);
+            boolean loadedFromCache = false;
+            CrossReferenceCache crossReferenceCache =
+                    CrossReferenceCache.open(documentSeekableInput, documentLastModified);
+            if (crossReferenceCache != null) {
+                try {
+                    loadedFromCache = loadDocumentViaCrossReferenceCache(crossReferenceCache);
+                    if (loadedFromCache) {
+                        initCatalog();
+                        loaded = true;
+                    }
+                } catch (PDFException | PDFSecurityException e) {
+                    throw e;
+                } catch (Exception e) {
+                    checkLoadingCancelled();
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.warning("Cached cross reference index failed, will fall back to xref loading.");
+                    }
+                    crossReferenceCache.invalidate();
+                    resetLoadState();
+                }
+            }
 
-                // initiate the catalog, build the outline for the document
-                // this is the best test to see if everything is in order.
-                if (catalog != null) {
-                    catalog.init();
-                    // check to see if we can locate the first level of pages,  to check offset validity
-                    // as sometimes xref 'drift' will still allow the catalog to be parsed but error out later.
-                    HashMap entries = catalog.getPageTree().entries;
-                    List<Reference> kidsReferences = (List<Reference>) library.getObject(entries, PageTree.KIDS_KEY);
-                    kidsReferences.forEach(item -> {
-                        Object page = library.getObject(item);
-                        if (!(page instanceof Page || page instanceof PageTree || page instanceof Reference)) {
-                            throw new RuntimeException("Error accessing page tree");
-                        }
-                    });
+            if (!loaded) {
+                try {
+                    in.seekAbsolute(0L);
+                    loadDocumentViaXRefs(in);
+
+                    // initiate the catalog, build the outline for the document
+                    // this is the best test to see if everything is in order.
+                    initCatalog();
+
+                    loaded = true;
+                } catch (PDFException | PDFSecurityException e) {
+                    throw e;
+                } catch (Exception e) {
+                    checkLoadingCancelled();
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.warning("Cross reference deferred loading failed, will fall back to linear reading.");
+                    }
                 }
+            }
 
-                loaded = true;
-            } catch (PDFException | PDFSecurityException e) {
-                throw e;
-            } catch (Exception e) {
-                if (logger.isLoggable(Level.WARNING)) {
-                    logger.warning("Cross reference deferred loading failed, will fall back to linear reading.");
+            if (!loaded && isObjectScanRecoveryEnabled) {
+                try {
+                    // Cleanup any bits left behind by the failed xref loading
+                    resetLoadState();
+                    loadDocumentViaObjectScan(in);
+                    initCatalog();
+                    loaded = true;
+                } catch (PDFSecurityException e) {
+                    throw e;
+                } catch (Exception e) {
+                    checkLoadingCancelled();
+                    if (logger.isLoggable(Level.WARNING)) {
+                        logger.warning("Object scan recovery failed, will fall back to linear reading.");
+                    }
                 }
             }
 
             if (!loaded) {
-                // Cleanup any bits left behind by the failed xref loading
-                if (catalog != null) {
-                    catalog = null;
-                }
-                if (library != null) {
-                    library = null;
-                }
-                library = new Library();
-                pTrailer = null;
+                // Cleanup any bits left behind by the failed loading
+                resetLoadState();
 
                 in.seekAbsolute(0L);
                 loadDocumentViaLinearTraversal(in);
@@ -466,24 +701,159 @@ public class Document {
                 // initiate the catalog, build the outline for the document
                 if (catalog != null) {
                     catalog.init();
+                    notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.CATALOG);
+                    notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.PAGE_TREE);
                 }
             }
 
+            // store the resolved xref so the next open can skip the xref walk
+            // or linear traversal.
+            if (crossReferenceCache != null && !loadedFromCache) {
+                crossReferenceCache.save(pTrailer);
+            }
+
             // create new instance of state manager and add it to the library
             stateManager = new StateManager(pTrailer);
             library.setStateManager(stateManager);
+            success = true;
         } catch (PDFException e) {
             logger.log(Level.FINE, "Error loading PDF file during linear parse.", e);
             dispose();
             throw e;
-        } catch (PDFSecurityException | IOException e) {
+        } catch (PDFSecurityException | IOException | CancellationException e) {
             dispose();
             throw e;
         } catch (Exception e) {
             dispose();
             logger.log(Level.SEVERE, "Error loading PDF Document.", e);
             throw new IOException(e.getMessage());
+        } finally {
+            loadingCancelled = false;
+            notifyDocumentLoadingEnded(!success);
+        }
+    }
+
+    /**
+     * Initiates the catalog and checks that the first level of pages can be
+     * located, as sometimes xref 'drift' will still allow the catalog to be
+     * parsed but error out later.
+     */
+    @SuppressWarnings("unchecked")
+    private void initCatalog() throws InterruptedException {
+        if (catalog != null) {
+            catalog.init();
+            notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.CATALOG);
+            HashMap entries = catalog.getPageTree().entries;
+            List<Reference> kidsReferences = (List<Reference>) library.getObject(entries, PageTree.KIDS_KEY);
+            // don't pull every page in over a range request input, the first
+            // page is in the first page section of a linearized document.
+            if (linearization != null && !kidsReferences.isEmpty()) {
+                kidsReferences = kidsReferences.subList(0, 1);
+            }
+            kidsReferences.forEach(item -> {
+                checkLoadingCancelled();
+                Object page = library.getObject(item);
+                if (!(page instanceof Page || page instanceof PageTree || page instanceof Reference)) {
+                    throw new RuntimeException("Error accessing page tree");
+                }
+            });
+            notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.PAGE_TREE);
+        }
+    }
+
+    private void checkLoadingCancelled() {
+        if (loadingCancelled) {
+            throw new CancellationException("Document loading was cancelled.");
+        }
+    }
+
+    private void notifyDocumentLoadingStarted() {
+        if (documentLoadingListeners.isEmpty()) {
+            return;
+        }
+        DocumentLoadingEvent event = new DocumentLoadingEvent(this);
+        for (DocumentLoadingListener listener : documentLoadingListeners) {
+            listener.documentLoadingStarted(event);
+        }
+    }
+
+    /**
+     * Notifies the listeners of a completed phase, each phase is also a
+     * cancellation checkpoint.
+     */
+    private void notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase phase) {
+        checkLoadingCancelled();
+        if (documentLoadingListeners.isEmpty()) {
+            return;
+        }
+        DocumentLoadingEvent event = new DocumentLoadingEvent(this, phase);
+        for (DocumentLoadingListener listener : documentLoadingListeners) {
+            listener.documentLoadingPhaseCompleted(event);
+        }
+    }
+
+    private void notifyDocumentLoadingEnded(boolean interrupted) {
+        if (documentLoadingListeners.isEmpty()) {
+            return;
+        }
+        DocumentLoadingEvent event = new DocumentLoadingEvent(this, interrupted);
+        for (DocumentLoadingListener listener : documentLoadingListeners) {
+            listener.documentLoadingEnded(event);
+        }
+    }
+
+    /**
+     * Drops any state left behind by a failed load attempt so the next
+     * strategy starts with a clean library.
+     */
+    private void resetLoadState() {
+        catalog = null;
+        pTrailer = null;
+        if (library.getSharedResources() != null) {
+            library.getSharedResources().release();
+        }
+        if (library.getStreamArena() != null) {
+            library.getStreamArena().release();
+        }
+        library = new Library();
+        library.setDocumentInput(documentSeekableInput);
+        // read again against the new library when next needed.
+        linearization = null;
+        linearizationRead = false;
+    }
+
+    /**
+     * Utility method for loading the document's objects using a previously
+     * stored cross reference index, skipping the xref walk entirely.
+     *
+     * @param crossReferenceCache cache for the document being loaded.
+     * @return true if an index was found and the catalog loaded, otherwise false.
+     * @throws PDFException         an invalid stream or file encoding
+     * @throws PDFSecurityException if a security provider can not be found
+     *                              or there is an error decrypting the file.
+     */
+    private boolean loadDocumentViaCrossReferenceCache(CrossReferenceCache crossReferenceCache)
+            throws PDFException, PDFSecurityException {
+        PTrailer documentTrailer = crossReferenceCache.load(library);
+        if (documentTrailer == null) {
+            return false;
         }
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.CROSS_REFERENCE);
+        LazyObjectLoader lol = new LazyObjectLoader(
+                library, documentSeekableInput, documentTrailer.getPrimaryCrossReference());
+        library.setLazyObjectLoader(lol);
+
+        pTrailer = documentTrailer;
+        catalog = documentTrailer.getRootCatalog();
+        library.setCatalog(catalog);
+
+        if (catalog == null)
+            throw new NullPointerException("Loading via xref cache failed to find catalog");
+
+        // setup a signature permission dictionary
+        configurePermissions();
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.TRAILER);
+        return true;
     }
 
     /**
@@ -526,6 +896,7 @@ public class Document {
             // object retrieval.
             documentTrailer.getCrossReferenceTable().setOffset(offset);
         }
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.CROSS_REFERENCE);
 
         LazyObjectLoader lol = new LazyObjectLoader(
                 library, in, documentTrailer.getPrimaryCrossReference());
@@ -544,6 +915,7 @@ public class Document {
         }
         // setup a signature permission dictionary
         configurePermissions();
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.TRAILER);
     }
 
     private long getInitialCrossReferencePosition(SeekableInput in) throws IOException {
@@ -582,6 +954,92 @@ public class Document {
         return xrefPositionObj.longValue();
     }
 
+    /**
+     * Utility method for recovering a damaged document without parsing every
+     * object.  The file is scanned for object headers, trailers and cross
+     * reference streams to rebuild the offset table, objects are then loaded
+     * on demand by the LazyObjectLoader.
+     *
+     * @param in input stream to scan
+     * @throws IOException          an i/o problem
+     * @throws InterruptedException if interrupted while waiting on the scan.
+     * @throws PDFSecurityException if a security provider can not be found
+     *                              or there is an error decrypting the file.
+     */
+    private void loadDocumentViaObjectScan(SeekableInput in)
+            throws IOException, InterruptedException, PDFSecurityException {
+        ObjectOffsetScanner scanner = new ObjectOffsetScanner(in);
+        scanner.scan();
+
+        CrossReference refs = new CrossReference();
+        LazyObjectLoader lol = new LazyObjectLoader(library, in, refs);
+        library.setLazyObjectLoader(lol);
+
+        // trailer dictionaries and xref streams, oldest first so later
+        // revisions take precedence.
+        long[] trailerOffsets = scanner.getTrailerOffsets();
+        int[] xrefStreamIndexes = scanner.getXRefStreamIndexes();
+        long[] positions = new long[trailerOffsets.length + xrefStreamIndexes.length];
+        System.arraycopy(trailerOffsets, 0, positions, 0, trailerOffsets.length);
+        for (int i = 0; i < xrefStreamIndexes.length; i++) {
+            positions[trailerOffsets.length + i] = scanner.getObjectOffset(xrefStreamIndexes[i]);
+        }
+        Arrays.sort(positions);
+        HashMap<Object, Object> trailerDictionary = new HashMap<>();
+        long trailerPosition = 0;
+        for (long position : positions) {
+            PTrailer trailer = library.getTrailerByFilePosition(position);
+            if (trailer == null) {
+                continue;
+            }
+            trailerDictionary.putAll(trailer.getEntries());
+            trailerPosition = position;
+            // compressed objects can only be located through the xref streams.
+            if (trailer.getCrossReferenceStream() != null) {
+                refs.addEntries(trailer.getCrossReferenceStream());
+            }
+        }
+        // the offsets of the rebuilt table are all we can trust.
+        trailerDictionary.remove(PTrailer.PREV_KEY);
+        trailerDictionary.remove(PTrailer.XREFSTM_KEY);
+
+        // objects found in the scan win over the xref streams, and for
+        // duplicates the last one in the file wins.
+        for (int i = 0, max = scanner.getObjectCount(); i < max; i++) {
+            refs.addUsedEntry(scanner.getObjectNumber(i), scanner.getObjectOffset(i),
+                    scanner.getGenerationNumber(i));
+        }
+
+        // no usable trailer, use the last catalog in the file.
+        if (!(trailerDictionary.get(PTrailer.ROOT_KEY) instanceof Reference)) {
+            int[] catalogIndexes = scanner.getCatalogIndexes();
+            if (catalogIndexes.length > 0) {
+                int index = catalogIndexes[catalogIndexes.length - 1];
+                trailerDictionary.put(PTrailer.ROOT_KEY, new Reference(
+                        scanner.getObjectNumber(index), scanner.getGenerationNumber(index)));
+            }
+        }
+
+        PTrailer documentTrailer = new PTrailer(library, trailerDictionary, refs, null);
+        documentTrailer.setPosition(trailerPosition);
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.CROSS_REFERENCE);
+
+        pTrailer = documentTrailer;
+        catalog = documentTrailer.getRootCatalog();
+        library.setCatalog(catalog);
+
+        if (catalog == null)
+            throw new NullPointerException("Object scan recovery failed to find catalog");
+
+        boolean madeSecurityManager = makeSecurityManager(documentTrailer);
+        if (madeSecurityManager) {
+            attemptAuthorizeSecurityManager();
+        }
+        // setup a signature permission dictionary
+        configurePermissions();
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.TRAILER);
+    }
+
     /**
      * Uitily method for parsing a PDF documents object.  This should only be
      * called when the xref lookup fails or the file is being loaded
@@ -612,6 +1070,7 @@ public class Document {
         while (true) {
             // parse all of the objects in the stream,  objects are added
             // to the library object.
+            checkLoadingCancelled();
             pdfObject = parser.getObject(library);
 
             // eof or io error result in break
@@ -654,6 +1113,8 @@ public class Document {
             }
         }
 
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.CROSS_REFERENCE);
+
         // apply the new object offset values so that the object can be retrieved
         // using the actual index in the file
         CrossReference refs = documentTrailer.getPrimaryCrossReference();
@@ -701,6 +1162,7 @@ public class Document {
 
         // setup a signature handler
         configurePermissions();
+        notifyDocumentLoadingPhaseCompleted(DocumentLoadingEvent.Phase.TRAILER);
     }
 
     /**
@@ -999,6 +1461,46 @@ public class Document {
         return 0;
     }
 
+    /**
+     * Gets the linearization dictionary of the document.
+     *
+     * @return linearization dictionary, null if the document isn't linearized.
+     */
+    public Linearization getLinearization() {
+        if (!linearizationRead && library != null && documentSeekableInput != null) {
+            linearizationRead = true;
+            linearization = Linearization.read(library, documentSeekableInput, 0);
+        }
+        return linearization;
+    }
+
+    /**
+     * Fetches the byte range of the given page ahead of it being initialized,
+     * when the document is read over range requests and the page's location is
+     * known from the linearization hint tables.  Otherwise this does nothing.
+     *
+     * @param pageNumber zero-based page number.
+     * @throws IOException if the page data could not be fetched.
+     */
+    public void prefetchPage(int pageNumber) throws IOException {
+        if (!(documentSeekableInput instanceof HttpRangeSeekableInput)) {
+            return;
+        }
+        Linearization linearization = getLinearization();
+        if (linearization == null) {
+            return;
+        }
+        HttpRangeSeekableInput rangeInput = (HttpRangeSeekableInput) documentSeekableInput;
+        if (pageNumber == 0) {
+            rangeInput.prefetch(0, linearization.getEndOfFirstPage());
+        } else {
+            long offset = linearization.getPageOffset(pageNumber);
+            if (offset >= 0) {
+                rangeInput.prefetch(offset, linearization.getPageLength(pageNumber));
+            }
+        }
+    }
+
     /**
      * Paints the contents of the given page number to the graphics context using
      * the specified rotation, zoom, rendering hints and page boundary.
@@ -1041,6 +1543,24 @@ public class Document {
             }
             documentSeekableInput = null;
         }
+        linearization = null;
+        linearizationRead = false;
+
+        if (library != null && library.getDecodedStreamCache() != null) {
+            library.getDecodedStreamCache().clear();
+        }
+        if (library != null && library.getDisplayListCache() != null) {
+            library.getDisplayListCache().clear();
+        }
+        if (library != null && library.getInlineImageCache() != null) {
+            library.getInlineImageCache().clear();
+        }
+        if (library != null && library.getSharedResources() != null) {
+            library.getSharedResources().release();
+        }
+        if (library != null && library.getStreamArena() != null) {
+            library.getStreamArena().release();
+        }
 
         String fileToDelete = getDocumentCachedFilePath();
         if (fileToDelete != null) {
@@ -1186,6 +1706,22 @@ public class Document {
         }
     }
 
+    /**
+     * Streams a page's text to the given visitor without building the page's
+     * shapes or PageText, see Page.visitText(TextVisitor).
+     *
+     * @param pageNumber page number of page to extract text from, zero-based.
+     * @param visitor    visitor to receive the page's glyphs, words and lines.
+     * @throws InterruptedException thread interrupted.
+     * @since 7.1
+     */
+    public void visitPageText(int pageNumber, TextVisitor visitor) throws InterruptedException {
+        PageTree pageTree = catalog.getPageTree();
+        if (pageNumber >= 0 && pageNumber < pageTree.getNumberOfPages()) {
+            pageTree.getPage(pageNumber).visitText(visitor);
+        }
+    }
+
     /**
      * Gets the security manager for this document. If the document has no
      * security manager null is returned.
@@ -1310,6 +1846,107 @@ public class Document {
         return pg.getImages();
     }
 
+    /**
+     * Initializes the pages in the given range in parallel on the common
+     * ICEpdf thread pool, see initPages(int, int, Executor, int).  The number
+     * of pages parsed at the same time can be set with the system property
+     * org.icepdf.core.initPages.parallelism, which defaults to the number of
+     * processors or the size of the common pool, whichever is smaller.  The
+     * futures complete exceptionally if the pool rejects the work.
+     *
+     * @param startPage first page to initialize, zero-based.
+     * @param endPage   page after the last page to initialize.
+     * @return a future for each page in the range, in page order.
+     * @since 7.1
+     */
+    public List<CompletableFuture<Page>> initPages(int startPage, int endPage) {
+        return initPages(startPage, endPage, Library.getCommonExecutor(), initPagesParallelism);
+    }
+
+    /**
+     * Initializes the pages in the given range in parallel, parsing each
+     * page's content so it is ready to paint or extract text from.  Pages are
+     * handed out in page order to at most parallelism tasks on the executor,
+     * so a large range never floods the executor's queue.  Page lookups in
+     * the page tree are made one at a time, the objects behind the pages are
+     * loaded concurrently through the document's library.
+     * <br>
+     * Each future completes with its initialized page, or exceptionally if
+     * the page could not be found or initialization was interrupted.  A page
+     * whose future has been cancelled before its turn is skipped.  If the
+     * executor rejects the first task every future completes exceptionally
+     * with the RejectedExecutionException, once a task has been accepted the
+     * range is finished by the accepted tasks.
+     *
+     * @param startPage   first page to initialize, zero-based.
+     * @param endPage     page after the last page to initialize.
+     * @param executor    executor to initialize the pages on.
+     * @param parallelism maximum number of pages initialized at the same time.
+     * @return a future for each page in the range, in page order.
+     * @throws IllegalArgumentException if the range isn't within the document
+     *                                  or parallelism is less than one.
+     * @since 7.1
+     */
+    public List<CompletableFuture<Page>> initPages(int startPage, int endPage, Executor executor,
+                                                   int parallelism) {
+        if (startPage < 0 || endPage < startPage || endPage > getNumberOfPages()) {
+            throw new IllegalArgumentException("Invalid page range " + startPage + " to " + endPage);
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least one: " + parallelism);
+        }
+        PageTree pageTree = catalog.getPageTree();
+        int count = endPage - startPage;
+        List<CompletableFuture<Page>> futures = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            futures.add(new CompletableFuture<>());
+        }
+        AtomicInteger nextPage = new AtomicInteger();
+        Runnable worker = () -> {
+            int index;
+            while ((index = nextPage.getAndIncrement()) < count) {
+                CompletableFuture<Page> future = futures.get(index);
+                if (future.isDone()) {
+                    continue;
+                }
+                try {
+                    Page page = pageTree.getPage(startPage + index);
+                    if (page == null) {
+                        throw new IllegalStateException("Page " + (startPage + index) + " could not be found.");
+                    }
+                    page.init();
+                    future.complete(page);
+                } catch (Throwable e) {
+                    future.completeExceptionally(e);
+                }
+            }
+        };
+        int workers = 0;
+        try {
+            for (int max = Math.min(parallelism, count); workers < max; workers++) {
+                executor.execute(worker);
+            }
+        } catch (RejectedExecutionException e) {
+            // any workers that were accepted will finish the range.
+            if (workers == 0) {
+                for (CompletableFuture<Page> future : futures) {
+                    future.completeExceptionally(e);
+                }
+            }
+        }
+        return futures;
+    }
+
+    /**
+     * Gets the accountant tracking the document's estimated memory use, which
+     * can also be used to set the document's memory budget.
+     *
+     * @return document's memory accountant.
+     */
+    public MemoryAccountant getMemoryAccountant() {
+        return library.getMemoryAccountant();
+    }
+
     /**
      * Gets the Document Catalog's PageTree entry as specified by the Document
      * hierarchy.  The PageTree can be used to obtain detailed information about
@@ -1351,4 +1988,11 @@ public class Document {
     public static void setCachingEnabled(boolean cachingEnabled) {
         isCachingEnabled = cachingEnabled;
     }
+
+    /**
+     * One of the blocking setFile/setUrl calls, run by openAsync.
+     */
+    private interface DocumentOpener {
+        void open() throws PDFException, PDFSecurityException, IOException;
+    }
 }
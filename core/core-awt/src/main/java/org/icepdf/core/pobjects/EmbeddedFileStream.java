@@ -5,6 +5,7 @@ import org.icepdf.core.util.Library;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 
 /**
@@ -112,7 +113,8 @@ public class EmbeddedFileStream extends Dictionary {
     public int getParamUncompressedSize() {
         int size = library.getInt(getParams(), PARAMS_SIZE_KEY);
         if (size == 0){
-            size = fileStream.getDecodedStreamBytes().length;
+            ByteBuffer decoded = fileStream.getDecodedStreamBuffer();
+            size = decoded != null ? decoded.remaining() : 0;
         }
         return size;
     }
@@ -123,7 +125,7 @@ public class EmbeddedFileStream extends Dictionary {
      * @return number of bytes in compressed stream.
      */
     public int getCompressedSize() {
-        return fileStream.getRawBytes().length;
+        return fileStream.getRawBytesLength();
     }
 
     /**
@@ -149,6 +149,22 @@ public class Form extends Stream {
         return new AffineTransform(f);
     }
 
+    /**
+     * Reads the form matrix from the form dictionary, unlike getMatrix() the
+     * form doesn't have to be initialized first.
+     *
+     * @return form matrix, null if the dictionary doesn't specify one.
+     */
+    public AffineTransform readMatrix() {
+        Object v = library.getObject(entries, MATRIX_KEY);
+        if (v instanceof List) {
+            return getAffineTransform((List) v);
+        } else if (v instanceof AffineTransform) {
+            return (AffineTransform) v;
+        }
+        return null;
+    }
+
     /**
      * As of the PDF 1.2 specification, a resource entry is not required for
      * a XObject and thus it needs to point to the parent resource to enable
@@ -167,11 +183,9 @@ public class Form extends Stream {
         if (inited) {
             return;
         }
-        Object v = library.getObject(entries, MATRIX_KEY);
-        if (v != null && v instanceof List) {
-            matrix = getAffineTransform((List) v);
-        } else if (v != null && v instanceof AffineTransform) {
-            matrix = (AffineTransform) v;
+        AffineTransform formMatrix = readMatrix();
+        if (formMatrix != null) {
+            matrix = formMatrix;
         }
         bbox = library.getRectangle(entries, BBOX_KEY);
         // try and find the form's resources dictionary.
@@ -186,7 +200,7 @@ public class Form extends Stream {
         // content stream of the calling content stream. 
         ContentParser cp = new ContentParser(library, leafResources);
         cp.setGraphicsState(graphicsState);
-        byte[] in = getDecodedStreamBytes();
+        byte[] in = getSharedDecodedStreamBytes(8192);
         if (in != null) {
             try {
                 if (logger.isLoggable(Level.FINER)) {
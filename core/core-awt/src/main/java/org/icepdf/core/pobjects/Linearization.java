@@ -0,0 +1,266 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.io.SeekableInput;
+import org.icepdf.core.util.Library;
+import org.icepdf.core.util.Parser;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The linearization parameter dictionary of a linearized (fast web view)
+ * document, the first object in the file.  A linearized file is organized so
+ * the first page, and everything needed to display it, comes first, followed
+ * by the remaining pages in order.
+ * <br>
+ * The page offset hint table in the primary hint stream gives the byte range
+ * of every page, which lets a viewer reading over a slow connection fetch a
+ * page's objects in one go.  Only the page offsets and lengths are read from
+ * the hint table, shared objects are still loaded on demand.
+ *
+ * @since 7.1
+ */
+public class Linearization extends Dictionary {
+
+    private static final Logger logger =
+            Logger.getLogger(Linearization.class.toString());
+
+    public static final Name LINEARIZED_KEY = new Name("Linearized");
+    public static final Name L_KEY = new Name("L");
+    public static final Name H_KEY = new Name("H");
+    public static final Name O_KEY = new Name("O");
+    public static final Name E_KEY = new Name("E");
+    public static final Name N_KEY = new Name("N");
+    public static final Name T_KEY = new Name("T");
+
+    private SeekableInput seekableInput;
+
+    // page offsets and lengths, loaded from the hint stream when first needed.
+    private long[] pageOffsets;
+    private long[] pageLengths;
+    private boolean hintTableLoaded;
+
+    public Linearization(Library library, HashMap<Object, Object> entries) {
+        super(library, entries);
+    }
+
+    /**
+     * Reads the linearization dictionary at the start of the document.
+     *
+     * @param library       document library.
+     * @param seekableInput document input.
+     * @param startOffset   offset of the PDF header, non zero when there is junk at the start of the file.
+     * @return linearization dictionary, null if the document isn't linearized or
+     * has been updated since it was linearized.
+     */
+    public static Linearization read(Library library, SeekableInput seekableInput, long startOffset) {
+        try {
+            Parser parser = new Parser(seekableInput, startOffset, Parser.PARSE_MODE_NORMAL);
+            Object object = parser.getObject(library);
+            if (!(object instanceof PObject)) {
+                return null;
+            }
+            object = ((PObject) object).getObject();
+            if (!(object instanceof HashMap) || !((Map<?, ?>) object).containsKey(LINEARIZED_KEY)) {
+                return null;
+            }
+            Linearization linearization = new Linearization(library, new HashMap<>((Map<?, ?>) object));
+            linearization.seekableInput = seekableInput;
+            // an incremental update appends to the file and the linearization
+            // no longer holds.
+            if (linearization.getFileLength() != seekableInput.getLength() - startOffset) {
+                return null;
+            }
+            return linearization;
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Error reading linearization dictionary.", e);
+            return null;
+        }
+    }
+
+    /**
+     * @return length of the file in bytes when it was linearized.
+     */
+    public long getFileLength() {
+        return library.getLong(entries, L_KEY);
+    }
+
+    /**
+     * @return object number of the first page's page object.
+     */
+    public int getFirstPageObjectNumber() {
+        return library.getInt(entries, O_KEY);
+    }
+
+    /**
+     * @return offset of the end of the first page section.
+     */
+    public long getEndOfFirstPage() {
+        return library.getLong(entries, E_KEY);
+    }
+
+    /**
+     * @return number of pages in the document.
+     */
+    public int getPageCount() {
+        return library.getInt(entries, N_KEY);
+    }
+
+    /**
+     * @return offset of the first entry of the main cross reference table.
+     */
+    public long getMainXRefOffset() {
+        return library.getLong(entries, T_KEY);
+    }
+
+    public long getHintStreamOffset() {
+        return getHintValue(0);
+    }
+
+    public long getHintStreamLength() {
+        return getHintValue(1);
+    }
+
+    /**
+     * Gets the offset of a page's objects, from the page offset hint table.
+     *
+     * @param pageIndex zero based page index.
+     * @return offset of the page, -1 if it isn't known.
+     */
+    public long getPageOffset(int pageIndex) {
+        loadHintTable();
+        if (pageOffsets == null || pageIndex < 0 || pageIndex >= pageOffsets.length) {
+            return -1;
+        }
+        return pageOffsets[pageIndex];
+    }
+
+    /**
+     * Gets the length of a page's objects, from the page offset hint table.
+     *
+     * @param pageIndex zero based page index.
+     * @return length of the page in bytes, -1 if it isn't known.
+     */
+    public long getPageLength(int pageIndex) {
+        loadHintTable();
+        if (pageLengths == null || pageIndex < 0 || pageIndex >= pageLengths.length) {
+            return -1;
+        }
+        return pageLengths[pageIndex];
+    }
+
+    private long getHintValue(int index) {
+        List<?> hint = library.getArray(entries, H_KEY);
+        if (hint != null && hint.size() > index && hint.get(index) instanceof Number) {
+            return ((Number) hint.get(index)).longValue();
+        }
+        return -1;
+    }
+
+    private synchronized void loadHintTable() {
+        if (hintTableLoaded) {
+            return;
+        }
+        hintTableLoaded = true;
+        long hintOffset = getHintStreamOffset();
+        long hintLength = getHintStreamLength();
+        int pageCount = getPageCount();
+        if (hintOffset <= 0 || pageCount <= 0) {
+            return;
+        }
+        try {
+            Parser parser = new Parser(seekableInput, hintOffset, Parser.PARSE_MODE_NORMAL);
+            Object object = parser.getObject(library);
+            if (!(object instanceof PObject) || !(((PObject) object).getObject() instanceof Stream)) {
+                return;
+            }
+            Stream hintStream = (Stream) ((PObject) object).getObject();
+            ByteBuffer data = hintStream.getDecodedStreamBuffer();
+            if (data == null) {
+                return;
+            }
+            BitReader bits = new BitReader(data);
+            // page offset hint table header, items 1 to 13.
+            bits.read(32);                               // least number of objects in a page
+            long firstPageOffset = bits.read(32);        // location of the first page's page object
+            int objectCountBits = (int) bits.read(16);
+            long leastPageLength = bits.read(32);
+            int pageLengthBits = (int) bits.read(16);
+            bits.read(32);
+            bits.read(16);
+            bits.read(32);
+            bits.read(16);
+            bits.read(16);
+            bits.read(16);
+            bits.read(16);
+            bits.read(16);
+            // per page entries are grouped by item, each group byte aligned.
+            for (int i = 0; i < pageCount; i++) {
+                bits.read(objectCountBits);
+            }
+            bits.alignToByte();
+            long[] offsets = new long[pageCount];
+            long[] lengths = new long[pageCount];
+            long offset = firstPageOffset;
+            for (int i = 0; i < pageCount; i++) {
+                lengths[i] = leastPageLength + bits.read(pageLengthBits);
+                // hint table offsets are computed as if the hint stream isn't in the file.
+                offsets[i] = offset >= hintOffset ? offset + hintLength : offset;
+                offset += lengths[i];
+            }
+            pageOffsets = offsets;
+            pageLengths = lengths;
+        } catch (Exception e) {
+            logger.log(Level.FINE, "Error reading page offset hint table.", e);
+        }
+    }
+
+    /**
+     * Reads big endian bit fields from the hint stream.
+     */
+    private static class BitReader {
+        private final ByteBuffer data;
+        private long bitPosition;
+
+        BitReader(ByteBuffer data) {
+            this.data = data;
+        }
+
+        long read(int bitCount) {
+            long value = 0;
+            for (int i = 0; i < bitCount; i++) {
+                int byteIndex = (int) (bitPosition >>> 3);
+                if (byteIndex >= data.limit()) {
+                    throw new IllegalStateException("Hint table ended early.");
+                }
+                int bit = (data.get(byteIndex) >> (7 - (int) (bitPosition & 7))) & 1;
+                value = (value << 1) | bit;
+                bitPosition++;
+            }
+            return value;
+        }
+
+        void alignToByte() {
+            bitPosition = (bitPosition + 7) & ~7L;
+        }
+    }
+}
@@ -15,6 +15,9 @@
  */
 package org.icepdf.core.pobjects;
 
+import org.icepdf.core.util.Defs;
+
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Logger;
 
 /**
@@ -35,6 +38,12 @@ import java.util.logging.Logger;
  * <p>Names are similar to References in that objects in a PDF document can be
  * accessed by their use.  The Library class can result in any Name object and return
  * the corresponding PDF object.</p>
+ * <br>
+ * <p>The parsers create names with intern(), which returns a shared instance
+ * for names already seen, as the same few dozen keys make up most of the
+ * names in any document.  The intern table is global and bounded, its size can
+ * be set with the system property org.icepdf.core.name.internTableSize,
+ * 0 disables interning.</p>
  *
  * @since 1.1
  */
@@ -45,8 +54,20 @@ public class Name {
 
     private static final int HEX_CHAR = 0X23;
 
+    // longer names are rarely repeated and aren't worth interning.
+    private static final int MAX_INTERN_LENGTH = 64;
+
+    private static int internTableSize;
+    private static final ConcurrentHashMap<String, Name> internTable =
+            new ConcurrentHashMap<>(512);
+
+    static {
+        internTableSize = Defs.intProperty("org.icepdf.core.name.internTableSize", 16384);
+    }
+
     // String representing the name of the name
     private String name;
+    private int hash;
 
     /**
      * Create a new instance of a Name object.
@@ -55,7 +76,8 @@ public class Name {
      */
     public Name(String name) {
         if (name != null) {
-            this.name = convertHexChars(new StringBuilder(name));
+            this.name = name.indexOf(HEX_CHAR) < 0 ? name : convertHexChars(new StringBuilder(name));
+            hash = this.name.hashCode();
         }
     }
 
@@ -65,8 +87,57 @@ public class Name {
      * @param name the name value of the Name object
      */
     public Name(StringBuilder name) {
+        this.name = name.indexOf("#") < 0 ? name.toString() : convertHexChars(name);
+        hash = this.name.hashCode();
+    }
+
+    // name has already had its hex codes converted.
+    private Name(String name, int hash) {
+        this.name = name;
+        this.hash = hash;
+    }
 
-        this.name = convertHexChars(name);
+    /**
+     * Gets the shared Name instance for the given name, creating and interning
+     * it if it hasn't been seen before.  Once the intern table is full, or for
+     * very long names, a new unshared instance is returned.
+     *
+     * @param name the name value of the Name object, hex codes are converted.
+     * @return name object.
+     * @since 7.1
+     */
+    public static Name intern(String name) {
+        return internDecoded(name.indexOf(HEX_CHAR) < 0 ? name : convertHexChars(new StringBuilder(name)));
+    }
+
+    /**
+     * Gets the shared Name instance for the given name.
+     *
+     * @param name the name value of the Name object, hex codes are converted.
+     * @return name object.
+     * @see #intern(String)
+     * @since 7.1
+     */
+    public static Name intern(StringBuilder name) {
+        return internDecoded(name.indexOf("#") < 0 ? name.toString() : convertHexChars(name));
+    }
+
+    // name has already had its hex codes converted, a '#' left in it came
+    // from a #23 escape and is part of the name.
+    private static Name internDecoded(String name) {
+        Name value = internTable.get(name);
+        if (value != null) {
+            return value;
+        }
+        if (name.length() > MAX_INTERN_LENGTH || internTable.size() >= internTableSize) {
+            return new Name(name, name.hashCode());
+        }
+        // interned names share the string with the Name constants, so equality
+        // checks against the constants are reference comparisons.
+        name = name.intern();
+        value = new Name(name, name.hashCode());
+        Name previous = internTable.putIfAbsent(value.name, value);
+        return previous != null ? previous : value;
     }
 
     /**
@@ -111,7 +182,7 @@ public class Name {
      *         false, otherwise.
      */
     public boolean equals(Name obj) {
-        return obj != null && name.equals(obj.getName());
+        return obj == this || (obj != null && hash == obj.hash && name.equals(obj.name));
     }
 
     /**
@@ -132,7 +203,7 @@ public class Name {
      * @return a hash code value for this object.
      */
     public int hashCode() {
-        return name.hashCode();
+        return hash;
     }
 
     /**
@@ -144,7 +215,7 @@ public class Name {
      * @param name PDF name object string to be checked for hex codes.
      * @return full ascii encoded name string.
      */
-    private String convertHexChars(StringBuilder name) {
+    private static String convertHexChars(StringBuilder name) {
         // we need to search for an instance of # and try and convert to hex
         try {
             for (int i = 0; i < name.length(); i++) {
@@ -176,7 +247,7 @@ public class Name {
      * @param hex 2-digit hex number.
      * @return hex represented as unicode.
      */
-    private String convert(String hex) {
+    private static String convert(String hex) {
         StringBuilder output = new StringBuilder();
         output.append("\\u"); // standard unicode format.
         for (int j = 0, max = 4 - hex.length(); j < max; j++) {
@@ -18,10 +18,13 @@ package org.icepdf.core.pobjects;
 import org.icepdf.core.io.SeekableByteArrayInputStream;
 import org.icepdf.core.io.SeekableInput;
 import org.icepdf.core.io.SeekableInputConstrainedWrapper;
+import org.icepdf.core.util.Defs;
 import org.icepdf.core.util.Library;
 import org.icepdf.core.util.Parser;
 
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -38,11 +41,25 @@ public class ObjectStream extends Stream {
     public static final Name N_KEY = new Name("N");
     public static final Name FIRST_KEY = new Name("First");
 
+    // number of objects requested from a stream before the rest of its
+    // objects are parsed in one pass, 0 disables batch parsing.
+    private static int batchThreshold;
+
+    static {
+        batchThreshold = Math.max(0,
+                Defs.intProperty("org.icepdf.core.objectStream.batchThreshold", 8));
+    }
+
     private boolean init;
     private SeekableInput decodedStream;
+    private int decodedLength;
     private int[] objectNumbers;
     private long[] objectOffset;
 
+    // objects parsed in batch that haven't been handed out yet.
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private volatile AtomicReferenceArray<Object> batchObjects;
+
     /**
      * Create a new instance of a Stream.
      *
@@ -54,6 +71,15 @@ public class ObjectStream extends Stream {
         super(l, h, streamInputWrapper);
     }
 
+    /**
+     * The decoded bytes are parsed once and held by the object stream, which is
+     * itself cached by the LazyObjectLoader, so there is no point caching them again.
+     */
+    @Override
+    protected boolean isDecodedStreamCacheable() {
+        return false;
+    }
+
     public synchronized void init() {
         if (init)
             return;
@@ -61,7 +87,12 @@ public class ObjectStream extends Stream {
         int numObjects = library.getInt(entries, N_KEY);
         long firstObjectsOffset = library.getLong(entries, FIRST_KEY);
         // get the stream data
-        decodedStream = new SeekableByteArrayInputStream(getDecodedStreamBytes(0));
+        byte[] decodedBytes = getDecodedStreamBytes(0);
+        if (decodedBytes == null) {
+            decodedBytes = new byte[0];
+        }
+        decodedLength = decodedBytes.length;
+        decodedStream = new SeekableByteArrayInputStream(decodedBytes);
         objectNumbers = new int[numObjects];
         objectOffset = new long[numObjects];
         try {
@@ -76,6 +107,16 @@ public class ObjectStream extends Stream {
         }
     }
 
+    /**
+     * Gets the length of the decoded stream, which stays the same once the
+     * stream has been initialized.
+     *
+     * @return decoded length in bytes, zero if not yet initialized.
+     */
+    public int getDecodedLength() {
+        return decodedLength;
+    }
+
     public Object loadObject(Library library, int objectIndex) {
         init();
         if (objectNumbers == null ||
@@ -85,13 +126,62 @@ public class ObjectStream extends Stream {
                 objectIndex >= objectNumbers.length) {
             return null;
         }
+        // once enough objects have been asked for, the rest are likely to
+        // follow, so parse them all in one go.
+        AtomicReferenceArray<Object> batch = batchObjects;
+        if (batch == null && batchThreshold > 0 && objectNumbers.length > batchThreshold &&
+                requestCount.incrementAndGet() == batchThreshold) {
+            batch = loadAllObjects(library);
+        }
+        if (batch != null) {
+            // each batch object is handed out once, the library keeps track of it after that.
+            Object ob = batch.getAndSet(objectIndex, null);
+            if (ob != null) {
+                int objectNumber = objectNumbers[objectIndex];
+                library.addObject(ob, new Reference(objectNumber, 0));
+                return ob;
+            }
+        }
+        return parseObject(library, objectIndex);
+    }
+
+    /**
+     * Parses every object in the stream.  Objects aren't added to the library
+     * until they are requested, so instances the library already holds aren't
+     * replaced.
+     */
+    private synchronized AtomicReferenceArray<Object> loadAllObjects(Library library) {
+        if (batchObjects != null) {
+            return batchObjects;
+        }
+        AtomicReferenceArray<Object> batch = new AtomicReferenceArray<>(objectNumbers.length);
+        for (int i = 0; i < objectNumbers.length; i++) {
+            try {
+                Parser parser = new Parser(decodedStream, objectOffset[i], Parser.PARSE_MODE_OBJECT_STREAM);
+                Object ob = parser.getObject(library);
+                // objects wrapped in an obj/endobj are left to the single object
+                // path as the parser has already added them to the library.
+                if (ob != null && !(ob instanceof PObject)) {
+                    if (ob instanceof Dictionary) {
+                        ((Dictionary) ob).setPObjectReference(new Reference(objectNumbers[i], 0));
+                    }
+                    batch.set(i, ob);
+                }
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Error loading PDF object.", e);
+            }
+        }
+        batchObjects = batch;
+        return batch;
+    }
+
+    private Object parseObject(Library library, int objectIndex) {
         try {
-            decodedStream.beginThreadAccess();
             int objectNumber = objectNumbers[objectIndex];
             long position = objectOffset[objectIndex];
-            long previousPosition = decodedStream.getAbsolutePosition();
-            decodedStream.seekAbsolute(position);
-            Parser parser = new Parser(decodedStream, Parser.PARSE_MODE_OBJECT_STREAM);
+            // parser gets a private cursor over the decoded bytes, objects from
+            // the same stream can be loaded by several threads at once.
+            Parser parser = new Parser(decodedStream, position, Parser.PARSE_MODE_OBJECT_STREAM);
             // Parser.getObject() either does 1 of 3 things:
             // 1. Gets a core object (Dictionary or Stream), adds it to Library
             //    by object Reference, returns PObject
@@ -111,15 +201,10 @@ public class ObjectStream extends Stream {
                 ((Dictionary) ob).setPObjectReference(
                         new Reference(objectNumber, 0));
             }
-            // put the cursor back in the original position just encase we are dealing
-            // with two object in the same stream.
-            decodedStream.seekAbsolute(previousPosition);
             return ob;
         } catch (Exception e) {
             logger.log(Level.FINE, "Error loading PDF object.", e);
             return null;
-        } finally {
-            decodedStream.endThreadAccess();
         }
     }
 }
@@ -21,14 +21,17 @@ import org.icepdf.core.pobjects.annotations.Annotation;
 import org.icepdf.core.pobjects.annotations.FreeTextAnnotation;
 import org.icepdf.core.pobjects.annotations.MarkupAnnotation;
 import org.icepdf.core.pobjects.annotations.PopupAnnotation;
+import org.icepdf.core.pobjects.graphics.DisplayList;
 import org.icepdf.core.pobjects.graphics.Shapes;
 import org.icepdf.core.pobjects.graphics.WatermarkCallback;
 import org.icepdf.core.pobjects.graphics.text.GlyphText;
 import org.icepdf.core.pobjects.graphics.text.LineText;
 import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.pobjects.graphics.text.TextVisitor;
 import org.icepdf.core.pobjects.graphics.text.WordText;
 import org.icepdf.core.util.*;
 import org.icepdf.core.util.parser.content.ContentParser;
+import org.icepdf.core.util.parser.content.OperandStack;
 
 import java.awt.*;
 import java.awt.geom.*;
@@ -250,7 +253,7 @@ public class Page extends Dictionary {
                 if (tmp instanceof Stream) {
                     Stream tmpStream = (Stream) tmp;
                     // prune any zero length streams,
-                    if (tmpStream != null && tmpStream.getRawBytes().length > 0) {
+                    if (tmpStream != null && tmpStream.getRawBytesLength() > 0) {
                         tmpStream.setPObjectReference((Reference) cont);
                         contents.add(tmpStream);
                     }
@@ -380,6 +383,18 @@ public class Page extends Dictionary {
      */
     public void resetInitializedState() {
         inited = false;
+        library.getMemoryAccountant().pageReleased(this);
+    }
+
+    /**
+     * Drops the page's shapes and text to free memory, called by the
+     * document's MemoryAccountant when the document is over its memory
+     * budget.  The page is parsed again the next time it is needed.
+     */
+    public synchronized void evictInitializedState() {
+        inited = false;
+        shapes = null;
+        library.getMemoryAccountant().pageReleased(this);
     }
 
     /**
@@ -425,7 +440,7 @@ public class Page extends Dictionary {
                     byte[][] streams = new byte[contents.size()][];
                     byte[] stream;
                     for (int i = 0, max = contents.size(); i < max; i++) {
-                        stream = contents.get(i).getDecodedStreamBytes();
+                        stream = contents.get(i).getSharedDecodedStreamBytes(8192);
                         if (stream != null) {
                             streams[i] = stream;
                         }
@@ -438,14 +453,33 @@ public class Page extends Dictionary {
                         optionalContent.init();
                     }
 
+                    // reuse the compiled display list if the page has been
+                    // parsed before, otherwise parse and compile it.
+                    DisplayListCache displayListCache = library.getDisplayListCache();
+                    String displayListKey = null;
+                    DisplayList displayList = null;
+                    if (displayListCache != null && streams.length > 0) {
+                        displayListKey = displayListCache.createKey(getPObjectReference(),
+                                resources != null ? resources.getPObjectReference() : null, streams);
+                        displayList = displayListCache.get(displayListKey);
+                    }
+                    if (displayList != null) {
+                        shapes = displayList.toShapes();
+                    }
                     // pass in option group references into parse.
-                    if (streams.length > 0) {
+                    else if (streams.length > 0) {
                         shapes = cp.parse(streams, this).getShapes();
+                        if (displayListKey != null && shapes != null) {
+                            displayListCache.put(displayListKey, DisplayList.compile(shapes));
+                        }
                     }
                     // set the initiated flag, first as there are couple corner
                     // cases where the content parsing can call page.init() again
                     // from the same thread.
                     inited = true;
+                    if (shapes != null) {
+                        library.getMemoryAccountant().pageInitialized(this, shapes.getFootprint());
+                    }
 
                 } catch (InterruptedException e) {
                     throw new InterruptedException(e.getMessage());
@@ -543,7 +577,21 @@ public class Page extends Dictionary {
             // ri, let the
             return;
         }
+        paint(g, shapes, renderHintType, boundary, userRotation, userZoom, paintAnnotations, paintSearchHighlight);
+    }
 
+    /**
+     * Paints the page with shapes the caller has held on to since init(), so
+     * a page whose state is evicted by the memory accountant part way through
+     * a render is still painted in full.
+     *
+     * @param g      graphics context to which the page content will be painted.
+     * @param shapes page shapes from getShapes() after init(), can be null.
+     * @see #paint(Graphics, int, int, float, float, boolean, boolean)
+     */
+    void paint(Graphics g, Shapes shapes, int renderHintType, final int boundary,
+               float userRotation, float userZoom,
+               boolean paintAnnotations, boolean paintSearchHighlight) throws InterruptedException {
         Graphics2D g2 = (Graphics2D) g;
         GraphicsRenderingHints grh = GraphicsRenderingHints.getDefault();
         g2.setRenderingHints(grh.getRenderingHints(renderHintType));
@@ -578,13 +626,17 @@ public class Page extends Dictionary {
         Shape oldClip = g2.getClip();
         if (oldClip == null) {
             g2.setClip(rect);
+        } else if (oldClip instanceof Rectangle2D) {
+            // keep rectangular clips, such as a tile's, rectangular so content
+            // clips are rasterized the same as when painting the whole page.
+            g2.setClip(((Rectangle2D) oldClip).createIntersection(rect));
         } else {
             Area area = new Area(oldClip);
             area.intersect(new Area(rect));
             g2.setClip(area);
         }
 
-        paintPageContent(g2, renderHintType, userRotation, userZoom, paintAnnotations, paintSearchHighlight);
+        paintPageContent(g2, shapes, renderHintType, userRotation, userZoom, paintAnnotations, paintSearchHighlight);
 
         // one last repaint, just to be sure
         notifyPaintPageListeners();
@@ -626,13 +678,16 @@ public class Page extends Dictionary {
             init();
         }
 
-        paintPageContent(((Graphics2D) g), renderHintType, userRotation, userZoom, paintAnnotations, paintSearchHighlight);
+        paintPageContent(((Graphics2D) g), shapes, renderHintType, userRotation, userZoom, paintAnnotations,
+                paintSearchHighlight);
     }
 
-    private void paintPageContent(Graphics2D g2, int renderHintType, float userRotation, float userZoom,
-                                  boolean paintAnnotations, boolean paintSearchHighlight) throws InterruptedException {
-        // draw page content
+    // shapes are passed in as the memory accountant may evict them while painting.
+    private void paintPageContent(Graphics2D g2, Shapes shapes, int renderHintType, float userRotation,
+                                  float userZoom, boolean paintAnnotations, boolean paintSearchHighlight)
+            throws InterruptedException {
         if (shapes != null) {
+            library.getMemoryAccountant().pageAccessed(this);
             pagePainted = false;
             notifyPagePaintingStarted(shapes.getShapesCount());
             AffineTransform pageTransform = g2.getTransform();
@@ -1547,7 +1602,9 @@ public class Page extends Dictionary {
         if (!inited) {
             init();
         }
+        Shapes shapes = this.shapes;
         if (shapes != null) {
+            library.getMemoryAccountant().pageAccessed(this);
             return shapes.getPageText();
         } else {
             return null;
@@ -1605,12 +1662,12 @@ public class Page extends Dictionary {
                 ContentParser cp = new ContentParser(library, resources);
                 byte[][] streams = new byte[contents.size()][];
                 for (int i = 0, max = contents.size(); i < max; i++) {
-                    streams[i] = contents.get(i).getDecodedStreamBytes();
+                    streams[i] = contents.get(i).getSharedDecodedStreamBytes(8192);
                 }
                 textBlockShapes = cp.parseTextBlocks(streams);
                 // print off any fuzz left on the stack
                 if (logger.isLoggable(Level.FINER)) {
-                    Stack<Object> stack = cp.getStack();
+                    OperandStack stack = cp.getStack();
                     while (!stack.isEmpty()) {
                         String tmp = stack.pop().toString();
                         if (logger.isLoggable(Level.FINE)) {
@@ -1629,6 +1686,41 @@ public class Page extends Dictionary {
         }
     }
 
+    /**
+     * Streams the page's text to the given visitor as the content is parsed.
+     * Unlike getText() no Shapes or PageText are built or kept, which makes
+     * this the cheapest way to get at the text of a large number of pages.
+     * The page doesn't need to be initialized.
+     *
+     * @param visitor visitor to receive the page's glyphs, words and lines.
+     * @throws InterruptedException thread interrupted.
+     * @since 7.1
+     */
+    public synchronized void visitText(TextVisitor visitor) throws InterruptedException {
+        if (contents == null) {
+            initPageContents();
+        }
+        if (resources == null) {
+            initPageResources();
+        }
+        visitor.startPage(pageIndex);
+        if (contents != null) {
+            try {
+                ContentParser cp = new ContentParser(library, resources);
+                byte[][] streams = new byte[contents.size()][];
+                for (int i = 0, max = contents.size(); i < max; i++) {
+                    streams[i] = contents.get(i).getSharedDecodedStreamBytes(8192);
+                }
+                cp.parseTextBlocks(streams, visitor);
+            } catch (InterruptedException e) {
+                throw e;
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Error streaming page text.", e);
+            }
+        }
+        visitor.endPage(pageIndex);
+    }
+
     /**
      * Gets the zero based page index of this page as define by the order
      * in the page tree.  This does not correspond to a page's label name.
@@ -53,12 +53,12 @@ public class PageTree extends Dictionary {
     private int kidsCount = 0;
     // vector of references to leafs
     private List kidsReferences;
-    // vector of the pages associated with tree
+    // vector of the pages associated with tree, guarded by this tree.
     private HashMap<Integer, WeakReference<Object>> kidsPageAndPages;
     // pointer to parent page tree
     private PageTree parent;
     // initiated flag
-    private boolean inited;
+    private volatile boolean inited;
     // inheritable page boundary data.
     private PRectangle mediaBox;
     private PRectangle cropBox;
@@ -272,7 +272,9 @@ public class PageTree extends Dictionary {
         return -1;
     }
 
-    private Object getPageOrPagesPotentiallyNotInitedFromReferenceAt(int index) {
+    // synchronized so threads looking up pages at the same time resolve a kid
+    // once and share the one Page instance.
+    private synchronized Object getPageOrPagesPotentiallyNotInitedFromReferenceAt(int index) {
         WeakReference<Object> pageOrPages = kidsPageAndPages.get(index);
         if (pageOrPages == null || pageOrPages.get() == null) {
             Reference ref = (Reference) kidsReferences.get(index);
@@ -362,6 +364,9 @@ public class PageTree extends Dictionary {
      * Calls cannot be nested, meaning that <code>releasePage</code>
      * must be called before a subsequent invocation of
      * <code>getPage</code> for the same <code>pageIndex</code>.
+     * <br>
+     * The lookup is thread safe, threads asking for the same page get the
+     * same instance.
      *
      * @param pageNumber Zero-based index of the Page to return.
      * @return The requested Page.
@@ -20,11 +20,16 @@ import org.icepdf.core.io.ConservativeSizingByteArrayOutputStream;
 import org.icepdf.core.io.SeekableInputConstrainedWrapper;
 import org.icepdf.core.pobjects.filters.*;
 import org.icepdf.core.pobjects.security.SecurityManager;
+import org.icepdf.core.util.Defs;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.StreamArena;
+import org.icepdf.core.util.WeightedLRUCache;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.lang.ref.SoftReference;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
@@ -57,9 +62,31 @@ public class Stream extends Dictionary {
     public static final Name FILTER_JBIG2_DECODE = new Name("JBIG2Decode");
     public static final Name FILTER_JPX_DECODE = new Name("JPXDecode");
 
+    // defers reading of the stream data until it's needed, keeping only the
+    // offset and length of the data in the document input.
+    private static boolean isLazyPayloadEnabled;
+    // keep a soft reference to lazily read stream data so repeated decoding
+    // doesn't go back to the document input while there is memory to spare.
+    private static boolean isLazyPayloadSoftCached;
+
+    static {
+        isLazyPayloadEnabled =
+                Defs.sysPropertyBoolean("org.icepdf.core.stream.lazy.enabled", false);
+        isLazyPayloadSoftCached =
+                Defs.sysPropertyBoolean("org.icepdf.core.stream.lazy.softcache.enabled", true);
+    }
+
     // original byte stream that has not been decoded
     protected byte[] rawBytes;
 
+    // offset and length of the raw bytes in the document input when the
+    // payload is read lazily.
+    private SeekableInputConstrainedWrapper rawBytesInput;
+    private SoftReference<byte[]> rawBytesCache;
+
+    // raw bytes held off heap in the library's stream arena.
+    private ByteBuffer rawBuffer;
+
     protected HashMap decodeParams;
 
     // default compression state for a file loaded stream,  for re-saving
@@ -77,7 +104,16 @@ public class Stream extends Dictionary {
         super(l, h);
         // capture raw bytes for later processing.
         if (streamInputWrapper != null) {
-            this.rawBytes = getRawStreamBytes(streamInputWrapper);
+            if (isLazyPayloadEnabled) {
+                rawBytesInput = streamInputWrapper;
+            } else if (library.getStreamArena() != null) {
+                rawBuffer = getRawStreamBuffer(streamInputWrapper, library.getStreamArena());
+                if (rawBuffer == null) {
+                    this.rawBytes = getRawStreamBytes(streamInputWrapper);
+                }
+            } else {
+                this.rawBytes = getRawStreamBytes(streamInputWrapper);
+            }
         }
         decodeParams = library.getDictionary(entries, DECODEPARAM_KEY);
     }
@@ -88,13 +124,64 @@ public class Stream extends Dictionary {
     }
 
 
+    /**
+     * Gets the raw, undecoded, stream bytes.  If the stream payload is being
+     * read lazily the bytes are read from the document input on demand, bytes
+     * held off heap are copied on to the heap and softly kept for the next
+     * call.  Decoding reads the payload directly and doesn't use this method.
+     *
+     * @return raw stream bytes, null if the stream data could not be read.
+     */
     public byte[] getRawBytes() {
-        return rawBytes;
+        if (rawBuffer == null && (rawBytes != null || rawBytesInput == null)) {
+            return rawBytes;
+        }
+        byte[] data = rawBytesCache != null ? rawBytesCache.get() : null;
+        if (data == null) {
+            if (rawBuffer != null) {
+                data = library.getStreamArena().toByteArray(rawBuffer);
+                if (data != null) {
+                    rawBytesCache = new SoftReference<>(data);
+                }
+            } else {
+                data = getRawStreamBytes(rawBytesInput);
+                if (isLazyPayloadSoftCached) {
+                    rawBytesCache = new SoftReference<>(data);
+                }
+            }
+        }
+        return data;
     }
 
     public void setRawBytes(byte[] rawBytes) {
         this.rawBytes = rawBytes;
+        rawBytesInput = null;
+        rawBytesCache = null;
+        rawBuffer = null;
         compressed = false;
+        // drop any decoded copy of the previous stream data.
+        WeightedLRUCache<Reference, byte[]> decodedStreamCache =
+                library != null ? library.getDecodedStreamCache() : null;
+        if (decodedStreamCache != null && pObjectReference != null) {
+            decodedStreamCache.remove(pObjectReference);
+        }
+    }
+
+    /**
+     * Gets the length of the raw stream data without reading it in the case
+     * of a lazily read stream payload.
+     *
+     * @return length of the raw stream bytes.
+     */
+    public int getRawBytesLength() {
+        if (rawBytes != null) {
+            return rawBytes.length;
+        } else if (rawBuffer != null) {
+            return rawBuffer.capacity();
+        } else if (rawBytesInput != null) {
+            return (int) rawBytesInput.getLength();
+        }
+        return 0;
     }
 
     public boolean isRawBytesCompressed() {
@@ -111,20 +198,77 @@ public class Stream extends Dictionary {
         int length = (int) streamInputWrapper.getLength();
         byte[] rawBytes = new byte[length];
         try {
-            streamInputWrapper.read(rawBytes, 0, length);
+            // positional reads, the wrapper can be shared by threads decoding the same stream.
+            int totalRead = 0;
+            while (totalRead < length) {
+                int read = streamInputWrapper.read(totalRead, rawBytes, totalRead, length - totalRead);
+                if (read <= 0)
+                    break;
+                totalRead += read;
+            }
         } catch (IOException e) {
             logger.warning("IO Error getting stream bytes");
         }
         return rawBytes;
     }
 
+    private ByteBuffer getRawStreamBuffer(SeekableInputConstrainedWrapper streamInputWrapper, StreamArena arena) {
+        // copy the raw bytes out to the arena a block at a time.
+        int length = (int) streamInputWrapper.getLength();
+        ByteBuffer buffer = arena.allocate(length);
+        if (buffer == null) {
+            return null;
+        }
+        byte[] block = new byte[Math.min(length, 16384)];
+        try {
+            int totalRead = 0;
+            while (totalRead < length) {
+                int read = streamInputWrapper.read(totalRead, block, 0, Math.min(block.length, length - totalRead));
+                if (read <= 0)
+                    break;
+                arena.write(buffer, totalRead, block, 0, read);
+                totalRead += read;
+            }
+        } catch (IOException e) {
+            logger.warning("IO Error getting stream bytes");
+        }
+        return buffer;
+    }
+
+    /**
+     * Gets a stream over the raw, undecoded, stream bytes without copying
+     * them on to the heap when they are held off heap.
+     *
+     * @return raw stream bytes, null if the stream data could not be read.
+     */
+    protected InputStream getRawInputStream() {
+        if (rawBuffer != null) {
+            return library.getStreamArena().getInputStream(rawBuffer);
+        }
+        byte[] rawBytes = getRawBytes();
+        return rawBytes != null ? new ByteArrayInputStream(rawBytes) : null;
+    }
+
+    /**
+     * Gets a read only view of the decoded stream bytes.  Unlike
+     * getDecodedStreamBytes() the returned buffer can't be modified, so
+     * callers that only read the data should prefer this method.
+     *
+     * @return read only view of the decoded stream, null if the stream could
+     * not be decoded.
+     */
+    public ByteBuffer getDecodedStreamBuffer() {
+        byte[] decodedBytes = getSharedDecodedStreamBytes(0);
+        return decodedBytes != null ? ByteBuffer.wrap(decodedBytes).asReadOnlyBuffer() : null;
+    }
+
     /**
      * Gets the decoded Byte stream of the Stream object.
      *
      * @return decoded Byte stream
      */
     public ByteArrayInputStream getDecodedByteArrayInputStream() {
-        return new ByteArrayInputStream(getDecodedStreamBytes(0));
+        return new ByteArrayInputStream(getSharedDecodedStreamBytes(0));
     }
 
     public byte[] getDecodedStreamBytes() {
@@ -135,17 +279,49 @@ public class Stream extends Dictionary {
      * This is similar to getDecodedStreamByteArray(), except that the returned byte[]
      * is not necessarily exactly sized, and may be larger. Therefore the returned
      * Integer gives the actual valid size
+     * <br>
+     * The returned bytes belong to the caller, who is free to modify them.
+     * Bytes found in the library's decoded stream cache are copied, and bytes
+     * decoded by this call aren't added to the cache.  Read only callers
+     * should use getDecodedStreamBuffer() instead.
      *
      * @param presize potential size to associate with byte array.
      * @return Object[] { byte[] data, Integer sizeActualData }
      */
     public byte[] getDecodedStreamBytes(int presize) {
+        return getDecodedStreamBytes(presize, false);
+    }
+
+    /**
+     * Gets the decoded stream bytes without copying them, the bytes may be
+     * shared with the library's decoded stream cache and must not be modified.
+     *
+     * @param presize potential size to associate with byte array.
+     * @return decoded bytes, null if the stream could not be decoded.
+     */
+    byte[] getSharedDecodedStreamBytes(int presize) {
+        return getDecodedStreamBytes(presize, true);
+    }
+
+    private byte[] getDecodedStreamBytes(int presize, boolean shared) {
+        if (rawBuffer == null && getRawBytesLength() == 0 && getRawBytes() == null) {
+            return null;
+        }
         // decompress the stream
         if (compressed) {
+            // skip the filters entirely if the decoded bytes are already cached.
+            WeightedLRUCache<Reference, byte[]> decodedStreamCache =
+                    isDecodedStreamCacheable() ? library.getDecodedStreamCache() : null;
+            if (decodedStreamCache != null) {
+                byte[] decodedBytes = decodedStreamCache.get(pObjectReference);
+                if (decodedBytes != null) {
+                    return shared ? decodedBytes : decodedBytes.clone();
+                }
+            }
             try {
-                // todo, could nio all a little speed up here.
-                ByteArrayInputStream streamInput = new ByteArrayInputStream(rawBytes);
-                long rawStreamLength = rawBytes.length;
+                InputStream streamInput = getRawInputStream();
+                if (streamInput == null) return null;
+                long rawStreamLength = getRawBytesLength();
                 InputStream input = getDecodedInputStream(streamInput, rawStreamLength);
                 if (input == null) return null;
                 int outLength;
@@ -167,7 +343,11 @@ public class Stream extends Dictionary {
                 out.flush();
                 out.close();
                 out.trim();
-                return out.relinquishByteArray();
+                byte[] decodedBytes = out.relinquishByteArray();
+                if (shared && decodedStreamCache != null) {
+                    decodedStreamCache.put(pObjectReference, decodedBytes);
+                }
+                return decodedBytes;
             } catch (IOException e) {
                 logger.log(Level.FINE, "Problem decoding stream bytes: ", e);
             }
@@ -175,7 +355,7 @@ public class Stream extends Dictionary {
         // we have an edited stream which isn't compressed yet, so just return
         // the raw bytes.
         else {
-            return rawBytes;
+            return getRawBytes();
         }
         return null;
     }
@@ -307,51 +487,67 @@ public class Stream extends Dictionary {
         if (filterNames == null)
             return null;
 
-        String filterName;
         for (int i = 0; i < filterNames.size(); i++) {
-            filterName = filterNames.get(i);
+            filterNames.set(i, normaliseFilterName(filterNames.get(i)));
+        }
+        return filterNames;
+    }
 
-            switch (filterName) {
-                case "FlateDecode":
-                case "/Fl":
-                case "Fl":
-                    filterName = "FlateDecode";
-                    break;
-                case "LZWDecode":
-                case "/LZW":
-                case "LZW":
-                    filterName = "LZWDecode";
-                    break;
-                case "ASCII85Decode":
-                case "/A85":
-                case "A85":
-                    filterName = "ASCII85Decode";
-                    break;
-                case "ASCIIHexDecode":
-                case "/AHx":
-                case "AHx":
-                    filterName = "ASCIIHexDecode";
-                    break;
-                case "RunLengthDecode":
-                case "/RL":
-                case "RL":
-                    filterName = "RunLengthDecode";
-                    break;
-                case "CCITTFaxDecode":
-                case "/CCF":
-                case "CCF":
-                    filterName = "CCITTFaxDecode";
-                    break;
-                case "DCTDecode":
-                case "/DCT":
-                case "DCT":
-                    filterName = "DCTDecode";
-                    break;
+    private static String normaliseFilterName(String filterName) {
+        switch (filterName) {
+            case "FlateDecode":
+            case "/Fl":
+            case "Fl":
+                return "FlateDecode";
+            case "LZWDecode":
+            case "/LZW":
+            case "LZW":
+                return "LZWDecode";
+            case "ASCII85Decode":
+            case "/A85":
+            case "A85":
+                return "ASCII85Decode";
+            case "ASCIIHexDecode":
+            case "/AHx":
+            case "AHx":
+                return "ASCIIHexDecode";
+            case "RunLengthDecode":
+            case "/RL":
+            case "RL":
+                return "RunLengthDecode";
+            case "CCITTFaxDecode":
+            case "/CCF":
+            case "CCF":
+                return "CCITTFaxDecode";
+            case "DCTDecode":
+            case "/DCT":
+            case "DCT":
+                return "DCTDecode";
+        }
+        // There aren't short names for JBIG2Decode or JPXDecode
+        return filterName;
+    }
+
+    /**
+     * Checks if the decoded bytes of this stream can be kept in the library's
+     * decoded stream cache.  Only streams with an object reference qualify, and
+     * none of the stream's filters can be excluded from caching.
+     *
+     * @return true if the decoded stream bytes can be cached.
+     */
+    protected boolean isDecodedStreamCacheable() {
+        if (pObjectReference == null || library == null) {
+            return false;
+        }
+        List<String> filterNames = getFilterNames();
+        List<String> normalisedFilterNames = null;
+        if (filterNames != null) {
+            normalisedFilterNames = new ArrayList<>(filterNames.size());
+            for (Object filterName : filterNames) {
+                normalisedFilterNames.add(normaliseFilterName(filterName.toString()));
             }
-            // There aren't short names for JBIG2Decode or JPXDecode
-            filterNames.set(i, filterName);
         }
-        return filterNames;
+        return library.isDecodedStreamCacheable(normalisedFilterNames);
     }
 
     /**
@@ -0,0 +1,332 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.pobjects.graphics.Shapes;
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.GraphicsRenderingHints;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Rasterizes a page as a grid of tiles painted in parallel.  Each tile is
+ * painted on a fork-join pool into its own image, with its own Graphics2D
+ * clipped to the tile, from the page's shared shapes.  Large pages parsed
+ * once can then be rendered at high resolutions on all the available cores,
+ * and pages with a spatial index only visit the commands inside each tile.
+ * <br>
+ * Tiles can be stitched back into a single image with renderPage() or handed
+ * out as they are finished with renderTiles(), which avoids holding the whole
+ * page image in memory.  The default tile size and number of tiles painted at
+ * the same time can be set with the system properties
+ * org.icepdf.core.tiledRenderer.tileSize and
+ * org.icepdf.core.tiledRenderer.parallelism.
+ * <br>
+ * A renderer's settings aren't thread safe, but once configured it can be
+ * used to render several pages at the same time.
+ *
+ * @since 7.1
+ */
+public class TiledPageRenderer {
+
+    // clip padding in points.
+    private static final float TILE_MARGIN = 8;
+
+    private static int defaultTileSize;
+    private static int defaultParallelism;
+
+    static {
+        defaultTileSize = Math.max(16, Defs.intProperty("org.icepdf.core.tiledRenderer.tileSize", 512));
+        defaultParallelism = Math.max(1, Defs.intProperty("org.icepdf.core.tiledRenderer.parallelism",
+                Runtime.getRuntime().availableProcessors()));
+    }
+
+    /**
+     * Receives the tiles of a page as they are finished.  Tiles are handed
+     * out from the pool's threads, so a consumer can be called by several
+     * threads at the same time and in no particular order.
+     */
+    public interface TileConsumer {
+
+        /**
+         * Called when a tile has been painted.
+         *
+         * @param pageNumber page the tile belongs to, zero-based.
+         * @param bounds     position and size of the tile in the page image.
+         * @param tile       painted tile, owned by the consumer.
+         */
+        void tileRendered(int pageNumber, Rectangle bounds, BufferedImage tile);
+    }
+
+    private final Document document;
+
+    private int tileSize = defaultTileSize;
+    private int parallelism = defaultParallelism;
+    private ForkJoinPool pool;
+    private float dpi = 72;
+    private float rotation;
+    private int boundary = Page.BOUNDARY_CROPBOX;
+    private int renderHintType = GraphicsRenderingHints.PRINT;
+    private boolean paintAnnotations = true;
+
+    public TiledPageRenderer(Document document) {
+        this.document = document;
+    }
+
+    /**
+     * Renders a page into a single image, the tiles are painted in parallel
+     * and copied into place as they finish.
+     *
+     * @param pageNumber page to render, zero-based.
+     * @return image of the page.
+     * @throws InterruptedException thread interrupted, painting of any
+     *                              outstanding tiles is cancelled.
+     */
+    public BufferedImage renderPage(int pageNumber) throws InterruptedException {
+        Page page = initPage(pageNumber);
+        Dimension size = getPageSize(page);
+        BufferedImage image = new BufferedImage(size.width, size.height, BufferedImage.TYPE_INT_RGB);
+        render(page, pageNumber, size, (number, bounds, tile) -> {
+            synchronized (image) {
+                image.getRaster().setDataElements(bounds.x, bounds.y, tile.getRaster());
+            }
+            tile.flush();
+        });
+        return image;
+    }
+
+    /**
+     * Renders a page tile by tile, handing each tile to the consumer as soon
+     * as it is painted.  Returns once every tile has been handed out.
+     *
+     * @param pageNumber page to render, zero-based.
+     * @param consumer   receives the painted tiles.
+     * @throws InterruptedException thread interrupted, painting of any
+     *                              outstanding tiles is cancelled.
+     */
+    public void renderTiles(int pageNumber, TileConsumer consumer) throws InterruptedException {
+        Page page = initPage(pageNumber);
+        render(page, pageNumber, getPageSize(page), consumer);
+    }
+
+    /**
+     * Gets the size of the image renderPage() creates for a page at the
+     * current resolution and rotation.
+     *
+     * @param pageNumber page to measure, zero-based.
+     * @return size of the page image in pixels.
+     */
+    public Dimension getPageSize(int pageNumber) {
+        return getPageSize(document.getPageTree().getPage(pageNumber));
+    }
+
+    private Page initPage(int pageNumber) throws InterruptedException {
+        Page page = document.getPageTree().getPage(pageNumber);
+        if (page == null) {
+            throw new IllegalArgumentException("Page " + pageNumber + " not found.");
+        }
+        page.init();
+        return page;
+    }
+
+    // eviction holds the page lock as well, so the shapes taken here are the
+    // ones init() built and every tile paints the same content.
+    private Shapes getShapes(Page page) throws InterruptedException {
+        synchronized (page) {
+            page.init();
+            return page.getShapes();
+        }
+    }
+
+    private Dimension getPageSize(Page page) {
+        PDimension size = page.getSize(boundary, rotation, getZoom());
+        return new Dimension(Math.max(1, (int) size.getWidth()), Math.max(1, (int) size.getHeight()));
+    }
+
+    private void render(Page page, int pageNumber, Dimension size, TileConsumer consumer)
+            throws InterruptedException {
+        Shapes shapes = getShapes(page);
+        ForkJoinPool pool = this.pool != null ? this.pool : new ForkJoinPool(parallelism);
+        List<ForkJoinTask<?>> tasks = new ArrayList<>();
+        try {
+            for (int y = 0; y < size.height; y += tileSize) {
+                for (int x = 0; x < size.width; x += tileSize) {
+                    Rectangle bounds = new Rectangle(x, y,
+                            Math.min(tileSize, size.width - x), Math.min(tileSize, size.height - y));
+                    tasks.add(pool.submit(() -> {
+                        consumer.tileRendered(pageNumber, bounds, paintTile(page, shapes, bounds));
+                        return null;
+                    }));
+                }
+            }
+            for (ForkJoinTask<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof InterruptedException) {
+                throw (InterruptedException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            for (ForkJoinTask<?> task : tasks) {
+                task.cancel(true);
+            }
+            if (pool != this.pool) {
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private BufferedImage paintTile(Page page, Shapes shapes, Rectangle bounds) throws InterruptedException {
+        BufferedImage tile = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = tile.createGraphics();
+        try {
+            g.translate(-bounds.x, -bounds.y);
+            // text is culled by approximate bounds, so the clip is padded to keep
+            // glyphs that overhang from a neighbouring tile, the image itself
+            // limits painting to the tile.
+            int margin = (int) Math.ceil(TILE_MARGIN * getZoom());
+            g.setClip(bounds.x - margin, bounds.y - margin,
+                    bounds.width + 2 * margin, bounds.height + 2 * margin);
+            page.paint(g, shapes, renderHintType, boundary, rotation, getZoom(), paintAnnotations, false);
+        } finally {
+            g.dispose();
+        }
+        return tile;
+    }
+
+    private float getZoom() {
+        return dpi / 72f;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * Sets the width and height of the tiles, smaller tiles spread the work
+     * more evenly while larger tiles repeat less of the per tile setup.
+     *
+     * @param tileSize tile size in pixels.
+     */
+    public void setTileSize(int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be at least one pixel.");
+        }
+        this.tileSize = tileSize;
+    }
+
+    public float getDpi() {
+        return dpi;
+    }
+
+    /**
+     * Sets the resolution of the rendered page, 72 dpi renders the page at
+     * its actual size.
+     *
+     * @param dpi resolution in dots per inch.
+     */
+    public void setDpi(float dpi) {
+        if (dpi <= 0) {
+            throw new IllegalArgumentException("Resolution must be greater than zero.");
+        }
+        this.dpi = dpi;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Sets the number of tiles painted at the same time, used to size the
+     * pool created for each page when no pool has been set.
+     *
+     * @param parallelism number of threads painting tiles.
+     */
+    public void setParallelism(int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("Parallelism must be at least one.");
+        }
+        this.parallelism = parallelism;
+    }
+
+    public ForkJoinPool getPool() {
+        return pool;
+    }
+
+    /**
+     * Sets the pool tiles are painted on, for example
+     * ForkJoinPool.commonPool().  The pool isn't shut down by the renderer.
+     *
+     * @param pool pool to paint tiles on, null to create a pool of
+     *             parallelism threads for each page.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    public float getRotation() {
+        return rotation;
+    }
+
+    /**
+     * @param rotation page rotation in degrees, 0, 90, 180 or 270.
+     */
+    public void setRotation(float rotation) {
+        this.rotation = rotation;
+    }
+
+    public int getBoundary() {
+        return boundary;
+    }
+
+    /**
+     * @param boundary page boundary to render, typically Page.BOUNDARY_CROPBOX.
+     */
+    public void setBoundary(int boundary) {
+        this.boundary = boundary;
+    }
+
+    public int getRenderHintType() {
+        return renderHintType;
+    }
+
+    /**
+     * @param renderHintType GraphicsRenderingHints.SCREEN or GraphicsRenderingHints.PRINT.
+     */
+    public void setRenderHintType(int renderHintType) {
+        this.renderHintType = renderHintType;
+    }
+
+    public boolean isPaintAnnotations() {
+        return paintAnnotations;
+    }
+
+    public void setPaintAnnotations(boolean paintAnnotations) {
+        this.paintAnnotations = paintAnnotations;
+    }
+}
@@ -20,6 +20,7 @@ import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.fonts.zfont.*;
 import org.icepdf.core.pobjects.fonts.zfont.fontFiles.*;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.SharedResourceCache;
 
 import java.io.File;
 import java.net.URL;
@@ -110,6 +111,18 @@ public class FontFactory {
     }
 
     public FontFile createFontFile(Stream fontStream, int fontType, Name fontSubType) {
+        // font files are only ever derived from, so an identical embedded
+        // font can be shared with other open documents.
+        SharedResourceCache.Lease sharedResources = fontStream.getLibrary() != null ?
+                fontStream.getLibrary().getSharedResources() : null;
+        if (sharedResources != null) {
+            return sharedResources.acquire("font/" + fontType, fontStream.getDecodedStreamBuffer(),
+                    () -> loadFontFile(fontStream, fontType));
+        }
+        return loadFontFile(fontStream, fontType);
+    }
+
+    private FontFile loadFontFile(Stream fontStream, int fontType) {
         FontFile fontFile = null;
         try {
             if (FONT_OPEN_TYPE == fontType) {
@@ -182,8 +182,7 @@ public class SimpleFont extends org.icepdf.core.pobjects.fonts.Font {
         if (objectUnicode instanceof Stream) {
             Stream cMapStream = (Stream) objectUnicode;
             try {
-                toUnicodeCMap = new CMap(cMapStream);
-                toUnicodeCMap.init();
+                toUnicodeCMap = CMap.getInstance(cMapStream);
             } catch (Throwable e) {
                 logger.log(Level.SEVERE, "Error reading CMap file.", e);
             }
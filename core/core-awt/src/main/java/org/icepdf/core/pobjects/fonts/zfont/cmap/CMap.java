@@ -21,6 +21,7 @@ import org.icepdf.core.pobjects.Name;
 import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.StringObject;
 import org.icepdf.core.util.Parser;
+import org.icepdf.core.util.SharedResourceCache;
 import org.icepdf.core.util.Utils;
 
 import java.io.ByteArrayInputStream;
@@ -201,6 +202,31 @@ public class CMap implements org.icepdf.core.pobjects.fonts.CMap {
         return null;
     }
 
+    /**
+     * Creates and initializes the CMap in the given stream, sharing it with
+     * other documents that embed the same CMap when the shared resource cache
+     * is enabled.
+     *
+     * @param cMapStream stream containing CMap data.
+     * @return initialized CMap.
+     */
+    public static CMap getInstance(Stream cMapStream) {
+        SharedResourceCache.Lease sharedResources = cMapStream.getLibrary() != null ?
+                cMapStream.getLibrary().getSharedResources() : null;
+        if (sharedResources == null) {
+            CMap cMap = new CMap(cMapStream);
+            cMap.init();
+            return cMap;
+        }
+        return sharedResources.acquire("cmap", cMapStream.getDecodedStreamBuffer(), () -> {
+            CMap cMap = new CMap(cMapStream);
+            cMap.init();
+            // don't hold on to the document that first loaded the CMap.
+            cMap.cMapStream = null;
+            return cMap;
+        });
+    }
+
     public static CMap getInstance(Name name) {
         if (cMapCache.containsKey(name)) {
             return cMapCache.get(name);
@@ -0,0 +1,135 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.fonts.zfont.fontFiles;
+
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.WeightedLRUCache;
+
+import java.awt.*;
+import java.awt.geom.Path2D;
+import java.awt.geom.PathIterator;
+
+/**
+ * Glyph outlines of the font programs in use, shared by all documents and by
+ * every font derived from a program, so each glyph's path is only built once
+ * by FontBox.  Outlines are stored as compact Path2D.Float copies and handed
+ * out shared, callers must not modify them.
+ * <br>
+ * Glyphs are keyed by font program and font class, as font classes can key
+ * glyphs differently.  The cache holds up to
+ * org.icepdf.core.glyphOutlineCache.size bytes of outlines across all font
+ * programs, least recently used glyphs are dropped first, zero disables the
+ * cache.
+ *
+ * @since 7.1
+ */
+final class GlyphOutlineCache {
+
+    private static final WeightedLRUCache<Key, Shape> cache;
+
+    static {
+        long cacheSize = Math.max(0, Defs.intProperty("org.icepdf.core.glyphOutlineCache.size", 8 * 1024 * 1024));
+        cache = cacheSize > 0 ? new WeightedLRUCache<>(cacheSize, 8, GlyphOutlineCache::getWeight) : null;
+    }
+
+    private GlyphOutlineCache() {
+    }
+
+    /**
+     * @return true if outlines are cached.
+     */
+    static boolean isEnabled() {
+        return cache != null;
+    }
+
+    /**
+     * @param font  font the glyph belongs to.
+     * @param glyph glyph key from the font's codeToGlyph().
+     * @return cached outline, null if the glyph isn't cached.
+     */
+    static Shape get(ZSimpleFont font, Object glyph) {
+        return cache.get(new Key(font, glyph));
+    }
+
+    /**
+     * Caches a copy of a glyph's outline.
+     *
+     * @param font    font the glyph belongs to.
+     * @param glyph   glyph key from the font's codeToGlyph().
+     * @param outline outline built by the font program.
+     * @return the cached copy, to be used in place of outline.
+     */
+    static Shape put(ZSimpleFont font, Object glyph, Shape outline) {
+        Shape copy = new Path2D.Float(outline);
+        cache.put(new Key(font, glyph), copy);
+        return copy;
+    }
+
+    // path segment types take a byte and coordinates a float each.
+    private static long getWeight(Shape outline) {
+        long weight = 64;
+        float[] coords = new float[6];
+        for (PathIterator iterator = outline.getPathIterator(null); !iterator.isDone(); iterator.next()) {
+            switch (iterator.currentSegment(coords)) {
+                case PathIterator.SEG_MOVETO:
+                case PathIterator.SEG_LINETO:
+                    weight += 9;
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    weight += 17;
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    weight += 25;
+                    break;
+                default:
+                    weight += 1;
+            }
+        }
+        return weight;
+    }
+
+    private static final class Key {
+        final Class<?> fontClass;
+        final int fontProgram;
+        final Object glyph;
+        final int hash;
+
+        Key(ZSimpleFont font, Object glyph) {
+            fontClass = font.getClass();
+            fontProgram = font.fontProgramId;
+            this.glyph = glyph;
+            hash = 31 * fontProgram + glyph.hashCode();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && fontProgram == key.fontProgram && fontClass == key.fontClass &&
+                    glyph.equals(key.glyph);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
@@ -0,0 +1,246 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.fonts.zfont.fontFiles;
+
+import org.icepdf.core.util.Defs;
+import org.icepdf.core.util.WeightedLRUCache;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Cache of rasterized glyphs, shared by all documents.  Filled glyphs drawn
+ * with a solid colour and an axis aligned transform are rasterized once into
+ * a small image and then copied into place, rather than having their outline
+ * rasterized again every time the page is painted.
+ * <br>
+ * Glyphs are keyed by font program, glyph, device scale, colour and the
+ * glyph origin's offset within a pixel, quantized to a quarter pixel.
+ * Rotated, skewed or stroked text, text drawn with a pattern or clipped to a
+ * shape other than a rectangle, glyphs larger than
+ * org.icepdf.core.glyphCache.maxGlyphSize pixels and drawing to anything
+ * other than the screen or an image fall back to the outline.  The cache
+ * holds up to org.icepdf.core.glyphCache.size bytes of glyph images, zero
+ * disables it.
+ *
+ * @since 7.1
+ */
+final class GlyphRasterCache {
+
+    private static final int SUBPIXEL_STEPS = 4;
+    // low mantissa bits dropped from the device scale, so scales within
+    // about 0.05% of each other share a glyph image.
+    private static final int SCALE_MASK = 0xFFFFF000;
+
+    // marks glyphs that are always filled from their outline.
+    private static final Raster TOO_LARGE = new Raster(null, 0, 0);
+
+    private static final WeightedLRUCache<Key, Raster> cache;
+    private static int maxGlyphSize;
+
+    static {
+        long cacheSize = Math.max(0, Defs.intProperty("org.icepdf.core.glyphCache.size", 8 * 1024 * 1024));
+        maxGlyphSize = Defs.intProperty("org.icepdf.core.glyphCache.maxGlyphSize", 128);
+        cache = cacheSize > 0 ? new WeightedLRUCache<>(cacheSize, 8, raster -> raster.weight) : null;
+    }
+
+    private GlyphRasterCache() {
+    }
+
+    /**
+     * Fills a glyph from the cache, rasterizing it on a miss.
+     *
+     * @param g     graphics context the glyph is filled on.
+     * @param font  font the glyph belongs to.
+     * @param glyph glyph key from the font's codeToGlyph().
+     * @param x     x coordinate of the glyph origin.
+     * @param y     y coordinate of the glyph origin.
+     * @return true if the glyph was painted, false if it has to be filled
+     * from its outline.
+     * @throws IOException glyph outline could not be read.
+     */
+    static boolean fill(Graphics2D g, ZSimpleFont font, Object glyph, float x, float y) throws IOException {
+        if (cache == null || !(g.getPaint() instanceof Color)) {
+            return false;
+        }
+        Composite composite = g.getComposite();
+        if (!(composite instanceof AlphaComposite) ||
+                ((AlphaComposite) composite).getRule() != AlphaComposite.SRC_OVER) {
+            return false;
+        }
+        Shape clip = g.getClip();
+        if (clip != null && !(clip instanceof Rectangle2D)) {
+            return false;
+        }
+        int deviceType = g.getDeviceConfiguration().getDevice().getType();
+        if (deviceType != GraphicsDevice.TYPE_IMAGE_BUFFER && deviceType != GraphicsDevice.TYPE_RASTER_SCREEN) {
+            return false;
+        }
+        AffineTransform base = g.getTransform();
+        AffineTransform transform = new AffineTransform(base);
+        transform.translate(x, y);
+        transform.concatenate(font.getFontTransform());
+        if (transform.getShearX() != 0 || transform.getShearY() != 0) {
+            return false;
+        }
+
+        // split the device origin into whole pixels and a sub-pixel step.
+        double originX = transform.getTranslateX() * SUBPIXEL_STEPS;
+        double originY = transform.getTranslateY() * SUBPIXEL_STEPS;
+        if (Math.abs(originX) > Integer.MAX_VALUE / 2 || Math.abs(originY) > Integer.MAX_VALUE / 2) {
+            return false;
+        }
+        int stepX = (int) Math.round(originX);
+        int stepY = (int) Math.round(originY);
+        int pixelX = Math.floorDiv(stepX, SUBPIXEL_STEPS);
+        int pixelY = Math.floorDiv(stepY, SUBPIXEL_STEPS);
+        stepX -= pixelX * SUBPIXEL_STEPS;
+        stepY -= pixelY * SUBPIXEL_STEPS;
+
+        Color color = (Color) g.getPaint();
+        boolean antialiased = RenderingHints.VALUE_ANTIALIAS_ON.equals(
+                g.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+        boolean strokePure = RenderingHints.VALUE_STROKE_PURE.equals(
+                g.getRenderingHint(RenderingHints.KEY_STROKE_CONTROL));
+        Key key = new Key(font, glyph,
+                Float.floatToIntBits((float) transform.getScaleX()) & SCALE_MASK,
+                Float.floatToIntBits((float) transform.getScaleY()) & SCALE_MASK,
+                stepX, stepY, color.getRGB(), antialiased, strokePure);
+        Raster raster = cache.get(key);
+        if (raster == null) {
+            Shape outline = font.getGlyphOutline(glyph);
+            if (outline == null) {
+                return true;
+            }
+            raster = rasterize(outline, new AffineTransform(transform.getScaleX(), 0, 0, transform.getScaleY(),
+                    stepX / (double) SUBPIXEL_STEPS, stepY / (double) SUBPIXEL_STEPS),
+                    color, antialiased, strokePure);
+            cache.put(key, raster);
+        }
+        if (raster == TOO_LARGE) {
+            return false;
+        } else if (raster.image != null) {
+            g.setTransform(new AffineTransform());
+            g.drawImage(raster.image, pixelX + raster.x, pixelY + raster.y, null);
+            g.setTransform(base);
+        }
+        return true;
+    }
+
+    private static Raster rasterize(Shape outline, AffineTransform transform, Color color,
+                                    boolean antialiased, boolean strokePure) {
+        Rectangle2D glyphBounds = outline.getBounds2D();
+        if (glyphBounds.isEmpty()) {
+            return new Raster(null, 0, 0);
+        }
+        // a pixel of padding for anti-aliasing.
+        Rectangle bounds = transform.createTransformedShape(glyphBounds).getBounds();
+        bounds.grow(1, 1);
+        if (bounds.width > maxGlyphSize || bounds.height > maxGlyphSize) {
+            return TOO_LARGE;
+        }
+        BufferedImage image = new BufferedImage(bounds.width, bounds.height, BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D rasterGraphics = image.createGraphics();
+        try {
+            rasterGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiased ?
+                    RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+            rasterGraphics.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, strokePure ?
+                    RenderingHints.VALUE_STROKE_PURE : RenderingHints.VALUE_STROKE_DEFAULT);
+            rasterGraphics.setColor(color);
+            rasterGraphics.translate(-bounds.x, -bounds.y);
+            rasterGraphics.transform(transform);
+            rasterGraphics.fill(outline);
+        } finally {
+            rasterGraphics.dispose();
+        }
+        return new Raster(image, bounds.x, bounds.y);
+    }
+
+    // glyph image and its offset from the glyph origin's pixel.
+    private static final class Raster {
+        final BufferedImage image;
+        final int x;
+        final int y;
+        final long weight;
+
+        Raster(BufferedImage image, int x, int y) {
+            this.image = image;
+            this.x = x;
+            this.y = y;
+            weight = 64 + (image != null ? 4L * image.getWidth() * image.getHeight() : 0);
+        }
+    }
+
+    private static final class Key {
+        // glyph keys are only comparable between fonts of the same class
+        // sharing a font program.
+        final Class<?> fontClass;
+        final int fontProgram;
+        final Object glyph;
+        final int scaleX;
+        final int scaleY;
+        final int stepX;
+        final int stepY;
+        final int rgb;
+        final boolean antialiased;
+        final boolean strokePure;
+        final int hash;
+
+        Key(ZSimpleFont font, Object glyph, int scaleX, int scaleY, int stepX, int stepY,
+            int rgb, boolean antialiased, boolean strokePure) {
+            fontClass = font.getClass();
+            fontProgram = font.fontProgramId;
+            this.glyph = glyph;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+            this.stepX = stepX;
+            this.stepY = stepY;
+            this.rgb = rgb;
+            this.antialiased = antialiased;
+            this.strokePure = strokePure;
+            int h = fontProgram;
+            h = 31 * h + glyph.hashCode();
+            h = 31 * h + scaleX;
+            h = 31 * h + scaleY;
+            h = 31 * h + stepX * SUBPIXEL_STEPS + stepY;
+            h = 31 * h + rgb;
+            hash = 4 * h + (antialiased ? 2 : 0) + (strokePure ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && fontProgram == key.fontProgram && fontClass == key.fontClass &&
+                    scaleX == key.scaleX && scaleY == key.scaleY && stepX == key.stepX && stepY == key.stepY &&
+                    rgb == key.rgb && antialiased == key.antialiased && strokePure == key.strokePure &&
+                    glyph.equals(key.glyph);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
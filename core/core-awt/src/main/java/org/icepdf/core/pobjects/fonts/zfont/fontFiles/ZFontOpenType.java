@@ -4,10 +4,8 @@ import org.apache.fontbox.ttf.GlyphData;
 import org.apache.fontbox.ttf.OTFParser;
 import org.apache.fontbox.ttf.OpenTypeFont;
 import org.icepdf.core.pobjects.Stream;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.geom.GeneralPath;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
@@ -46,31 +44,23 @@ public class ZFontOpenType extends ZFontTrueType {
     @Override
     public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
         try {
-            AffineTransform af = g.getTransform();
-            char echar = estr.charAt(0);
-            int gid = getCharToGid(echar);
-            GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
-            Shape outline;
-            if (glyphData == null) {
-                outline = new GeneralPath();
-            } else {
-                outline = glyphData.getPath();
-            }
-
-            g.translate(x, y);
-            g.transform(this.fontTransform);
-
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
-            }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
+            paintGlyph(g, codeToGlyph(estr), x, y, mode);
         } catch (IOException e) {
             logger.log(Level.FINE, "Error painting OpenType font", e);
         }
     }
+
+    @Override
+    protected Object codeToGlyph(String estr) {
+        return getCharToGid(estr.charAt(0));
+    }
+
+    @Override
+    protected Shape createGlyphOutline(Object glyph) throws IOException {
+        GlyphData glyphData = trueTypeFont.getGlyph().getGlyph((Integer) glyph);
+        if (glyphData == null) {
+            return new GeneralPath();
+        }
+        return glyphData.getPath();
+    }
 }
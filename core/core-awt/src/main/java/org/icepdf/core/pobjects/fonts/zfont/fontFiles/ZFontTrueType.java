@@ -7,7 +7,6 @@ import org.icepdf.core.pobjects.fonts.CMap;
 import org.icepdf.core.pobjects.fonts.Encoding;
 import org.icepdf.core.pobjects.fonts.FontFile;
 import org.icepdf.core.pobjects.fonts.zfont.GlyphList;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -110,41 +109,35 @@ public class ZFontTrueType extends ZSimpleFont implements Cloneable {
     @Override
     public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
         try {
-            AffineTransform af = g.getTransform();
-            char echar = estr.charAt(0);
-
-            Shape outline;
-            int gid;
-            if (trueTypeFont instanceof OpenTypeFont) {
-                int cid = codeToGID(echar);
-                Type2CharString charstring = ((OpenTypeFont) trueTypeFont).getCFF().getFont().getType2CharString(cid);
-                outline = charstring.getPath();
-            } else {
-                gid = getCharToGid(echar);
-                GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
-                if (glyphData == null) {
-                    outline = new GeneralPath();
-                } else {
-                    outline = glyphData.getPath();
-                }
-            }
-            g.translate(x, y);
-            g.transform(this.fontTransform);
-
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
-            }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
+            paintGlyph(g, codeToGlyph(estr), x, y, mode);
         } catch (IOException e) {
             logger.log(Level.FINE, "Error painting TrueType font", e);
         }
     }
 
+    @Override
+    protected Object codeToGlyph(String estr) {
+        char echar = estr.charAt(0);
+        if (trueTypeFont instanceof OpenTypeFont) {
+            return codeToGID(echar);
+        }
+        return getCharToGid(echar);
+    }
+
+    @Override
+    protected Shape createGlyphOutline(Object glyph) throws IOException {
+        int gid = (Integer) glyph;
+        if (trueTypeFont instanceof OpenTypeFont) {
+            Type2CharString charstring = ((OpenTypeFont) trueTypeFont).getCFF().getFont().getType2CharString(gid);
+            return charstring.getPath();
+        }
+        GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
+        if (glyphData == null) {
+            return new GeneralPath();
+        }
+        return glyphData.getPath();
+    }
+
     @Override
     public org.apache.fontbox.encoding.Encoding getEncoding() {
         return null;
@@ -6,7 +6,6 @@ import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.fonts.CMap;
 import org.icepdf.core.pobjects.fonts.Encoding;
 import org.icepdf.core.pobjects.fonts.FontFile;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -35,7 +34,7 @@ public class ZFontType0 extends ZSimpleFont {
         } else if (fontBytes != null) {
             CFFParser cffParser = new CFFParser();
             try {
-                cffFont = cffParser.parse(fontBytes, new FF3ByteSource(fontStream)).get(0);
+                cffFont = cffParser.parse(fontBytes, new FF3ByteSource(fontBytes)).get(0);
             } catch (IOException e) {
                 logger.log(Level.WARNING, "Can't read the embedded CFF font ", e);
                 throw new Exception(e);
@@ -85,35 +84,29 @@ public class ZFontType0 extends ZSimpleFont {
     @Override
     public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
         try {
-            AffineTransform af = g.getTransform();
-            Shape outline = null;
-
-            int cid = estr.charAt(0);
-            Type2CharString charstring = getType2CharString(cid);
-            if (charstring != null) {
-                outline = charstring.getPath();
-            } else if (t1Font instanceof CFFType1Font) {
-                outline = ((CFFType1Font) t1Font).getType2CharString(cid).getPath();
-            }
-
-            // clean up,  not very efficient
-            g.translate(x, y);
-            g.transform(this.fontTransform);
-
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
-            }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
+            paintGlyph(g, codeToGlyph(estr), x, y, mode);
         } catch (IOException e) {
             logger.log(Level.FINE, "Error painting FontType0 font", e);
         }
     }
 
+    @Override
+    protected Object codeToGlyph(String estr) {
+        return (int) estr.charAt(0);
+    }
+
+    @Override
+    protected Shape createGlyphOutline(Object glyph) throws IOException {
+        int cid = (Integer) glyph;
+        Type2CharString charstring = getType2CharString(cid);
+        if (charstring != null) {
+            return charstring.getPath();
+        } else if (t1Font instanceof CFFType1Font) {
+            return ((CFFType1Font) t1Font).getType2CharString(cid).getPath();
+        }
+        return null;
+    }
+
     public FontFile deriveFont(float defaultWidth, float[] widths) {
         // parse out the width notation and generate the width
         ZFontType0 font = (ZFontType0) deriveFont(size);
@@ -245,16 +238,18 @@ public class ZFontType0 extends ZSimpleFont {
         return length2;
     }
 
-    private class FF3ByteSource implements CFFParser.ByteSource {
-        private final Stream fontStream;
+    // keeps the decoded CFF data only, a shared font program must not pin
+    // the stream's library and document input.
+    private static class FF3ByteSource implements CFFParser.ByteSource {
+        private final byte[] fontBytes;
 
-        public FF3ByteSource(Stream fontStream) {
-            this.fontStream = fontStream;
+        public FF3ByteSource(byte[] fontBytes) {
+            this.fontBytes = fontBytes;
         }
 
         @Override
         public byte[] getBytes() throws IOException {
-            return fontStream.getDecodedStreamBytes();
+            return fontBytes;
         }
     }
 }
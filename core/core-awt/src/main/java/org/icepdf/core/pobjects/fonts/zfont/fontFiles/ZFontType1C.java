@@ -29,7 +29,7 @@ public class ZFontType1C extends ZSimpleFont {
             if (fontBytes != null) {
                 // note: this could be an OpenType file, fortunately CFFParser can handle that
                 CFFParser cffParser = new CFFParser();
-                cffType1Font = (CFFType1Font) cffParser.parse(fontBytes, new FontFileByteSource(fontStream)).get(0);
+                cffType1Font = (CFFType1Font) cffParser.parse(fontBytes, new FontFileByteSource(fontBytes)).get(0);
             }
             fontBoxFont = cffType1Font;
         } catch (IOException e) {
@@ -143,16 +143,21 @@ public class ZFontType1C extends ZSimpleFont {
         return cffType1Font.getName();
     }
 
+    /**
+     * Holds the decoded font program rather than its stream, font programs
+     * are shared between documents and the stream would keep the first
+     * document's library and input reachable.
+     */
     private static class FontFileByteSource implements CFFParser.ByteSource {
-        private final Stream fontStream;
+        private final byte[] fontBytes;
 
-        public FontFileByteSource(Stream fontStream) {
-            this.fontStream = fontStream;
+        public FontFileByteSource(byte[] fontBytes) {
+            this.fontBytes = fontBytes;
         }
 
         @Override
         public byte[] getBytes() throws IOException {
-            return fontStream.getDecodedStreamBytes();
+            return fontBytes;
         }
     }
 }
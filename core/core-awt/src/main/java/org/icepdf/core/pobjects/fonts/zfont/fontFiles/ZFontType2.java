@@ -8,7 +8,6 @@ import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.fonts.CMap;
 import org.icepdf.core.pobjects.fonts.Encoding;
 import org.icepdf.core.pobjects.fonts.FontFile;
-import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
@@ -79,36 +78,27 @@ public class ZFontType2 extends ZSimpleFont { //extends ZFontTrueType {
     @Override
     public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
         try {
-            AffineTransform af = g.getTransform();
-            char echar = estr.charAt(0);
-            int gid = getCharToGid(echar);
-            GlyphData glyphData = trueTypeFont.getGlyph().getGlyph(gid);
-            Shape outline;
-            if (glyphData == null) {
-                outline = new GeneralPath();
-            } else {
-                // must scaled by caller using FontMatrix
-                outline = glyphData.getPath();
-            }
-
-            // clean up,  not very efficient
-            g.translate(x, y);
-            g.transform(this.fontTransform);
-
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
-            }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
-            }
-            g.setTransform(af);
+            paintGlyph(g, codeToGlyph(estr), x, y, mode);
         } catch (IOException e) {
             logger.log(Level.FINE, "Error painting FontType2 font", e);
         }
     }
 
+    @Override
+    protected Object codeToGlyph(String estr) {
+        return getCharToGid(estr.charAt(0));
+    }
+
+    @Override
+    protected Shape createGlyphOutline(Object glyph) throws IOException {
+        GlyphData glyphData = trueTypeFont.getGlyph().getGlyph((Integer) glyph);
+        if (glyphData == null) {
+            return new GeneralPath();
+        }
+        // must scaled by caller using FontMatrix
+        return glyphData.getPath();
+    }
+
     @Override
     public org.apache.fontbox.encoding.Encoding getEncoding() {
         return null;
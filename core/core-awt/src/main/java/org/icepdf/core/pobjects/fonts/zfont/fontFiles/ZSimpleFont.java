@@ -9,12 +9,12 @@ import org.icepdf.core.pobjects.graphics.TextState;
 
 import java.awt.*;
 import java.awt.geom.AffineTransform;
-import java.awt.geom.Area;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
 import java.io.IOException;
 import java.net.URL;
 import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -28,6 +28,8 @@ public abstract class ZSimpleFont implements FontFile {
     private static final Logger logger =
             Logger.getLogger(ZSimpleFont.class.toString());
 
+    private static final AtomicInteger fontProgramCount = new AtomicInteger();
+
     // text layout map, very expensive to create, so we'll cache them.
     private HashMap<String, Point2D.Float> echarAdvanceCache;
 
@@ -63,11 +65,15 @@ public abstract class ZSimpleFont implements FontFile {
 
     protected boolean isDamaged;
 
-    protected ZSimpleFont() {
+    // identifies the font program, shared by the fonts derived from it.
+    protected final int fontProgramId;
 
+    protected ZSimpleFont() {
+        fontProgramId = fontProgramCount.incrementAndGet();
     }
 
     protected ZSimpleFont(ZSimpleFont font) {
+        this.fontProgramId = font.fontProgramId;
         this.encoding = font.encoding;
         this.isSymbolic = font.isSymbolic;
         this.toUnicode = font.toUnicode;
@@ -138,52 +144,114 @@ public abstract class ZSimpleFont implements FontFile {
     @Override
     public void paint(Graphics2D g, String estr, float x, float y, long layout, int mode, Color strokeColor) {
         try {
-            AffineTransform af = g.getTransform();
-            String name = codeToName(estr);
-            Shape outline = fontBoxFont.getPath(name);
-            if (encoding != null && !fontBoxFont.hasGlyph(name)) {
-                name = encoding.getName(estr.charAt(0));
-                if (name != null) {
-                    outline = fontBoxFont.getPath(name);
-                }
-            }
-
-            // clean up,  not very efficient
-            g.translate(x, y);
-            g.transform(this.fontTransform);
+            paintGlyph(g, codeToGlyph(estr), x, y, mode);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error painting SimpleFont", e);
+        }
+    }
 
-            if (TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.fill(outline);
+    /**
+     * Gets the key of the glyph a character code maps to, a glyph name by
+     * default, sub classes that address glyphs by id return an Integer.
+     *
+     * @param estr character code.
+     * @return glyph key for getGlyphOutline().
+     * @throws IOException font program could not be read.
+     */
+    protected Object codeToGlyph(String estr) throws IOException {
+        String name = codeToName(estr);
+        if (encoding != null && !fontBoxFont.hasGlyph(name)) {
+            String encodingName = encoding.getName(estr.charAt(0));
+            if (encodingName != null) {
+                name = encodingName;
             }
-            if (TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
-                    TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode) {
-                g.draw(outline);
+        }
+        return name;
+    }
+
+    /**
+     * Gets a glyph's outline in glyph space from the font program's outline
+     * cache, building it on a miss.  The outline is shared and must not be
+     * modified.
+     *
+     * @param glyph glyph key from codeToGlyph().
+     * @return glyph outline, null if the glyph can't be drawn.
+     * @throws IOException font program could not be read.
+     */
+    protected Shape getGlyphOutline(Object glyph) throws IOException {
+        if (!GlyphOutlineCache.isEnabled()) {
+            return createGlyphOutline(glyph);
+        }
+        Shape outline = GlyphOutlineCache.get(this, glyph);
+        if (outline == null) {
+            outline = createGlyphOutline(glyph);
+            if (outline != null) {
+                outline = GlyphOutlineCache.put(this, glyph, outline);
             }
-            g.setTransform(af);
-        } catch (IOException e) {
-            logger.log(Level.FINE, "Error painting SimpleFont", e);
         }
+        return outline;
+    }
+
+    /**
+     * Builds a glyph's outline in glyph space from the font program.
+     *
+     * @param glyph glyph key from codeToGlyph().
+     * @return glyph outline, null if the glyph can't be drawn.
+     * @throws IOException font program could not be read.
+     */
+    protected Shape createGlyphOutline(Object glyph) throws IOException {
+        return fontBoxFont.getPath((String) glyph);
+    }
+
+    /**
+     * Fills and or strokes a glyph according to the text rendering mode.
+     * Filled glyphs are drawn from the glyph raster cache when possible.
+     *
+     * @param g     graphics context to paint on.
+     * @param glyph glyph key from codeToGlyph().
+     * @param x     x coordinate of the glyph origin.
+     * @param y     y coordinate of the glyph origin.
+     * @param mode  text rendering mode.
+     * @throws IOException font program could not be read.
+     */
+    protected void paintGlyph(Graphics2D g, Object glyph, float x, float y, int mode) throws IOException {
+        boolean fill = TextState.MODE_FILL == mode || TextState.MODE_FILL_STROKE == mode ||
+                TextState.MODE_FILL_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode;
+        boolean stroke = TextState.MODE_STROKE == mode || TextState.MODE_FILL_STROKE == mode ||
+                TextState.MODE_STROKE_ADD == mode || TextState.MODE_FILL_STROKE_ADD == mode;
+        if (!fill && !stroke) {
+            return;
+        }
+        if (fill && !stroke && GlyphRasterCache.fill(g, this, glyph, x, y)) {
+            return;
+        }
+        Shape outline = getGlyphOutline(glyph);
+        if (outline == null) {
+            return;
+        }
+        AffineTransform af = g.getTransform();
+        g.translate(x, y);
+        g.transform(this.fontTransform);
+        if (fill) {
+            g.fill(outline);
+        }
+        if (stroke) {
+            g.draw(outline);
+        }
+        g.setTransform(af);
     }
 
     @Override
     public Shape getOutline(String estr, float x, float y) {
         try {
-            String name = codeToName(estr);
-            Shape glyph = fontBoxFont.getPath(name);
-            if (encoding != null && !fontBoxFont.hasGlyph(name)) {
-                name = encoding.getName(estr.charAt(0));
-                if (name != null) {
-                    glyph = fontBoxFont.getPath(name);
-                }
+            Shape glyph = getGlyphOutline(codeToGlyph(estr));
+            if (glyph == null) {
+                return null;
             }
-
-            Area outline = new Area(glyph);
             AffineTransform transform = new AffineTransform();
             transform.translate(x, y);
             transform.concatenate(fontTransform);
-            outline = outline.createTransformedArea(transform);
-            return outline;
+            return transform.createTransformedShape(glyph);
         } catch (IOException e) {
             logger.log(Level.FINE, "Error painting font outline", e);
         }
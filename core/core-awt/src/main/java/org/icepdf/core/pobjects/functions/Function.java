@@ -129,7 +129,7 @@ public abstract class Function {
                     return new Function_3(d);
                 // PostScript calculator
                 case 4:
-                    return new Function_4(d);
+                    return Function_4.getInstance(d);
             }
         }
         return null;
@@ -19,6 +19,7 @@ import org.icepdf.core.pobjects.Dictionary;
 import org.icepdf.core.pobjects.Name;
 import org.icepdf.core.pobjects.Stream;
 
+import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -126,7 +127,7 @@ public class Function_0 extends Function {
 
         // lastly get the stream byte data if any.
         Stream stream = (Stream) d;
-        convertToSamples(stream.getDecodedStreamBytes(0), bitsPerSample);
+        convertToSamples(stream.getDecodedStreamBuffer(), bitsPerSample);
     }
 
     /**
@@ -190,10 +191,10 @@ public class Function_0 extends Function {
     /**
      * Utility for converting sample bytes to integers of the correct bits per sample.
      *
-     * @param bytes         byte array to convert.
+     * @param bytes         sample data to convert.
      * @param bitsPerSample bits per sample value
      */
-    private void convertToSamples(byte[] bytes, int bitsPerSample) {
+    private void convertToSamples(ByteBuffer bytes, int bitsPerSample) {
         int size = 1;
         int inputMax = domain.length / 2;
         int outputMax = range.length / 2;
@@ -210,7 +211,7 @@ public class Function_0 extends Function {
                 for (int k = 0; k < outputMax; k++) {
                     int value = 0;
                     int bitsToRead = bitsPerSample;
-                    byte byteCount = bytes[byteLocation];
+                    byte byteCount = bytes.get(byteLocation);
                     while (bitsToRead > 0) {
                         int nextBit = ((byteCount >> (7 - bitLocation)) & 0x1);
                         value |= nextBit << (bitsToRead - 1);
@@ -220,7 +221,7 @@ public class Function_0 extends Function {
                             bitLocation = 0;
                             byteLocation++;
                             if (bitsToRead > 1) {
-                                byteCount = bytes[byteLocation];
+                                byteCount = bytes.get(byteLocation);
                             }
                         }
                         bitsToRead--;
@@ -18,6 +18,7 @@ package org.icepdf.core.pobjects.functions;
 import org.icepdf.core.pobjects.Dictionary;
 import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.pobjects.functions.postscript.Lexer;
+import org.icepdf.core.util.SharedResourceCache;
 import org.icepdf.core.util.Utils;
 
 import java.io.ByteArrayInputStream;
@@ -68,6 +69,25 @@ public class Function_4 extends Function {
         resultCache = new ConcurrentHashMap<>();
     }
 
+    /**
+     * Creates a type 4 function, sharing it with other documents that use the
+     * same function when the shared resource cache is enabled.  Along with its
+     * result cache a shared function keeps the values it has already computed.
+     *
+     * @param d dictionary containing a valid function dictionary.
+     * @return new or shared type 4 function.
+     */
+    public static Function_4 getInstance(Dictionary d) {
+        SharedResourceCache.Lease sharedResources = d.getLibrary() != null ?
+                d.getLibrary().getSharedResources() : null;
+        if (sharedResources == null || !(d instanceof Stream)) {
+            return new Function_4(d);
+        }
+        // the result depends on the domain and range as well as the code.
+        String type = "function4/" + d.getObject(DOMAIN_NAME) + "/" + d.getObject(RANGE_NAME);
+        return sharedResources.acquire(type, ((Stream) d).getDecodedStreamBuffer(), () -> new Function_4(d));
+    }
+
     /**
      * <p>Puts the value x thought the function type 4 algorithm.
      *
@@ -0,0 +1,320 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics;
+
+import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.graphics.commands.*;
+import org.icepdf.core.pobjects.graphics.text.PageText;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.GeneralPath;
+import java.awt.geom.PathIterator;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compiled form of a page's Shapes that can be turned back in to Shapes
+ * without running the ContentParser again.
+ * <br>
+ * Paths, transforms, colours, strokes, alpha and clip commands are encoded in
+ * a compact binary form.  Commands that depend on document resources, such
+ * as text, images, forms and patterns, are kept as references to the original
+ * draw commands, so a display list only applies to the document it was
+ * compiled from.
+ *
+ * @since 7.1
+ */
+public class DisplayList {
+
+    // op codes, one byte each.
+    private static final int OP_REFERENCE = 0;
+    private static final int OP_SHAPE = 1;
+    private static final int OP_TRANSFORM = 2;
+    private static final int OP_TEXT_TRANSFORM = 3;
+    private static final int OP_COLOR = 4;
+    private static final int OP_ALPHA = 5;
+    private static final int OP_BASIC_STROKE = 6;
+    private static final int OP_CLIP = 7;
+    private static final int OP_NO_CLIP = 8;
+    private static final int OP_DRAW = 9;
+    private static final int OP_FILL = 10;
+    private static final int OP_OCG_END = 11;
+    private static final int OP_GRAPHICS_STATE = 12;
+
+    private final byte[] code;
+    // draw commands that can't be encoded, referenced by index from the code.
+    private final DrawCmd[] references;
+    private final PageText pageText;
+    private final boolean paintAlpha;
+    private final long footprint;
+
+    private DisplayList(byte[] code, DrawCmd[] references, PageText pageText, boolean paintAlpha,
+                        long footprint) {
+        this.code = code;
+        this.references = references;
+        this.pageText = pageText;
+        this.paintAlpha = paintAlpha;
+        this.footprint = footprint;
+    }
+
+    /**
+     * Compiles the given shapes.
+     *
+     * @param shapes shapes of a page that has been parsed.
+     * @return compiled display list.
+     */
+    public static DisplayList compile(Shapes shapes) {
+        List<DrawCmd> references = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            List<DrawCmd> drawCmds = shapes.getShapes();
+            out.writeInt(drawCmds.size());
+            for (DrawCmd drawCmd : drawCmds) {
+                encode(drawCmd, out, references);
+            }
+        } catch (IOException e) {
+            // can't happen writing to memory.
+            throw new IllegalStateException(e);
+        }
+        byte[] code = bytes.toByteArray();
+        // encoded commands only cost their bytes, referenced ones are kept alive by the list.
+        long footprint = code.length;
+        for (DrawCmd drawCmd : references) {
+            footprint += Shapes.getFootprint(drawCmd);
+        }
+        return new DisplayList(code, references.toArray(new DrawCmd[0]), shapes.getPageText(),
+                shapes.isPaintAlpha(), footprint);
+    }
+
+    /**
+     * Builds a new Shapes instance from the display list.
+     *
+     * @return shapes, ready to paint.
+     * @throws IOException if the display list is corrupt.
+     */
+    public Shapes toShapes() throws IOException {
+        Shapes shapes = new Shapes();
+        shapes.setPaintAlpha(paintAlpha);
+        shapes.setPageText(pageText);
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(code))) {
+            int count = in.readInt();
+            shapes.getShapes().ensureCapacity(count);
+            for (int i = 0; i < count; i++) {
+                shapes.add(decode(in));
+            }
+        }
+        shapes.contract();
+        return shapes;
+    }
+
+    /**
+     * @return estimated memory used by the display list and the commands it references.
+     */
+    public long getFootprint() {
+        return footprint;
+    }
+
+    private static void encode(DrawCmd drawCmd, DataOutputStream out, List<DrawCmd> references)
+            throws IOException {
+        Class<?> type = drawCmd.getClass();
+        if (type == ShapeDrawCmd.class && ((ShapeDrawCmd) drawCmd).getShape() != null) {
+            out.writeByte(OP_SHAPE);
+            writeShape(((ShapeDrawCmd) drawCmd).getShape(), out);
+        } else if (type == TransformDrawCmd.class) {
+            out.writeByte(OP_TRANSFORM);
+            writeTransform(((TransformDrawCmd) drawCmd).getAffineTransform(), out);
+        } else if (type == TextTransformDrawCmd.class) {
+            out.writeByte(OP_TEXT_TRANSFORM);
+            writeTransform(((TextTransformDrawCmd) drawCmd).getAffineTransform(), out);
+        } else if (type == ColorDrawCmd.class && ((ColorDrawCmd) drawCmd).getColor().getClass() == Color.class) {
+            out.writeByte(OP_COLOR);
+            out.writeInt(((ColorDrawCmd) drawCmd).getColor().getRGB());
+        } else if (type == AlphaDrawCmd.class) {
+            AlphaComposite alphaComposite = ((AlphaDrawCmd) drawCmd).getAlphaComposite();
+            out.writeByte(OP_ALPHA);
+            out.writeByte(alphaComposite.getRule());
+            out.writeFloat(alphaComposite.getAlpha());
+        } else if (type == StrokeDrawCmd.class && ((StrokeDrawCmd) drawCmd).getStroke().getClass() == BasicStroke.class) {
+            BasicStroke stroke = (BasicStroke) ((StrokeDrawCmd) drawCmd).getStroke();
+            out.writeByte(OP_BASIC_STROKE);
+            out.writeFloat(stroke.getLineWidth());
+            out.writeByte(stroke.getEndCap());
+            out.writeByte(stroke.getLineJoin());
+            out.writeFloat(stroke.getMiterLimit());
+            float[] dash = stroke.getDashArray();
+            out.writeShort(dash != null ? dash.length : -1);
+            if (dash != null) {
+                for (float value : dash) {
+                    out.writeFloat(value);
+                }
+            }
+            out.writeFloat(stroke.getDashPhase());
+        } else if (type == ClipDrawCmd.class) {
+            out.writeByte(OP_CLIP);
+        } else if (type == NoClipDrawCmd.class) {
+            out.writeByte(OP_NO_CLIP);
+        } else if (type == DrawDrawCmd.class) {
+            out.writeByte(OP_DRAW);
+        } else if (type == FillDrawCmd.class) {
+            out.writeByte(OP_FILL);
+        } else if (type == OCGEndDrawCmd.class) {
+            out.writeByte(OP_OCG_END);
+        } else if (type == GraphicsStateCmd.class && ((GraphicsStateCmd) drawCmd).getGraphicStateName() != null) {
+            out.writeByte(OP_GRAPHICS_STATE);
+            out.writeUTF(((GraphicsStateCmd) drawCmd).getGraphicStateName().getName());
+        } else {
+            out.writeByte(OP_REFERENCE);
+            out.writeInt(references.size());
+            references.add(drawCmd);
+        }
+    }
+
+    private DrawCmd decode(DataInputStream in) throws IOException {
+        int op = in.readUnsignedByte();
+        switch (op) {
+            case OP_REFERENCE:
+                int index = in.readInt();
+                if (index < 0 || index >= references.length) {
+                    throw new IOException("Display list reference out of range: " + index);
+                }
+                return references[index];
+            case OP_SHAPE:
+                return new ShapeDrawCmd(readShape(in));
+            case OP_TRANSFORM:
+                return new TransformDrawCmd(readTransform(in));
+            case OP_TEXT_TRANSFORM:
+                return new TextTransformDrawCmd(readTransform(in));
+            case OP_COLOR:
+                return new ColorDrawCmd(new Color(in.readInt(), true));
+            case OP_ALPHA:
+                int rule = in.readUnsignedByte();
+                return new AlphaDrawCmd(AlphaComposite.getInstance(rule, in.readFloat()));
+            case OP_BASIC_STROKE:
+                float width = in.readFloat();
+                int cap = in.readUnsignedByte();
+                int join = in.readUnsignedByte();
+                float miterLimit = in.readFloat();
+                int dashLength = in.readShort();
+                float[] dash = null;
+                if (dashLength >= 0) {
+                    dash = new float[dashLength];
+                    for (int i = 0; i < dashLength; i++) {
+                        dash[i] = in.readFloat();
+                    }
+                }
+                float dashPhase = in.readFloat();
+                return new StrokeDrawCmd(new BasicStroke(width, cap, join, miterLimit, dash, dashPhase));
+            case OP_CLIP:
+                return new ClipDrawCmd();
+            case OP_NO_CLIP:
+                return new NoClipDrawCmd();
+            case OP_DRAW:
+                return new DrawDrawCmd();
+            case OP_FILL:
+                return new FillDrawCmd();
+            case OP_OCG_END:
+                return new OCGEndDrawCmd();
+            case OP_GRAPHICS_STATE:
+                return new GraphicsStateCmd(Name.intern(in.readUTF()));
+            default:
+                throw new IOException("Unknown display list op: " + op);
+        }
+    }
+
+    private static void writeTransform(AffineTransform transform, DataOutputStream out) throws IOException {
+        double[] matrix = new double[6];
+        transform.getMatrix(matrix);
+        for (double value : matrix) {
+            out.writeDouble(value);
+        }
+    }
+
+    private static AffineTransform readTransform(DataInputStream in) throws IOException {
+        double[] matrix = new double[6];
+        for (int i = 0; i < 6; i++) {
+            matrix[i] = in.readDouble();
+        }
+        return new AffineTransform(matrix);
+    }
+
+    // segment type then its coordinates, float precision like the GeneralPaths
+    // built by the parser.
+    private static void writeShape(Shape shape, DataOutputStream out) throws IOException {
+        PathIterator iterator = shape.getPathIterator(null);
+        out.writeByte(iterator.getWindingRule());
+        float[] coords = new float[6];
+        while (!iterator.isDone()) {
+            int segment = iterator.currentSegment(coords);
+            out.writeByte(segment);
+            for (int i = 0, max = coordinateCount(segment); i < max; i++) {
+                out.writeFloat(coords[i]);
+            }
+            iterator.next();
+        }
+        out.writeByte(-1);
+    }
+
+    private static Shape readShape(DataInputStream in) throws IOException {
+        GeneralPath path = new GeneralPath(in.readUnsignedByte());
+        float[] coords = new float[6];
+        int segment;
+        while ((segment = in.readByte()) != -1) {
+            for (int i = 0, max = coordinateCount(segment); i < max; i++) {
+                coords[i] = in.readFloat();
+            }
+            switch (segment) {
+                case PathIterator.SEG_MOVETO:
+                    path.moveTo(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_LINETO:
+                    path.lineTo(coords[0], coords[1]);
+                    break;
+                case PathIterator.SEG_QUADTO:
+                    path.quadTo(coords[0], coords[1], coords[2], coords[3]);
+                    break;
+                case PathIterator.SEG_CUBICTO:
+                    path.curveTo(coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]);
+                    break;
+                case PathIterator.SEG_CLOSE:
+                    path.closePath();
+                    break;
+                default:
+                    throw new IOException("Unknown path segment: " + segment);
+            }
+        }
+        return path;
+    }
+
+    private static int coordinateCount(int segment) {
+        switch (segment) {
+            case PathIterator.SEG_MOVETO:
+            case PathIterator.SEG_LINETO:
+                return 2;
+            case PathIterator.SEG_QUADTO:
+                return 4;
+            case PathIterator.SEG_CUBICTO:
+                return 6;
+            default:
+                return 0;
+        }
+    }
+}
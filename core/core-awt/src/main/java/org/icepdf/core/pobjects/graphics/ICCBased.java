@@ -18,12 +18,14 @@ package org.icepdf.core.pobjects.graphics;
 import org.icepdf.core.pobjects.Name;
 import org.icepdf.core.pobjects.Stream;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.SharedResourceCache;
 import org.icepdf.core.util.Utils;
 
 import java.awt.*;
 import java.awt.color.ColorSpace;
 import java.awt.color.ICC_ColorSpace;
 import java.awt.color.ICC_Profile;
+import java.nio.ByteBuffer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -91,8 +93,16 @@ public class ICCBased extends PColorSpace {
                     logger.finest("Content = " + content);
                 }
                 if (in != null) {
-                    ICC_Profile profile = ICC_Profile.getInstance(in);
-                    colorSpace = new ICC_ColorSpace(profile);
+                    // the same profile, sRGB usually, is embedded in most documents.
+                    SharedResourceCache.Lease sharedResources = library != null ?
+                            library.getSharedResources() : null;
+                    if (sharedResources != null) {
+                        colorSpace = sharedResources.acquire("icc", ByteBuffer.wrap(in),
+                                () -> new ICC_ColorSpace(ICC_Profile.getInstance(in)));
+                    } else {
+                        ICC_Profile profile = ICC_Profile.getInstance(in);
+                        colorSpace = new ICC_ColorSpace(profile);
+                    }
                 }
             } catch (Exception e) {
                 logger.log(Level.FINE, "Error Processing ICCBased Colour Profile, falling back on alternative.");
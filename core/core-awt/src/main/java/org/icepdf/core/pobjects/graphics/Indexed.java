@@ -22,6 +22,7 @@ import org.icepdf.core.pobjects.StringObject;
 import org.icepdf.core.util.Library;
 
 import java.awt.*;
+import java.nio.ByteBuffer;
 import java.util.HashMap;
 import java.util.List;
 
@@ -76,9 +77,10 @@ public class Indexed extends PColorSpace {
             // copy over the colour data, can be a stream or string
             if (tmp instanceof Stream) {
                 Stream lookup = (Stream) tmp;
-                byte[] colorStream = lookup.getDecodedStreamBytes(0);
-                int length = colors.length < colorStream.length ? colors.length : colorStream.length;
-                System.arraycopy(colorStream, 0, colors, 0, length);
+                ByteBuffer colorStream = lookup.getDecodedStreamBuffer();
+                if (colorStream != null) {
+                    colorStream.get(colors, 0, Math.min(colors.length, colorStream.remaining()));
+                }
             } else if (tmp instanceof StringObject) {
                 // treating as raw unencrypted string
                 StringBuilder stringData = ((StringObject) tmp).getHexStringBuffer();
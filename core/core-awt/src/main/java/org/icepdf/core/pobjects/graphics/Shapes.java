@@ -17,6 +17,7 @@ package org.icepdf.core.pobjects.graphics;
 
 import org.icepdf.core.pobjects.Page;
 import org.icepdf.core.pobjects.graphics.commands.*;
+import org.icepdf.core.pobjects.graphics.images.references.ImageReference;
 import org.icepdf.core.pobjects.graphics.text.PageText;
 import org.icepdf.core.util.Defs;
 
@@ -43,6 +44,13 @@ public class Shapes {
             Logger.getLogger(Shapes.class.toString());
 
     private static int shapesInitialCapacity = 5000;
+    // shapes with at least this many commands get a spatial index, 0 disables the index.
+    private static int spatialIndexThreshold = 1000;
+
+    // rough sizes used by getFootprint(), a glyph includes its share of the page text.
+    private static final long SHAPES_FOOTPRINT = 256;
+    private static final long DRAW_CMD_FOOTPRINT = 64;
+    private static final long GLYPH_FOOTPRINT = 256;
     // disables alpha painting.
     protected boolean paintAlpha =
             !Defs.sysPropertyBoolean("org.icepdf.core.paint.disableAlpha", false);
@@ -50,6 +58,8 @@ public class Shapes {
     static {
         shapesInitialCapacity = Defs.sysPropertyInt(
                 "org.icepdf.core.shapes.initialCapacity", shapesInitialCapacity);
+        spatialIndexThreshold = Defs.sysPropertyInt(
+                "org.icepdf.core.shapes.spatialIndex.threshold", spatialIndexThreshold);
     }
 
     // cache of common draw state, we try to avoid adding new operands if the
@@ -61,12 +71,19 @@ public class Shapes {
     // Graphics stack for a page's content.
     protected ArrayList<DrawCmd> shapes = new ArrayList<>(shapesInitialCapacity);
 
-    // stores the state of the currently visible optional content.
+    /**
+     * @deprecated paint() keeps its optional content state per call so the same
+     * shapes can be painted by several threads, this field is no longer used.
+     */
+    @Deprecated
     protected OptionalContentState optionalContentState = new OptionalContentState();
 
     // the collection of objects listening for page paint events
     private Page parentPage;
 
+    // index of the commands' bounds, used to skip commands outside the clip.
+    private volatile ShapesIndex spatialIndex;
+
     // text extraction data structure
     private PageText pageText = new PageText();
 
@@ -74,6 +91,10 @@ public class Shapes {
         return pageText;
     }
 
+    public void setPageText(PageText pageText) {
+        this.pageText = pageText;
+    }
+
     /**
      * Gets the number of shapes on the shapes stack.
      *
@@ -146,6 +167,17 @@ public class Shapes {
 
             PaintTimer paintTimer = new PaintTimer();
             Shape previousShape = null;
+            // state of the currently visible optional content, kept per paint
+            // so the same shapes can be painted by several threads.
+            OptionalContentState optionalContentState = new OptionalContentState();
+
+            // only visit the commands that can paint inside the clip.
+            ShapesIndex spatialIndex = this.spatialIndex;
+            if (clip != null && spatialIndex != null && spatialIndex.getCommandCount() == shapes.size() &&
+                    spatialIndex.paint(g, shapes, parentPage, clip, base, optionalContentState,
+                            paintAlpha, paintTimer)) {
+                return;
+            }
 
             DrawCmd nextShape;
             // for loops actually faster in this case.
@@ -187,13 +219,59 @@ public class Shapes {
         return images;
     }
 
+    /**
+     * Estimates the memory used by the shapes, their text and the decoded
+     * images they reference.  Images are counted at four bytes a pixel and
+     * paths and other commands at a fixed cost, so the result is only a guide.
+     *
+     * @return estimated footprint in bytes.
+     */
+    public long getFootprint() {
+        long footprint = SHAPES_FOOTPRINT;
+        if (shapes == null) {
+            return footprint;
+        }
+        for (int i = 0, max = shapes.size(); i < max; i++) {
+            footprint += getFootprint(shapes.get(i));
+        }
+        ShapesIndex spatialIndex = this.spatialIndex;
+        if (spatialIndex != null) {
+            footprint += spatialIndex.getFootprint();
+        }
+        return footprint;
+    }
+
+    /**
+     * Estimates the memory used by a single draw command, see getFootprint().
+     *
+     * @param drawCmd draw command.
+     * @return estimated footprint in bytes.
+     */
+    static long getFootprint(DrawCmd drawCmd) {
+        if (drawCmd instanceof ImageDrawCmd) {
+            ImageReference image = ((ImageDrawCmd) drawCmd).getImageReference();
+            return DRAW_CMD_FOOTPRINT + 4L * image.getWidth() * image.getHeight();
+        } else if (drawCmd instanceof TextSpriteDrawCmd) {
+            return DRAW_CMD_FOOTPRINT + GLYPH_FOOTPRINT *
+                    ((TextSpriteDrawCmd) drawCmd).getTextSprite().getGlyphSprites().size();
+        } else if (drawCmd instanceof ShapesDrawCmd && ((ShapesDrawCmd) drawCmd).getShapes() != null) {
+            return DRAW_CMD_FOOTPRINT + ((ShapesDrawCmd) drawCmd).getShapes().getFootprint();
+        }
+        return DRAW_CMD_FOOTPRINT;
+    }
+
     /**
      * Contracts the shapes ArrayList to the actual size of the elements
-     * it contains.
+     * it contains.  Called once parsing is done, large command lists are also
+     * indexed by their bounds so painting a small clip can skip the commands
+     * outside of it.
      */
     public void contract() {
         if (shapes != null) {
             shapes.trimToSize();
+            if (spatialIndexThreshold > 0 && shapes.size() >= spatialIndexThreshold) {
+                spatialIndex = ShapesIndex.build(shapes);
+            }
         }
     }
 
@@ -0,0 +1,519 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics;
+
+import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.pobjects.graphics.commands.*;
+
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Grid index over the page space bounds of a Shapes' marking commands, the
+ * fills, strokes, images, text and forms that actually put paint on the page,
+ * so painting a small clip only visits the commands that can touch it.
+ * <br>
+ * The graphics state commands aren't indexed.  Instead each marking command
+ * records the last transform, shape, paint, composite, stroke and clip command
+ * that precedes it, and painting replays just those before the command is
+ * painted.  Transforms, paints, strokes and composites replace the previous
+ * value outright so only the last one matters; clips and tiling patterns are
+ * replayed with the transform and shape they were painted with.
+ * <br>
+ * An index isn't built when the shapes contain a command whose effect on the
+ * graphics state isn't known, painting then falls back to walking every
+ * command.
+ *
+ * @since 7.1
+ */
+class ShapesIndex {
+
+    // graphics state slots a marking command depends on.
+    private static final int CLIP = 0;
+    private static final int PAINT = 1;
+    private static final int TRANSFORM = 2;
+    private static final int SHAPE = 3;
+    private static final int COMPOSITE = 4;
+    private static final int STROKE = 5;
+    private static final int SLOTS = 6;
+
+    // dependency on the state at the start of painting.
+    private static final int INITIAL = -1;
+    // state has been changed by a nested paint and must be replayed.
+    private static final int UNKNOWN = -2;
+    // clip or paint command that doesn't depend on the transform.
+    private static final int NONE = -3;
+
+    // maximum number of cells along each axis of the grid.
+    private static final int MAX_CELLS = 256;
+    // entries per cell the grid is sized for.
+    private static final int CELL_DENSITY = 8;
+    // a query hitting more than this share of entries is painted in order.
+    private static final float MAX_HIT_RATIO = 0.75f;
+
+    // number of commands indexed, used to spot shapes that changed since.
+    private final int commandCount;
+    private final int entryCount;
+    // per entry: index of the command, its bounds and state dependencies.
+    private final int[] commands;
+    private final float[] bounds;
+    private final int[] dependencies;
+    private final int[] clipTransforms;
+    private final int[] clipShapes;
+    private final int[] paintTransforms;
+    // entries painted whatever the clip, in order.
+    private final int[] unbounded;
+    // grid of entries, cellEntries[cellStart[i]..cellStart[i + 1]) are in cell i.
+    private final float minX, minY, cellWidth, cellHeight;
+    private final int columns, rows;
+    private final int[] cellStart;
+    private final int[] cellEntries;
+
+    private ShapesIndex(int commandCount, int[] commands, float[] bounds, int[] dependencies,
+                        int[] clipTransforms, int[] clipShapes, int[] paintTransforms, int entryCount) {
+        this.commandCount = commandCount;
+        this.entryCount = entryCount;
+        this.commands = commands;
+        this.bounds = bounds;
+        this.dependencies = dependencies;
+        this.clipTransforms = clipTransforms;
+        this.clipShapes = clipShapes;
+        this.paintTransforms = paintTransforms;
+
+        // extent of the bounded entries.
+        float x1 = Float.MAX_VALUE, y1 = Float.MAX_VALUE, x2 = -Float.MAX_VALUE, y2 = -Float.MAX_VALUE;
+        int boundedCount = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (isBounded(i)) {
+                x1 = Math.min(x1, bounds[i * 4]);
+                y1 = Math.min(y1, bounds[i * 4 + 1]);
+                x2 = Math.max(x2, bounds[i * 4 + 2]);
+                y2 = Math.max(y2, bounds[i * 4 + 3]);
+                boundedCount++;
+            }
+        }
+        int cells = boundedCount == 0 ? 1 :
+                Math.max(1, Math.min(MAX_CELLS, (int) Math.ceil(Math.sqrt(boundedCount / (double) CELL_DENSITY))));
+        columns = cells;
+        rows = cells;
+        minX = boundedCount == 0 ? 0 : x1;
+        minY = boundedCount == 0 ? 0 : y1;
+        cellWidth = boundedCount == 0 ? 1 : Math.max((x2 - x1) / columns, Float.MIN_NORMAL);
+        cellHeight = boundedCount == 0 ? 1 : Math.max((y2 - y1) / rows, Float.MIN_NORMAL);
+
+        // entries covering a large part of the grid are cheaper to keep unbounded.
+        int maxCellsPerEntry = Math.max(4, columns * rows / 4);
+        int[] counts = new int[columns * rows + 1];
+        int unboundedCount = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (!isBounded(i) || cellCount(i) > maxCellsPerEntry) {
+                unboundedCount++;
+                continue;
+            }
+            for (int row = row(bounds[i * 4 + 1]), maxRow = row(bounds[i * 4 + 3]); row <= maxRow; row++) {
+                for (int col = column(bounds[i * 4]), maxCol = column(bounds[i * 4 + 2]); col <= maxCol; col++) {
+                    counts[row * columns + col + 1]++;
+                }
+            }
+        }
+        cellStart = new int[columns * rows + 1];
+        for (int i = 1; i < cellStart.length; i++) {
+            cellStart[i] = cellStart[i - 1] + counts[i];
+        }
+        cellEntries = new int[cellStart[cellStart.length - 1]];
+        unbounded = new int[unboundedCount];
+        int[] fill = new int[columns * rows];
+        unboundedCount = 0;
+        for (int i = 0; i < entryCount; i++) {
+            if (!isBounded(i) || cellCount(i) > maxCellsPerEntry) {
+                unbounded[unboundedCount++] = i;
+                continue;
+            }
+            for (int row = row(bounds[i * 4 + 1]), maxRow = row(bounds[i * 4 + 3]); row <= maxRow; row++) {
+                for (int col = column(bounds[i * 4]), maxCol = column(bounds[i * 4 + 2]); col <= maxCol; col++) {
+                    int cell = row * columns + col;
+                    cellEntries[cellStart[cell] + fill[cell]++] = i;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds an index over the given commands.
+     *
+     * @param shapes commands of a Shapes object.
+     * @return new index, null if the commands can't be indexed.
+     */
+    static ShapesIndex build(ArrayList<DrawCmd> shapes) {
+        int size = shapes.size();
+        int capacity = Math.max(16, size / 2);
+        int[] commands = new int[capacity];
+        float[] bounds = new float[capacity * 4];
+        int[] dependencies = new int[capacity * SLOTS];
+        int[] clipTransforms = new int[capacity];
+        int[] clipShapes = new int[capacity];
+        int[] paintTransforms = new int[capacity];
+        int entryCount = 0;
+
+        // state as it would be at this point of painting.
+        int[] writers = {INITIAL, INITIAL, INITIAL, INITIAL, INITIAL, INITIAL};
+        int clipTransform = NONE, clipShape = INITIAL, paintTransform = NONE;
+        AffineTransform transform = new AffineTransform();
+        Shape shape = null;
+        float strokePad = 0.5f;
+        Rectangle2D clipBounds = null;
+        double[] points = new double[8];
+
+        for (int i = 0; i < size; i++) {
+            DrawCmd drawCmd = shapes.get(i);
+            Rectangle2D entryBounds;
+            boolean marking = true;
+            if (drawCmd instanceof TransformDrawCmd || drawCmd instanceof TextTransformDrawCmd) {
+                transform = drawCmd instanceof TransformDrawCmd ?
+                        ((TransformDrawCmd) drawCmd).getAffineTransform() :
+                        ((TextTransformDrawCmd) drawCmd).getAffineTransform();
+                writers[TRANSFORM] = i;
+                continue;
+            } else if (drawCmd instanceof ShapeDrawCmd) {
+                shape = ((ShapeDrawCmd) drawCmd).getShape();
+                writers[SHAPE] = i;
+                continue;
+            } else if (drawCmd instanceof ColorDrawCmd || drawCmd instanceof PaintDrawCmd) {
+                writers[PAINT] = i;
+                paintTransform = NONE;
+                continue;
+            } else if (drawCmd instanceof TilingPatternDrawCmd) {
+                // the pattern paint is offset by the transform it's painted with.
+                writers[PAINT] = i;
+                paintTransform = writers[TRANSFORM];
+                continue;
+            } else if (drawCmd instanceof AlphaDrawCmd || drawCmd instanceof BlendCompositeDrawCmd) {
+                writers[COMPOSITE] = i;
+                continue;
+            } else if (drawCmd instanceof StrokeDrawCmd) {
+                Stroke stroke = ((StrokeDrawCmd) drawCmd).getStroke();
+                strokePad = getStrokePad(stroke);
+                writers[STROKE] = i;
+                continue;
+            } else if (drawCmd instanceof ClipDrawCmd) {
+                writers[CLIP] = i;
+                clipTransform = writers[TRANSFORM];
+                clipShape = writers[SHAPE];
+                clipBounds = shape != null ? transform(shape.getBounds2D(), 0, transform, points) : null;
+                continue;
+            } else if (drawCmd instanceof NoClipDrawCmd) {
+                writers[CLIP] = i;
+                clipTransform = NONE;
+                clipShape = INITIAL;
+                clipBounds = null;
+                continue;
+            } else if (drawCmd instanceof GraphicsStateCmd) {
+                continue;
+            } else if (drawCmd instanceof FillDrawCmd) {
+                entryBounds = shape != null ? transform(shape.getBounds2D(), 0, transform, points) : null;
+            } else if (drawCmd instanceof DrawDrawCmd) {
+                entryBounds = shape != null && strokePad >= 0 ?
+                        transform(shape.getBounds2D(), strokePad, transform, points) : null;
+            } else if (drawCmd instanceof ImageDrawCmd) {
+                // images are painted into the unit square.
+                entryBounds = transform(new Rectangle2D.Float(0, 0, 1, 1), 0, transform, points);
+            } else if (drawCmd instanceof TextSpriteDrawCmd) {
+                Rectangle2D textBounds = ((TextSpriteDrawCmd) drawCmd).getTextSprite().getPaintBounds();
+                entryBounds = textBounds != null ? transform(textBounds, 0, transform, points) : null;
+            } else if (drawCmd instanceof ShapesDrawCmd || drawCmd instanceof FormDrawCmd) {
+                // forms are painted inside the clip of their bounding box.
+                entryBounds = clipBounds;
+            } else if (drawCmd instanceof OCGStartDrawCmd || drawCmd instanceof OCGEndDrawCmd) {
+                // optional content nests, so always replayed in order.
+                entryBounds = null;
+                marking = false;
+            } else {
+                return null;
+            }
+            if (marking && entryBounds != null && clipBounds != null) {
+                entryBounds = entryBounds.createIntersection(clipBounds);
+                if (entryBounds.isEmpty()) {
+                    // nothing visible is painted.
+                    continue;
+                }
+            }
+
+            if (entryCount == commands.length) {
+                capacity = commands.length * 2;
+                commands = Arrays.copyOf(commands, capacity);
+                bounds = Arrays.copyOf(bounds, capacity * 4);
+                dependencies = Arrays.copyOf(dependencies, capacity * SLOTS);
+                clipTransforms = Arrays.copyOf(clipTransforms, capacity);
+                clipShapes = Arrays.copyOf(clipShapes, capacity);
+                paintTransforms = Arrays.copyOf(paintTransforms, capacity);
+            }
+            commands[entryCount] = i;
+            if (entryBounds != null) {
+                bounds[entryCount * 4] = (float) entryBounds.getMinX();
+                bounds[entryCount * 4 + 1] = (float) entryBounds.getMinY();
+                bounds[entryCount * 4 + 2] = (float) entryBounds.getMaxX();
+                bounds[entryCount * 4 + 3] = (float) entryBounds.getMaxY();
+            } else {
+                bounds[entryCount * 4] = Float.NaN;
+            }
+            if (marking) {
+                System.arraycopy(writers, 0, dependencies, entryCount * SLOTS, SLOTS);
+                clipTransforms[entryCount] = clipTransform;
+                clipShapes[entryCount] = clipShape;
+                paintTransforms[entryCount] = paintTransform;
+            } else {
+                dependencies[entryCount * SLOTS] = NONE;
+            }
+            entryCount++;
+        }
+        return new ShapesIndex(size, commands, bounds, dependencies,
+                clipTransforms, clipShapes, paintTransforms, entryCount);
+    }
+
+    /**
+     * @return number of commands the index was built over.
+     */
+    int getCommandCount() {
+        return commandCount;
+    }
+
+    /**
+     * @return estimated memory used by the index.
+     */
+    long getFootprint() {
+        return 64 + 4L * (commands.length * (5 + SLOTS + 3) + unbounded.length + cellStart.length + cellEntries.length);
+    }
+
+    /**
+     * Paints the commands that fall inside the graphics context's clip.
+     *
+     * @return false if painting in order would be quicker and nothing was
+     * painted, true if the commands have been painted.
+     * @throws InterruptedException thread interrupted.
+     */
+    boolean paint(Graphics2D g, ArrayList<DrawCmd> shapes, Page parentPage, Shape clip, AffineTransform base,
+                  OptionalContentState optionalContentState, boolean paintAlpha, PaintTimer paintTimer)
+            throws InterruptedException {
+        BitSet hits = query(clip);
+        if (hits == null) {
+            return false;
+        }
+
+        Paint initialPaint = g.getPaint();
+        Composite initialComposite = g.getComposite();
+        Stroke initialStroke = g.getStroke();
+        int[] applied = {INITIAL, INITIAL, INITIAL, INITIAL, INITIAL, INITIAL};
+        Shape currentShape = null;
+        int count = 0;
+        for (int entry = hits.nextSetBit(0); entry >= 0; entry = hits.nextSetBit(entry + 1)) {
+            if (count++ % 1000 == 0 && Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException("Page painting thread interrupted");
+            }
+            DrawCmd drawCmd = shapes.get(commands[entry]);
+            int offset = entry * SLOTS;
+            if (dependencies[offset] == NONE) {
+                // optional content markers.
+                drawCmd.paintOperand(g, parentPage, currentShape, clip, base,
+                        optionalContentState, paintAlpha, paintTimer);
+                continue;
+            }
+
+            // replay the state the command depends on.
+            int writer = dependencies[offset + CLIP];
+            if (writer != applied[CLIP]) {
+                if (writer == INITIAL) {
+                    AffineTransform af = g.getTransform();
+                    g.setTransform(base);
+                    g.setClip(clip);
+                    g.setTransform(af);
+                } else {
+                    if (clipTransforms[entry] != NONE) {
+                        applyTransform(g, shapes, clipTransforms[entry], applied, parentPage, clip, base,
+                                optionalContentState, paintAlpha, paintTimer);
+                    }
+                    Shape clipShape = clipShapes[entry] == INITIAL ? null :
+                            shapes.get(clipShapes[entry]).paintOperand(g, parentPage, null, clip, base,
+                                    optionalContentState, paintAlpha, paintTimer);
+                    shapes.get(writer).paintOperand(g, parentPage, clipShape, clip, base,
+                            optionalContentState, paintAlpha, paintTimer);
+                }
+                applied[CLIP] = writer;
+            }
+            writer = dependencies[offset + PAINT];
+            if (writer != applied[PAINT]) {
+                if (writer == INITIAL) {
+                    g.setPaint(initialPaint);
+                } else {
+                    if (paintTransforms[entry] != NONE) {
+                        applyTransform(g, shapes, paintTransforms[entry], applied, parentPage, clip, base,
+                                optionalContentState, paintAlpha, paintTimer);
+                    }
+                    shapes.get(writer).paintOperand(g, parentPage, currentShape, clip, base,
+                            optionalContentState, paintAlpha, paintTimer);
+                }
+                applied[PAINT] = writer;
+            }
+            applyTransform(g, shapes, dependencies[offset + TRANSFORM], applied, parentPage, clip, base,
+                    optionalContentState, paintAlpha, paintTimer);
+            writer = dependencies[offset + SHAPE];
+            if (writer != applied[SHAPE]) {
+                currentShape = writer == INITIAL ? null :
+                        shapes.get(writer).paintOperand(g, parentPage, currentShape, clip, base,
+                                optionalContentState, paintAlpha, paintTimer);
+                applied[SHAPE] = writer;
+            }
+            writer = dependencies[offset + COMPOSITE];
+            if (writer != applied[COMPOSITE]) {
+                if (writer == INITIAL) {
+                    g.setComposite(initialComposite);
+                } else {
+                    shapes.get(writer).paintOperand(g, parentPage, currentShape, clip, base,
+                            optionalContentState, paintAlpha, paintTimer);
+                }
+                applied[COMPOSITE] = writer;
+            }
+            writer = dependencies[offset + STROKE];
+            if (writer != applied[STROKE]) {
+                if (writer == INITIAL) {
+                    g.setStroke(initialStroke);
+                } else {
+                    shapes.get(writer).paintOperand(g, parentPage, currentShape, clip, base,
+                            optionalContentState, paintAlpha, paintTimer);
+                }
+                applied[STROKE] = writer;
+            }
+
+            currentShape = drawCmd.paintOperand(g, parentPage, currentShape, clip, base,
+                    optionalContentState, paintAlpha, paintTimer);
+            if (drawCmd instanceof ShapesDrawCmd || drawCmd instanceof FormDrawCmd) {
+                // nested content leaves the graphics state as it pleases.
+                for (int i = 0; i < SLOTS; i++) {
+                    applied[i] = UNKNOWN;
+                }
+            }
+        }
+        return true;
+    }
+
+    // finds the entries whose bounds intersect the clip, given in the space of
+    // the base transform, null if most of the entries would be painted anyway.
+    private BitSet query(Shape clip) {
+        Rectangle2D area = clip.getBounds2D();
+        BitSet hits = new BitSet(entryCount);
+        for (int entry : unbounded) {
+            hits.set(entry);
+        }
+        float x1 = (float) area.getMinX(), y1 = (float) area.getMinY();
+        float x2 = (float) area.getMaxX(), y2 = (float) area.getMaxY();
+        int firstRow = row(y1), lastRow = row(y2);
+        int firstColumn = column(x1), lastColumn = column(x2);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int col = firstColumn; col <= lastColumn; col++) {
+                int cell = row * columns + col;
+                for (int i = cellStart[cell], max = cellStart[cell + 1]; i < max; i++) {
+                    int entry = cellEntries[i];
+                    if (!hits.get(entry) &&
+                            bounds[entry * 4] <= x2 && bounds[entry * 4 + 2] >= x1 &&
+                            bounds[entry * 4 + 1] <= y2 && bounds[entry * 4 + 3] >= y1) {
+                        hits.set(entry);
+                    }
+                }
+            }
+        }
+        if (hits.cardinality() > entryCount * MAX_HIT_RATIO) {
+            return null;
+        }
+        return hits;
+    }
+
+    private void applyTransform(Graphics2D g, ArrayList<DrawCmd> shapes, int writer, int[] applied,
+                                Page parentPage, Shape clip, AffineTransform base,
+                                OptionalContentState optionalContentState, boolean paintAlpha,
+                                PaintTimer paintTimer) throws InterruptedException {
+        if (writer == applied[TRANSFORM]) {
+            return;
+        }
+        if (writer == INITIAL) {
+            g.setTransform(base);
+        } else {
+            shapes.get(writer).paintOperand(g, parentPage, null, clip, base,
+                    optionalContentState, paintAlpha, paintTimer);
+        }
+        applied[TRANSFORM] = writer;
+    }
+
+    private boolean isBounded(int entry) {
+        return !Float.isNaN(bounds[entry * 4]);
+    }
+
+    private int cellCount(int entry) {
+        return (column(bounds[entry * 4 + 2]) - column(bounds[entry * 4]) + 1) *
+                (row(bounds[entry * 4 + 3]) - row(bounds[entry * 4 + 1]) + 1);
+    }
+
+    private int column(float x) {
+        return Math.max(0, Math.min(columns - 1, (int) ((x - minX) / cellWidth)));
+    }
+
+    private int row(float y) {
+        return Math.max(0, Math.min(rows - 1, (int) ((y - minY) / cellHeight)));
+    }
+
+    // half the width a stroke can paint beyond its path, -1 if unknown.
+    private static float getStrokePad(Stroke stroke) {
+        if (!(stroke instanceof BasicStroke)) {
+            return -1;
+        }
+        BasicStroke basicStroke = (BasicStroke) stroke;
+        float pad = basicStroke.getLineWidth() / 2;
+        if (basicStroke.getLineJoin() == BasicStroke.JOIN_MITER) {
+            pad *= Math.max(basicStroke.getMiterLimit(), 1.5f);
+        } else {
+            pad *= 1.5f;
+        }
+        return pad;
+    }
+
+    // bounds in page space of a rectangle in the space of the transform, a
+    // unit is added for anti-aliasing and hairlines.  Returns null if the
+    // result isn't usable.
+    private static Rectangle2D transform(Rectangle2D rect, float pad, AffineTransform transform, double[] points) {
+        double x1 = rect.getMinX() - pad, y1 = rect.getMinY() - pad;
+        double x2 = rect.getMaxX() + pad, y2 = rect.getMaxY() + pad;
+        points[0] = x1;
+        points[1] = y1;
+        points[2] = x2;
+        points[3] = y1;
+        points[4] = x2;
+        points[5] = y2;
+        points[6] = x1;
+        points[7] = y2;
+        transform.transform(points, 0, points, 0, 4);
+        double minX = Math.min(Math.min(points[0], points[2]), Math.min(points[4], points[6])) - 1;
+        double minY = Math.min(Math.min(points[1], points[3]), Math.min(points[5], points[7])) - 1;
+        double maxX = Math.max(Math.max(points[0], points[2]), Math.max(points[4], points[6])) + 1;
+        double maxY = Math.max(Math.max(points[1], points[3]), Math.max(points[5], points[7])) + 1;
+        if (Double.isNaN(minX) || Double.isNaN(minY) || Double.isInfinite(minX) || Double.isInfinite(minY) ||
+                Double.isInfinite(maxX) || Double.isInfinite(maxY)) {
+            return null;
+        }
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+}
@@ -343,6 +343,16 @@ public class TextSprite {
 
     }
 
+    /**
+     * Gets the bounds painting is clipped to, in the same space as the clip
+     * passed to intersects().
+     *
+     * @return text bounds, null if text is painted regardless of the clip.
+     */
+    public Rectangle2D getPaintBounds() {
+        return optimizedDrawingEnabled ? bounds : null;
+    }
+
     /**
      * Tests if the interior of the <code>TextSprite</code> bounds intersects the
      * interior of a specified <code>shape</code>.
@@ -42,6 +42,8 @@ public class FormDrawCmd extends AbstractDrawCmd {
 
     private BufferedImage xFormBuffer;
     private int x, y;
+    // set once xFormBuffer, x and y are ready to paint.
+    private volatile boolean xFormBufferBuilt;
 
     private static boolean disableXObjectSMask;
 
@@ -67,118 +69,131 @@ public class FormDrawCmd extends AbstractDrawCmd {
                               Shape clip, AffineTransform base,
                               OptionalContentState optionalContentState,
                               boolean paintAlpha, PaintTimer paintTimer) {
-        if (optionalContentState.isVisible() && xFormBuffer == null) {
-            RenderingHints renderingHints = g.getRenderingHints();
-            Rectangle2D bBox = xForm.getBBox();
-            x = (int) bBox.getX();
-            y = (int) bBox.getY();
-            boolean hasMask = ((xForm.getGraphicsState().getExtGState() != null &&
-                    xForm.getGraphicsState().getExtGState().getSMask() != null) ||
-                    (xForm.getExtGState() != null && xForm.getExtGState().getSMask() != null));
-            boolean isExtendGraphicState = xForm.getGraphicsState().getExtGState() != null &&
-                    xForm.getExtGState() != null;
-            boolean normalBM = false;
-            if (isExtendGraphicState && xForm.getExtGState().getBlendingMode() != null) {
-                normalBM = xForm.getExtGState().getBlendingMode().equals(new Name("Normal")) &&
-                        xForm.getGraphicsState().getExtGState().getBlendingMode().equals(new Name("Normal")) &&
-                        (xForm.getExtGState() != null &&
-                                (!xForm.getExtGState().isAlphaAShape() || xForm.getExtGState().getOverprintMode() == 0));
-            }
+        if (optionalContentState.isVisible() && !xFormBufferBuilt &&
+                !buildFormBuffer(g, parentPage)) {
+            return currentShape;
+        }
+        g.drawImage(xFormBuffer, null, x, y);
+        return currentShape;
+    }
 
-            SoftMask formSoftMask = null;
-            SoftMask softMask = null;
+    // tiles of a page can paint the form at the same time, only building the
+    // buffer on first paint is done under the lock.
+    private synchronized boolean buildFormBuffer(Graphics2D g, Page parentPage) {
+        if (xFormBufferBuilt) {
+            return true;
+        }
+        RenderingHints renderingHints = g.getRenderingHints();
+        Rectangle2D bBox = xForm.getBBox();
+        x = (int) bBox.getX();
+        y = (int) bBox.getY();
+        boolean hasMask = ((xForm.getGraphicsState().getExtGState() != null &&
+                xForm.getGraphicsState().getExtGState().getSMask() != null) ||
+                (xForm.getExtGState() != null && xForm.getExtGState().getSMask() != null));
+        boolean isExtendGraphicState = xForm.getGraphicsState().getExtGState() != null &&
+                xForm.getExtGState() != null;
+        boolean normalBM = false;
+        if (isExtendGraphicState && xForm.getExtGState().getBlendingMode() != null) {
+            normalBM = xForm.getExtGState().getBlendingMode().equals(new Name("Normal")) &&
+                    xForm.getGraphicsState().getExtGState().getBlendingMode().equals(new Name("Normal")) &&
+                    (xForm.getExtGState() != null &&
+                            (!xForm.getExtGState().isAlphaAShape() || xForm.getExtGState().getOverprintMode() == 0));
+        }
 
-            if (xForm.getGraphicsState().getExtGState().getSMask() != null) {
-                softMask = xForm.getGraphicsState().getExtGState().getSMask();
-                boolean isShading = softMask.getG().getResources().isShading();
-                if (isShading) {
-                    isShading = checkForShaddingFill(softMask.getG());
-                    softMask.getG().setShading(isShading);
-                }
-                if (!isShading) {
-                    x = (int) softMask.getG().getBBox().getX();
-                    y = (int) softMask.getG().getBBox().getY();
-                }
+        SoftMask formSoftMask = null;
+        SoftMask softMask = null;
+
+        if (xForm.getGraphicsState().getExtGState().getSMask() != null) {
+            softMask = xForm.getGraphicsState().getExtGState().getSMask();
+            boolean isShading = softMask.getG().getResources().isShading();
+            if (isShading) {
+                isShading = checkForShaddingFill(softMask.getG());
+                softMask.getG().setShading(isShading);
             }
-            if (xForm.getExtGState().getSMask() != null) {
-                formSoftMask = xForm.getExtGState().getSMask();
-                boolean isShading = formSoftMask.getG().getResources().isShading();
-                if (isShading) {
-                    isShading = checkForShaddingFill(formSoftMask.getG());
-                    formSoftMask.getG().setShading(isShading);
-                }
-                if (!isShading) {
-                    x = (int) formSoftMask.getG().getBBox().getX();
-                    y = (int) formSoftMask.getG().getBBox().getY();
-                }
+            if (!isShading) {
+                x = (int) softMask.getG().getBBox().getX();
+                y = (int) softMask.getG().getBBox().getY();
             }
-            // check if we have the same xobject.
-            if (softMask != null && formSoftMask != null) {
-                if (softMask.getPObjectReference() != null && formSoftMask.getPObjectReference() != null &&
-                        softMask.getPObjectReference().equals(formSoftMask.getPObjectReference())) {
-                    softMask = null;
-                } else if (softMask.getG().getPObjectReference() != null &&
-                        formSoftMask.getG().getPObjectReference() != null &&
-                        softMask.getG().getPObjectReference().equals(formSoftMask.getG().getPObjectReference())) {
-                    softMask = null;
-                }
+        }
+        if (xForm.getExtGState().getSMask() != null) {
+            formSoftMask = xForm.getExtGState().getSMask();
+            boolean isShading = formSoftMask.getG().getResources().isShading();
+            if (isShading) {
+                isShading = checkForShaddingFill(formSoftMask.getG());
+                formSoftMask.getG().setShading(isShading);
             }
-            // need to check if we really have a shading pattern, as the resources check can be false positive.
-            if (xForm.getResources().isShading()) {
-                boolean isFormShading = checkForShaddingFill(xForm);
-                xForm.setShading(isFormShading);
+            if (!isShading) {
+                x = (int) formSoftMask.getG().getBBox().getX();
+                y = (int) formSoftMask.getG().getBBox().getY();
             }
+        }
+        // check if we have the same xobject.
+        if (softMask != null && formSoftMask != null) {
+            if (softMask.getPObjectReference() != null && formSoftMask.getPObjectReference() != null &&
+                    softMask.getPObjectReference().equals(formSoftMask.getPObjectReference())) {
+                softMask = null;
+            } else if (softMask.getG().getPObjectReference() != null &&
+                    formSoftMask.getG().getPObjectReference() != null &&
+                    softMask.getG().getPObjectReference().equals(formSoftMask.getG().getPObjectReference())) {
+                softMask = null;
+            }
+        }
+        // need to check if we really have a shading pattern, as the resources check can be false positive.
+        if (xForm.getResources().isShading()) {
+            boolean isFormShading = checkForShaddingFill(xForm);
+            xForm.setShading(isFormShading);
+        }
 
-            // create the form and we'll paint it at the very least
-            xFormBuffer = createBufferXObject(parentPage, xForm, null, renderingHints, normalBM);
-            if (!disableXObjectSMask && hasMask) {
+        // create the form and we'll paint it at the very least
+        xFormBuffer = createBufferXObject(parentPage, xForm, null, renderingHints, normalBM);
+        if (!disableXObjectSMask && hasMask) {
 
-                // apply the mask and paint.
-                if (!xForm.isShading()) {
-                    if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_ALPHA)) {
-                        logger.warning("Smask alpha example, currently not supported.");
-                    } else if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_LUMINOSITY)) {
-                        xFormBuffer = applyMask(parentPage, xFormBuffer, softMask, formSoftMask, g.getRenderingHints());
-                    }
-                } else if (softMask != null) {
-                    // still not property aligning the form or mask space to correctly apply a shading pattern.
-                    // experimental as it fixes some, breaks others, but regardless we don't support it well.
-                    logger.warning("Smask pattern paint example, currently not supported.");
-                    xFormBuffer.flush();
-                    xFormBuffer = createBufferXObject(parentPage, softMask.getG(), null, renderingHints, true);
-                    return currentShape;
+            // apply the mask and paint.
+            if (!xForm.isShading()) {
+                if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_ALPHA)) {
+                    logger.warning("Smask alpha example, currently not supported.");
+                } else if (softMask != null && softMask.getS().equals(SoftMask.SOFT_MASK_TYPE_LUMINOSITY)) {
+                    xFormBuffer = applyMask(parentPage, xFormBuffer, softMask, formSoftMask, g.getRenderingHints());
                 }
-                // apply the form mask to current form content that has been rasterized to xFormBuffer
-                if (formSoftMask != null) {
-                    BufferedImage formSMaskBuffer = applyMask(parentPage, xFormBuffer, formSoftMask, softMask,
-                            g.getRenderingHints());
-                    // compost all the images.
-                    if (softMask != null) {
-                        BufferedImage formBuffer = ImageUtility.createTranslucentCompatibleImage(
-                                xFormBuffer.getWidth(), xFormBuffer.getHeight());
-                        Graphics2D g2d = (Graphics2D) formBuffer.getGraphics();
+            } else if (softMask != null) {
+                // still not property aligning the form or mask space to correctly apply a shading pattern.
+                // experimental as it fixes some, breaks others, but regardless we don't support it well.
+                logger.warning("Smask pattern paint example, currently not supported.");
+                xFormBuffer.flush();
+                xFormBuffer = createBufferXObject(parentPage, softMask.getG(), null, renderingHints, true);
+                xFormBufferBuilt = true;
+                return false;
+            }
+            // apply the form mask to current form content that has been rasterized to xFormBuffer
+            if (formSoftMask != null) {
+                BufferedImage formSMaskBuffer = applyMask(parentPage, xFormBuffer, formSoftMask, softMask,
+                        g.getRenderingHints());
+                // compost all the images.
+                if (softMask != null) {
+                    BufferedImage formBuffer = ImageUtility.createTranslucentCompatibleImage(
+                            xFormBuffer.getWidth(), xFormBuffer.getHeight());
+                    Graphics2D g2d = (Graphics2D) formBuffer.getGraphics();
 //                        java.util.List<Number> compRaw = formSoftMask.getBC();
 //                        if (compRaw != null) {
 //                            g2d.setColor(Color.BLACK);
 //                            g2d.fillRect(0, 0, xFormBuffer.getWidth(), xFormBuffer.getHeight());
 //                        }
-                        g2d.drawImage(formSMaskBuffer, 0, 0, null);
+                    g2d.drawImage(formSMaskBuffer, 0, 0, null);
 //                        g2d.drawImage(xFormBuffer, 0, 0, null);
-                        xFormBuffer.flush();
-                        xFormBuffer = formBuffer;
-                    } else {
-                        xFormBuffer = formSMaskBuffer;
-                    }
+                    xFormBuffer.flush();
+                    xFormBuffer = formBuffer;
+                } else {
+                    xFormBuffer = formSMaskBuffer;
                 }
-            } else if (isExtendGraphicState) {
-                BufferedImage shape = createBufferXObject(parentPage, xForm, null, renderingHints, true);
-                xFormBuffer = ImageUtility.applyExplicitOutline(xFormBuffer, shape);
             }
+        } else if (isExtendGraphicState) {
+            BufferedImage shape = createBufferXObject(parentPage, xForm, null, renderingHints, true);
+            xFormBuffer = ImageUtility.applyExplicitOutline(xFormBuffer, shape);
+        }
 //            ImageUtility.displayImage(xFormBuffer, "final" + xForm.getGroup() + " " + xForm.getPObjectReference() +
 //                    xFormBuffer.getHeight() + "x" + xFormBuffer.getHeight());
-        }
-        g.drawImage(xFormBuffer, null, x, y);
-        return currentShape;
+        xFormBufferBuilt = true;
+        return true;
     }
 
     private BufferedImage applyMask(Page parentPage, BufferedImage xFormBuffer, SoftMask softMask, SoftMask gsSoftMask,
@@ -84,6 +84,10 @@ public class ImageDrawCmd extends AbstractDrawCmd {
         return image.getImage();
     }
 
+    public ImageReference getImageReference() {
+        return image;
+    }
+
     @Override
     public Shape paintOperand(Graphics2D g, Page parentPage, Shape currentShape,
                               Shape clip, AffineTransform base,
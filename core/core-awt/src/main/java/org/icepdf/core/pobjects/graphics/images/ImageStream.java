@@ -60,6 +60,15 @@ public class ImageStream extends Stream {
         imageParams = new ImageParams(library, entries, null);
     }
 
+    /**
+     * Image decoders work on the decoded bytes directly and decoded images are
+     * already cached by the ImagePool.
+     */
+    @Override
+    protected boolean isDecodedStreamCacheable() {
+        return false;
+    }
+
     /**
      * Gets the image param wrapper class for quick access to parameters that are needed now!
      *
@@ -193,6 +193,19 @@ public class PageText implements TextSelect {
         }
     }
 
+    /**
+     * @return true if no text has been added to the page, including any
+     * optional content layers.
+     */
+    public boolean isEmpty() {
+        for (LineText lineText : pageLines) {
+            if (lineText.getWords().size() > 0) {
+                return false;
+            }
+        }
+        return optionalPageLines == null || optionalPageLines.isEmpty();
+    }
+
     public void setTextTransform(AffineTransform affineTransform) {
         // look to see if we have shear and thus text that has been rotated, if so we insert a page break
         if (previousTextTransform != null && currentLine != null) {
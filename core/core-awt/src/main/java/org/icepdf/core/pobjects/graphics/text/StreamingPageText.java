@@ -0,0 +1,171 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.text;
+
+import org.icepdf.core.pobjects.OptionalContents;
+
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.LinkedList;
+
+/**
+ * PageText that hands glyphs to a TextVisitor as the content parser adds
+ * them rather than building the line and word model.  Only the word and line
+ * being assembled are held, so memory use doesn't grow with the page.
+ * <br>
+ * Words and lines are split with the same heuristics LineText and WordText
+ * use: white space and punctuation glyphs, a gap wider than a fraction of
+ * the previous glyph, and a baseline shift.  Text in optional content is
+ * reported inline with the rest of the page.
+ *
+ * @since 7.1
+ */
+public class StreamingPageText extends PageText {
+
+    private final TextVisitor visitor;
+    private final boolean geometryEnabled;
+
+    private final StringBuilder word = new StringBuilder(32);
+    private final Rectangle2D.Double wordBounds = new Rectangle2D.Double();
+    private final Rectangle2D.Double lineBounds = new Rectangle2D.Double();
+    private boolean lineStarted;
+    // extraction bounds of the last glyph added, for space and line break detection.
+    private Rectangle2D.Double previousGlyph;
+    // last word character was a digit, keeps decimals in one word.
+    private boolean previousDigit;
+
+    public StreamingPageText(TextVisitor visitor) {
+        this.visitor = visitor;
+        geometryEnabled = visitor.isGeometryEnabled();
+    }
+
+    public void newLine(LinkedList<OptionalContents> oCGs) {
+        endLine();
+    }
+
+    public void newLine() {
+        endLine();
+    }
+
+    public void addGlyph(GlyphText glyphText, LinkedList<OptionalContents> oCGs) {
+        addGlyph(glyphText);
+    }
+
+    protected void addOptionalPageLines(OptionalContents optionalContent, GlyphText sprite) {
+        addGlyph(sprite);
+    }
+
+    /**
+     * Replays the lines of a form xObject's text.
+     *
+     * @param pageLines lines to add.
+     */
+    public void addPageLines(ArrayList<LineText> pageLines) {
+        if (pageLines == null) {
+            return;
+        }
+        for (LineText lineText : pageLines) {
+            for (WordText wordText : lineText.getWords()) {
+                for (GlyphText glyphText : wordText.getGlyphs()) {
+                    addGlyph(glyphText);
+                }
+            }
+            endLine();
+        }
+    }
+
+    protected void addGlyph(GlyphText glyphText) {
+        Rectangle2D.Double extractionBounds = glyphText.getTextExtractionBounds();
+        if (previousGlyph != null && WordText.autoSpaceInsertion) {
+            double tolerance = previousGlyph.height / WordText.spaceFraction;
+            if (Math.abs(extractionBounds.y - previousGlyph.y) > tolerance) {
+                endLine();
+            } else {
+                double space = Math.abs(extractionBounds.x - (previousGlyph.x + previousGlyph.width));
+                if (space > previousGlyph.width / WordText.spaceFraction) {
+                    endWord();
+                }
+            }
+        }
+        previousGlyph = extractionBounds;
+
+        String unicode = glyphText.getUnicode();
+        Rectangle2D.Double bounds = geometryEnabled ? glyphText.getBounds() : null;
+        visitor.glyph(unicode, bounds);
+        if (geometryEnabled) {
+            if (lineStarted) {
+                lineBounds.add(bounds);
+            } else {
+                lineBounds.setRect(bounds);
+            }
+        }
+        lineStarted = true;
+
+        int c = unicode != null && unicode.length() > 0 ? unicode.charAt(0) : -1;
+        if (WordText.isWhiteSpace(c)) {
+            endWord();
+        } else if (WordText.isPunctuation(c) && !previousDigit) {
+            endWord();
+            appendToWord(unicode, bounds);
+            endWord();
+        } else if (unicode != null) {
+            appendToWord(unicode, bounds);
+            previousDigit = Character.isDigit(c);
+        }
+    }
+
+    /**
+     * Reports the word and line in progress, called once the content has been parsed.
+     */
+    public void finish() {
+        endLine();
+    }
+
+    /**
+     * @return always true, text isn't retained.
+     */
+    public boolean isEmpty() {
+        return true;
+    }
+
+    private void appendToWord(String unicode, Rectangle2D.Double bounds) {
+        if (geometryEnabled) {
+            if (word.length() == 0) {
+                wordBounds.setRect(bounds);
+            } else {
+                wordBounds.add(bounds);
+            }
+        }
+        word.append(unicode);
+    }
+
+    private void endWord() {
+        if (word.length() > 0) {
+            visitor.word(word.toString(), geometryEnabled ? wordBounds : null);
+            word.setLength(0);
+        }
+        previousDigit = false;
+    }
+
+    private void endLine() {
+        endWord();
+        if (lineStarted) {
+            visitor.endLine(geometryEnabled ? lineBounds : null);
+            lineStarted = false;
+        }
+        previousGlyph = null;
+    }
+}
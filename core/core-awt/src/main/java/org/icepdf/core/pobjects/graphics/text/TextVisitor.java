@@ -0,0 +1,76 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.text;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Receives a page's text as it is parsed, see Page.visitText(TextVisitor).
+ * Glyphs are reported in content stream order along with the words and
+ * lines they make up, nothing is retained once an event has been delivered
+ * so pages of any size can be extracted in bounded memory.
+ * <br>
+ * Unlike PageText the text isn't sorted, so the reading order is the order
+ * the text was written to the page.  Bounds are in page space and are only
+ * passed when isGeometryEnabled() returns true, otherwise they are null.
+ * Bounds objects may be reused between events and should be copied if kept.
+ *
+ * @since 7.1
+ */
+public interface TextVisitor {
+
+    /**
+     * @return true if glyph, word and line bounds should be passed to the visitor.
+     */
+    boolean isGeometryEnabled();
+
+    /**
+     * Page text extraction is starting.
+     *
+     * @param pageIndex zero based page index.
+     */
+    void startPage(int pageIndex);
+
+    /**
+     * A glyph, including white space, has been drawn.
+     *
+     * @param unicode unicode value of the glyph, can be null if the font has no mapping.
+     * @param bounds  glyph bounds, null if geometry isn't enabled.
+     */
+    void glyph(String unicode, Rectangle2D bounds);
+
+    /**
+     * A word has been completed, words never include white space.
+     *
+     * @param text   text of the word.
+     * @param bounds word bounds, null if geometry isn't enabled.
+     */
+    void word(String text, Rectangle2D bounds);
+
+    /**
+     * A line of text has been completed.
+     *
+     * @param bounds line bounds, null if geometry isn't enabled.
+     */
+    void endLine(Rectangle2D bounds);
+
+    /**
+     * Page text extraction has finished.
+     *
+     * @param pageIndex zero based page index.
+     */
+    void endPage(int pageIndex);
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects.graphics.text;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Convenience adaptor for working with the TextVisitor interface, geometry
+ * is disabled by default.
+ *
+ * @since 7.1
+ */
+public abstract class TextVisitorAdapter implements TextVisitor {
+
+    public boolean isGeometryEnabled() {
+        return false;
+    }
+
+    public void startPage(int pageIndex) {
+    }
+
+    public void glyph(String unicode, Rectangle2D bounds) {
+    }
+
+    public void word(String text, Rectangle2D bounds) {
+    }
+
+    public void endLine(Rectangle2D bounds) {
+    }
+
+    public void endPage(int pageIndex) {
+    }
+}
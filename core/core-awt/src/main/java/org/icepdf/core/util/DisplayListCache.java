@@ -0,0 +1,141 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.pobjects.graphics.DisplayList;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Cache of compiled page display lists, so a page whose state has been dropped,
+ * by the MemoryAccountant or Page.resetInitializedState(), can be rebuilt
+ * without running the content parser again.
+ * <br>
+ * Display lists are keyed by a digest of the references of the page and its
+ * resources and the page's decoded content streams, so edited content never
+ * matches a stale list.  Lists hold on to the document's fonts and images, so
+ * the cache belongs to a single open document and is dropped with it.  The
+ * cache is off by default, keying a page costs a digest of its content and
+ * compiling it a pass over its shapes on the first init.  It is enabled by
+ * setting org.icepdf.core.displayListCache.size to the number of bytes of
+ * lists to hold in memory.  Lists are counted by the document's
+ * MemoryAccountant, which trims the cache when the document is over budget,
+ * as cached lists keep the images and text of their pages alive.
+ *
+ * @since 7.1
+ */
+public class DisplayListCache {
+
+    private static long cacheSize;
+
+    static {
+        cacheSize = Math.max(0, Defs.intProperty("org.icepdf.core.displayListCache.size", 0));
+    }
+
+    private final WeightedLRUCache<String, DisplayList> cache;
+
+    DisplayListCache(long cacheSize) {
+        cache = new WeightedLRUCache<>(cacheSize, 4, DisplayList::getFootprint);
+    }
+
+    /**
+     * Creates a display list cache for a document.
+     *
+     * @return new cache, null if the cache has been disabled.
+     */
+    public static DisplayListCache create() {
+        return cacheSize > 0 ? new DisplayListCache(cacheSize) : null;
+    }
+
+    /**
+     * Creates the key for a page's display list.
+     *
+     * @param page      page reference, can be null.
+     * @param resources reference of the page's resources, tells apart pages
+     *                  that share content streams, null if the resources are
+     *                  a direct object and so belong to the page.
+     * @param streams   decoded content streams of the page.
+     * @return cache key.
+     */
+    public String createKey(Reference page, Reference resources, byte[][] streams) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(String.valueOf(page).getBytes(StandardCharsets.UTF_8));
+            digest.update(String.valueOf(resources).getBytes(StandardCharsets.UTF_8));
+            for (byte[] stream : streams) {
+                if (stream != null) {
+                    digest.update(stream);
+                }
+                digest.update((byte) 0);
+            }
+            StringBuilder key = new StringBuilder(64);
+            for (byte b : digest.digest()) {
+                key.append(Character.forDigit((b >> 4) & 0xF, 16))
+                        .append(Character.forDigit(b & 0xF, 16));
+            }
+            return key.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Gets a page's display list.
+     *
+     * @param key key from createKey().
+     * @return display list, null if none is cached.
+     */
+    public DisplayList get(String key) {
+        return cache.get(key);
+    }
+
+    /**
+     * Stores a page's display list.
+     *
+     * @param key         key from createKey().
+     * @param displayList compiled display list.
+     */
+    public void put(String key, DisplayList displayList) {
+        cache.put(key, displayList);
+    }
+
+    /**
+     * @return memory used by the cached display lists.
+     */
+    public long getWeight() {
+        return cache.getWeight();
+    }
+
+    /**
+     * Gets the underlying memory cache, its statistics show how often the
+     * content parser is being skipped.
+     *
+     * @return in memory cache.
+     */
+    public WeightedLRUCache<String, DisplayList> getCache() {
+        return cache;
+    }
+
+    /**
+     * Drops the in memory display lists.
+     */
+    public void clear() {
+        cache.clear();
+    }
+}
@@ -30,23 +30,37 @@ public class LazyObjectLoader {
     private static final Logger logger =
             Logger.getLogger(LazyObjectLoader.class.toString());
 
+    // byte budget of the decoded object stream cache, 0 disables the cache.
+    private static int objectStreamCacheSize;
+
+    static {
+        objectStreamCacheSize =
+                Defs.intProperty("org.icepdf.core.objectStreamCache.size", 32 * 1024 * 1024);
+    }
+
     private Library library;
     private SeekableInput seekableInput;
     private CrossReference crossReference;
-    protected SoftLRUCache<Reference, ObjectStream> leastRecentlyUsed;
-    private final Object leastRectlyUsedLock = new Object();
-    private final Object streamLock = new Object();
+    // decoded object streams, weighted by their decoded size.
+    protected WeightedLRUCache<Reference, ObjectStream> objectStreamCache;
 
     public LazyObjectLoader(Library lib, SeekableInput seekableInput, CrossReference xref) {
         library = lib;
         this.seekableInput = seekableInput;
         crossReference = xref;
-        leastRecentlyUsed = new SoftLRUCache<>(256);
+        if (objectStreamCacheSize > 0) {
+            // few segments, an object stream is usually a few hundred KB.  A
+            // stream can use up to the whole budget, only one larger than the
+            // budget isn't cached.
+            objectStreamCache = new WeightedLRUCache<>(objectStreamCacheSize, 4,
+                    ObjectStream::getDecodedLength);
+        }
     }
 
     /**
-     * Loads an object via it's reference. Stream object data is initialized
-     * so that we can release the file lock more quickly.
+     * Loads an object via it's reference.  Objects are parsed with a private
+     * cursor over the document input, so several threads can load objects
+     * from the same document concurrently.
      *
      * @param reference object reference
      * @return found object; dictionary, stream or pobject.
@@ -63,24 +77,16 @@ public class LazyObjectLoader {
         if (entry instanceof CrossReference.UsedEntry) {
             try {
                 if (seekableInput != null) {
-                    synchronized (streamLock) {
-                        CrossReference.UsedEntry usedEntry = (CrossReference.UsedEntry) entry;
-                        long position = usedEntry.getFilePositionOfObject();
-                        seekableInput.beginThreadAccess();
-                        long savedPosition = seekableInput.getAbsolutePosition();
-                        seekableInput.seekAbsolute(position);
-                        Parser parser = new Parser(seekableInput);
-                        Object ob = parser.getObject(library);
-                        seekableInput.seekAbsolute(savedPosition);
-                        return ob;
-                    }
+                    // each load gets its own cursor, so concurrent loads don't
+                    // have to take turns moving the shared stream position.
+                    CrossReference.UsedEntry usedEntry = (CrossReference.UsedEntry) entry;
+                    long position = usedEntry.getFilePositionOfObject();
+                    Parser parser = new Parser(seekableInput, position, Parser.PARSE_MODE_NORMAL);
+                    return parser.getObject(library);
                 }
             } catch (Exception e) {
                 logger.log(Level.SEVERE,
                         "Error loading object instance: " + reference.toString(), e);
-            } finally {
-                if (seekableInput != null)
-                    seekableInput.endThreadAccess();
             }
         }
         // compressed cross reference.
@@ -90,26 +96,22 @@ public class LazyObjectLoader {
                 int objectStreamsObjectNumber = compressedEntry.getObjectNumberOfContainingObjectStream();
                 int objectIndex = compressedEntry.getIndexWithinObjectStream();
                 Reference objectStreamRef = new Reference(objectStreamsObjectNumber, 0);
-                ObjectStream objectStream;
-                synchronized (leastRectlyUsedLock) {
-                    objectStream = leastRecentlyUsed.get(objectStreamRef);
+                ObjectStream objectStream = null;
+                if (objectStreamCache != null) {
+                    objectStream = objectStreamCache.get(objectStreamRef);
                 }
 
                 if (objectStream == null) {
-                    synchronized (streamLock) {
-                        objectStream = (ObjectStream) library.getObject(objectStreamRef);
-                    }
-                    if (objectStream != null) {
-                        synchronized (leastRectlyUsedLock) {
-                            leastRecentlyUsed.put(objectStreamRef, objectStream);
-                        }
+                    objectStream = (ObjectStream) library.getObject(objectStreamRef);
+                    if (objectStream != null && objectStreamCache != null) {
+                        // decode before caching so the entry's weight is known.
+                        objectStream.init();
+                        objectStreamCache.put(objectStreamRef, objectStream);
                     }
                 }
 
                 if (objectStream != null) {
-                    synchronized (streamLock) {
-                        return objectStream.loadObject(library, objectIndex);
-                    }
+                    return objectStream.loadObject(library, objectIndex);
                 }
             } catch (Exception e) {
                 logger.log(Level.SEVERE,
@@ -132,10 +134,7 @@ public class LazyObjectLoader {
         PTrailer trailer = null;
         try {
             if (seekableInput != null) {
-                seekableInput.beginThreadAccess();
-                long savedPosition = seekableInput.getAbsolutePosition();
-                seekableInput.seekAbsolute(position);
-                Parser parser = new Parser(seekableInput);
+                Parser parser = new Parser(seekableInput, position, Parser.PARSE_MODE_NORMAL);
                 Object obj = parser.getObject(library);
                 if (obj instanceof PObject) {
                     PObject pObject = ((PObject) obj);
@@ -147,18 +146,25 @@ public class LazyObjectLoader {
                 trailer = (PTrailer) obj;
                 if (trailer != null)
                     trailer.setPosition(position);
-                seekableInput.seekAbsolute(savedPosition);
             }
         } catch (Exception e) {
             logger.log(Level.FINE,
                     "Error loading PTrailer instance: " + position, e);
-        } finally {
-            if (seekableInput != null)
-                seekableInput.endThreadAccess();
         }
         return trailer;
     }
 
+    /**
+     * Gets the decoded object stream cache, mainly for its hit, miss and
+     * eviction counts.  The byte budget can be set with the system property
+     * org.icepdf.core.objectStreamCache.size.
+     *
+     * @return object stream cache, null if the cache has been disabled.
+     */
+    public WeightedLRUCache<Reference, ObjectStream> getObjectStreamCache() {
+        return objectStreamCache;
+    }
+
     /**
      * Get the documents library object.
      *
@@ -24,11 +24,15 @@ import org.icepdf.core.pobjects.fonts.Font;
 import org.icepdf.core.pobjects.fonts.FontDescriptor;
 import org.icepdf.core.pobjects.graphics.ICCBased;
 import org.icepdf.core.pobjects.graphics.images.references.ImagePool;
+import org.icepdf.core.pobjects.graphics.images.references.ImageReference;
 import org.icepdf.core.pobjects.security.SecurityManager;
+import org.icepdf.core.util.parser.content.InlineImageKey;
 
 import java.awt.geom.Rectangle2D;
 import java.lang.ref.WeakReference;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.*;
@@ -55,6 +59,14 @@ public class Library {
     public static int imagePoolThreads;
     private static final long KEEP_ALIVE_TIME = 90;
 
+    // byte budget of the per document decoded stream cache, 0 disables the cache.
+    private static int decodedStreamCacheSize;
+    // filters whose decoded output isn't worth caching, mostly image codecs
+    // that are cached further down the line by the ImagePool.
+    private static Set<String> decodedStreamCacheExcludedFilters;
+    // byte budget of the per document inline image cache, 0 disables the cache.
+    private static int inlineImageCacheSize;
+
     static {
         try {
             commonPoolThreads =
@@ -77,6 +89,14 @@ public class Library {
             log.warning("Error reading buffered scale factor");
         }
 
+        decodedStreamCacheSize =
+                Defs.intProperty("org.icepdf.core.library.decodedStreamCache.size", 16 * 1024 * 1024);
+        decodedStreamCacheExcludedFilters = new HashSet<>(Arrays.asList(
+                Defs.sysProperty("org.icepdf.core.library.decodedStreamCache.excludedFilters",
+                        "DCTDecode,JPXDecode,JBIG2Decode,CCITTFaxDecode").split("\\s*,\\s*")));
+        inlineImageCacheSize =
+                Defs.intProperty("org.icepdf.core.library.inlineImageCache.size", 4 * 1024 * 1024);
+
 //        log.fine("Starting ICEpdf Thread Pools: " +
 //                (commonPoolThreads + imagePoolThreads) +
 //                " threads.");
@@ -111,6 +131,12 @@ public class Library {
     private boolean isEncrypted;
     private boolean isLinearTraversal;
     private ImagePool imagePool;
+    private WeightedLRUCache<Reference, byte[]> decodedStreamCache;
+    private SharedResourceCache.Lease sharedResources;
+    private StreamArena streamArena;
+    private MemoryAccountant memoryAccountant;
+    private DisplayListCache displayListCache;
+    private WeightedLRUCache<InlineImageKey, ImageReference> inlineImageCache;
 
     /**
      * Sets a document loader for the library.
@@ -597,6 +623,20 @@ public class Library {
         // set Catalog memory Manager and cache manager.
         imagePool = new ImagePool();
         signatureHandler = new SignatureHandler();
+        if (decodedStreamCacheSize > 0) {
+            decodedStreamCache = new WeightedLRUCache<>(decodedStreamCacheSize, 8, bytes -> bytes.length);
+        }
+        sharedResources = SharedResourceCache.createLease();
+        if (StreamArena.isEnabled()) {
+            streamArena = new StreamArena();
+        }
+        displayListCache = DisplayListCache.create();
+        if (inlineImageCacheSize > 0) {
+            // weighed by the decoded image, the compressed data in the key is small in comparison.
+            inlineImageCache = new WeightedLRUCache<>(inlineImageCacheSize, 4,
+                    image -> 64 + 4L * image.getWidth() * image.getHeight());
+        }
+        memoryAccountant = new MemoryAccountant(this);
     }
 
     /**
@@ -769,6 +809,93 @@ public class Library {
         return imagePool;
     }
 
+    /**
+     * Gets the cache of decoded stream bytes, keyed by the stream's object
+     * reference.  The cache's statistics can be used to monitor how often the
+     * stream filters are being skipped.
+     *
+     * @return decoded stream cache, null if the cache has been disabled.
+     */
+    public WeightedLRUCache<Reference, byte[]> getDecodedStreamCache() {
+        return decodedStreamCache;
+    }
+
+    /**
+     * Gets the document's lease on the process wide shared resource cache,
+     * used to share fonts, ICC profiles, CMaps and functions with other
+     * documents.
+     *
+     * @return shared resource lease, null if the shared cache is disabled.
+     */
+    public SharedResourceCache.Lease getSharedResources() {
+        return sharedResources;
+    }
+
+    /**
+     * Gets the off heap storage used for the document's raw stream bytes.
+     *
+     * @return stream arena, null if streams are kept on the heap.
+     */
+    public StreamArena getStreamArena() {
+        return streamArena;
+    }
+
+    /**
+     * Gets the accountant that tracks the document's memory use and keeps
+     * it within the memory budget.
+     *
+     * @return document's memory accountant.
+     */
+    public MemoryAccountant getMemoryAccountant() {
+        return memoryAccountant;
+    }
+
+    /**
+     * Gets the cache of compiled page display lists, used to rebuild a page's
+     * shapes without parsing its content again.
+     *
+     * @return display list cache, null if the cache has been disabled.
+     */
+    public DisplayListCache getDisplayListCache() {
+        return displayListCache;
+    }
+
+    /**
+     * Gets the cache of decoded inline images, keyed by the image data and
+     * parameters.  The cache's statistics show how often repeated inline
+     * images, tiled backgrounds or type 3 glyph bitmaps, are being reused.
+     *
+     * @return inline image cache, null if the cache has been disabled.
+     */
+    public WeightedLRUCache<InlineImageKey, ImageReference> getInlineImageCache() {
+        return inlineImageCache;
+    }
+
+    WeightedLRUCache<Reference, ObjectStream> getObjectStreamCache() {
+        return lazyObjectLoader != null ? lazyObjectLoader.getObjectStreamCache() : null;
+    }
+
+    /**
+     * Checks if the decoded output of a stream using the given filters should
+     * be kept in the decoded stream cache.
+     *
+     * @param filterNames normalised filter names of the stream, can be null.
+     * @return true if none of the filters have been excluded from caching.
+     */
+    public boolean isDecodedStreamCacheable(List<String> filterNames) {
+        if (decodedStreamCache == null) {
+            return false;
+        }
+        if (filterNames != null) {
+            for (String filterName : filterNames) {
+                if (decodedStreamCacheExcludedFilters.contains(filterName)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
     public static void initializeThreadPool() {
 
         log.fine("Starting ICEpdf Thread Pool: " + commonPoolThreads + " threads.");
@@ -822,6 +949,22 @@ public class Library {
         }
     }
 
+    /**
+     * Gets the common thread pool, starting it if needed.  Unlike execute()
+     * a task the pool can't accept is rejected with a
+     * RejectedExecutionException, so the caller can fail whatever is waiting
+     * on the task.
+     *
+     * @return common thread pool.
+     * @since 7.1
+     */
+    public static Executor getCommonExecutor() {
+        if (commonThreadPool == null || commonThreadPool.isShutdown()) {
+            initializeThreadPool();
+        }
+        return commonThreadPool;
+    }
+
     public static void executeImage(FutureTask callable) {
         try {
             if (imageThreadPool == null || imageThreadPool.isShutdown()) {
@@ -0,0 +1,336 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.icepdf.core.pobjects.ObjectStream;
+import org.icepdf.core.pobjects.Page;
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.pobjects.graphics.images.references.ImageReference;
+import org.icepdf.core.util.parser.content.InlineImageKey;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Keeps track of the estimated memory used by a document and keeps it within
+ * a budget.  Initialized pages report the footprint of their shapes, text and
+ * decoded images, and the document's stream caches are counted by weight.
+ * When the total is over budget the state of the least recently used pages is
+ * dropped, the pages are parsed again the next time they are painted.
+ * Compiled display lists are trimmed before any page is evicted, a cached list
+ * holds on to the images and text of its page, so evicting the page alone
+ * would free very little.
+ * <br>
+ * Pages are only tracked while a budget is set and are held weakly, so the
+ * page tree can still let go of pages that aren't in use.  The budget in
+ * megabytes can be set with the system property org.icepdf.core.memoryBudget,
+ * the default of zero leaves usage unbounded and pages untracked.
+ *
+ * @since 7.1
+ */
+public class MemoryAccountant {
+
+    private static final Logger logger =
+            Logger.getLogger(MemoryAccountant.class.toString());
+
+    private static long defaultBudget;
+
+    // a page holds its own lock while initializing and reporting back to the
+    // accountant, so victims are evicted on a thread of their own, which keeps
+    // two pages initializing at the same time from waiting on each other and
+    // eviction from queuing behind work on the common thread pool.
+    private static ExecutorService evictionExecutor;
+
+    static {
+        defaultBudget = Math.max(0, Defs.intProperty("org.icepdf.core.memoryBudget", 0)) * 1024L * 1024L;
+    }
+
+    private final Library library;
+    // initialized pages and their footprint, least recently used first.
+    private final LinkedHashMap<PageReference, Long> pages = new LinkedHashMap<>(64, 0.75f, true);
+    private final ReferenceQueue<Page> collectedPages = new ReferenceQueue<>();
+    private long pageUsage;
+    private long budget;
+    private long evictionCount;
+
+    public MemoryAccountant(Library library) {
+        this.library = library;
+        budget = defaultBudget;
+    }
+
+    /**
+     * Records the footprint of a page that has just been initialized and
+     * evicts other pages if the document is over budget.  Pages aren't
+     * tracked when there is no budget.
+     *
+     * @param page      initialized page.
+     * @param footprint estimated size of the page's state in bytes.
+     */
+    public void pageInitialized(Page page, long footprint) {
+        List<Page> victims;
+        synchronized (pages) {
+            expungeCollectedPages();
+            if (budget <= 0) {
+                return;
+            }
+            Long previous = pages.put(new PageReference(page, collectedPages), footprint);
+            pageUsage += footprint - (previous != null ? previous : 0);
+            victims = selectVictims(page);
+        }
+        evict(victims);
+    }
+
+    /**
+     * Marks a page as recently used.
+     *
+     * @param page page being painted or read.
+     */
+    public void pageAccessed(Page page) {
+        synchronized (pages) {
+            if (!pages.isEmpty()) {
+                pages.get(new PageReference(page, null));
+            }
+        }
+    }
+
+    /**
+     * Stops tracking a page whose state has been dropped.
+     *
+     * @param page page that is no longer initialized.
+     */
+    public void pageReleased(Page page) {
+        synchronized (pages) {
+            expungeCollectedPages();
+            if (pages.isEmpty()) {
+                return;
+            }
+            Long footprint = pages.remove(new PageReference(page, null));
+            if (footprint != null) {
+                pageUsage -= footprint;
+            }
+        }
+    }
+
+    /**
+     * Sets the memory budget, evicting pages if the document is now over it.
+     * Pages initialized while there was no budget are tracked from their next
+     * initialization on, removing the budget stops tracking.
+     *
+     * @param budget budget in bytes, zero or less for no limit.
+     */
+    public void setBudget(long budget) {
+        List<Page> victims;
+        synchronized (pages) {
+            this.budget = budget;
+            if (budget <= 0) {
+                pages.clear();
+                pageUsage = 0;
+            }
+            expungeCollectedPages();
+            victims = selectVictims(null);
+        }
+        evict(victims);
+    }
+
+    public long getBudget() {
+        synchronized (pages) {
+            return budget;
+        }
+    }
+
+    /**
+     * @return estimated memory used by the document, page state plus cached streams.
+     */
+    public long getUsage() {
+        synchronized (pages) {
+            return pageUsage + getCacheUsage();
+        }
+    }
+
+    /**
+     * @return estimated memory used by the initialized pages being tracked.
+     */
+    public long getPageUsage() {
+        synchronized (pages) {
+            return pageUsage;
+        }
+    }
+
+    /**
+     * @return memory used by the decoded stream, object stream, display list,
+     * inline image and stream arena caches.
+     */
+    public long getCacheUsage() {
+        long usage = 0;
+        WeightedLRUCache<Reference, byte[]> decodedStreamCache = library.getDecodedStreamCache();
+        if (decodedStreamCache != null) {
+            usage += decodedStreamCache.getWeight();
+        }
+        WeightedLRUCache<Reference, ObjectStream> objectStreamCache = library.getObjectStreamCache();
+        if (objectStreamCache != null) {
+            usage += objectStreamCache.getWeight();
+        }
+        DisplayListCache displayListCache = library.getDisplayListCache();
+        if (displayListCache != null) {
+            usage += displayListCache.getWeight();
+        }
+        WeightedLRUCache<InlineImageKey, ImageReference> inlineImageCache = library.getInlineImageCache();
+        if (inlineImageCache != null) {
+            usage += inlineImageCache.getWeight();
+        }
+        StreamArena streamArena = library.getStreamArena();
+        if (streamArena != null) {
+            usage += streamArena.getAllocated();
+        }
+        return usage;
+    }
+
+    /**
+     * @return number of initialized pages being tracked.
+     */
+    public int getPageCount() {
+        synchronized (pages) {
+            expungeCollectedPages();
+            return pages.size();
+        }
+    }
+
+    public long getEvictionCount() {
+        synchronized (pages) {
+            return evictionCount;
+        }
+    }
+
+    public String toString() {
+        synchronized (pages) {
+            return "MemoryAccountant[pages=" + pages.size() + ", pageUsage=" + pageUsage +
+                    ", cacheUsage=" + getCacheUsage() + ", budget=" + budget + ", evictions=" + evictionCount + "]";
+        }
+    }
+
+    // pages lock must be held, trims the display list cache and then removes
+    // the least recently used pages until the document is back under budget,
+    // never the page in use.
+    private List<Page> selectVictims(Page current) {
+        List<Page> victims = new ArrayList<>();
+        if (budget <= 0) {
+            return victims;
+        }
+        long usage = pageUsage + getCacheUsage();
+        DisplayListCache displayListCache = library.getDisplayListCache();
+        if (usage > budget && displayListCache != null) {
+            long weight = displayListCache.getWeight();
+            displayListCache.getCache().trim(weight - (usage - budget));
+            usage -= weight - displayListCache.getWeight();
+        }
+        Iterator<Map.Entry<PageReference, Long>> iterator = pages.entrySet().iterator();
+        while (usage > budget && iterator.hasNext()) {
+            Map.Entry<PageReference, Long> entry = iterator.next();
+            Page page = entry.getKey().get();
+            if (page == current) {
+                continue;
+            }
+            iterator.remove();
+            pageUsage -= entry.getValue();
+            usage -= entry.getValue();
+            // a collected page has already given up its memory.
+            if (page != null) {
+                evictionCount++;
+                victims.add(page);
+            }
+        }
+        return victims;
+    }
+
+    // pages lock must be held, stops counting pages that have been collected.
+    private void expungeCollectedPages() {
+        PageReference reference;
+        while ((reference = (PageReference) collectedPages.poll()) != null) {
+            Long footprint = pages.remove(reference);
+            if (footprint != null) {
+                pageUsage -= footprint;
+            }
+        }
+    }
+
+    private void evict(List<Page> victims) {
+        if (victims.isEmpty()) {
+            return;
+        }
+        getEvictionExecutor().execute(() -> {
+            for (Page page : victims) {
+                page.evictInitializedState();
+            }
+            logger.finer("Evicted " + victims.size() + " pages, " + this);
+        });
+    }
+
+    private static synchronized ExecutorService getEvictionExecutor() {
+        if (evictionExecutor == null) {
+            ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 60, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>());
+            executor.allowCoreThreadTimeOut(true);
+            executor.setThreadFactory(command -> {
+                Thread newThread = new Thread(command);
+                newThread.setName("ICEpdf-memory-eviction");
+                newThread.setDaemon(true);
+                return newThread;
+            });
+            evictionExecutor = executor;
+        }
+        return evictionExecutor;
+    }
+
+    /**
+     * Weak page key, compared by page identity so a lookup key matches the
+     * tracked key of the same page.
+     */
+    private static final class PageReference extends WeakReference<Page> {
+        private final int hash;
+
+        PageReference(Page page, ReferenceQueue<Page> queue) {
+            super(page, queue);
+            hash = System.identityHashCode(page);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof PageReference)) {
+                return false;
+            }
+            Page page = get();
+            return page != null && page == ((PageReference) o).get();
+        }
+    }
+}
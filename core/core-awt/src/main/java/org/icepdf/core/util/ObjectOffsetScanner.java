@@ -0,0 +1,445 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.icepdf.core.io.SeekableInput;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Byte level scanner used to recover a damaged document's cross reference.
+ * Rather than parsing every object, the file is scanned for "N G obj" headers,
+ * "trailer" keywords and the /XRef and /Catalog names, which is all that is
+ * needed to rebuild an offset table and let the LazyObjectLoader materialize
+ * objects on demand.
+ * <br>
+ * The file is split into fixed size chunks which are scanned in parallel with
+ * positional reads, the calling thread scans chunks too so a scan started from
+ * the common thread pool can't starve itself.  Chunks overlap slightly so a
+ * token straddling a chunk boundary is found by the chunk it starts in.
+ * <br>
+ * The stream and endstream keywords are recorded too, and once the chunks are
+ * merged any header, trailer or name found between them is dropped so "obj"
+ * text in uncompressed stream data isn't mistaken for an object.  A damaged
+ * stream missing its endstream keyword can still hide or fake objects,
+ * callers should verify the recovered document and fall back to a full
+ * linear traversal if needed.
+ *
+ * @since 7.1
+ */
+public class ObjectOffsetScanner {
+
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    // longest token we match, "4294967295 65535 obj" plus a trailing delimiter.
+    private static final int OVERLAP = 32;
+
+    private static final byte[] OBJ = {'o', 'b', 'j'};
+    private static final byte[] TRAILER = {'t', 'r', 'a', 'i', 'l', 'e', 'r'};
+    private static final byte[] STREAM = {'s', 't', 'r', 'e', 'a', 'm'};
+    private static final byte[] ENDSTREAM = {'e', 'n', 'd', 's', 't', 'r', 'e', 'a', 'm'};
+    private static final byte[] XREF_NAME = {'/', 'X', 'R', 'e', 'f'};
+    private static final byte[] CATALOG_NAME = {'/', 'C', 'a', 't', 'a', 'l', 'o', 'g'};
+
+    private final SeekableInput input;
+
+    // object headers, in file order.
+    private long[] objectOffsets = new long[0];
+    private int[] objectNumbers = new int[0];
+    private int[] generationNumbers = new int[0];
+    private int objectCount;
+    // positions of the trailer keyword and the /XRef and /Catalog names, in file order.
+    private long[] trailerOffsets = new long[0];
+    private long[] xrefNameOffsets = new long[0];
+    private long[] catalogNameOffsets = new long[0];
+
+    public ObjectOffsetScanner(SeekableInput input) {
+        this.input = input;
+    }
+
+    /**
+     * Scans the whole input.
+     *
+     * @throws IOException          if the input could not be read.
+     * @throws InterruptedException if interrupted while waiting on the scan.
+     */
+    public void scan() throws IOException, InterruptedException {
+        long length = input.getLength();
+        int chunkCount = (int) Math.max(1, (length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        final ChunkResult[] results = new ChunkResult[chunkCount];
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final CountDownLatch remaining = new CountDownLatch(chunkCount);
+        final AtomicReference<IOException> failure = new AtomicReference<>();
+
+        Runnable worker = () -> {
+            byte[] buffer = new byte[CHUNK_SIZE + OVERLAP + 1];
+            int chunk;
+            while ((chunk = nextChunk.getAndIncrement()) < chunkCount) {
+                try {
+                    results[chunk] = scanChunk(chunk * (long) CHUNK_SIZE, length, buffer);
+                } catch (IOException e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    remaining.countDown();
+                }
+            }
+        };
+        int helpers = Math.min(chunkCount, Library.commonPoolThreads) - 1;
+        for (int i = 0; i < helpers; i++) {
+            Library.execute(worker);
+        }
+        worker.run();
+        // helpers that never got started hold no chunks, so this only waits
+        // on chunks that are actually being scanned.
+        remaining.await();
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        merge(results);
+    }
+
+    /**
+     * Number of object headers found.
+     */
+    public int getObjectCount() {
+        return objectCount;
+    }
+
+    public long getObjectOffset(int index) {
+        return objectOffsets[index];
+    }
+
+    public int getObjectNumber(int index) {
+        return objectNumbers[index];
+    }
+
+    public int getGenerationNumber(int index) {
+        return generationNumbers[index];
+    }
+
+    /**
+     * Gets the positions of the trailer keywords, in file order.
+     */
+    public long[] getTrailerOffsets() {
+        return trailerOffsets;
+    }
+
+    /**
+     * Gets the indexes of the object headers whose object contains a /XRef
+     * name, which are the cross reference stream candidates, in file order.
+     */
+    public int[] getXRefStreamIndexes() {
+        return getContainingObjectIndexes(xrefNameOffsets);
+    }
+
+    /**
+     * Gets the indexes of the object headers whose object contains a /Catalog
+     * name, in file order.
+     */
+    public int[] getCatalogIndexes() {
+        return getContainingObjectIndexes(catalogNameOffsets);
+    }
+
+    private int[] getContainingObjectIndexes(long[] nameOffsets) {
+        int[] indexes = new int[nameOffsets.length];
+        int count = 0;
+        for (long nameOffset : nameOffsets) {
+            int index = Arrays.binarySearch(objectOffsets, 0, objectCount, nameOffset);
+            // insertion point - 1 is the last header before the name.
+            index = index < 0 ? -index - 2 : index;
+            if (index >= 0 && (count == 0 || indexes[count - 1] != index)) {
+                indexes[count++] = index;
+            }
+        }
+        return Arrays.copyOf(indexes, count);
+    }
+
+    private ChunkResult scanChunk(long chunkStart, long length, byte[] buffer) throws IOException {
+        // read one byte before the chunk so token boundaries can be checked.
+        long readStart = Math.max(0, chunkStart - 1);
+        long chunkEnd = Math.min(length, chunkStart + CHUNK_SIZE);
+        int count = 0;
+        int toRead = (int) (Math.min(length, chunkEnd + OVERLAP) - readStart);
+        while (count < toRead) {
+            int read = input.read(readStart + count, buffer, count, toRead - count);
+            if (read <= 0) {
+                break;
+            }
+            count += read;
+        }
+        ChunkResult result = new ChunkResult();
+        int first = (int) (chunkStart - readStart);
+        int last = (int) (chunkEnd - readStart);
+        for (int i = first; i < last; i++) {
+            byte b = buffer[i];
+            if (b == 'o') {
+                if (matches(buffer, count, i, OBJ) && isDelimiterOrEnd(buffer, count, i + OBJ.length)) {
+                    matchObjectHeader(buffer, i, readStart, chunkStart, result);
+                }
+            } else if (b == 't') {
+                if (matches(buffer, count, i, TRAILER) && isWhitespaceOrStart(buffer, i)
+                        && isDelimiterOrEnd(buffer, count, i + TRAILER.length)) {
+                    result.trailers.add(readStart + i);
+                }
+            } else if (b == 's') {
+                // stream data starts after the keyword's end of line.
+                if (matches(buffer, count, i, STREAM) && i > 0 && isDelimiter(buffer[i - 1]) &&
+                        i + STREAM.length < count &&
+                        (buffer[i + STREAM.length] == '\r' || buffer[i + STREAM.length] == '\n')) {
+                    result.streams.add(readStart + i);
+                }
+            } else if (b == 'e') {
+                if (matches(buffer, count, i, ENDSTREAM) && isDelimiterOrEnd(buffer, count, i + ENDSTREAM.length)) {
+                    result.endStreams.add(readStart + i);
+                }
+            } else if (b == '/') {
+                if (matches(buffer, count, i, XREF_NAME) && isDelimiterOrEnd(buffer, count, i + XREF_NAME.length)) {
+                    result.xrefNames.add(readStart + i);
+                } else if (matches(buffer, count, i, CATALOG_NAME) &&
+                        isDelimiterOrEnd(buffer, count, i + CATALOG_NAME.length)) {
+                    result.catalogNames.add(readStart + i);
+                }
+            }
+        }
+        // a header belongs to the chunk its object number starts in, so also
+        // look for headers whose obj keyword spills into the overlap.
+        for (int i = last; i < count - OBJ.length + 1; i++) {
+            if (buffer[i] == 'o' && matches(buffer, count, i, OBJ) && isDelimiterOrEnd(buffer, count, i + OBJ.length)) {
+                matchObjectHeader(buffer, i, readStart, chunkStart, result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Walks back from the obj keyword over "N G " and records the header if
+     * it starts within the chunk.
+     */
+    private static void matchObjectHeader(byte[] buffer, int objIndex, long readStart,
+                                          long chunkStart, ChunkResult result) {
+        int i = objIndex - 1;
+        int whitespace = i;
+        while (i >= 0 && Parser.isWhitespace((char) buffer[i])) i--;
+        if (i == whitespace || i < 0) return;
+        int generationEnd = i;
+        long generation = 0;
+        long multiplier = 1;
+        while (i >= 0 && isDigit(buffer[i]) && generationEnd - i < 6) {
+            generation += (buffer[i] - '0') * multiplier;
+            multiplier *= 10;
+            i--;
+        }
+        if (i == generationEnd || i < 0 || generation > 65535) return;
+        whitespace = i;
+        while (i >= 0 && Parser.isWhitespace((char) buffer[i])) i--;
+        if (i == whitespace || i < 0) return;
+        int numberEnd = i;
+        long number = 0;
+        multiplier = 1;
+        while (i >= 0 && isDigit(buffer[i]) && numberEnd - i < 11) {
+            number += (buffer[i] - '0') * multiplier;
+            multiplier *= 10;
+            i--;
+        }
+        if (i == numberEnd || number > Integer.MAX_VALUE) return;
+        long headerOffset = readStart + i + 1;
+        // the number must not be the tail of a longer token.
+        if (headerOffset > 0 && (i < 0 || !isDelimiter(buffer[i]))) return;
+        if (headerOffset < chunkStart || headerOffset >= chunkStart + CHUNK_SIZE) return;
+        result.addObject(headerOffset, (int) number, (int) generation);
+    }
+
+    private void merge(ChunkResult[] results) {
+        int objects = 0;
+        int trailers = 0;
+        int xrefNames = 0;
+        int catalogNames = 0;
+        int streams = 0;
+        int endStreams = 0;
+        for (ChunkResult result : results) {
+            objects += result.objectCount;
+            trailers += result.trailers.size;
+            xrefNames += result.xrefNames.size;
+            catalogNames += result.catalogNames.size;
+            streams += result.streams.size;
+            endStreams += result.endStreams.size;
+        }
+        long[] streamOffsets = new long[streams];
+        long[] endStreamOffsets = new long[endStreams];
+        objectOffsets = new long[objects];
+        objectNumbers = new int[objects];
+        generationNumbers = new int[objects];
+        trailerOffsets = new long[trailers];
+        xrefNameOffsets = new long[xrefNames];
+        catalogNameOffsets = new long[catalogNames];
+        int objectIndex = 0;
+        int trailerIndex = 0;
+        int xrefIndex = 0;
+        int catalogIndex = 0;
+        int streamIndex = 0;
+        int endStreamIndex = 0;
+        // chunks are in file order and each chunk is in file order.
+        for (ChunkResult result : results) {
+            System.arraycopy(result.objectOffsets.values, 0, objectOffsets, objectIndex, result.objectCount);
+            System.arraycopy(result.objectNumbers, 0, objectNumbers, objectIndex, result.objectCount);
+            System.arraycopy(result.generationNumbers, 0, generationNumbers, objectIndex, result.objectCount);
+            objectIndex += result.objectCount;
+            trailerIndex = result.trailers.copyTo(trailerOffsets, trailerIndex);
+            xrefIndex = result.xrefNames.copyTo(xrefNameOffsets, xrefIndex);
+            catalogIndex = result.catalogNames.copyTo(catalogNameOffsets, catalogIndex);
+            streamIndex = result.streams.copyTo(streamOffsets, streamIndex);
+            endStreamIndex = result.endStreams.copyTo(endStreamOffsets, endStreamIndex);
+        }
+        objectCount = objects;
+        removeStreamData(streamOffsets, endStreamOffsets);
+    }
+
+    /**
+     * Drops everything found between a stream keyword and the following
+     * endstream keyword.  A stream keyword followed by another one before any
+     * endstream is taken to be missing its endstream and is left alone, so
+     * a damaged stream doesn't hide the objects after it.
+     */
+    private void removeStreamData(long[] streamOffsets, long[] endStreamOffsets) {
+        if (streamOffsets.length == 0) {
+            return;
+        }
+        LongList starts = new LongList();
+        LongList ends = new LongList();
+        int endIndex = 0;
+        for (int i = 0; i < streamOffsets.length; i++) {
+            long streamOffset = streamOffsets[i];
+            while (endIndex < endStreamOffsets.length && endStreamOffsets[endIndex] <= streamOffset) {
+                endIndex++;
+            }
+            if (endIndex == endStreamOffsets.length) {
+                break;
+            }
+            long endStreamOffset = endStreamOffsets[endIndex];
+            if (i + 1 < streamOffsets.length && streamOffsets[i + 1] < endStreamOffset) {
+                continue;
+            }
+            starts.add(streamOffset);
+            ends.add(endStreamOffset);
+        }
+        int count = 0;
+        for (int i = 0; i < objectCount; i++) {
+            if (!isInRange(starts, ends, objectOffsets[i])) {
+                objectOffsets[count] = objectOffsets[i];
+                objectNumbers[count] = objectNumbers[i];
+                generationNumbers[count] = generationNumbers[i];
+                count++;
+            }
+        }
+        objectCount = count;
+        trailerOffsets = removeInRange(starts, ends, trailerOffsets);
+        xrefNameOffsets = removeInRange(starts, ends, xrefNameOffsets);
+        catalogNameOffsets = removeInRange(starts, ends, catalogNameOffsets);
+    }
+
+    private static long[] removeInRange(LongList starts, LongList ends, long[] offsets) {
+        int count = 0;
+        for (long offset : offsets) {
+            if (!isInRange(starts, ends, offset)) {
+                offsets[count++] = offset;
+            }
+        }
+        return count == offsets.length ? offsets : Arrays.copyOf(offsets, count);
+    }
+
+    private static boolean isInRange(LongList starts, LongList ends, long offset) {
+        int index = Arrays.binarySearch(starts.values, 0, starts.size, offset);
+        // insertion point - 1 is the last range starting before the offset.
+        index = index < 0 ? -index - 2 : index;
+        return index >= 0 && offset < ends.values[index];
+    }
+
+    private static boolean matches(byte[] buffer, int count, int index, byte[] token) {
+        if (index + token.length > count) {
+            return false;
+        }
+        for (int j = 1; j < token.length; j++) {
+            if (buffer[index + j] != token[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDelimiterOrEnd(byte[] buffer, int count, int index) {
+        return index >= count || isDelimiter(buffer[index]);
+    }
+
+    private static boolean isWhitespaceOrStart(byte[] buffer, int index) {
+        return index == 0 || Parser.isWhitespace((char) buffer[index - 1]);
+    }
+
+    private static boolean isDelimiter(byte b) {
+        char c = (char) b;
+        return Parser.isWhitespace(c) || Parser.isDelimiter(c);
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    /**
+     * Growable primitive long list, avoids boxing millions of offsets on
+     * large files.
+     */
+    private static class LongList {
+        private long[] values = new long[16];
+        private int size;
+
+        void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int copyTo(long[] target, int index) {
+            System.arraycopy(values, 0, target, index, size);
+            return index + size;
+        }
+    }
+
+    private static class ChunkResult {
+        private final LongList objectOffsets = new LongList();
+        private int[] objectNumbers = new int[16];
+        private int[] generationNumbers = new int[16];
+        private int objectCount;
+        private final LongList trailers = new LongList();
+        private final LongList xrefNames = new LongList();
+        private final LongList catalogNames = new LongList();
+        private final LongList streams = new LongList();
+        private final LongList endStreams = new LongList();
+
+        void addObject(long offset, int number, int generation) {
+            if (objectCount == objectNumbers.length) {
+                objectNumbers = Arrays.copyOf(objectNumbers, objectCount * 2);
+                generationNumbers = Arrays.copyOf(generationNumbers, objectCount * 2);
+            }
+            objectOffsets.add(offset);
+            objectNumbers[objectCount] = number;
+            generationNumbers[objectCount] = generation;
+            objectCount++;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Array backed operand stack used by the Parser.  A parser instance is only
+ * ever used by one thread, so unlike java.util.Stack none of the operations
+ * are synchronized.  Null elements are allowed.
+ *
+ * @since 7.1
+ */
+final class ObjectStack {
+
+    private Object[] elements;
+    private int size;
+
+    ObjectStack() {
+        elements = new Object[32];
+    }
+
+    void push(Object element) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, size * 2);
+        }
+        elements[size++] = element;
+    }
+
+    Object pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        Object element = elements[--size];
+        elements[size] = null;
+        return element;
+    }
+
+    Object peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        return elements[size - 1];
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(elements, 0, size, null);
+        size = 0;
+    }
+
+    /**
+     * Same as java.util.Stack.search(), the one based distance from the top of
+     * the stack to the nearest element equal to the given object.
+     *
+     * @param element object to look for.
+     * @return distance from the top of the stack, -1 if not found.
+     */
+    int search(Object element) {
+        for (int i = size - 1; i >= 0; i--) {
+            if (element.equals(elements[i])) {
+                return size - i;
+            }
+        }
+        return -1;
+    }
+}
@@ -45,13 +45,21 @@ public class Parser {
     public static final int PARSE_MODE_NORMAL = 0;
     public static final int PARSE_MODE_OBJECT_STREAM = 1;
 
+    // PDF-927, incorrect /type key.
+    private static final Name LOWER_CASE_TYPE_KEY = new Name("type");
+
+    // token buffers that grow past this are dropped rather than reused.
+    private static final int MAX_TOKEN_BUFFER_SIZE = 16 * 1024;
+
     // InputStream has to support mark(), reset(), and markSupported()
     // DO NOT close this, since we have two cases: read everything up front, and progressive reads
 //    private BufferedMarkedInputStream reader;
 
     private InputStream reader;
     boolean lastTokenHString = false;
-    private Stack<Object> stack = new Stack<>();
+    private ObjectStack stack = new ObjectStack();
+    // reused for every token, the token objects copy what they need.
+    private StringBuilder tokenBuffer = new StringBuilder(64);
     private Stack<Integer> offSetStack = new Stack<>();
     private int parseMode;
     private boolean isTrailer;
@@ -67,6 +75,21 @@ public class Parser {
         parseMode = pm;
     }
 
+    /**
+     * Creates a parser that reads from its own cursor starting at the given
+     * position of a shared SeekableInput.  The shared input's position isn't
+     * used or moved, so any number of these parsers can work on the same
+     * document input concurrently.
+     *
+     * @param r        shared document or stream input.
+     * @param position absolute position to start parsing at.
+     * @param pm       parse mode.
+     * @throws IOException error reading the input length.
+     */
+    public Parser(SeekableInput r, long position, int pm) throws IOException {
+        this((SeekableInput) new SeekableInputCursor(r, position), pm);
+    }
+
     public Parser(InputStream r) {
         this(r, PARSE_MODE_NORMAL);
     }
@@ -384,7 +407,7 @@ public class Parser {
                 stack.push(v);
             } else if (nextToken.equals("<<")) {
                 deepnessCount++;
-                if (!stack.empty() && stack.peek() instanceof Reference) {
+                if (!stack.isEmpty() && stack.peek() instanceof Reference) {
                     inObject = true;
                 }
                 stack.push(nextToken);
@@ -409,49 +432,7 @@ public class Parser {
                                 break;
                             }
                         }
-                        obj = hashMap.get(Dictionary.TYPE_KEY);
-                        if (obj == null) {
-                            // PDF-927,  incorrect /type def.
-                            obj = hashMap.get(new Name("type"));
-                        }
-                        // Process the know first level dictionaries.
-                        if (obj != null && obj instanceof Name) {
-                            Name n = (Name) obj;
-                            if (n.equals(Catalog.TYPE)) {
-                                stack.push(new Catalog(library, hashMap));
-                            } else if (n.equals(PageTree.TYPE)) {
-                                stack.push(new PageTree(library, hashMap));
-                            } else if (n.equals(Page.TYPE)) {
-                                stack.push(new Page(library, hashMap));
-                            } else if (n.equals(Font.TYPE)) {
-                                // do a quick check to make sure we don't have a fontDescriptor
-                                // FontFile is specific to font descriptors.
-                                boolean fontDescriptor = hashMap.get(FontDescriptor.FONT_FILE) != null ||
-                                        hashMap.get(FontDescriptor.FONT_FILE_2) != null ||
-                                        hashMap.get(FontDescriptor.FONT_FILE_3) != null;
-                                if (!fontDescriptor) {
-                                    stack.push(FontFactory.getInstance()
-                                            .getFont(library, hashMap));
-                                } else {
-                                    stack.push(new FontDescriptor(library, hashMap));
-                                }
-                            } else if (n.equals(FontDescriptor.TYPE)) {
-                                stack.push(new FontDescriptor(library, hashMap));
-                            } else if (n.equals(CMap.TYPE)) {
-                                stack.push(hashMap);
-                            } else if (n.equals(Annotation.TYPE)) {
-                                stack.push(Annotation.buildAnnotation(library, hashMap));
-                            } else if (n.equals(OptionalContentGroup.TYPE)) {
-                                stack.push(new OptionalContentGroup(library, hashMap));
-                            } else if (n.equals(OptionalContentMembership.TYPE)) {
-                                stack.push(new OptionalContentMembership(library, hashMap));
-                            } else
-                                stack.push(hashMap);
-                        }
-                        // everything else gets pushed onto the stack
-                        else {
-                            stack.push(hashMap);
-                        }
+                        stack.push(createDictionary(library, hashMap));
                     }
                 } else if (isTrailer && deepnessCount == 0) {
                     // we have an xref entry
@@ -480,7 +461,7 @@ public class Parser {
                 stack.push(xrefTable);
             } else if (nextToken.equals("trailer")) {
                 CrossReference xrefTable = null;
-                if (stack.peek() instanceof CrossReference)
+                if (!stack.isEmpty() && stack.peek() instanceof CrossReference)
                     xrefTable = (CrossReference) stack.pop();
                 stack.clear();
                 isTrailer = true;
@@ -647,6 +628,58 @@ public class Parser {
     }
 
 
+    /**
+     * Creates the object for a parsed dictionary.  Known first level
+     * dictionaries, pages, fonts, annotations and so on, are built as their
+     * specific types, everything else is returned as the plain map.  Subclasses
+     * can override this to build their own types.
+     *
+     * @param library document library.
+     * @param hashMap parsed dictionary entries.
+     * @return dictionary object to push on the stack.
+     */
+    protected Object createDictionary(Library library, HashMap<Object, Object> hashMap) {
+        Object obj = hashMap.get(Dictionary.TYPE_KEY);
+        if (obj == null) {
+            // PDF-927,  incorrect /type def.
+            obj = hashMap.get(LOWER_CASE_TYPE_KEY);
+        }
+        // Process the know first level dictionaries.
+        if (obj instanceof Name) {
+            Name n = (Name) obj;
+            if (n.equals(Catalog.TYPE)) {
+                return new Catalog(library, hashMap);
+            } else if (n.equals(PageTree.TYPE)) {
+                return new PageTree(library, hashMap);
+            } else if (n.equals(Page.TYPE)) {
+                return new Page(library, hashMap);
+            } else if (n.equals(Font.TYPE)) {
+                // do a quick check to make sure we don't have a fontDescriptor
+                // FontFile is specific to font descriptors.
+                boolean fontDescriptor = hashMap.get(FontDescriptor.FONT_FILE) != null ||
+                        hashMap.get(FontDescriptor.FONT_FILE_2) != null ||
+                        hashMap.get(FontDescriptor.FONT_FILE_3) != null;
+                if (!fontDescriptor) {
+                    return FontFactory.getInstance().getFont(library, hashMap);
+                } else {
+                    return new FontDescriptor(library, hashMap);
+                }
+            } else if (n.equals(FontDescriptor.TYPE)) {
+                return new FontDescriptor(library, hashMap);
+            } else if (n.equals(CMap.TYPE)) {
+                return hashMap;
+            } else if (n.equals(Annotation.TYPE)) {
+                return Annotation.buildAnnotation(library, hashMap);
+            } else if (n.equals(OptionalContentGroup.TYPE)) {
+                return new OptionalContentGroup(library, hashMap);
+            } else if (n.equals(OptionalContentMembership.TYPE)) {
+                return new OptionalContentMembership(library, hashMap);
+            }
+        }
+        // everything else is left as a plain map.
+        return hashMap;
+    }
+
     /**
      * Utility Method for getting a PObject from the stack and adding it to the
      * library.  The retrieved PObject has an ObjectReference added to it for
@@ -659,7 +692,7 @@ public class Parser {
     public PObject addPObject(Library library, Reference objectReference) {
         Object o = stack.pop();
 
-        if (objectReference == null && !stack.empty() && stack.peek() instanceof Reference) {
+        if (objectReference == null && !stack.isEmpty() && stack.peek() instanceof Reference) {
             objectReference = (Reference) stack.pop();
         }
 
@@ -765,7 +798,7 @@ public class Parser {
         } else if (currentChar == '%') {
             // ignore all the characters after a comment token until
             // we get to the end of the line
-            StringBuilder stringBuffer = new StringBuilder();
+            StringBuilder stringBuffer = resetTokenBuffer();
             do {
                 stringBuffer.append(currentChar);
                 currentByte = reader.read();
@@ -811,7 +844,7 @@ public class Parser {
         reader.reset();
 
         // store the parsed char in the token buffer.
-        StringBuilder stringBuffer = new StringBuilder();
+        StringBuilder stringBuffer = resetTokenBuffer();
 
         stringBuffer.append(currentChar);
 
@@ -1012,13 +1045,66 @@ public class Parser {
         }
         // return a new name
         else if (stringBuffer.charAt(0) == '/') {
-            return new Name(stringBuffer.deleteCharAt(0));
+            return Name.intern(stringBuffer.deleteCharAt(0));
         }
         // if a number try and parse it
         else if (inNumber) {
             return getNumber(stringBuffer);
         }
-        return stringBuffer.toString();
+        return getKeyword(stringBuffer);
+    }
+
+    private StringBuilder resetTokenBuffer() {
+        if (tokenBuffer.capacity() > MAX_TOKEN_BUFFER_SIZE) {
+            tokenBuffer = new StringBuilder(64);
+        } else {
+            tokenBuffer.setLength(0);
+        }
+        return tokenBuffer;
+    }
+
+    /**
+     * Gets the string for a keyword token, the common object syntax keywords
+     * are returned as shared constants rather than a new string per token.
+     */
+    private static String getKeyword(StringBuilder token) {
+        switch (token.length()) {
+            case 1:
+                if (token.charAt(0) == 'R') return "R";
+                break;
+            case 3:
+                if (contentEquals(token, "obj")) return "obj";
+                break;
+            case 4:
+                if (contentEquals(token, "true")) return "true";
+                if (contentEquals(token, "null")) return "null";
+                if (contentEquals(token, "xref")) return "xref";
+                break;
+            case 5:
+                if (contentEquals(token, "false")) return "false";
+                break;
+            case 6:
+                if (contentEquals(token, "endobj")) return "endobj";
+                if (contentEquals(token, "stream")) return "stream";
+                break;
+            case 7:
+                if (contentEquals(token, "trailer")) return "trailer";
+                break;
+            case 9:
+                if (contentEquals(token, "endstream")) return "endstream";
+                if (contentEquals(token, "startxref")) return "startxref";
+                break;
+        }
+        return token.toString();
+    }
+
+    private static boolean contentEquals(StringBuilder token, String keyword) {
+        for (int i = keyword.length() - 1; i >= 0; i--) {
+            if (token.charAt(i) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     public Object getNumberOrStringWithMark(int maxLength) throws IOException {
@@ -1111,25 +1197,28 @@ public class Parser {
         float divisor = 10;
         boolean isDigit;
         boolean isDecimal = false;
-        byte[] streamBytes = value.toString().getBytes();
+        // work on the chars directly, tokens are ascii so no need to encode them.
+        int length = value.length();
         int startTokenPos = 0;
-        boolean signed = streamBytes[startTokenPos] == '-';
-        boolean positive = streamBytes[startTokenPos] == '+';
+        boolean signed = value.charAt(startTokenPos) == '-';
+        boolean positive = value.charAt(startTokenPos) == '+';
         startTokenPos = signed || positive ? startTokenPos + 1 : startTokenPos;
         // check for  double sign, thanks oracle forms!
-        if (signed && startTokenPos < streamBytes.length && streamBytes[startTokenPos] == '-') {
+        if (signed && startTokenPos < length && value.charAt(startTokenPos) == '-') {
             startTokenPos++;
         }
         int current;
-        for (int i = startTokenPos, max = streamBytes.length; i < max; i++) {
-            current = streamBytes[i] - 48;
-            isDigit = streamBytes[i] >= 48 && streamBytes[i] <= 57;
+        char c;
+        for (int i = startTokenPos; i < length; i++) {
+            c = value.charAt(i);
+            current = c - 48;
+            isDigit = c >= 48 && c <= 57;
             if (!isDecimal && isDigit) {
                 digit = (digit * 10) + current;
             } else if (isDecimal && isDigit) {
                 decimal += (current / divisor);
                 divisor *= 10;
-            } else if (streamBytes[i] == 46) {
+            } else if (c == 46) {
                 isDecimal = true;
             } else {
                 // anything else we can assume malformed and should break.
@@ -1217,7 +1306,7 @@ public class Parser {
                 (c == '\n') || (c == '\f') || (c == 0));
     }
 
-    private static boolean isDelimiter(char c) {
+    static boolean isDelimiter(char c) {
         return ((c == '[') || (c == ']') ||
                 (c == '(') || (c == ')') ||
                 (c == '<') || (c == '>') ||
@@ -0,0 +1,328 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Process wide cache of resources that are expensive to build and often
+ * identical across documents, such as embedded font programs, ICC profiles,
+ * ToUnicode CMaps and type 4 functions.  Entries are content addressed, keyed
+ * by the resource type and a SHA-256 digest of the decoded stream bytes, so
+ * the same font embedded in many documents is only parsed once.
+ * <br>
+ * Each document's Library holds a Lease which reference counts the entries it
+ * uses, the lease is released when the document is disposed.  Entries still in
+ * use by a document are never evicted, unused entries are evicted least
+ * recently used first once the cache is over its budget.  The weight of an
+ * entry is the length of the stream it was built from, a rough measure of the
+ * memory used by the built resource.
+ * <br>
+ * Shared resources must not be modified by their users.  The cache is
+ * disabled by default and can be enabled with the system property
+ * org.icepdf.core.sharedResourceCache.enabled=true, the byte budget is set
+ * with org.icepdf.core.sharedResourceCache.size.
+ *
+ * @since 7.1
+ */
+public class SharedResourceCache {
+
+    private static final Logger logger =
+            Logger.getLogger(SharedResourceCache.class.toString());
+
+    private static boolean enabled;
+    private static SharedResourceCache instance;
+
+    static {
+        enabled = Defs.sysPropertyBoolean("org.icepdf.core.sharedResourceCache.enabled", false);
+        instance = new SharedResourceCache(
+                Defs.intProperty("org.icepdf.core.sharedResourceCache.size", 64 * 1024 * 1024));
+    }
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long maxWeight;
+    private long weight;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    protected SharedResourceCache(long maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return the process wide cache.
+     */
+    public static SharedResourceCache getInstance() {
+        return instance;
+    }
+
+    /**
+     * Creates a new lease for a document.
+     *
+     * @return new lease, null if the cache is disabled.
+     */
+    public static Lease createLease() {
+        return enabled ? new Lease(instance) : null;
+    }
+
+    public void setMaxWeight(long maxWeight) {
+        synchronized (lock) {
+            this.maxWeight = maxWeight;
+            evict();
+        }
+    }
+
+    public long getMaxWeight() {
+        synchronized (lock) {
+            return maxWeight;
+        }
+    }
+
+    public long getWeight() {
+        synchronized (lock) {
+            return weight;
+        }
+    }
+
+    public int size() {
+        synchronized (lock) {
+            return entries.size();
+        }
+    }
+
+    public long getHitCount() {
+        synchronized (lock) {
+            return hitCount;
+        }
+    }
+
+    public long getMissCount() {
+        synchronized (lock) {
+            return missCount;
+        }
+    }
+
+    public long getEvictionCount() {
+        synchronized (lock) {
+            return evictionCount;
+        }
+    }
+
+    /**
+     * Removes all entries that aren't in use.
+     */
+    public void clear() {
+        synchronized (lock) {
+            long previousMaxWeight = maxWeight;
+            maxWeight = 0;
+            evict();
+            maxWeight = previousMaxWeight;
+        }
+    }
+
+    public String toString() {
+        synchronized (lock) {
+            return "SharedResourceCache[size=" + entries.size() + ", weight=" + weight + "/" + maxWeight +
+                    ", hits=" + hitCount + ", misses=" + missCount + ", evictions=" + evictionCount + "]";
+        }
+    }
+
+    private Object acquire(Key key, Lease lease) {
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            if (!lease.released && lease.keys.add(key)) {
+                entry.refCount++;
+            }
+            return entry.value;
+        }
+    }
+
+    private Object put(Key key, Object value, long valueWeight, Lease lease) {
+        synchronized (lock) {
+            Entry entry = entries.get(key);
+            // another document built the same resource at the same time, use theirs.
+            if (entry == null) {
+                entry = new Entry(value, valueWeight);
+                entries.put(key, entry);
+                weight += valueWeight;
+            }
+            if (!lease.released && lease.keys.add(key)) {
+                entry.refCount++;
+            }
+            evict();
+            return entry.value;
+        }
+    }
+
+    private void release(Set<Key> keys) {
+        synchronized (lock) {
+            for (Key key : keys) {
+                Entry entry = entries.get(key);
+                if (entry != null && entry.refCount > 0) {
+                    entry.refCount--;
+                }
+            }
+            evict();
+        }
+    }
+
+    // lock must be held.
+    private void evict() {
+        if (weight <= maxWeight) {
+            return;
+        }
+        Iterator<Map.Entry<Key, Entry>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Entry entry = iterator.next().getValue();
+            if (entry.refCount == 0) {
+                iterator.remove();
+                weight -= entry.weight;
+                evictionCount++;
+            }
+        }
+    }
+
+    /**
+     * A document's use of the shared cache.  Every resource acquired through
+     * the lease stays cached until the lease is released.
+     */
+    public static class Lease {
+
+        private final SharedResourceCache cache;
+        // keys held by this lease, guarded by the cache lock.
+        private final Set<Key> keys = new HashSet<>();
+        private volatile boolean released;
+
+        Lease(SharedResourceCache cache) {
+            this.cache = cache;
+        }
+
+        /**
+         * Gets the shared resource built from the given content, building and
+         * caching it with the loader if needed.
+         *
+         * @param type    resource type along with anything other than the
+         *                content that the resource depends on.
+         * @param content decoded stream bytes the resource is built from, only read.
+         * @param loader  builds the resource, may return null if it can't be built.
+         * @param <T>     resource type.
+         * @return shared resource, or the loader's result if it couldn't be cached.
+         */
+        @SuppressWarnings("unchecked")
+        public <T> T acquire(String type, ByteBuffer content, Supplier<T> loader) {
+            if (released || content == null) {
+                return loader.get();
+            }
+            int contentLength = content.remaining();
+            Key key = new Key(type, digest(content.duplicate()));
+            if (key.digest == null) {
+                return loader.get();
+            }
+            Object value = cache.acquire(key, this);
+            if (value != null) {
+                return (T) value;
+            }
+            T loaded = loader.get();
+            if (loaded == null || released) {
+                return loaded;
+            }
+            return (T) cache.put(key, loaded, contentLength, this);
+        }
+
+        /**
+         * Releases all the resources held by the lease, called when the
+         * document is disposed.
+         */
+        public void release() {
+            if (released) {
+                return;
+            }
+            synchronized (cache.lock) {
+                released = true;
+                cache.release(keys);
+                keys.clear();
+            }
+        }
+
+        private static byte[] digest(ByteBuffer content) {
+            try {
+                MessageDigest digest = MessageDigest.getInstance("SHA-256");
+                digest.update(content);
+                return digest.digest();
+            } catch (NoSuchAlgorithmException e) {
+                logger.log(Level.FINE, "Could not digest shared resource.", e);
+                return null;
+            }
+        }
+    }
+
+    private static class Key {
+        private final String type;
+        private final byte[] digest;
+        private final int hash;
+
+        Key(String type, byte[] digest) {
+            this.type = type;
+            this.digest = digest;
+            hash = 31 * type.hashCode() + Arrays.hashCode(digest);
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) obj;
+            return hash == key.hash && type.equals(key.type) && Arrays.equals(digest, key.digest);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class Entry {
+        private final Object value;
+        private final long weight;
+        private int refCount;
+
+        Entry(Object value, long weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
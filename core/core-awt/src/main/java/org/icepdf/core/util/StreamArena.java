@@ -0,0 +1,292 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Off heap storage for a document's raw stream bytes.  Stream data is copied
+ * into large direct buffers owned by the document's Library rather than kept
+ * as byte arrays, which keeps the bulk of a large document out of the garbage
+ * collected heap.  The arena drops all of its buffers at once when the
+ * document is disposed, the memory is then returned when the garbage
+ * collector reclaims the few large buffer objects.
+ * <br>
+ * Small streams are packed into chunks of org.icepdf.core.streamArena.chunkSize
+ * bytes, larger streams get a buffer of their own.  Reads go through the arena
+ * and fail once it has been released, so a late reader can't touch freed
+ * memory.  The arena is disabled by default and can be enabled with the
+ * system property org.icepdf.core.streamArena.enabled=true.
+ *
+ * @since 7.1
+ */
+public class StreamArena {
+
+    private static final Logger logger =
+            Logger.getLogger(StreamArena.class.toString());
+
+    private static boolean enabled;
+    private static int chunkSize;
+
+    static {
+        enabled = Defs.sysPropertyBoolean("org.icepdf.core.streamArena.enabled", false);
+        chunkSize = Math.max(64 * 1024, Defs.intProperty("org.icepdf.core.streamArena.chunkSize", 4 * 1024 * 1024));
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<ByteBuffer> buffers = new ArrayList<>();
+    private ByteBuffer chunk;
+    private long allocated;
+    private boolean released;
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Allocates space for a stream.
+     *
+     * @param size number of bytes needed.
+     * @return buffer of the given capacity, null if the arena has been released
+     * or the memory could not be allocated.
+     */
+    public ByteBuffer allocate(int size) {
+        lock.writeLock().lock();
+        try {
+            if (released) {
+                return null;
+            }
+            if (size > chunkSize / 4) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+                buffers.add(buffer);
+                allocated += size;
+                return buffer;
+            }
+            if (chunk == null || chunk.remaining() < size) {
+                chunk = ByteBuffer.allocateDirect(chunkSize);
+                buffers.add(chunk);
+                allocated += chunkSize;
+            }
+            int position = chunk.position();
+            ByteBuffer slice = chunk.duplicate();
+            slice.limit(position + size);
+            chunk.position(position + size);
+            return slice.slice();
+        } catch (OutOfMemoryError e) {
+            logger.log(Level.WARNING, "Could not allocate off heap stream storage, " +
+                    "see -XX:MaxDirectMemorySize.", e);
+            return null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Copies bytes out of a buffer allocated by this arena.
+     *
+     * @param buffer   buffer from allocate().
+     * @param position position in the buffer to read from.
+     * @param dest     destination array.
+     * @param offset   offset in dest.
+     * @param length   maximum number of bytes to read.
+     * @return number of bytes read, -1 at the end of the buffer.
+     * @throws IOException if the arena has been released.
+     */
+    public int read(ByteBuffer buffer, int position, byte[] dest, int offset, int length) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (released) {
+                throw new IOException("Stream arena has been released.");
+            }
+            int count = Math.min(length, buffer.capacity() - position);
+            if (count <= 0) {
+                return length == 0 ? 0 : -1;
+            }
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            view.get(dest, offset, count);
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies bytes in to a buffer allocated by this arena.
+     *
+     * @param buffer   buffer from allocate().
+     * @param position position in the buffer to write to.
+     * @param src      source array.
+     * @param offset   offset in src.
+     * @param length   number of bytes to write.
+     * @throws IOException if the arena has been released.
+     */
+    public void write(ByteBuffer buffer, int position, byte[] src, int offset, int length) throws IOException {
+        lock.readLock().lock();
+        try {
+            if (released) {
+                throw new IOException("Stream arena has been released.");
+            }
+            ByteBuffer view = buffer.duplicate();
+            view.position(position);
+            view.put(src, offset, length);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies a buffer allocated by this arena on to the heap.
+     *
+     * @param buffer buffer from allocate().
+     * @return copy of the buffer's bytes, null if the arena has been released.
+     */
+    public byte[] toByteArray(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.capacity()];
+        try {
+            read(buffer, 0, bytes, 0, bytes.length);
+            return bytes;
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Stream read after document was disposed.", e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets a stream over a buffer allocated by this arena.
+     *
+     * @param buffer buffer from allocate().
+     * @return input stream over the buffer.
+     */
+    public InputStream getInputStream(ByteBuffer buffer) {
+        return new ArenaInputStream(buffer);
+    }
+
+    /**
+     * @return number of off heap bytes held by the arena.
+     */
+    public long getAllocated() {
+        lock.readLock().lock();
+        try {
+            return allocated;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Drops all of the arena's buffers, any later reads fail so streams
+     * still referencing a buffer can't be read after the document is gone.
+     */
+    public void release() {
+        lock.writeLock().lock();
+        try {
+            if (released) {
+                return;
+            }
+            released = true;
+            buffers.clear();
+            chunk = null;
+            allocated = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private class ArenaInputStream extends InputStream {
+
+        private final ByteBuffer buffer;
+        // read ahead so single byte reads don't take the arena lock each time.
+        private final byte[] readBuffer;
+        private int readPosition;
+        private int readLength;
+        // buffer position of the start of readBuffer.
+        private int position;
+        private int mark;
+
+        ArenaInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+            readBuffer = new byte[Math.min(8192, Math.max(1, buffer.capacity()))];
+        }
+
+        public int read() throws IOException {
+            if (readPosition == readLength && !fill()) {
+                return -1;
+            }
+            return readBuffer[readPosition++] & 0xFF;
+        }
+
+        public int read(byte[] dest, int offset, int length) throws IOException {
+            if (length == 0) {
+                return 0;
+            }
+            if (readPosition == readLength && !fill()) {
+                return -1;
+            }
+            int count = Math.min(length, readLength - readPosition);
+            System.arraycopy(readBuffer, readPosition, dest, offset, count);
+            readPosition += count;
+            return count;
+        }
+
+        public long skip(long n) {
+            long skipped = Math.max(0, Math.min(n, available()));
+            seek(position + readPosition + (int) skipped);
+            return skipped;
+        }
+
+        public int available() {
+            return buffer.capacity() - position - readPosition;
+        }
+
+        public boolean markSupported() {
+            return true;
+        }
+
+        public void mark(int readLimit) {
+            mark = position + readPosition;
+        }
+
+        public void reset() {
+            seek(mark);
+        }
+
+        private void seek(int newPosition) {
+            position = newPosition;
+            readPosition = 0;
+            readLength = 0;
+        }
+
+        private boolean fill() throws IOException {
+            position += readLength;
+            readPosition = 0;
+            readLength = 0;
+            int read = StreamArena.this.read(buffer, position, readBuffer, 0, readBuffer.length);
+            if (read <= 0) {
+                return false;
+            }
+            readLength = read;
+            return true;
+        }
+    }
+}
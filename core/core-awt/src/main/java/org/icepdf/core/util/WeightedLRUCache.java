@@ -0,0 +1,280 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Thread safe least recently used cache bounded by the total weight of its
+ * values rather than the number of entries, usually a size in bytes.  The
+ * cache is split into lock striped segments, each an access ordered
+ * LinkedHashMap, so threads working on different keys rarely contend.
+ * <br>
+ * Segments share the weight budget, so a single value can take up to the
+ * whole budget.  Once the cache is over budget the least recently used
+ * entries of the segments holding more than an equal share are dropped
+ * first, then those of any segment, never the value just added.
+ * <br>
+ * Hit, miss and eviction counts are kept so cache effectiveness can be
+ * monitored.
+ *
+ * @since 7.1
+ */
+public class WeightedLRUCache<K, V> {
+
+    private final List<Segment> segments;
+    private final int segmentMask;
+    private final ToLongFunction<? super V> weigher;
+    private volatile long maxWeight;
+    // sum of the segment weights, only changed while holding a segment lock.
+    private final AtomicLong weight = new AtomicLong();
+
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+
+    /**
+     * Creates a new cache.
+     *
+     * @param maxWeight        maximum total weight of all cached values.
+     * @param concurrencyLevel number of lock stripes, rounded up to a power of two.
+     * @param weigher          calculates the weight of a value, usually its size in bytes.
+     */
+    public WeightedLRUCache(long maxWeight, int concurrencyLevel, ToLongFunction<? super V> weigher) {
+        int segmentCount = 1;
+        while (segmentCount < concurrencyLevel) {
+            segmentCount <<= 1;
+        }
+        segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new Segment());
+        }
+        segmentMask = segmentCount - 1;
+        this.weigher = weigher;
+        this.maxWeight = Math.max(0, maxWeight);
+    }
+
+    /**
+     * Gets the value associated with the key and marks it as most recently used.
+     *
+     * @param key key to look up.
+     * @return cached value, null if not in the cache.
+     */
+    public V get(K key) {
+        if (key == null) {
+            return null;
+        }
+        Segment segment = segmentFor(key);
+        V value;
+        synchronized (segment) {
+            value = segment.map.get(key);
+        }
+        if (value != null) {
+            hitCount.increment();
+        } else {
+            missCount.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Adds the value to the cache, evicting least recently used entries if the
+     * weight budget is exceeded.  Values weighing more than the whole budget
+     * are not cached.
+     *
+     * @param key   key to associate value with.
+     * @param value value to cache.
+     * @return previous value associated with key, if any.
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) {
+            return null;
+        }
+        long valueWeight = weigher.applyAsLong(value);
+        Segment segment = segmentFor(key);
+        V previous;
+        synchronized (segment) {
+            if (valueWeight > maxWeight) {
+                previous = segment.map.remove(key);
+                if (previous != null) {
+                    segment.adjust(-weigher.applyAsLong(previous));
+                }
+                return previous;
+            }
+            previous = segment.map.put(key, value);
+            if (previous != null) {
+                segment.adjust(-weigher.applyAsLong(previous));
+            }
+            segment.adjust(valueWeight);
+        }
+        evict(maxWeight, key);
+        return previous;
+    }
+
+    /**
+     * Removes the value associated with key from the cache.
+     *
+     * @param key key to remove.
+     * @return removed value, null if there was no value for the key.
+     */
+    public V remove(K key) {
+        if (key == null) {
+            return null;
+        }
+        Segment segment = segmentFor(key);
+        synchronized (segment) {
+            V previous = segment.map.remove(key);
+            if (previous != null) {
+                segment.adjust(-weigher.applyAsLong(previous));
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Removes all entries from the cache, the statistics are left untouched.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.map.clear();
+                segment.adjust(-segment.weight);
+            }
+        }
+    }
+
+    /**
+     * Sets a new weight budget, entries are evicted right away if the cache is
+     * over the new budget.
+     *
+     * @param maxWeight maximum total weight of all cached values.
+     */
+    public void setMaxWeight(long maxWeight) {
+        this.maxWeight = Math.max(0, maxWeight);
+        evict(this.maxWeight, null);
+    }
+
+    /**
+     * Evicts the least recently used entries until the cache weighs no more
+     * than the given weight, the budget itself is left unchanged.
+     *
+     * @param targetWeight weight to bring the cache down to.
+     */
+    public void trim(long targetWeight) {
+        evict(Math.max(0, targetWeight), null);
+    }
+
+    public long getMaxWeight() {
+        return maxWeight;
+    }
+
+    /**
+     * Gets the current total weight of all cached values.
+     *
+     * @return total weight of cached values.
+     */
+    public long getWeight() {
+        return weight.get();
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                size += segment.map.size();
+            }
+        }
+        return size;
+    }
+
+    public long getHitCount() {
+        return hitCount.sum();
+    }
+
+    public long getMissCount() {
+        return missCount.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictionCount.sum();
+    }
+
+    public String toString() {
+        return "WeightedLRUCache{" +
+                "weight=" + getWeight() +
+                ", maxWeight=" + maxWeight +
+                ", size=" + size() +
+                ", hits=" + getHitCount() +
+                ", misses=" + getMissCount() +
+                ", evictions=" + getEvictionCount() +
+                '}';
+    }
+
+    // brings the cache back under budget, segments over their share give up
+    // entries first.  Only one segment lock is held at a time.
+    private void evict(long limit, K keep) {
+        if (weight.get() <= limit) {
+            return;
+        }
+        long share = limit / segments.size();
+        for (Segment segment : segments) {
+            evict(segment, limit, share, keep);
+        }
+        for (Segment segment : segments) {
+            evict(segment, limit, 0, keep);
+        }
+    }
+
+    private void evict(Segment segment, long limit, long share, K keep) {
+        synchronized (segment) {
+            Iterator<Map.Entry<K, V>> iterator = segment.map.entrySet().iterator();
+            while (weight.get() > limit && segment.weight > share && iterator.hasNext()) {
+                Map.Entry<K, V> eldest = iterator.next();
+                if (keep != null && keep.equals(eldest.getKey())) {
+                    continue;
+                }
+                segment.adjust(-weigher.applyAsLong(eldest.getValue()));
+                iterator.remove();
+                evictionCount.increment();
+            }
+        }
+    }
+
+    private Segment segmentFor(Object key) {
+        int hash = key.hashCode();
+        // spread the higher bits down, references and names hash to small numbers.
+        hash ^= (hash >>> 16);
+        return segments.get(hash & segmentMask);
+    }
+
+    private class Segment {
+        private final LinkedHashMap<K, V> map = new LinkedHashMap<>(16, 0.75f, true);
+        private long weight;
+
+        // segment lock must be held.
+        private void adjust(long delta) {
+            this.weight += delta;
+            WeightedLRUCache.this.weight.addAndGet(delta);
+        }
+    }
+}
@@ -1,10 +1,14 @@
 package org.icepdf.core.util.parser.content;
 
+import org.icepdf.core.pobjects.Form;
+import org.icepdf.core.pobjects.Name;
+import org.icepdf.core.pobjects.OptionalContent;
 import org.icepdf.core.pobjects.Page;
 import org.icepdf.core.pobjects.Resources;
 import org.icepdf.core.pobjects.graphics.GlyphOutlineClip;
 import org.icepdf.core.pobjects.graphics.GraphicsState;
 import org.icepdf.core.pobjects.graphics.Shapes;
+import org.icepdf.core.pobjects.graphics.commands.DrawCmd;
 import org.icepdf.core.pobjects.graphics.commands.GlyphOutlineDrawCmd;
 import org.icepdf.core.pobjects.graphics.commands.ImageDrawCmd;
 import org.icepdf.core.pobjects.graphics.images.ImageParams;
@@ -12,7 +16,10 @@ import org.icepdf.core.pobjects.graphics.images.ImageStream;
 import org.icepdf.core.pobjects.graphics.images.references.ImageReference;
 import org.icepdf.core.pobjects.graphics.images.references.ImageReferenceFactory;
 import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.pobjects.graphics.text.StreamingPageText;
+import org.icepdf.core.pobjects.graphics.text.TextVisitor;
 import org.icepdf.core.util.Library;
+import org.icepdf.core.util.WeightedLRUCache;
 
 import java.awt.geom.AffineTransform;
 import java.io.IOException;
@@ -26,12 +33,9 @@ public class ContentParser extends AbstractContentParser {
     private static final Logger logger =
             Logger.getLogger(ContentParser.class.toString());
 
-    /**
-     * Inline image cache,  for heavily tiled background images.  Can be cleared
-     * between document parses if needed.
-     */
-    public static Map<String, ImageReference> inlineImageCache =
-            Collections.synchronizedMap(new WeakHashMap<>());
+    // forms whose text is being streamed by the parsers above this one, stops
+    // a form that draws itself from recursing forever.
+    private Set<Form> textForms = Collections.emptySet();
 
     public ContentParser(Library l, Resources r) {
         super(l, r);
@@ -82,23 +86,25 @@ public class ContentParser extends AbstractContentParser {
         float yBTstart = 0;
 
         try {
-            Object tok;
+            int token;
             while (true) {
                 count++;
-                tok = lexer.next();
-                if (tok == null) {
+                token = lexer.nextToken();
+                if (token == Lexer.TOKEN_END) {
                     break;
                 }
 
                 // add any names and numbers and every thing else on the stack for future reference
-                if (!(tok instanceof Integer)) {
-                    stack.push(tok);
+                if (token == Lexer.TOKEN_NUMBER) {
+                    stack.push(lexer.getNumber());
+                } else if (token == Lexer.TOKEN_OBJECT) {
+                    stack.push(lexer.getObject());
                 } else {
                     if (count % 10000 == 0 && Thread.currentThread().isInterrupted()) {
                         throw new InterruptedException("ContentParser thread interrupted");
                     }
 
-                    int operand = (Integer) tok;
+                    int operand = lexer.getOperator();
                     // Append a straight line segment from the current point to the
                     // point (x, y). The new current point is (x, y).
                     switch (operand) {
@@ -581,11 +587,31 @@ public class ContentParser extends AbstractContentParser {
      * @return vector where each entry is the text extracted from a text block.
      */
     public Shapes parseTextBlocks(byte[][] source) throws InterruptedException {
+        return parseTextBlocks(source, new Shapes());
+    }
+
+    /**
+     * Specialized method for streaming text from documents.  Glyphs, words
+     * and lines are handed to the visitor as they are parsed and no shapes or
+     * page text are kept.
+     *
+     * @param source  content stream source.
+     * @param visitor visitor to receive the text.
+     * @throws InterruptedException thread interrupted.
+     */
+    public void parseTextBlocks(byte[][] source, TextVisitor visitor) throws InterruptedException {
+        StreamingPageText pageText = new StreamingPageText(visitor);
+        Shapes shapes = new TextOnlyShapes();
+        shapes.setPageText(pageText);
+        parseTextBlocks(source, shapes);
+        pageText.finish();
+    }
+
+    private Shapes parseTextBlocks(byte[][] source, Shapes shapes) throws InterruptedException {
 
         // great a parser to get tokens for stream
         Lexer parser = new Lexer();
         parser.setContentStream(source);
-        Shapes shapes = new Shapes();
 
         if (graphicState == null) {
             graphicState = new GraphicsState(shapes);
@@ -603,15 +629,15 @@ public class ContentParser extends AbstractContentParser {
             graphicState.getTextState().tlmatrix = new AffineTransform();
 
             // loop through each token returned form the parser
-            Object tok = parser.next();
-            Stack<Object> stack = new Stack<>();
+            int token = parser.nextToken();
+            OperandStack stack = new OperandStack();
             double yBTStart = 0;
             int operand;
-            while (tok != null) {
+            while (token != Lexer.TOKEN_END) {
                 // add any names and numbers and every thing else on the
                 // stack for future reference
-                if (tok instanceof Integer) {
-                    operand = (Integer) tok;
+                if (token == Lexer.TOKEN_OPERATOR) {
+                    operand = parser.getOperator();
                     switch (operand) {
                         case Operands.BT:
                             // start parseText, which parses until ET is reached
@@ -627,7 +653,11 @@ public class ContentParser extends AbstractContentParser {
                             stack.clear();
                             break;
                         case Operands.Do:
-                            consume_Do(graphicState, stack, shapes, resources, false, imageIndex, null, true);
+                            if (shapes instanceof TextOnlyShapes) {
+                                consumeFormText(stack, shapes);
+                            } else {
+                                consume_Do(graphicState, stack, shapes, resources, false, imageIndex, null, true);
+                            }
                             stack.clear();
                             break;
                         case Operands.BI:
@@ -643,10 +673,12 @@ public class ContentParser extends AbstractContentParser {
                             consume_cm(graphicState, stack, inTextBlock, textBlockBase);
                             break;
                     }
+                } else if (token == Lexer.TOKEN_NUMBER) {
+                    stack.push(parser.getNumber());
                 } else {
-                    stack.push(tok);
+                    stack.push(parser.getObject());
                 }
-                tok = parser.next();
+                token = parser.nextToken();
             }
             // clear our temporary stack.
             stack.clear();
@@ -658,6 +690,62 @@ public class ContentParser extends AbstractContentParser {
         return shapes;
     }
 
+    /**
+     * Streams the text of a form xObject.  Rather than building the form's
+     * shapes with Form.init() the form's content is parsed by a child parser
+     * into the same text only shapes, with the form matrix folded into the
+     * CTM so glyphs come out in page space.  Image xObjects are skipped.
+     *
+     * @param stack  stack holding the xObject name.
+     * @param shapes text only shapes of the page being streamed.
+     * @throws InterruptedException thread interrupted.
+     */
+    private void consumeFormText(OperandStack stack, Shapes shapes) throws InterruptedException {
+        Name xobjectName = (Name) stack.pop();
+        if (resources == null) {
+            return;
+        }
+        Object xObject = resources.getXObject(xobjectName);
+        if (!(xObject instanceof Form) || textForms.contains(xObject)) {
+            return;
+        }
+        Form formXObject = (Form) xObject;
+        Object oc = formXObject.getObject(OptionalContent.OC_KEY);
+        if (oc != null) {
+            OptionalContent optionalContent = library.getCatalog().getOptionalContent();
+            optionalContent.init();
+            if (!optionalContent.isVisible(oc)) {
+                return;
+            }
+        }
+        byte[] content = formXObject.getDecodedStreamBytes();
+        if (content == null) {
+            return;
+        }
+        // as with Form.init(), fall back on the calling resources.
+        Resources formResources = library.getResources(formXObject.getEntries(), Form.RESOURCES_KEY);
+        if (formResources == null) {
+            formResources = resources;
+        }
+        AffineTransform ctm = new AffineTransform(graphicState.getCTM());
+        AffineTransform matrix = formXObject.readMatrix();
+        if (matrix != null) {
+            ctm.concatenate(matrix);
+        }
+        GraphicsState formGraphicsState = new GraphicsState(graphicState);
+        formGraphicsState.setCTM(ctm);
+
+        ContentParser formParser = new ContentParser(library, formResources);
+        formParser.setGraphicsState(formGraphicsState);
+        formParser.textForms = new HashSet<>(textForms);
+        formParser.textForms.add(formXObject);
+        try {
+            formParser.parseTextBlocks(new byte[][]{content}, shapes);
+        } catch (RuntimeException e) {
+            logger.log(Level.FINE, "Error streaming form text.", e);
+        }
+    }
+
     /**
      * Parses Text found with in a BT block.
      *
@@ -669,7 +757,6 @@ public class ContentParser extends AbstractContentParser {
      */
     private float parseText(Lexer lexer, Shapes shapes, double previousBTStart)
             throws IOException, InterruptedException {
-        Object nextToken;
         inTextBlock = true;
         // keeps track of previous text placement so that Compatibility and
         // implementation note 57 is respected.  That is text drawn after a TJ
@@ -689,12 +776,12 @@ public class ContentParser extends AbstractContentParser {
         GlyphOutlineClip glyphOutlineClip = new GlyphOutlineClip();
 
         // start parsing of the BT block
-        nextToken = lexer.next();
+        int token = lexer.nextToken();
         int operand;
-        while (!(nextToken instanceof Integer && (Integer) nextToken == Operands.ET)) {
+        while (!(token == Lexer.TOKEN_OPERATOR && lexer.getOperator() == Operands.ET)) {
 
-            if (nextToken instanceof Integer) {
-                operand = (Integer) nextToken;
+            if (token == Lexer.TOKEN_OPERATOR) {
+                operand = lexer.getOperator();
                 switch (operand) {
                     // Normal text token, string, hex
                     case Operands.Tj:
@@ -944,17 +1031,23 @@ public class ContentParser extends AbstractContentParser {
                         break;
                     // not supposed to have a Do in text block but hey so be it. .
                     case Operands.Do:
-                        consume_Do(graphicState, stack, shapes, resources, true, imageIndex, null, true);
+                        if (shapes instanceof TextOnlyShapes) {
+                            consumeFormText(stack, shapes);
+                        } else {
+                            consume_Do(graphicState, stack, shapes, resources, true, imageIndex, null, true);
+                        }
                         break;
                 }
             }
             // push everything else on the stack for consumptions
-            else {
-                stack.push(nextToken);
+            else if (token == Lexer.TOKEN_NUMBER) {
+                stack.push(lexer.getNumber());
+            } else {
+                stack.push(lexer.getObject());
             }
 
-            nextToken = lexer.next();
-            if (nextToken == null) {
+            token = lexer.nextToken();
+            if (token == Lexer.TOKEN_END) {
                 break;
             }
         }
@@ -969,7 +1062,7 @@ public class ContentParser extends AbstractContentParser {
             shapes.add(new GlyphOutlineDrawCmd(glyphOutlineClip));
         }
         graphicState.set(textBlockBase);
-        if (nextToken instanceof Integer && (Integer) nextToken == Operands.ET) {
+        if (token == Lexer.TOKEN_OPERATOR && lexer.getOperator() == Operands.ET) {
             inTextBlock = false;
         }
 
@@ -1017,25 +1110,27 @@ public class ContentParser extends AbstractContentParser {
 
             ImageReference imageStreamReference;
             byte[] data = p.getImageBytes();
-            if (data.length < 256) {
-                String tmpKey = new String(data).concat(graphicState.getFillColor() != null ?
-                        graphicState.getFillColor().toString() : "");
-                // pepper the key with the fill colour.
-                ImageReference imageReference = inlineImageCache.get(tmpKey);
-                if (imageReference != null) {
-                    imageStreamReference = imageReference;
-                } else {
-                    // create the image stream
-                    ImageStream st = new ImageStream(library, iih, data);
-                    imageStreamReference = ImageReferenceFactory.getImageReference(
-                            st, resources, graphicState, imageIndex.get(), page);
-                    inlineImageCache.put(tmpKey, imageStreamReference);
-                }
-            } else {
+            // text streaming only needs to step over the image data.
+            if (shapes instanceof TextOnlyShapes) {
+                return;
+            }
+            // heavily tiled backgrounds and type 3 glyph bitmaps repeat the
+            // same inline image, decode it once per document.
+            WeightedLRUCache<InlineImageKey, ImageReference> inlineImageCache = library.getInlineImageCache();
+            InlineImageKey key = null;
+            imageStreamReference = null;
+            if (inlineImageCache != null) {
+                key = new InlineImageKey(data, iih, graphicState.getFillColor(), resources);
+                imageStreamReference = inlineImageCache.get(key);
+            }
+            if (imageStreamReference == null) {
                 // create the image stream
                 ImageStream st = new ImageStream(library, iih, data);
                 imageStreamReference = ImageReferenceFactory.getImageReference(
                         st, resources, graphicState, imageIndex.get(), page);
+                if (key != null) {
+                    inlineImageCache.put(key, imageStreamReference);
+                }
             }
             // experimental display
 //            ImageReference imageStreamReference =
@@ -1052,5 +1147,17 @@ public class ContentParser extends AbstractContentParser {
             logger.log(Level.FINE, "Error parsing inline image.", e);
         }
     }
-}
 
+    /**
+     * Shapes that drops its draw commands, text streaming only needs the page text.
+     */
+    private static class TextOnlyShapes extends Shapes {
+
+        TextOnlyShapes() {
+            shapes = new ArrayList<>(0);
+        }
+
+        public void add(DrawCmd drawCmd) {
+        }
+    }
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util.parser.content;
+
+import org.icepdf.core.pobjects.Resources;
+
+import java.awt.*;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Key of the inline image cache.  An inline image is identified by its data,
+ * its image parameters, the fill colour it is painted with, which matters for
+ * stencil masks, and the resources its colour space names are looked up in.
+ * <br>
+ * The data is hashed once with 64 bit FNV-1a so lookups only compare the
+ * bytes when the hashes match.
+ *
+ * @since 7.1
+ */
+public final class InlineImageKey {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long dataHash;
+    private final byte[] data;
+    private final Map<Object, Object> params;
+    private final Color fillColor;
+    private final Resources resources;
+
+    public InlineImageKey(byte[] data, Map<Object, Object> params, Color fillColor, Resources resources) {
+        this.data = data;
+        this.params = params;
+        this.fillColor = fillColor;
+        this.resources = resources;
+        long hash = FNV_OFFSET_BASIS;
+        for (byte b : data) {
+            hash ^= b & 0xFF;
+            hash *= FNV_PRIME;
+        }
+        dataHash = hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof InlineImageKey)) {
+            return false;
+        }
+        InlineImageKey that = (InlineImageKey) o;
+        return dataHash == that.dataHash &&
+                resources == that.resources &&
+                Objects.equals(fillColor, that.fillColor) &&
+                Arrays.equals(data, that.data) &&
+                Objects.equals(params, that.params);
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (dataHash ^ (dataHash >>> 32));
+    }
+}
@@ -14,6 +14,18 @@ import java.util.logging.Logger;
 
 public class Lexer {
 
+    /**
+     * Token types returned by nextToken().
+     */
+    public static final int
+            TOKEN_END = 0,
+            TOKEN_NUMBER = 1,
+            TOKEN_OPERATOR = 2,
+            TOKEN_OBJECT = 3;
+
+    // startOperand() result when there is no operator.
+    private static final int NO_OPERATOR = -1;
+
     private static final Logger logger =
             Logger.getLogger(Lexer.class.toString());
 
@@ -38,6 +50,12 @@ public class Lexer {
 
     private int tokenType = 0;
 
+    // current token, see nextToken().
+    private float number;
+    private int operator;
+    private Object object;
+    private int tokenOffset, tokenLength;
+
     public void setContentStream(byte[][] in) {
         streamsBytes = in;
         streamCount = 0;
@@ -47,7 +65,39 @@ public class Lexer {
         }
     }
 
+    /**
+     * Gets the next token as an object, numbers are boxed and operators are
+     * returned as an Integer operator id.  Content parsing should use
+     * nextToken(), which doesn't allocate for numbers and operators.
+     *
+     * @return next token, null at the end of the content.
+     * @throws IOException if there is no content.
+     */
     public Object next() throws IOException {
+        switch (nextToken()) {
+            case TOKEN_NUMBER:
+                return number;
+            case TOKEN_OPERATOR:
+                return operator;
+            case TOKEN_OBJECT:
+                return object;
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Moves to the next token and returns its type.  The token's value is
+     * then available from getNumber(), getOperator() or getObject(), and its
+     * bytes from getTokenBytes(), getTokenOffset() and getTokenLength().
+     * Numbers and operators are kept in primitive fields so lexing them
+     * doesn't allocate.
+     *
+     * @return TOKEN_NUMBER, TOKEN_OPERATOR, TOKEN_OBJECT or TOKEN_END at the
+     * end of the content.
+     * @throws IOException if there is no content.
+     */
+    public int nextToken() throws IOException {
 
         if (streamBytes == null) {
             throw new IOException("Content Stream, null input stream bytes.");
@@ -55,30 +105,103 @@ public class Lexer {
 
         // get starting lexer state.
         parseNextState();
+        // arrays and dictionaries lex their entries with next(), so the start
+        // is kept locally.
+        int offset = startTokenPos;
+        object = null;
 
+        int token;
         switch (tokenType) {
             // we have a name
             case NUMBER:
-                return startNumber();
+                number = startNumber();
+                token = TOKEN_NUMBER;
+                break;
             case OPERAND:
-                return startOperand();
+                operator = startOperand();
+                token = operator != NO_OPERATOR ? TOKEN_OPERATOR : TOKEN_END;
+                break;
             case HEX_STRING:
-                return startHexString();
+                object = startHexString();
+                token = object != null ? TOKEN_OBJECT : TOKEN_END;
+                break;
             case LIT_STRING:
-                return startLiteralString();
+                object = startLiteralString();
+                token = TOKEN_OBJECT;
+                break;
             case NAME:
-                return startName();
+                object = startName();
+                token = object != null ? TOKEN_OBJECT : TOKEN_END;
+                break;
             case ARRAY:
-                return startArray();
+                object = startArray();
+                token = TOKEN_OBJECT;
+                break;
             case DICTIONARY:
-                return startDictionary();
+                object = startDictionary();
+                token = TOKEN_OBJECT;
+                break;
             case BOOLEAN:
-                return startBoolean();
+                object = startBoolean();
+                token = object != null ? TOKEN_OBJECT : TOKEN_END;
+                break;
             case COMMENT:
-                return startComment();
+                operator = startComment();
+                token = TOKEN_OPERATOR;
+                break;
             default:
-                return null;
+                token = TOKEN_END;
         }
+        // arrays and dictionaries can span streams, only report the bytes of
+        // tokens held in the current one.
+        tokenOffset = offset;
+        tokenLength = pos >= offset && pos <= numRead ? pos - offset : 0;
+        return token;
+    }
+
+    /**
+     * @return value of the current TOKEN_NUMBER token.
+     */
+    public float getNumber() {
+        return number;
+    }
+
+    /**
+     * @return Operands id of the current TOKEN_OPERATOR token.
+     */
+    public int getOperator() {
+        return operator;
+    }
+
+    /**
+     * @return value of the current TOKEN_OBJECT token; a string, name,
+     * array, dictionary or boolean.
+     */
+    public Object getObject() {
+        return object;
+    }
+
+    /**
+     * Gets the buffer holding the current token, which must not be modified.
+     *
+     * @return content stream bytes of the current token.
+     */
+    public byte[] getTokenBytes() {
+        return streamBytes;
+    }
+
+    /**
+     * @return offset of the current token in getTokenBytes().
+     */
+    public int getTokenOffset() {
+        return tokenOffset;
+    }
+
+    /**
+     * @return length of the current token in getTokenBytes().
+     */
+    public int getTokenLength() {
+        return tokenLength;
     }
 
     public byte[] getImageBytes() {
@@ -127,10 +250,10 @@ public class Lexer {
                 } else {
                     try {
                         pos += 2;
-                        Object tmp = next();
+                        int token = nextToken();
                         // make sure we have an operand next as some streams can give
                         // us a false positive when EI and some white space is encountered.
-                        if (tmp instanceof Integer && ((Integer) tmp) != Operands.OP &&
+                        if (token == TOKEN_OPERATOR && operator != Operands.OP &&
                                 isDelimiter(streamBytes[pos])) {
                             found = true;
                         }
@@ -339,7 +462,7 @@ public class Lexer {
         if (pos <= numRead) {
             // return the name object
             startTokenPos++;
-            return new Name(new String(streamBytes, startTokenPos, pos - startTokenPos));
+            return Name.intern(new String(streamBytes, startTokenPos, pos - startTokenPos));
         } else {
             return null;
         }
@@ -362,7 +485,7 @@ public class Lexer {
         }
     }
 
-    private Integer startComment() {
+    private int startComment() {
         do {
             pos++;
         }
@@ -478,7 +601,7 @@ public class Lexer {
         return array;
     }
 
-    private Object startNumber() {
+    private float startNumber() {
         startTokenPos = pos;
         while (pos < numRead) {
             if (streamBytes[pos] < '+' || streamBytes[pos] > '9' || streamBytes[pos] == '/') {
@@ -492,7 +615,7 @@ public class Lexer {
     /**
      * Utility for processing the operand state.
      */
-    private Object startOperand() {
+    private int startOperand() {
         startTokenPos = pos;
         while (pos < numRead) {
             // check for delimiters just encase the encoder didn't use spaces.
@@ -503,19 +626,16 @@ public class Lexer {
             pos++;
         }
         if (pos <= numRead && pos > startTokenPos) {
-            int[] tmp = Operands.parseOperand(streamBytes, startTokenPos, pos - startTokenPos);
-            // check for 'null' token which maybe picked up as an operator.
-            if (tmp == null) {
-                return null;
-            }
+            long operand = Operands.parseOperand(streamBytes, startTokenPos, pos - startTokenPos);
             // adjust for any potential parsing compensation.
-            if (tmp[1] > 0) {
-                pos -= tmp[1];
+            int pushBack = Operands.getPushBack(operand);
+            if (pushBack > 0) {
+                pos -= pushBack;
             }
-            return tmp[0];
+            return Operands.getOperator(operand);
         } else {
             // copy and fill the buffer so we cn continue parsing
-            return null;
+            return NO_OPERATOR;
         }
     }
 
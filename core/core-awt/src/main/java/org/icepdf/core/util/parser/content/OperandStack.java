@@ -0,0 +1,176 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util.parser.content;
+
+import java.util.Arrays;
+import java.util.EmptyStackException;
+
+/**
+ * Operand stack used by the content parsers.  Numbers, by far the most common
+ * operands, are kept in primitive float slots so path, colour and matrix
+ * operators don't box and unbox every operand.  Names, strings, arrays and
+ * dictionaries are kept alongside them in an object slot.
+ * <br>
+ * A parser is only ever used by one thread, so unlike java.util.Stack none of
+ * the operations are synchronized.
+ *
+ * @since 7.1
+ */
+public class OperandStack {
+
+    // marks a slot holding a number in the floats array.
+    private static final Object NUMBER = new Object();
+
+    private float[] floats;
+    private Object[] objects;
+    private int size;
+
+    // reused by popFloatsInOrder().
+    private float[] scratch = new float[6];
+
+    public OperandStack() {
+        floats = new float[32];
+        objects = new Object[32];
+    }
+
+    /**
+     * Pushes a number.
+     *
+     * @param value number operand.
+     */
+    public void push(float value) {
+        ensureCapacity();
+        floats[size] = value;
+        objects[size] = NUMBER;
+        size++;
+    }
+
+    /**
+     * Pushes an operand, numbers are stored unboxed.
+     *
+     * @param value operand.
+     */
+    public void push(Object value) {
+        if (value instanceof Number) {
+            push(((Number) value).floatValue());
+            return;
+        }
+        ensureCapacity();
+        objects[size] = value;
+        size++;
+    }
+
+    /**
+     * Pops the top operand, boxing it if it is a number.  Number operands
+     * should be popped with popFloat().
+     *
+     * @return top operand.
+     */
+    public Object pop() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        size--;
+        Object value = objects[size];
+        objects[size] = null;
+        return value == NUMBER ? Float.valueOf(floats[size]) : value;
+    }
+
+    /**
+     * Pops a number operand.
+     *
+     * @return top operand.
+     * @throws ClassCastException if the top operand isn't a number, the
+     *                            operand is still removed.
+     */
+    public float popFloat() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        size--;
+        Object value = objects[size];
+        objects[size] = null;
+        if (value != NUMBER) {
+            throw new ClassCastException("Expected a number operand: " + value);
+        }
+        return floats[size];
+    }
+
+    /**
+     * Pops up to count number operands, stopping at the first operand that
+     * isn't a number.  The numbers are returned in the order they were pushed
+     * and the array is zero filled when there are too few.
+     * <br>
+     * The returned array is reused by the next call and must be copied if
+     * it is kept.
+     *
+     * @param count number of operands to pop.
+     * @return popped numbers, in the first count entries.
+     */
+    public float[] popFloatsInOrder(int count) {
+        if (scratch.length < count) {
+            scratch = new float[count];
+        }
+        Arrays.fill(scratch, 0, count, 0);
+        for (int i = count - 1; i >= 0 && size > 0 && objects[size - 1] == NUMBER; i--) {
+            size--;
+            objects[size] = null;
+            scratch[i] = floats[size];
+        }
+        return scratch;
+    }
+
+    /**
+     * Gets the top operand without removing it, boxing it if it is a number.
+     *
+     * @return top operand.
+     */
+    public Object peek() {
+        if (size == 0) {
+            throw new EmptyStackException();
+        }
+        Object value = objects[size - 1];
+        return value == NUMBER ? Float.valueOf(floats[size - 1]) : value;
+    }
+
+    /**
+     * @return true if the top operand is a number, false if it isn't or the
+     * stack is empty.
+     */
+    public boolean isNumber() {
+        return size > 0 && objects[size - 1] == NUMBER;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    private void ensureCapacity() {
+        if (size == objects.length) {
+            floats = Arrays.copyOf(floats, size * 2);
+            objects = Arrays.copyOf(objects, size * 2);
+        }
+    }
+}
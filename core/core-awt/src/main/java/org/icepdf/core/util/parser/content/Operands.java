@@ -84,19 +84,31 @@ public class Operands {
             PERCENT = 76,
             NULL = 77;
 
-    public static int[] parseOperand(byte[] ch, int offset, int length) {
+    /**
+     * Looks up the operator in the given bytes.  Some encoders leave out the
+     * white space after an operator, so the operator may be shorter than the
+     * given length, in which case the number of bytes that belong to the next
+     * token is returned as well.  Both values are packed in to a long so no
+     * allocation is needed, see getOperator() and getPushBack().
+     *
+     * @param ch     content stream bytes.
+     * @param offset offset of the operator.
+     * @param length length of the token.
+     * @return packed operator and push back count.
+     */
+    public static long parseOperand(byte[] ch, int offset, int length) {
         byte c1, c2;
         byte c = ch[offset];
         switch (c) {
             case 'q':
-                if (length == 1) return new int[]{q, 0};
+                if (length == 1) return pack(q, 0);
                 else {
-                    return new int[]{q, length - 1};
+                    return pack(q, length - 1);
                 }
             case 'Q':
-                if (length == 1) return new int[]{Q, 0};
+                if (length == 1) return pack(Q, 0);
                 else {
-                    return new int[]{Q, length - 1};
+                    return pack(Q, length - 1);
                 }
             case 'r':
                 c1 = ch[offset + 1];
@@ -106,70 +118,70 @@ public class Operands {
                 }
                 switch (c1) {
                     case 'e':
-                        return new int[]{re, offset};
+                        return pack(re, offset);
                     case 'i':
-                        return new int[]{ri, offset};
+                        return pack(ri, offset);
                     default:
-                        return new int[]{rg, offset};
+                        return pack(rg, offset);
                 }
             case 'R':
                 offset = 0;
                 if (length > 2) {
                     offset = length - 2;
                 }
-                return new int[]{RG, offset};
+                return pack(RG, offset);
             case 's':
                 if (length == 1) {
-                    return new int[]{s, 0};
+                    return pack(s, 0);
                 }
                 c1 = ch[offset + 1];
                 switch (c1) {
                     case 'c':
                         if (length == 3) {
-                            return new int[]{scn, 0};
+                            return pack(scn, 0);
                         } else if (length == 2) {
-                            return new int[]{sc, 0};
+                            return pack(sc, 0);
                         } else if (length > 3) {
                             c2 = ch[offset + 3];
                             if (c2 == 'n') {
                                 offset = length - 3;
-                                return new int[]{scn, offset};
+                                return pack(scn, offset);
                             } else {
                                 offset = length - 2;
-                                return new int[]{sc, offset};
+                                return pack(sc, offset);
                             }
                         }
                     case 'h':
                         if (length == 2) {
-                            return new int[]{sh, 0};
+                            return pack(sh, 0);
                         } else {
                             offset = length - 2;
-                            return new int[]{sh, offset};
+                            return pack(sh, offset);
                         }
                 }
             case 'S':
                 if (length == 1) {
-                    return new int[]{S, 0};
+                    return pack(S, 0);
                 }
                 c1 = ch[offset + 1];
                 if (c1 == 'C') {
                     if (length == 3) {
-                        return new int[]{SCN, 0};
+                        return pack(SCN, 0);
                     } else if (length == 2) {
-                        return new int[]{SC, 0};
+                        return pack(SC, 0);
                     } else if (length > 3) {
                         c2 = ch[offset + 3];
                         if (c2 == 'N') {
                             offset = length - 3;
-                            return new int[]{SCN, offset};
+                            return pack(SCN, offset);
                         } else {
                             offset = length - 2;
-                            return new int[]{SC, offset};
+                            return pack(SC, offset);
                         }
                     }
                 } else {
                     offset = length - 1;
-                    return new int[]{S, offset};
+                    return pack(S, offset);
                 }
             case 'T':
                 c1 = ch[offset + 1];
@@ -180,35 +192,35 @@ public class Operands {
                 }
                 switch (c1) {
                     case 'c':
-                        return new int[]{Tc, offset};
+                        return pack(Tc, offset);
                     case 'd':
-                        return new int[]{Td, offset};
+                        return pack(Td, offset);
                     case 'D':
-                        return new int[]{TD, offset};
+                        return pack(TD, offset);
                     case 'f':
-                        return new int[]{Tf, offset};
+                        return pack(Tf, offset);
                     case 'j':
-                        return new int[]{Tj, offset};
+                        return pack(Tj, offset);
                     case 'J':
-                        return new int[]{TJ, offset};
+                        return pack(TJ, offset);
                     case 'L':
-                        return new int[]{TL, offset};
+                        return pack(TL, offset);
                     case 'm':
-                        return new int[]{Tm, offset};
+                        return pack(Tm, offset);
                     case 'r':
-                        return new int[]{Tr, offset};
+                        return pack(Tr, offset);
                     case 's':
-                        return new int[]{Ts, offset};
+                        return pack(Ts, offset);
                     case 'w':
-                        return new int[]{Tw, offset};
+                        return pack(Tw, offset);
                     case 'z':
-                        return new int[]{Tz, offset};
+                        return pack(Tz, offset);
                     case '*':
-                        return new int[]{T_STAR, offset};
+                        return pack(T_STAR, offset);
                 }
             case 'f':
                 if (length == 1) {
-                    return new int[]{f, 0};
+                    return pack(f, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -216,10 +228,10 @@ public class Operands {
                         if (length > 2) {
                             offset = length - 2;
                         }
-                        return new int[]{f_STAR, offset};
+                        return pack(f_STAR, offset);
                     } else {
                         offset = length - 1;
-                        return new int[]{f, offset};
+                        return pack(f, offset);
                     }
                 }
             case 'F':
@@ -227,28 +239,28 @@ public class Operands {
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{F, offset};
+                return pack(F, offset);
             case 'v':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{v, offset};
+                return pack(v, offset);
             case 'W':
                 if (length == 1) {
-                    return new int[]{W, 0};
+                    return pack(W, 0);
                 } else {
                     c1 = ch[offset + 1];
                     if (c1 == '*') {
                         if (length == 2) {
-                            return new int[]{W_STAR, 0};
+                            return pack(W_STAR, 0);
                         } else {
                             offset = length - 2;
-                            return new int[]{W_STAR, offset};
+                            return pack(W_STAR, offset);
                         }
                     } else {
                         offset = length - 1;
-                        return new int[]{W, offset};
+                        return pack(W, offset);
                     }
                 }
             case 'w':
@@ -256,20 +268,20 @@ public class Operands {
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{w, offset};
+                return pack(w, offset);
             case 'n':
                 if (length == 1) {
-                    return new int[]{n, 0};
+                    return pack(n, 0);
                 } else {
                     c1 = ch[offset + 1];
                     if (c1 == 'u') {
                         if (length > 3) {
                             offset = length - 3;
                         }
-                        return new int[]{NULL, offset};
+                        return pack(NULL, offset);
                     } else {
                         offset = length - 1;
-                        return new int[]{n, offset};
+                        return pack(n, offset);
                     }
                 }
             case 'y':
@@ -277,10 +289,10 @@ public class Operands {
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{y, offset};
+                return pack(y, offset);
             case 'E':
                 if (length == 3) {
-                    return new int[]{EMC, 0};
+                    return pack(EMC, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -289,22 +301,22 @@ public class Operands {
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{ET, offset};
+                            return pack(ET, offset);
                         case 'X':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{EX, offset};
+                            return pack(EX, offset);
                         case 'I':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{EI, offset};
+                            return pack(EI, offset);
                         case 'M':
                             if (length > 3) {
                                 offset = length - 3;
                             }
-                            return new int[]{EMC, offset};
+                            return pack(EMC, offset);
                     }
                 }
             case 'i':
@@ -312,58 +324,58 @@ public class Operands {
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{i, offset};
+                return pack(i, offset);
             case 'h':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{h, offset};
+                return pack(h, offset);
             case 'j':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{j, offset};
+                return pack(j, offset);
             case 'J':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{J, offset};
+                return pack(J, offset);
             case 'k':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{k, offset};
+                return pack(k, offset);
             case 'K':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{K, offset};
+                return pack(K, offset);
             case 'G':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{G, offset};
+                return pack(G, offset);
             case 'l':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{l, offset};
+                return pack(l, offset);
             case 'L':
                 offset = 0;
                 if (length > 2) {
                     offset = length - 2;
                 }
-                return new int[]{LW, offset};
+                return pack(LW, offset);
             case 'g':
                 if (length == 1) {
-                    return new int[]{g, 0};
+                    return pack(g, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -371,10 +383,10 @@ public class Operands {
                         if (length > 2) {
                             offset = length - 2;
                         }
-                        return new int[]{gs, offset};
+                        return pack(gs, offset);
                     } else {
                         offset = length - 1;
-                        return new int[]{g, offset};
+                        return pack(g, offset);
                     }
                 }
             case 'C':
@@ -382,10 +394,10 @@ public class Operands {
                 if (length > 2) {
                     offset = length - 2;
                 }
-                return new int[]{CS, offset};
+                return pack(CS, offset);
             case 'c':
                 if (length == 1) {
-                    return new int[]{Operands.c, 0};
+                    return pack(Operands.c, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -394,20 +406,20 @@ public class Operands {
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{cs, offset};
+                            return pack(cs, offset);
                         case 'm':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{cm, offset};
+                            return pack(cm, offset);
                         default:
                             offset = length - 1;
-                            return new int[]{Operands.c, offset};
+                            return pack(Operands.c, offset);
                     }
                 }
             case 'b':
                 if (length == 1) {
-                    return new int[]{b, 0};
+                    return pack(b, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -415,15 +427,15 @@ public class Operands {
                         if (length > 2) {
                             offset = length - 2;
                         }
-                        return new int[]{b_STAR, offset};
+                        return pack(b_STAR, offset);
                     } else {
                         offset = length - 1;
-                        return new int[]{b, offset};
+                        return pack(b, offset);
                     }
                 }
             case 'B':
                 if (length == 1) {
-                    return new int[]{B, 0};
+                    return pack(B, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -432,41 +444,41 @@ public class Operands {
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{BT, offset};
+                            return pack(BT, offset);
                         case '*':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{B_STAR, offset};
+                            return pack(B_STAR, offset);
                         case 'I':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{BI, offset};
+                            return pack(BI, offset);
                         case 'X':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{BX, offset};
+                            return pack(BX, offset);
                         case 'D':
                             if (length > 3) {
                                 offset = length - 3;
                             }
-                            return new int[]{BDC, offset};
+                            return pack(BDC, offset);
                         case 'M':
                             if (length > 3) {
                                 offset = length - 3;
                             }
-                            return new int[]{BMC, offset};
+                            return pack(BMC, offset);
                         default:
                             offset = length - 1;
-                            return new int[]{B, offset};
+                            return pack(B, offset);
                     }
                 }
             case 'd':
             case 'D':
                 if (length == 1) {
-                    return new int[]{d, 0};
+                    return pack(d, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -475,25 +487,25 @@ public class Operands {
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{d0, offset};
+                            return pack(d0, offset);
                         case '1':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{d1, offset};
+                            return pack(d1, offset);
                         case 'o':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{Do, offset};
+                            return pack(Do, offset);
                         case 'P':
                             if (length > 2) {
                                 offset = length - 2;
                             }
-                            return new int[]{DP, offset};
+                            return pack(DP, offset);
                         default:
                             offset = length - 1;
-                            return new int[]{d, offset};
+                            return pack(d, offset);
                     }
                 }
             case 'm':
@@ -501,10 +513,10 @@ public class Operands {
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{m, offset};
+                return pack(m, offset);
             case 'M':
                 if (length == 1) {
-                    return new int[]{M, 0};
+                    return pack(M, 0);
                 } else {
                     c1 = ch[offset + 1];
                     offset = 0;
@@ -512,36 +524,56 @@ public class Operands {
                         if (length > 2) {
                             offset = length - 2;
                         }
-                        return new int[]{MP, offset};
+                        return pack(MP, offset);
                     }
                     offset = length - 1;
-                    return new int[]{M, offset};
+                    return pack(M, offset);
                 }
             case 'I':
                 offset = 0;
                 if (length > 2) {
                     offset = length - 2;
                 }
-                return new int[]{ID, offset};
+                return pack(ID, offset);
             case '\'':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{SINGLE_QUOTE, offset};
+                return pack(SINGLE_QUOTE, offset);
             case '"':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{DOUBLE_QUOTE, offset};
+                return pack(DOUBLE_QUOTE, offset);
             case '%':
                 offset = 0;
                 if (length > 1) {
                     offset = length - 1;
                 }
-                return new int[]{PERCENT, offset};
+                return pack(PERCENT, offset);
         }
-        return new int[]{OP, 0};
+        return pack(OP, 0);
+    }
+
+    /**
+     * @param operand value from parseOperand().
+     * @return operator id.
+     */
+    public static int getOperator(long operand) {
+        return (int) operand;
+    }
+
+    /**
+     * @param operand value from parseOperand().
+     * @return number of bytes at the end of the token that belong to the next token.
+     */
+    public static int getPushBack(long operand) {
+        return (int) (operand >>> 32);
+    }
+
+    private static long pack(int operator, int pushBack) {
+        return ((long) pushBack << 32) | operator;
     }
 }
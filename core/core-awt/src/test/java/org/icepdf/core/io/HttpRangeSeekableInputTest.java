@@ -0,0 +1,192 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.io;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HttpRangeSeekableInputTest {
+
+    // default block size.
+    private static final int BLOCK_SIZE = 64 * 1024;
+
+    private final byte[] data = new byte[16 * BLOCK_SIZE];
+    // requests after the probe, "start-end If-Range".
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+    private volatile String etag = "\"v1\"";
+    private volatile int rangeShift;
+    // range requests after the probe wait here, so overlapping requests can be seen.
+    private volatile CountDownLatch overlap;
+    private volatile long responseDelay;
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private ExecutorService executor;
+
+    public HttpRangeSeekableInputTest() {
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (i * 31 + i / 251);
+        }
+    }
+
+    @AfterEach
+    public void tearDown() {
+        if (server != null) {
+            server.stop(0);
+            serverExecutor.shutdownNow();
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testIfRangeSentWithEveryRequest() throws Exception {
+        HttpRangeSeekableInput input = HttpRangeSeekableInput.build(start());
+        assertNotNull(input);
+        assertBlock(input, 3);
+        assertBlock(input, 12);
+        assertEquals(2, requests.size());
+        for (String request : requests) {
+            assertTrue(request.endsWith(" \"v1\""), request);
+        }
+    }
+
+    @Test
+    public void testChangedDocumentFails() throws Exception {
+        HttpRangeSeekableInput input = HttpRangeSeekableInput.build(start());
+        assertNotNull(input);
+        etag = "\"v2\"";
+        byte[] buffer = new byte[16];
+        assertThrows(IOException.class, () -> input.read(5L * BLOCK_SIZE, buffer, 0, buffer.length));
+    }
+
+    @Test
+    public void testContentRangeMismatchFails() throws Exception {
+        HttpRangeSeekableInput input = HttpRangeSeekableInput.build(start());
+        assertNotNull(input);
+        rangeShift = 1;
+        byte[] buffer = new byte[16];
+        assertThrows(IOException.class, () -> input.read(5L * BLOCK_SIZE, buffer, 0, buffer.length));
+        // the failed blocks aren't left claimed, a good response reads them.
+        rangeShift = 0;
+        assertBlock(input, 5);
+    }
+
+    @Test
+    public void testSameBlockFetchedOnce() throws Exception {
+        HttpRangeSeekableInput input = HttpRangeSeekableInput.build(start());
+        assertNotNull(input);
+        responseDelay = 200;
+        executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            readers.add(executor.submit(() -> {
+                assertBlock(input, 7);
+                return null;
+            }));
+        }
+        for (Future<?> reader : readers) {
+            reader.get(10, TimeUnit.SECONDS);
+        }
+        assertEquals(1, requests.size());
+    }
+
+    @Test
+    public void testDifferentBlocksFetchedInParallel() throws Exception {
+        HttpRangeSeekableInput input = HttpRangeSeekableInput.build(start());
+        assertNotNull(input);
+        // neither response is sent until both requests have arrived.
+        overlap = new CountDownLatch(2);
+        executor = Executors.newFixedThreadPool(2);
+        Future<?> first = executor.submit(() -> {
+            assertBlock(input, 2);
+            return null;
+        });
+        Future<?> second = executor.submit(() -> {
+            assertBlock(input, 10);
+            return null;
+        });
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        assertEquals(0, overlap.getCount());
+        assertEquals(2, requests.size());
+    }
+
+    private void assertBlock(HttpRangeSeekableInput input, int block) throws IOException {
+        byte[] buffer = new byte[100];
+        int offset = block * BLOCK_SIZE + 10;
+        assertEquals(buffer.length, input.read(offset, buffer, 0, buffer.length));
+        for (int i = 0; i < buffer.length; i++) {
+            assertEquals(data[offset + i], buffer[i]);
+        }
+    }
+
+    private URL start() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            String ifRange = exchange.getRequestHeaders().getFirst("If-Range");
+            String[] bounds = range.substring(6).split("-");
+            int start = Integer.parseInt(bounds[0]);
+            int end = Math.min(data.length - 1, Integer.parseInt(bounds[1]));
+            if (start > 0) {
+                requests.add(start + "-" + end + " " + ifRange);
+                CountDownLatch overlap = this.overlap;
+                try {
+                    if (overlap != null) {
+                        overlap.countDown();
+                        overlap.await(5, TimeUnit.SECONDS);
+                    }
+                    Thread.sleep(responseDelay);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            exchange.getResponseHeaders().add("ETag", etag);
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (ifRange != null && !ifRange.equals(etag)) {
+                    exchange.sendResponseHeaders(200, data.length);
+                    out.write(data);
+                    return;
+                }
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + (start + rangeShift) + "-" + end + "/" + data.length);
+                exchange.sendResponseHeaders(206, end - start + 1);
+                out.write(data, start, end - start + 1);
+            }
+        });
+        server.start();
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/document.pdf");
+    }
+}
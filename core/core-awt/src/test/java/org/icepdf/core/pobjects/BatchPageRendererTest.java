@@ -0,0 +1,204 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPageRendererTest {
+
+    private static final int PAGES = 8;
+
+    private Document document;
+
+    @BeforeEach
+    public void openDocument() throws Exception {
+        document = new Document();
+        byte[] data = createDocument(PAGES);
+        document.setByteArray(data, 0, data.length, null);
+    }
+
+    @AfterEach
+    public void disposeDocument() {
+        document.dispose();
+    }
+
+    // records what reaches the sink.
+    private static class RecordingSink implements BatchPageRenderer.PageSink {
+        final List<Integer> rendered = Collections.synchronizedList(new ArrayList<>());
+        final Map<Integer, Throwable> failed = new ConcurrentHashMap<>();
+
+        public void pageRendered(int pageNumber, BufferedImage image) throws IOException {
+            assertNotNull(image);
+            rendered.add(pageNumber);
+        }
+
+        public void pageFailed(int pageNumber, Throwable cause) {
+            failed.put(pageNumber, cause);
+        }
+    }
+
+    @Test
+    public void testOrderedWhenPagesFinishOutOfOrder() throws Exception {
+        List<Integer> painted = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch laterPages = new CountDownLatch(PAGES - 1);
+        BatchPageRenderer renderer = new BatchPageRenderer(document) {
+            BufferedImage paint(Page page) throws InterruptedException {
+                // the first page is held back until every other page is painted.
+                if (page.getPageIndex() == 0) {
+                    assertTrue(laterPages.await(10, TimeUnit.SECONDS));
+                }
+                BufferedImage image = super.paint(page);
+                painted.add(page.getPageIndex());
+                laterPages.countDown();
+                return image;
+            }
+        };
+        renderer.setThreads(BatchPageRenderer.Stage.RASTERIZE, 3);
+        renderer.setPagesInFlight(PAGES);
+        RecordingSink sink = new RecordingSink();
+        BatchPageRenderer.Statistics statistics = renderer.render(0, PAGES, sink);
+
+        assertEquals(Integer.valueOf(0), painted.get(PAGES - 1));
+        assertEquals(pageNumbers(0, PAGES), sink.rendered);
+        assertTrue(sink.failed.isEmpty());
+        assertEquals(PAGES, statistics.getPageCount(BatchPageRenderer.Stage.OUTPUT));
+    }
+
+    @Test
+    public void testFailedPageDoesNotStopBatch() throws Exception {
+        IllegalStateException failure = new IllegalStateException("bad page");
+        BatchPageRenderer renderer = new BatchPageRenderer(document) {
+            BufferedImage paint(Page page) throws InterruptedException {
+                if (page.getPageIndex() == 2) {
+                    throw failure;
+                }
+                return super.paint(page);
+            }
+        };
+        RecordingSink sink = new RecordingSink();
+        BatchPageRenderer.Statistics statistics = renderer.render(0, PAGES, sink);
+
+        List<Integer> expected = pageNumbers(0, PAGES);
+        expected.remove(Integer.valueOf(2));
+        assertEquals(expected, sink.rendered);
+        assertEquals(1, sink.failed.size());
+        assertSame(failure, sink.failed.get(2));
+        assertEquals(1, statistics.getFailedPageCount());
+    }
+
+    @Test
+    public void testPagesInFlightBound() throws Exception {
+        int pagesInFlight = 2;
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        BatchPageRenderer renderer = new BatchPageRenderer(document) {
+            BufferedImage paint(Page page) throws InterruptedException {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                return super.paint(page);
+            }
+        };
+        renderer.setThreads(BatchPageRenderer.Stage.INIT, 4);
+        renderer.setThreads(BatchPageRenderer.Stage.RASTERIZE, 4);
+        renderer.setPagesInFlight(pagesInFlight);
+        // a slow sink, the rest of the pipeline has to wait on it.
+        RecordingSink sink = new RecordingSink() {
+            public void pageRendered(int pageNumber, BufferedImage image) throws IOException {
+                try {
+                    Thread.sleep(20);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.pageRendered(pageNumber, image);
+                inFlight.decrementAndGet();
+            }
+        };
+        renderer.render(0, PAGES, sink);
+
+        assertEquals(pageNumbers(0, PAGES), sink.rendered);
+        assertTrue(maxInFlight.get() <= pagesInFlight, "in flight " + maxInFlight.get());
+    }
+
+    @Test
+    public void testUnorderedRendersEveryPage() throws Exception {
+        BatchPageRenderer renderer = new BatchPageRenderer(document);
+        renderer.setOrdered(false);
+        renderer.setThreads(BatchPageRenderer.Stage.OUTPUT, 3);
+        RecordingSink sink = new RecordingSink();
+        renderer.render(1, PAGES, sink);
+
+        List<Integer> rendered = new ArrayList<>(sink.rendered);
+        Collections.sort(rendered);
+        assertEquals(pageNumbers(1, PAGES), rendered);
+    }
+
+    private static List<Integer> pageNumbers(int start, int end) {
+        List<Integer> pageNumbers = new ArrayList<>();
+        for (int i = start; i < end; i++) {
+            pageNumbers.add(i);
+        }
+        return pageNumbers;
+    }
+
+    // a document of small pages each filled with a different shade.
+    private static byte[] createDocument(int pageCount) throws IOException {
+        List<String> objects = new ArrayList<>();
+        objects.add("<< /Type /Catalog /Pages 2 0 R >>");
+        StringBuilder kids = new StringBuilder();
+        for (int i = 0; i < pageCount; i++) {
+            kids.append(3 + i * 2).append(" 0 R ");
+        }
+        objects.add("<< /Type /Pages /Kids [" + kids + "] /Count " + pageCount + " >>");
+        for (int i = 0; i < pageCount; i++) {
+            String content = (i / (float) pageCount) + " g 10 10 80 80 re f";
+            objects.add("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 100 100] /Contents " +
+                    (4 + i * 2) + " 0 R >>");
+            objects.add("<< /Length " + content.length() + " >>\nstream\n" + content + "\nendstream");
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("%PDF-1.4\n".getBytes(StandardCharsets.ISO_8859_1));
+        long[] offsets = new long[objects.size()];
+        for (int i = 0; i < objects.size(); i++) {
+            offsets[i] = out.size();
+            out.write(((i + 1) + " 0 obj\n" + objects.get(i) + "\nendobj\n").getBytes(StandardCharsets.ISO_8859_1));
+        }
+        long xref = out.size();
+        StringBuilder trailer = new StringBuilder("xref\n0 " + (objects.size() + 1) + "\n0000000000 65535 f \n");
+        for (long offset : offsets) {
+            trailer.append(String.format("%010d 00000 n \n", offset));
+        }
+        trailer.append("trailer\n<< /Size ").append(objects.size() + 1).append(" /Root 1 0 R >>\nstartxref\n")
+                .append(xref).append("\n%%EOF\n");
+        out.write(trailer.toString().getBytes(StandardCharsets.ISO_8859_1));
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.io.SeekableByteArrayInputStream;
+import org.icepdf.core.util.Library;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CrossReferenceCacheTest {
+
+    private static final long LAST_MODIFIED = 1500000000000L;
+
+    @TempDir
+    Path cacheDirectory;
+
+    private byte[] data;
+    private Document document;
+
+    @BeforeEach
+    public void openDocument() throws Exception {
+        try (InputStream in = getClass().getResourceAsStream("fonts/cmap/00_ReadMe.pdf")) {
+            assertNotNull(in);
+            data = in.readAllBytes();
+        }
+        document = new Document();
+        document.setByteArray(data, 0, data.length, null);
+    }
+
+    @AfterEach
+    public void disposeDocument() {
+        document.dispose();
+    }
+
+    private CrossReferenceCache open(byte[] data, long lastModified) {
+        CrossReferenceCache cache = CrossReferenceCache.open(
+                new SeekableByteArrayInputStream(data), lastModified, cacheDirectory);
+        assertNotNull(cache);
+        return cache;
+    }
+
+    private PTrailer getTrailer() {
+        return document.getStateManager().getTrailer();
+    }
+
+    private long countIndexFiles() throws Exception {
+        try (Stream<Path> files = Files.list(cacheDirectory)) {
+            return files.filter(file -> file.toString().endsWith(".xref")).count();
+        }
+    }
+
+    @Test
+    public void testIndexMatchesParsedCrossReference() {
+        PTrailer trailer = getTrailer();
+        open(data, LAST_MODIFIED).save(trailer);
+
+        PTrailer loaded = open(data, LAST_MODIFIED).load(new Library());
+        assertNotNull(loaded);
+        assertEquals(trailer.getPosition(), loaded.getPosition());
+        assertEquals(trailer.getNumberOfObjects(), loaded.getNumberOfObjects());
+        assertEquals(trailer.getDictionary().get(PTrailer.ROOT_KEY), loaded.getDictionary().get(PTrailer.ROOT_KEY));
+        assertEquals(trailer.getDictionary().get(PTrailer.INFO_KEY), loaded.getDictionary().get(PTrailer.INFO_KEY));
+        assertEquals(trailer.getID().size(), loaded.getID().size());
+        for (int i = 0; i < trailer.getID().size(); i++) {
+            assertEquals(((StringObject) trailer.getID().get(i)).getHexString(),
+                    ((StringObject) loaded.getID().get(i)).getHexString());
+        }
+
+        Map<Integer, CrossReference.Entry> expected = new HashMap<>();
+        trailer.getPrimaryCrossReference().collectEntries(expected);
+        Map<Integer, CrossReference.Entry> actual = new HashMap<>();
+        loaded.getPrimaryCrossReference().collectEntries(actual);
+        assertFalse(expected.isEmpty());
+        assertEquals(expected.keySet(), actual.keySet());
+        for (Map.Entry<Integer, CrossReference.Entry> entry : expected.entrySet()) {
+            CrossReference.UsedEntry expectedEntry = (CrossReference.UsedEntry) entry.getValue();
+            CrossReference.UsedEntry actualEntry = (CrossReference.UsedEntry) actual.get(entry.getKey());
+            assertEquals(expectedEntry.getFilePositionOfObject(), actualEntry.getFilePositionOfObject());
+            assertEquals(expectedEntry.getGenerationNumber(), actualEntry.getGenerationNumber());
+        }
+    }
+
+    @Test
+    public void testChangedTailInvalidatesIndex() {
+        open(data, LAST_MODIFIED).save(getTrailer());
+        // an incremental update appends to the tail of the file.
+        byte[] update = "\r1 0 obj\r<< >>\rendobj\r%%EOF\r".getBytes(StandardCharsets.ISO_8859_1);
+        byte[] updated = new byte[data.length + update.length];
+        System.arraycopy(data, 0, updated, 0, data.length);
+        System.arraycopy(update, 0, updated, data.length, update.length);
+        assertNull(open(updated, LAST_MODIFIED).load(new Library()));
+        assertNotNull(open(data, LAST_MODIFIED).load(new Library()));
+    }
+
+    @Test
+    public void testChangedStartXrefInvalidatesIndex() {
+        open(data, LAST_MODIFIED).save(getTrailer());
+        String file = new String(data, StandardCharsets.ISO_8859_1);
+        int startXref = file.lastIndexOf("startxref");
+        assertTrue(startXref > 0);
+        // same length file, only the offset differs.
+        byte[] moved = data.clone();
+        int digit = file.indexOf("11878", startXref);
+        assertTrue(digit > 0);
+        moved[digit + 4] = '9';
+        assertNull(open(moved, LAST_MODIFIED).load(new Library()));
+    }
+
+    @Test
+    public void testChangedLastModifiedInvalidatesIndex() {
+        open(data, LAST_MODIFIED).save(getTrailer());
+        assertNull(open(data, LAST_MODIFIED + 1000).load(new Library()));
+        // unknown times can't be compared.
+        assertNotNull(open(data, 0).load(new Library()));
+    }
+
+    @Test
+    public void testEncryptedDocumentNotIndexed() throws Exception {
+        PTrailer trailer = getTrailer();
+        HashMap<Object, Object> dictionary = new HashMap<>(trailer.getDictionary());
+        dictionary.put(PTrailer.ENCRYPT_KEY, new HashMap<>());
+        PTrailer encrypted = new PTrailer(new Library(), dictionary, new CrossReference(), null);
+        assertNotNull(encrypted.getEncrypt());
+
+        open(data, LAST_MODIFIED).save(encrypted);
+        assertEquals(0, countIndexFiles());
+        assertNull(open(data, LAST_MODIFIED).load(new Library()));
+
+        open(data, LAST_MODIFIED).save(trailer);
+        assertEquals(1, countIndexFiles());
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentInitPagesTest {
+
+    private Document document;
+
+    @BeforeEach
+    public void openDocument() throws Exception {
+        byte[] data = new LinearizationTest.LinearizedDocument().data;
+        document = new Document();
+        document.setByteArray(data, 0, data.length, null);
+    }
+
+    @AfterEach
+    public void disposeDocument() {
+        document.dispose();
+    }
+
+    @Test
+    public void testInitPagesOnCommonPool() throws Exception {
+        List<CompletableFuture<Page>> futures = document.initPages(0, 2);
+        assertEquals(2, futures.size());
+        for (int i = 0; i < futures.size(); i++) {
+            Page page = futures.get(i).get(10, TimeUnit.SECONDS);
+            assertSame(document.getPageTree().getPage(i), page);
+            assertTrue(page.isInitiated());
+        }
+    }
+
+    @Test
+    public void testRejectedExecution() {
+        List<CompletableFuture<Page>> futures = document.initPages(0, 2, task -> {
+            throw new RejectedExecutionException("full");
+        }, 2);
+        for (CompletableFuture<Page> future : futures) {
+            assertTrue(future.isCompletedExceptionally());
+            ExecutionException e = assertThrows(ExecutionException.class, future::get);
+            assertTrue(e.getCause() instanceof RejectedExecutionException);
+        }
+    }
+
+    @Test
+    public void testPartialRejectionFinishesRange() throws Exception {
+        List<Runnable> accepted = new ArrayList<>();
+        List<CompletableFuture<Page>> futures = document.initPages(0, 2, task -> {
+            if (!accepted.isEmpty()) {
+                throw new RejectedExecutionException("full");
+            }
+            accepted.add(task);
+        }, 2);
+        assertEquals(1, accepted.size());
+        accepted.get(0).run();
+        for (CompletableFuture<Page> future : futures) {
+            assertTrue(future.get().isInitiated());
+        }
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOnePage() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Page[]>> lookups = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                lookups.add(executor.submit(() -> {
+                    start.await();
+                    PageTree pageTree = document.getPageTree();
+                    return new Page[]{pageTree.getPage(0), pageTree.getPage(1)};
+                }));
+            }
+            start.countDown();
+            Page[] expected = lookups.get(0).get(10, TimeUnit.SECONDS);
+            assertNotNull(expected[0]);
+            assertNotNull(expected[1]);
+            for (Future<Page[]> lookup : lookups) {
+                assertArrayEquals(expected, lookup.get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> document.initPages(0, 3));
+        assertThrows(IllegalArgumentException.class, () -> document.initPages(0, 1, Runnable::run, 0));
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.events.DocumentLoadingEvent;
+import org.icepdf.core.events.DocumentLoadingListener;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DocumentOpenAsyncTest {
+
+    @TempDir
+    Path tempDir;
+
+    private String filePath;
+
+    @BeforeEach
+    public void writeDocument() throws Exception {
+        Path file = tempDir.resolve("linearized.pdf");
+        Files.write(file, new LinearizationTest.LinearizedDocument().data);
+        filePath = file.toString();
+    }
+
+    @Test
+    public void testOpen() throws Exception {
+        Document document = new Document();
+        try {
+            assertSame(document, document.openAsync(filePath, Runnable::run).get());
+            assertEquals(2, document.getNumberOfPages());
+            assertNotNull(document.getLinearization());
+        } finally {
+            document.dispose();
+        }
+    }
+
+    @Test
+    public void testRejectedExecution() {
+        Document document = new Document();
+        CompletableFuture<Document> future = document.openAsync(filePath, task -> {
+            throw new RejectedExecutionException("full");
+        });
+        assertTrue(future.isCompletedExceptionally());
+        ExecutionException e = assertThrows(ExecutionException.class, future::get);
+        assertTrue(e.getCause() instanceof RejectedExecutionException);
+    }
+
+    @Test
+    public void testCancelBeforeStart() {
+        Document document = new Document();
+        List<Runnable> queue = new ArrayList<>();
+        CompletableFuture<Document> future = document.openAsync(filePath, queue::add);
+        future.cancel(false);
+        queue.forEach(Runnable::run);
+        assertTrue(future.isCancelled());
+        assertEquals(0, document.getNumberOfPages());
+    }
+
+    @Test
+    public void testLateCancelDisposesAndDoesNotLeak() throws Exception {
+        Document document = new Document();
+        AtomicReference<CompletableFuture<Document>> future = new AtomicReference<>();
+        // cancel once loading has ended, but before the future is completed.
+        DocumentLoadingListener listener = new DocumentLoadingListener() {
+            @Override
+            public void documentLoadingStarted(DocumentLoadingEvent event) {
+            }
+
+            @Override
+            public void documentLoadingPhaseCompleted(DocumentLoadingEvent event) {
+            }
+
+            @Override
+            public void documentLoadingEnded(DocumentLoadingEvent event) {
+                future.get().cancel(false);
+            }
+        };
+        document.addDocumentLoadingListener(listener);
+        List<Runnable> queue = new ArrayList<>();
+        future.set(document.openAsync(filePath, queue::add));
+        queue.forEach(Runnable::run);
+        assertTrue(future.get().isCancelled());
+        // the cancel won, so the loaded document has been disposed.
+        assertNull(document.getLinearization());
+
+        // the late cancel doesn't stop the next load.
+        document.removeDocumentLoadingListener(listener);
+        try {
+            document.setFile(filePath);
+            assertEquals(2, document.getNumberOfPages());
+            assertNotNull(document.getLinearization());
+        } finally {
+            document.dispose();
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import com.sun.net.httpserver.HttpServer;
+import org.icepdf.core.io.HttpRangeSeekableInput;
+import org.icepdf.core.io.SeekableByteArrayInputStream;
+import org.icepdf.core.util.Library;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LinearizationTest {
+
+    private static final int HINT_TABLE_SIZE = 38;
+
+    /**
+     * A two page linearized document, the hint stream sits between the first
+     * and second page.
+     */
+    static final class LinearizedDocument {
+        byte[] data;
+        long firstPageOffset;
+        long hintOffset;
+        long hintLength;
+        long secondPageOffset;
+        long secondPageLength;
+
+        LinearizedDocument() throws IOException {
+            // offsets don't depend on the hint table's content, only its size.
+            build(new byte[HINT_TABLE_SIZE]);
+            build(hintTable());
+        }
+
+        private void build(byte[] hintTable) {
+            StringBuilder pdf = new StringBuilder("%PDF-1.4\n");
+            long[] offsets = new long[12];
+            offsets[10] = pdf.length();
+            pdf.append("10 0 obj\n<</Linearized 1/L ").append(pad(data != null ? data.length : 0))
+                    .append("/H [").append(pad(hintOffset)).append(' ').append(pad(hintLength))
+                    .append("]/O 3/E 0/N 2/T 0>>\nendobj\n");
+            offsets[1] = pdf.length();
+            pdf.append("1 0 obj\n<</Type/Catalog/Pages 2 0 R>>\nendobj\n");
+            offsets[2] = pdf.length();
+            pdf.append("2 0 obj\n<</Type/Pages/Kids[3 0 R 4 0 R]/Count 2>>\nendobj\n");
+            offsets[3] = firstPageOffset = pdf.length();
+            pdf.append("3 0 obj\n<</Type/Page/Parent 2 0 R/MediaBox[0 0 100 100]>>\nendobj\n");
+            offsets[11] = hintOffset = pdf.length();
+            pdf.append("11 0 obj\n<</Length ").append(hintTable.length).append(">>stream\n");
+            for (byte b : hintTable) {
+                pdf.append((char) (b & 0xFF));
+            }
+            pdf.append("\nendstream\nendobj\n");
+            hintLength = pdf.length() - hintOffset;
+            offsets[4] = secondPageOffset = pdf.length();
+            pdf.append("4 0 obj\n<</Type/Page/Parent 2 0 R/MediaBox[0 0 200 200]>>\nendobj\n");
+            secondPageLength = pdf.length() - secondPageOffset;
+            long xrefOffset = pdf.length();
+            pdf.append("xref\n0 12\n");
+            for (int i = 0; i < offsets.length; i++) {
+                if (i == 0 || offsets[i] == 0) {
+                    pdf.append("0000000000 65535 f\r\n");
+                } else {
+                    pdf.append(String.format("%010d 00000 n\r\n", offsets[i]));
+                }
+            }
+            pdf.append("trailer\n<</Size 12/Root 1 0 R>>\nstartxref\n").append(xrefOffset).append("\n%%EOF\n");
+            data = pdf.toString().getBytes(StandardCharsets.ISO_8859_1);
+        }
+
+        // page offset hint table, page offsets are given as if the hint stream isn't in the file.
+        private byte[] hintTable() throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            long firstPageLength = hintOffset - firstPageOffset;
+            out.writeInt(1);
+            out.writeInt((int) firstPageOffset);
+            out.writeShort(0);
+            out.writeInt((int) firstPageLength);
+            out.writeShort(8);
+            out.writeInt(0);
+            out.writeShort(0);
+            out.writeInt(0);
+            for (int i = 0; i < 5; i++) {
+                out.writeShort(0);
+            }
+            out.write(0);
+            out.write((int) (secondPageLength - firstPageLength));
+            out.flush();
+            assertEquals(HINT_TABLE_SIZE, bytes.size());
+            return bytes.toByteArray();
+        }
+
+        private static String pad(long value) {
+            return String.format("%010d", value);
+        }
+    }
+
+    private static void assertHintTable(LinearizedDocument document, Linearization linearization) {
+        assertNotNull(linearization);
+        assertEquals(2, linearization.getPageCount());
+        assertEquals(3, linearization.getFirstPageObjectNumber());
+        assertEquals(document.data.length, linearization.getFileLength());
+        assertEquals(document.hintOffset, linearization.getHintStreamOffset());
+        assertEquals(document.hintLength, linearization.getHintStreamLength());
+        assertEquals(document.firstPageOffset, linearization.getPageOffset(0));
+        assertEquals(document.hintOffset - document.firstPageOffset, linearization.getPageLength(0));
+        assertEquals(document.secondPageOffset, linearization.getPageOffset(1));
+        assertEquals(document.secondPageLength, linearization.getPageLength(1));
+        assertEquals(-1, linearization.getPageOffset(2));
+    }
+
+    @Test
+    public void testHintTable() throws Exception {
+        LinearizedDocument document = new LinearizedDocument();
+        Linearization linearization = Linearization.read(new Library(),
+                new SeekableByteArrayInputStream(document.data), 0);
+        assertHintTable(document, linearization);
+    }
+
+    @Test
+    public void testUpdatedDocumentIsNotLinearized() throws Exception {
+        LinearizedDocument document = new LinearizedDocument();
+        byte[] updated = Arrays.copyOf(document.data, document.data.length + 16);
+        assertNull(Linearization.read(new Library(), new SeekableByteArrayInputStream(updated), 0));
+    }
+
+    @Test
+    public void testReloadReadsLinearizationAgain() throws Exception {
+        LinearizedDocument linearized = new LinearizedDocument();
+        byte[] other;
+        try (InputStream in = getClass().getResourceAsStream("fonts/cmap/00_ReadMe.pdf")) {
+            assertNotNull(in);
+            other = in.readAllBytes();
+        }
+        Document document = new Document();
+        try {
+            document.setByteArray(linearized.data, 0, linearized.data.length, null);
+            assertEquals(2, document.getNumberOfPages());
+            assertHintTable(linearized, document.getLinearization());
+            document.setByteArray(other, 0, other.length, null);
+            assertNull(document.getLinearization());
+            document.setByteArray(linearized.data, 0, linearized.data.length, null);
+            assertNotNull(document.getLinearization());
+        } finally {
+            document.dispose();
+        }
+    }
+
+    @Test
+    public void testRangeRequests() throws Exception {
+        LinearizedDocument document = new LinearizedDocument();
+        AtomicInteger rangeRequests = new AtomicInteger();
+        HttpServer server = createServer(document.data, true, rangeRequests);
+        try {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/linearized.pdf");
+            HttpRangeSeekableInput input = HttpRangeSeekableInput.build(url);
+            assertNotNull(input);
+            assertEquals(document.data.length, input.getLength());
+            byte[] buffer = new byte[(int) document.secondPageLength];
+            assertEquals(buffer.length, input.read(document.secondPageOffset, buffer, 0, buffer.length));
+            assertArrayEquals(Arrays.copyOfRange(document.data, (int) document.secondPageOffset,
+                    (int) (document.secondPageOffset + buffer.length)), buffer);
+            assertHintTable(document, Linearization.read(new Library(), input, 0));
+            // the whole document fits in the probe's block.
+            assertEquals(1, rangeRequests.get());
+            input.close();
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void testServerWithoutRangeSupport() throws Exception {
+        LinearizedDocument document = new LinearizedDocument();
+        HttpServer server = createServer(document.data, false, new AtomicInteger());
+        try {
+            URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + "/linearized.pdf");
+            assertNull(HttpRangeSeekableInput.build(url));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static HttpServer createServer(byte[] data, boolean rangeSupport, AtomicInteger rangeRequests)
+            throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            try (OutputStream out = exchange.getResponseBody()) {
+                if (!rangeSupport || range == null || !range.startsWith("bytes=")) {
+                    exchange.sendResponseHeaders(200, data.length);
+                    out.write(data);
+                    return;
+                }
+                rangeRequests.incrementAndGet();
+                String[] bounds = range.substring(6).split("-");
+                int start = Integer.parseInt(bounds[0]);
+                int end = Math.min(data.length - 1, Integer.parseInt(bounds[1]));
+                exchange.getResponseHeaders().add("Content-Range",
+                        "bytes " + start + "-" + end + "/" + data.length);
+                exchange.sendResponseHeaders(206, end - start + 1);
+                out.write(data, start, end - start + 1);
+            }
+        });
+        server.start();
+        return server;
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class NameTest {
+
+    @Test
+    public void testHexEscapeIsDecoded() {
+        assertEquals("AA", Name.intern("A#41").getName());
+        assertEquals("AA", Name.intern(new StringBuilder("A#41")).getName());
+        assertEquals("AA", new Name("A#41").getName());
+    }
+
+    @Test
+    public void testEscapedNumberSignIsDecodedOnce() {
+        assertEquals("A#41", Name.intern("A#2341").getName());
+        assertEquals("A#41", Name.intern(new StringBuilder("A#2341")).getName());
+        assertEquals("A#BC", Name.intern(new StringBuilder("A#23BC")).getName());
+        assertEquals("A#BC", new Name(new StringBuilder("A#23BC")).getName());
+    }
+
+    @Test
+    public void testInternedNamesAreShared() {
+        Name name = Name.intern(new StringBuilder("Type"));
+        assertSame(name, Name.intern("Type"));
+        assertSame(name, Name.intern(new StringBuilder("#54ype")));
+        assertEquals(new Name("Type"), name);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.pobjects.graphics.text.LineText;
+import org.icepdf.core.pobjects.graphics.text.PageText;
+import org.icepdf.core.pobjects.graphics.text.TextVisitor;
+import org.icepdf.core.pobjects.graphics.text.WordText;
+import org.junit.jupiter.api.Test;
+
+import java.awt.geom.Rectangle2D;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PageVisitTextTest {
+
+    private static final String FONT = "<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica >>";
+
+    @Test
+    public void testFormTextIsStreamed() throws Exception {
+        Document document = open(
+                "BT /F1 12 Tf 72 700 Td (Page) Tj ET q 1 0 0 1 200 0 cm /Fm1 Do Q",
+                "<< /Type /XObject /Subtype /Form /BBox [0 0 612 792] /Matrix [1 0 0 1 0 -100] >>",
+                "BT /F1 12 Tf 72 700 Td (Form) Tj ET");
+        try {
+            Page page = document.getPageTree().getPage(0);
+            Map<String, Rectangle2D> streamed = visitWords(page);
+            assertEquals(List.of("Page", "Form"), new ArrayList<>(streamed.keySet()));
+            // the form's shapes are never built for streaming.
+            Form form = (Form) page.getResources().getXObject(new Name("Fm1"));
+            assertNull(form.getShapes());
+
+            // the streamed words land where the full text extraction puts them.
+            Map<String, Rectangle2D> extracted = new LinkedHashMap<>();
+            PageText pageText = page.getText();
+            for (LineText lineText : pageText.getPageLines()) {
+                for (WordText wordText : lineText.getWords()) {
+                    extracted.put(wordText.getText(), wordText.getBounds());
+                }
+            }
+            for (String word : streamed.keySet()) {
+                assertBoundsEqual(extracted.get(word), streamed.get(word));
+            }
+            Rectangle2D pageWord = streamed.get("Page");
+            Rectangle2D formWord = streamed.get("Form");
+            assertEquals(200, formWord.getX() - pageWord.getX(), 0.01);
+            assertEquals(100, Math.abs(formWord.getY() - pageWord.getY()), 0.01);
+        } finally {
+            document.dispose();
+        }
+    }
+
+    @Test
+    public void testFormDrawingItselfIsStreamedOnce() throws Exception {
+        Document document = open(
+                "/Fm1 Do",
+                "<< /Type /XObject /Subtype /Form /BBox [0 0 612 792] " +
+                        "/Resources << /Font << /F1 5 0 R >> /XObject << /Fm1 4 0 R >> >> >>",
+                "BT /F1 12 Tf 72 700 Td (Form) Tj ET /Fm1 Do");
+        try {
+            Map<String, Rectangle2D> streamed = visitWords(document.getPageTree().getPage(0));
+            assertEquals(List.of("Form"), new ArrayList<>(streamed.keySet()));
+        } finally {
+            document.dispose();
+        }
+    }
+
+    private static void assertBoundsEqual(Rectangle2D expected, Rectangle2D actual) {
+        assertNotNull(expected);
+        assertEquals(expected.getX(), actual.getX(), 0.01);
+        assertEquals(expected.getY(), actual.getY(), 0.01);
+        assertEquals(expected.getWidth(), actual.getWidth(), 0.01);
+        assertEquals(expected.getHeight(), actual.getHeight(), 0.01);
+    }
+
+    private static Map<String, Rectangle2D> visitWords(Page page) throws InterruptedException {
+        Map<String, Rectangle2D> words = new LinkedHashMap<>();
+        page.visitText(new TextVisitor() {
+            public boolean isGeometryEnabled() {
+                return true;
+            }
+
+            public void startPage(int pageIndex) {
+            }
+
+            public void glyph(String unicode, Rectangle2D bounds) {
+            }
+
+            public void word(String text, Rectangle2D bounds) {
+                words.put(text, bounds.getBounds2D());
+            }
+
+            public void endLine(Rectangle2D bounds) {
+            }
+
+            public void endPage(int pageIndex) {
+            }
+        });
+        return words;
+    }
+
+    // single page document whose page draws the form xObject 4 0 R.
+    private static Document open(String pageContent, String formDictionary, String formContent)
+            throws Exception {
+        String form = formDictionary.substring(0, formDictionary.lastIndexOf(">>"));
+        String[] objects = {
+                "<< /Type /Catalog /Pages 2 0 R >>",
+                "<< /Type /Pages /Kids [3 0 R] /Count 1 >>",
+                "<< /Type /Page /Parent 2 0 R /MediaBox [0 0 612 792] " +
+                        "/Resources << /Font << /F1 5 0 R >> /XObject << /Fm1 4 0 R >> >> /Contents 6 0 R >>",
+                form + "/Length " + formContent.length() + " >>\nstream\n" + formContent + "\nendstream",
+                FONT,
+                "<< /Length " + pageContent.length() + " >>\nstream\n" + pageContent + "\nendstream",
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        out.write("%PDF-1.4\n".getBytes(StandardCharsets.ISO_8859_1));
+        long[] offsets = new long[objects.length];
+        for (int i = 0; i < objects.length; i++) {
+            offsets[i] = out.size();
+            out.write(((i + 1) + " 0 obj\n" + objects[i] + "\nendobj\n").getBytes(StandardCharsets.ISO_8859_1));
+        }
+        long xref = out.size();
+        StringBuilder trailer = new StringBuilder("xref\n0 " + (objects.length + 1) + "\n0000000000 65535 f \n");
+        for (long offset : offsets) {
+            trailer.append(String.format("%010d 00000 n \n", offset));
+        }
+        trailer.append("trailer\n<< /Size ").append(objects.length + 1).append(" /Root 1 0 R >>\nstartxref\n")
+                .append(xref).append("\n%%EOF\n");
+        out.write(trailer.toString().getBytes(StandardCharsets.ISO_8859_1));
+        byte[] data = out.toByteArray();
+        Document document = new Document();
+        document.setByteArray(data, 0, data.length, null);
+        return document;
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.pobjects;
+
+import org.icepdf.core.util.GraphicsRenderingHints;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TiledPageRendererTest {
+
+    private static final float DPI = 144;
+
+    private Document document;
+
+    @BeforeEach
+    public void openDocument() throws Exception {
+        byte[] data;
+        try (InputStream in = getClass().getResourceAsStream("fonts/cmap/00_ReadMe.pdf")) {
+            assertNotNull(in);
+            data = in.readAllBytes();
+        }
+        document = new Document();
+        document.setByteArray(data, 0, data.length, null);
+    }
+
+    @AfterEach
+    public void disposeDocument() {
+        document.dispose();
+    }
+
+    private TiledPageRenderer createRenderer() {
+        TiledPageRenderer renderer = new TiledPageRenderer(document);
+        renderer.setDpi(DPI);
+        renderer.setTileSize(128);
+        renderer.setRenderHintType(GraphicsRenderingHints.SCREEN);
+        return renderer;
+    }
+
+    private BufferedImage renderSerial(int pageNumber) throws InterruptedException {
+        return (BufferedImage) document.getPageImage(pageNumber, GraphicsRenderingHints.SCREEN,
+                Page.BOUNDARY_CROPBOX, 0f, DPI / 72f);
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        int width = expected.getWidth();
+        int height = expected.getHeight();
+        assertArrayEquals(expected.getRGB(0, 0, width, height, null, 0, width),
+                actual.getRGB(0, 0, width, height, null, 0, width));
+    }
+
+    @Test
+    public void testTiledMatchesSerial() throws Exception {
+        TiledPageRenderer renderer = createRenderer();
+        renderer.setParallelism(4);
+        for (int i = 0; i < document.getNumberOfPages(); i++) {
+            assertSamePixels(renderSerial(i), renderer.renderPage(i));
+        }
+    }
+
+    @Test
+    public void testEvictionDuringRenderPaintsEveryTile() throws Exception {
+        BufferedImage expected = renderSerial(0);
+        Page page = document.getPageTree().getPage(0);
+        TiledPageRenderer renderer = createRenderer();
+        ForkJoinPool pool = new ForkJoinPool(1);
+        try {
+            renderer.setPool(pool);
+            BufferedImage actual = new BufferedImage(expected.getWidth(), expected.getHeight(),
+                    BufferedImage.TYPE_INT_RGB);
+            AtomicBoolean evicted = new AtomicBoolean();
+            renderer.renderTiles(0, (pageNumber, bounds, tile) -> {
+                // drop the page's state after the first tile, as the memory accountant would.
+                if (evicted.compareAndSet(false, true)) {
+                    page.evictInitializedState();
+                }
+                actual.getRaster().setDataElements(bounds.x, bounds.y, tile.getRaster());
+            });
+            assertTrue(evicted.get());
+            assertFalse(page.isInitiated());
+            assertSamePixels(expected, actual);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.icepdf.core.pobjects.Reference;
+import org.icepdf.core.pobjects.graphics.DisplayList;
+import org.icepdf.core.pobjects.graphics.Shapes;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DisplayListCacheTest {
+
+    private static final Reference PAGE = new Reference(4, 0);
+    private static final Reference RESOURCES = new Reference(7, 0);
+
+    private static byte[][] streams(String... contents) {
+        byte[][] streams = new byte[contents.length][];
+        for (int i = 0; i < contents.length; i++) {
+            streams[i] = contents[i] != null ? contents[i].getBytes(StandardCharsets.ISO_8859_1) : null;
+        }
+        return streams;
+    }
+
+    @Test
+    public void testDisabledByDefault() {
+        assertNull(new Library().getDisplayListCache());
+    }
+
+    @Test
+    public void testSameContentSameKey() {
+        DisplayListCache cache = new DisplayListCache(1024 * 1024);
+        assertEquals(cache.createKey(PAGE, RESOURCES, streams("0 0 m 1 1 l S")),
+                cache.createKey(new Reference(4, 0), new Reference(7, 0), streams("0 0 m 1 1 l S")));
+        assertEquals(cache.createKey(PAGE, null, streams("0 0 m 1 1 l S")),
+                cache.createKey(PAGE, null, streams("0 0 m 1 1 l S")));
+    }
+
+    @Test
+    public void testReferencesAreKeyed() {
+        DisplayListCache cache = new DisplayListCache(1024 * 1024);
+        String key = cache.createKey(PAGE, RESOURCES, streams("0 0 m 1 1 l S"));
+        assertNotEquals(key, cache.createKey(new Reference(5, 0), RESOURCES, streams("0 0 m 1 1 l S")));
+        assertNotEquals(key, cache.createKey(new Reference(4, 1), RESOURCES, streams("0 0 m 1 1 l S")));
+        assertNotEquals(key, cache.createKey(PAGE, new Reference(8, 0), streams("0 0 m 1 1 l S")));
+        assertNotEquals(key, cache.createKey(PAGE, null, streams("0 0 m 1 1 l S")));
+    }
+
+    @Test
+    public void testContentIsKeyed() {
+        DisplayListCache cache = new DisplayListCache(1024 * 1024);
+        String key = cache.createKey(PAGE, RESOURCES, streams("0 0 m 1 1 l S"));
+        assertNotEquals(key, cache.createKey(PAGE, RESOURCES, streams("0 0 m 2 2 l S")));
+        // stream boundaries are part of the key.
+        assertNotEquals(cache.createKey(PAGE, RESOURCES, streams("q ", "Q")),
+                cache.createKey(PAGE, RESOURCES, streams("q", " Q")));
+        assertNotEquals(cache.createKey(PAGE, RESOURCES, streams("q", null)),
+                cache.createKey(PAGE, RESOURCES, streams("q")));
+    }
+
+    @Test
+    public void testGetReturnsStoredList() {
+        DisplayListCache cache = new DisplayListCache(1024 * 1024);
+        String key = cache.createKey(PAGE, RESOURCES, streams("0 0 m 1 1 l S"));
+        assertNull(cache.get(key));
+        DisplayList displayList = DisplayList.compile(new Shapes());
+        cache.put(key, displayList);
+        assertSame(displayList, cache.get(key));
+        assertNull(cache.get(cache.createKey(PAGE, RESOURCES, streams("0 0 m 2 2 l S"))));
+        cache.clear();
+        assertNull(cache.get(key));
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.icepdf.core.pobjects.Page;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MemoryAccountantTest {
+
+    private Library library;
+    private MemoryAccountant accountant;
+
+    @BeforeEach
+    public void createAccountant() {
+        library = new Library();
+        accountant = library.getMemoryAccountant();
+    }
+
+    private Page createPage() {
+        return new Page(library, new HashMap<>());
+    }
+
+    @Test
+    public void testNoBudgetDoesNotTrackPages() {
+        accountant.setBudget(0);
+        Page page = createPage();
+        accountant.pageInitialized(page, 1000);
+        accountant.pageAccessed(page);
+        assertEquals(0, accountant.getPageCount());
+        assertEquals(0, accountant.getPageUsage());
+        assertEquals(0, accountant.getEvictionCount());
+        accountant.pageReleased(page);
+        assertEquals(0, accountant.getPageUsage());
+    }
+
+    @Test
+    public void testBudgetEvictsLeastRecentlyUsed() {
+        accountant.setBudget(1000 + accountant.getCacheUsage());
+        Page first = createPage();
+        Page second = createPage();
+        Page third = createPage();
+        accountant.pageInitialized(first, 400);
+        accountant.pageInitialized(second, 400);
+        accountant.pageAccessed(first);
+        accountant.pageInitialized(third, 400);
+        // second is the least recently used.
+        assertEquals(2, accountant.getPageCount());
+        assertEquals(800, accountant.getPageUsage());
+        assertEquals(1, accountant.getEvictionCount());
+        accountant.pageReleased(second);
+        assertEquals(800, accountant.getPageUsage());
+        accountant.pageReleased(first);
+        assertEquals(400, accountant.getPageUsage());
+    }
+
+    @Test
+    public void testReinitializedPageReplacesFootprint() {
+        accountant.setBudget(1000 + accountant.getCacheUsage());
+        Page page = createPage();
+        accountant.pageInitialized(page, 400);
+        accountant.pageInitialized(page, 300);
+        assertEquals(1, accountant.getPageCount());
+        assertEquals(300, accountant.getPageUsage());
+    }
+
+    @Test
+    public void testPageInUseIsNotEvicted() {
+        accountant.setBudget(100 + accountant.getCacheUsage());
+        Page page = createPage();
+        accountant.pageInitialized(page, 400);
+        assertEquals(1, accountant.getPageCount());
+        assertEquals(0, accountant.getEvictionCount());
+    }
+
+    @Test
+    public void testResetPageIsReleased() {
+        accountant.setBudget(1000 + accountant.getCacheUsage());
+        Page page = createPage();
+        accountant.pageInitialized(page, 400);
+        page.resetInitializedState();
+        assertEquals(0, accountant.getPageCount());
+        assertEquals(0, accountant.getPageUsage());
+    }
+
+    @Test
+    public void testRemovingBudgetStopsTracking() {
+        accountant.setBudget(1000 + accountant.getCacheUsage());
+        accountant.pageInitialized(createPage(), 400);
+        accountant.setBudget(0);
+        assertEquals(0, accountant.getPageCount());
+        assertEquals(0, accountant.getPageUsage());
+    }
+
+    @Test
+    public void testPagesAreHeldWeakly() throws InterruptedException {
+        accountant.setBudget(1000 + accountant.getCacheUsage());
+        accountant.pageInitialized(createPage(), 400);
+        for (int i = 0; i < 50 && accountant.getPageCount() > 0; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertEquals(0, accountant.getPageCount());
+        assertEquals(0, accountant.getPageUsage());
+    }
+}
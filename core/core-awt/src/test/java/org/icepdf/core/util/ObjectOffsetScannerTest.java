@@ -0,0 +1,68 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.icepdf.core.io.SeekableByteArrayInputStream;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ObjectOffsetScannerTest {
+
+    private static ObjectOffsetScanner scan(String document) throws Exception {
+        ObjectOffsetScanner scanner = new ObjectOffsetScanner(
+                new SeekableByteArrayInputStream(document.getBytes(StandardCharsets.ISO_8859_1)));
+        scanner.scan();
+        return scanner;
+    }
+
+    @Test
+    public void testObjectHeaders() throws Exception {
+        String document = "%PDF-1.4\n1 0 obj\n<</Type /Catalog>>\nendobj\n12 3 obj\n(x)\nendobj\n";
+        ObjectOffsetScanner scanner = scan(document);
+        assertEquals(2, scanner.getObjectCount());
+        assertEquals(document.indexOf("1 0 obj"), scanner.getObjectOffset(0));
+        assertEquals(1, scanner.getObjectNumber(0));
+        assertEquals(12, scanner.getObjectNumber(1));
+        assertEquals(3, scanner.getGenerationNumber(1));
+        assertArrayEquals(new int[]{0}, scanner.getCatalogIndexes());
+    }
+
+    @Test
+    public void testStreamDataIgnored() throws Exception {
+        String document = "%PDF-1.4\n1 0 obj\n<</Length 40>>stream\n" +
+                "5 0 obj /Catalog trailer\nendstream\nendobj\n" +
+                "2 0 obj\n<</Type /Catalog>>\nendobj\ntrailer\n<</Root 2 0 R>>\n";
+        ObjectOffsetScanner scanner = scan(document);
+        assertEquals(2, scanner.getObjectCount());
+        assertEquals(1, scanner.getObjectNumber(0));
+        assertEquals(2, scanner.getObjectNumber(1));
+        assertArrayEquals(new int[]{1}, scanner.getCatalogIndexes());
+        assertArrayEquals(new long[]{document.lastIndexOf("trailer")}, scanner.getTrailerOffsets());
+    }
+
+    @Test
+    public void testStreamMissingEndStream() throws Exception {
+        String document = "%PDF-1.4\n1 0 obj\n<</Length 10>>stream\nabc\n" +
+                "2 0 obj\n<</Length 3>>stream\nxyz\nendstream\nendobj\n3 0 obj\n(x)\nendobj\n";
+        ObjectOffsetScanner scanner = scan(document);
+        assertEquals(3, scanner.getObjectCount());
+        assertEquals(2, scanner.getObjectNumber(1));
+    }
+}
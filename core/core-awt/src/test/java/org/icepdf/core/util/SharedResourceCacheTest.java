@@ -0,0 +1,120 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SharedResourceCacheTest {
+
+    private static final String FONT_TYPE = "font/Type1C";
+
+    // a fresh copy each time, as each document decodes its own stream.
+    private static ByteBuffer content(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.ISO_8859_1)).asReadOnlyBuffer();
+    }
+
+    @Test
+    public void testIdenticalFontsShareOneInstance() {
+        SharedResourceCache cache = new SharedResourceCache(1024);
+        SharedResourceCache.Lease first = new SharedResourceCache.Lease(cache);
+        SharedResourceCache.Lease second = new SharedResourceCache.Lease(cache);
+        AtomicInteger loads = new AtomicInteger();
+
+        Object font = first.acquire(FONT_TYPE, content("font program"), () -> {
+            loads.incrementAndGet();
+            return new Object();
+        });
+        Object shared = second.acquire(FONT_TYPE, content("font program"), () -> {
+            loads.incrementAndGet();
+            return new Object();
+        });
+
+        assertNotNull(font);
+        assertSame(font, shared);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.size());
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void testDifferentContentOrTypeNotShared() {
+        SharedResourceCache cache = new SharedResourceCache(1024);
+        SharedResourceCache.Lease lease = new SharedResourceCache.Lease(cache);
+
+        Object font = lease.acquire(FONT_TYPE, content("font program"), Object::new);
+        assertNotSame(font, lease.acquire(FONT_TYPE, content("other program"), Object::new));
+        assertNotSame(font, lease.acquire("cmap", content("font program"), Object::new));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void testDisposeKeepsResourcesOtherDocumentHolds() {
+        // no budget, anything not held by a lease is evicted straight away.
+        SharedResourceCache cache = new SharedResourceCache(0);
+        SharedResourceCache.Lease first = new SharedResourceCache.Lease(cache);
+        SharedResourceCache.Lease second = new SharedResourceCache.Lease(cache);
+
+        Object font = first.acquire(FONT_TYPE, content("font program"), Object::new);
+        assertSame(font, second.acquire(FONT_TYPE, content("font program"), Object::new));
+
+        first.release();
+        assertEquals(1, cache.size());
+        assertEquals(0, cache.getEvictionCount());
+        // a third document still finds the font the second holds.
+        SharedResourceCache.Lease third = new SharedResourceCache.Lease(cache);
+        assertSame(font, third.acquire(FONT_TYPE, content("font program"), Object::new));
+
+        second.release();
+        assertEquals(1, cache.size());
+        third.release();
+        assertEquals(0, cache.size());
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testReleasedLeaseDoesNotCache() {
+        SharedResourceCache cache = new SharedResourceCache(1024);
+        SharedResourceCache.Lease lease = new SharedResourceCache.Lease(cache);
+        lease.release();
+
+        Object font = lease.acquire(FONT_TYPE, content("font program"), Object::new);
+        assertNotNull(font);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testUnusedEntriesEvictedOverBudget() {
+        SharedResourceCache cache = new SharedResourceCache(20);
+        SharedResourceCache.Lease first = new SharedResourceCache.Lease(cache);
+        first.acquire(FONT_TYPE, content("0123456789"), Object::new);
+        first.release();
+        assertEquals(1, cache.size());
+
+        SharedResourceCache.Lease second = new SharedResourceCache.Lease(cache);
+        second.acquire(FONT_TYPE, content("abcdefghijklmno"), Object::new);
+        // the released entry makes way for the one in use.
+        assertEquals(1, cache.size());
+        assertEquals(15, cache.getWeight());
+        assertEquals(1, cache.getEvictionCount());
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2006-2019 ICEsoft Technologies Canada Corp.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the
+ * License. You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an "AS
+ * IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either
+ * express or implied. See the License for the specific language
+ * governing permissions and limitations under the License.
+ */
+package org.icepdf.core.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeightedLRUCacheTest {
+
+    private static WeightedLRUCache<Integer, byte[]> createCache(long maxWeight, int concurrencyLevel) {
+        return new WeightedLRUCache<>(maxWeight, concurrencyLevel, bytes -> bytes.length);
+    }
+
+    @Test
+    public void testWeightStaysWithinBudget() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 8);
+        for (int i = 0; i < 100; i++) {
+            cache.put(i, new byte[100]);
+            assertTrue(cache.getWeight() <= 1000);
+        }
+        assertEquals(1000, cache.getWeight());
+        assertEquals(10, cache.size());
+        assertEquals(90, cache.getEvictionCount());
+    }
+
+    @Test
+    public void testEntryLargerThanSegmentShareIsCached() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 8);
+        byte[] value = new byte[900];
+        cache.put(1, value);
+        assertSame(value, cache.get(1));
+        assertEquals(900, cache.getWeight());
+    }
+
+    @Test
+    public void testEntryLargerThanBudgetIsNotCached() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 8);
+        cache.put(1, new byte[100]);
+        cache.put(1, new byte[1001]);
+        assertNull(cache.get(1));
+        assertEquals(0, cache.getWeight());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testLargeEntryEvictsOtherSegments() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 8);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, new byte[100]);
+        }
+        byte[] value = new byte[1000];
+        cache.put(100, value);
+        assertSame(value, cache.get(100));
+        assertEquals(1, cache.size());
+        assertEquals(1000, cache.getWeight());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEvictedFirst() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(300, 1);
+        cache.put(1, new byte[100]);
+        cache.put(2, new byte[100]);
+        cache.put(3, new byte[100]);
+        assertNotNull(cache.get(1));
+        cache.put(4, new byte[100]);
+        assertNotNull(cache.get(1));
+        assertNull(cache.get(2));
+        assertNotNull(cache.get(3));
+        assertNotNull(cache.get(4));
+    }
+
+    @Test
+    public void testReplaceAndRemoveAdjustWeight() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 4);
+        cache.put(1, new byte[100]);
+        cache.put(1, new byte[300]);
+        assertEquals(300, cache.getWeight());
+        assertNotNull(cache.remove(1));
+        assertEquals(0, cache.getWeight());
+        cache.put(2, new byte[100]);
+        cache.clear();
+        assertEquals(0, cache.getWeight());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testSetMaxWeightEvicts() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 4);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, new byte[100]);
+        }
+        cache.setMaxWeight(250);
+        assertTrue(cache.getWeight() <= 250);
+        assertEquals(2, cache.size());
+        cache.setMaxWeight(0);
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void testTrimKeepsBudget() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 1);
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, new byte[100]);
+        }
+        cache.trim(300);
+        assertEquals(3, cache.size());
+        assertNull(cache.get(0));
+        assertNotNull(cache.get(9));
+        assertEquals(1000, cache.getMaxWeight());
+        cache.put(10, new byte[500]);
+        assertEquals(800, cache.getWeight());
+    }
+
+    @Test
+    public void testStatistics() {
+        WeightedLRUCache<Integer, byte[]> cache = createCache(1000, 4);
+        cache.put(1, new byte[10]);
+        cache.get(1);
+        cache.get(2);
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+}
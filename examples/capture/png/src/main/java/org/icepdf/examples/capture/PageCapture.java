@@ -31,9 +31,11 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.function.Consumer;
 
 /**
  * The <code>PageCapture</code> class is an example of how to save page
@@ -66,13 +68,15 @@ public class PageCapture {
         ExecutorService executorService = Executors.newFixedThreadPool(4);
         try {
             document.setFile(filePath);
-            // create a list of callables.
+            // parse the pages four at a time and capture each page once it's ready.
             int pages = document.getNumberOfPages();
-            java.util.List<Callable<Void>> callables = new ArrayList<Callable<Void>>(pages);
+            java.util.List<CompletableFuture<Page>> initializedPages =
+                    document.initPages(0, pages, executorService, 4);
+            java.util.List<CompletableFuture<Void>> captures = new ArrayList<>(pages);
             for (int i = 0; i < pages; i++) {
-                callables.add(new CapturePage(document, i));
+                captures.add(initializedPages.get(i).thenAcceptAsync(new CapturePage(i), executorService));
             }
-            executorService.invokeAll(callables);
+            CompletableFuture.allOf(captures.toArray(new CompletableFuture[0])).exceptionally(e -> null).get();
             executorService.submit(new DocumentCloser(document)).get();
 
         } catch (InterruptedException e) {
@@ -92,23 +96,19 @@ public class PageCapture {
     }
 
     /**
-     * Captures images found in a page  parse to file.
+     * Captures an initialized page to file.
      */
-    public class CapturePage implements Callable<Void> {
-        private Document document;
+    public class CapturePage implements Consumer<Page> {
         private int pageNumber;
         private float scale = 1f;
         private float rotation = 0f;
 
-        private CapturePage(Document document, int pageNumber) {
-            this.document = document;
+        private CapturePage(int pageNumber) {
             this.pageNumber = pageNumber;
         }
 
-        public Void call() {
+        public void accept(Page page) {
             try {
-                Page page = document.getPageTree().getPage(pageNumber);
-                page.init();
                 PDimension sz = page.getSize(Page.BOUNDARY_CROPBOX, rotation, scale);
 
                 int pageWidth = (int) sz.getWidth();
@@ -133,8 +133,6 @@ public class PageCapture {
             } catch (Throwable e) {
                 e.printStackTrace();
             }
-
-            return null;
         }
     }
 